@@ -7,6 +7,7 @@ import com.alibaba.datax.common.util.Configuration;
 
 import com.datastax.driver.core.Cluster;
 import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.Host;
 import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
@@ -14,6 +15,7 @@ import com.datastax.driver.core.SimpleStatement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class CassandraReader extends Reader {
@@ -63,7 +65,8 @@ public class CassandraReader extends Reader {
     private Configuration taskConfig;
     private Cluster cluster = null;
     private Session session = null;
-    private String queryString = null;
+    private List<String> queryStrings = null;
+    private String replicaHost = null;
     private ConsistencyLevel consistencyLevel;
     private int columnNumber = 0;
     private List<String> columnMeta = null;
@@ -98,20 +101,52 @@ public class CassandraReader extends Reader {
         consistencyLevel = ConsistencyLevel.LOCAL_QUORUM;
       }
 
-      queryString = CassandraReaderHelper.getQueryString(taskConfig,cluster);
-      LOG.info("query = " + queryString);
+      queryStrings = new ArrayList<String>();
+      List<Configuration> tokenRanges = taskConfig.getListConfiguration(Key.TOKEN_RANGES);
+      if( tokenRanges != null && !tokenRanges.isEmpty() ) {
+        for( Configuration tokenRange : tokenRanges ) {
+          queryStrings.add(CassandraReaderHelper.getQueryString(taskConfig,cluster,
+              tokenRange.getString(Key.MIN_TOKEN),tokenRange.getString(Key.MAX_TOKEN)));
+        }
+        LOG.info("query " + queryStrings.size() + " token ranges, first query = " + queryStrings.get(0));
+      } else {
+        queryStrings.add(CassandraReaderHelper.getQueryString(taskConfig,cluster));
+        LOG.info("query = " + queryStrings.get(0));
+      }
+      replicaHost = taskConfig.getString(Key.REPLICA_HOST);
 
     }
 
     @Override public void startRead(RecordSender recordSender) {
-      ResultSet r = session.execute(new SimpleStatement(queryString).setConsistencyLevel(consistencyLevel));
-      for (Row row : r ) {
-        Record record = recordSender.createRecord();
-        record = CassandraReaderHelper.buildRecord(record,row,r.getColumnDefinitions(),columnNumber,
-            super.getTaskPluginCollector());
-        if( record != null )
-          recordSender.sendToWriter(record);
+      for( String queryString : queryStrings ) {
+        SimpleStatement statement = new SimpleStatement(queryString);
+        statement.setConsistencyLevel(consistencyLevel);
+        // 区间切分时每个任务的数据都属于同一个副本，直接发给它，避免协调节点再跨节点读取
+        Host host = findReplica();
+        if( host != null ) {
+          statement.setHost(host);
+        }
+        ResultSet r = session.execute(statement);
+        for (Row row : r ) {
+          Record record = recordSender.createRecord();
+          record = CassandraReaderHelper.buildRecord(record,row,r.getColumnDefinitions(),columnNumber,
+              super.getTaskPluginCollector());
+          if( record != null )
+            recordSender.sendToWriter(record);
+        }
+      }
+    }
+
+    private Host findReplica() {
+      if( replicaHost == null || replicaHost.isEmpty() ) {
+        return null;
+      }
+      for( Host host : cluster.getMetadata().getAllHosts() ) {
+        if( host.isUp() && replicaHost.equals(host.getAddress().getHostAddress()) ) {
+          return host;
+        }
       }
+      return null;
     }
 
     @Override public void destroy() {
@@ -423,6 +423,16 @@ public class CassandraReaderHelper {
       splittedConfigs.add(jobConfig);
       return splittedConfigs;
     }
+    String keyspace = jobConfig.getString(Key.KEYSPACE);
+    String table = jobConfig.getString(Key.TABLE);
+    CassandraTokenSplitter splitter = CassandraTokenSplitter.forCluster(cluster,keyspace,table);
+    if( splitter != null ) {
+      List<Configuration> tokenRingConfigs = splitter.split(adviceNumber,jobConfig);
+      if( tokenRingConfigs != null && !tokenRingConfigs.isEmpty() ) {
+        return tokenRingConfigs;
+      }
+      LOG.warn("no token range found in cluster metadata, split the token ring evenly.");
+    }
     String partitioner = cluster.getMetadata().getPartitioner();
     if( partitioner.endsWith("RandomPartitioner")) {
       BigDecimal minToken = BigDecimal.valueOf(-1);
@@ -465,6 +475,11 @@ public class CassandraReaderHelper {
   }
 
   public static String getQueryString(Configuration taskConfig,Cluster cluster) {
+    return getQueryString(taskConfig,cluster,taskConfig.getString(Key.MIN_TOKEN),
+        taskConfig.getString(Key.MAX_TOKEN));
+  }
+
+  public static String getQueryString(Configuration taskConfig,Cluster cluster,String minToken,String maxToken) {
     List<String> columnMeta = taskConfig.getList(Key.COLUMN,String.class);
     String keyspace = taskConfig.getString(Key.KEYSPACE);
     String table = taskConfig.getString(Key.TABLE);
@@ -482,8 +497,6 @@ public class CassandraReaderHelper {
     if( whereString != null && !whereString.isEmpty() ) {
       where.append(whereString);
     }
-    String minToken = taskConfig.getString(Key.MIN_TOKEN);
-    String maxToken = taskConfig.getString(Key.MAX_TOKEN);
     if( minToken !=null || maxToken !=null ) {
       LOG.info("range:" + minToken + "~" + maxToken);
       List<ColumnMetadata> pks = cluster.getMetadata().getKeyspace(keyspace).getTable(table).getPartitionKey();
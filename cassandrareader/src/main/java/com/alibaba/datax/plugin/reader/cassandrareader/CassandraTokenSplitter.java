@@ -0,0 +1,289 @@
+package com.alibaba.datax.plugin.reader.cassandrareader;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.alibaba.datax.common.util.Configuration;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Host;
+import com.datastax.driver.core.Metadata;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.TokenRange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 按集群实际的 token 环切分任务：
+ * 以 Metadata.getTokenRanges() 中每个(vnode)区间为单位，结合 system.size_estimates 估算的表大小再细分，
+ * 每个区间分配给它的一个副本节点(尽量均衡)，同一节点上的区间再按大小打包成任务。
+ * 这样每个任务只读某一个节点拥有的数据，task 读取时把查询直接发给该节点，避免协调节点跨节点拉数据。
+ */
+public class CassandraTokenSplitter {
+  private static final Logger LOG = LoggerFactory
+      .getLogger(CassandraTokenSplitter.class);
+
+  static final long DEFAULT_SPLIT_SIZE_IN_MB = 64;
+
+  private static final String SIZE_ESTIMATES_QUERY =
+      "SELECT range_start, range_end, mean_partition_size, partitions_count "
+          + "FROM system.size_estimates WHERE keyspace_name = ? AND table_name = ?";
+
+  private final Cluster cluster;
+  private final String keyspace;
+  private final String table;
+  // token 环的范围 (ringMin, ringMax]
+  private final BigInteger ringMin;
+  private final BigInteger ringMax;
+  private final BigInteger ringSize;
+
+  private CassandraTokenSplitter(Cluster cluster, String keyspace, String table,
+      BigInteger ringMin, BigInteger ringMax) {
+    this.cluster = cluster;
+    this.keyspace = keyspace;
+    this.table = table;
+    this.ringMin = ringMin;
+    this.ringMax = ringMax;
+    this.ringSize = ringMax.subtract(ringMin);
+  }
+
+  /**
+   * 只支持 Murmur3Partitioner 和 RandomPartitioner，其它分区器返回 null
+   */
+  static CassandraTokenSplitter forCluster(Cluster cluster, String keyspace, String table) {
+    String partitioner = cluster.getMetadata().getPartitioner();
+    if (partitioner.endsWith("RandomPartitioner")) {
+      return new CassandraTokenSplitter(cluster, keyspace, table,
+          BigInteger.valueOf(-1), new BigInteger("2").pow(127));
+    } else if (partitioner.endsWith("Murmur3Partitioner")) {
+      return new CassandraTokenSplitter(cluster, keyspace, table,
+          BigInteger.valueOf(Long.MIN_VALUE), BigInteger.valueOf(Long.MAX_VALUE));
+    }
+    return null;
+  }
+
+  public List<Configuration> split(int adviceNumber, Configuration jobConfig) {
+    Metadata metadata = cluster.getMetadata();
+    List<Range> ranges = new ArrayList<Range>();
+    for (TokenRange tokenRange : metadata.getTokenRanges()) {
+      Set<Host> replicas = metadata.getReplicas(keyspace, tokenRange);
+      addUnwrapped(ranges, toBigInteger(tokenRange.getStart().getValue()),
+          toBigInteger(tokenRange.getEnd().getValue()), new ArrayList<Host>(replicas));
+    }
+    if (ranges.isEmpty()) {
+      return null;
+    }
+
+    long splitSize = jobConfig.getLong(Key.SPLIT_SIZE_IN_MB, DEFAULT_SPLIT_SIZE_IN_MB) * 1024 * 1024;
+    long tableSize = estimateTableSize();
+    int splitCount = adviceNumber;
+    if (tableSize > 0 && splitSize > 0) {
+      splitCount = (int) Math.max(adviceNumber, Math.min(Integer.MAX_VALUE, (tableSize + splitSize - 1) / splitSize));
+    }
+    LOG.info("table {}.{} estimated size {} bytes, {} token ranges, split into about {} tasks.",
+        keyspace, table, tableSize, ranges.size(), splitCount);
+
+    // 每个任务期望读取的 token 数
+    BigInteger target = ringSize.divide(BigInteger.valueOf(splitCount)).max(BigInteger.ONE);
+    Map<String, List<Range>> rangesByHost = assignToReplicas(subSplit(ranges, target));
+
+    List<Configuration> splittedConfigs = new ArrayList<Configuration>();
+    for (Map.Entry<String, List<Range>> entry : rangesByHost.entrySet()) {
+      for (List<Range> group : pack(entry.getValue(), splitCount)) {
+        List<Map<String, String>> tokenRanges = new ArrayList<Map<String, String>>(group.size());
+        for (Range range : group) {
+          Map<String, String> tokenRange = new HashMap<String, String>();
+          tokenRange.put(Key.MIN_TOKEN, range.start.toString());
+          tokenRange.put(Key.MAX_TOKEN, range.end.toString());
+          tokenRanges.add(tokenRange);
+        }
+        Configuration taskConfig = jobConfig.clone();
+        taskConfig.set(Key.TOKEN_RANGES, tokenRanges);
+        if (!entry.getKey().isEmpty()) {
+          taskConfig.set(Key.REPLICA_HOST, entry.getKey());
+        }
+        splittedConfigs.add(taskConfig);
+      }
+    }
+    return splittedConfigs;
+  }
+
+  /**
+   * 跨越环尾的区间 (start, end] 拆成 (start, ringMax] 和 (ringMin, end]，start == end 表示整个环
+   */
+  private void addUnwrapped(List<Range> ranges, BigInteger start, BigInteger end, List<Host> replicas) {
+    if (start.compareTo(end) < 0) {
+      ranges.add(new Range(start, end, replicas));
+      return;
+    }
+    if (start.compareTo(ringMax) < 0) {
+      ranges.add(new Range(start, ringMax, replicas));
+    }
+    if (end.compareTo(ringMin) > 0) {
+      ranges.add(new Range(ringMin, end, replicas));
+    }
+  }
+
+  /**
+   * 比 target 大的区间等分成若干段
+   */
+  private List<Range> subSplit(List<Range> ranges, BigInteger target) {
+    List<Range> result = new ArrayList<Range>();
+    for (Range range : ranges) {
+      BigInteger size = range.size();
+      BigInteger[] qr = size.divideAndRemainder(target);
+      int pieces = qr[0].intValue() + (qr[1].signum() > 0 ? 1 : 0);
+      if (pieces <= 1) {
+        result.add(range);
+        continue;
+      }
+      BigInteger step = size.divide(BigInteger.valueOf(pieces));
+      BigInteger start = range.start;
+      for (int i = 0; i < pieces; i++) {
+        BigInteger end = (i == pieces - 1) ? range.end : start.add(step);
+        result.add(new Range(start, end, range.replicas));
+        start = end;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * 每个区间交给当前分配量最少的在线副本，返回 副本地址 -> 区间，没有可用副本的区间归到空字符串下
+   */
+  private Map<String, List<Range>> assignToReplicas(List<Range> ranges) {
+    Map<String, BigInteger> load = new HashMap<String, BigInteger>();
+    Map<String, List<Range>> rangesByHost = new LinkedHashMap<String, List<Range>>();
+    for (Range range : ranges) {
+      String chosen = "";
+      BigInteger chosenLoad = null;
+      for (Host host : range.replicas) {
+        if (!host.isUp()) {
+          continue;
+        }
+        String address = host.getAddress().getHostAddress();
+        BigInteger hostLoad = load.containsKey(address) ? load.get(address) : BigInteger.ZERO;
+        if (chosenLoad == null || hostLoad.compareTo(chosenLoad) < 0
+            || (hostLoad.compareTo(chosenLoad) == 0 && address.compareTo(chosen) < 0)) {
+          chosen = address;
+          chosenLoad = hostLoad;
+        }
+      }
+      if (chosenLoad != null) {
+        load.put(chosen, chosenLoad.add(range.size()));
+      }
+      List<Range> hostRanges = rangesByHost.get(chosen);
+      if (hostRanges == null) {
+        hostRanges = new ArrayList<Range>();
+        rangesByHost.put(chosen, hostRanges);
+      }
+      hostRanges.add(range);
+    }
+    return rangesByHost;
+  }
+
+  /**
+   * 同一节点上的区间按 token 排序后依次打包，任务数按该节点分到的 token 占比从 splitCount 中分配(至少一个)，
+   * 按累计 token 数划分边界，使各包大小接近
+   */
+  private List<List<Range>> pack(List<Range> ranges, int splitCount) {
+    Collections.sort(ranges, new Comparator<Range>() {
+      @Override public int compare(Range o1, Range o2) {
+        return o1.start.compareTo(o2.start);
+      }
+    });
+    BigInteger hostSize = BigInteger.ZERO;
+    for (Range range : ranges) {
+      hostSize = hostSize.add(range.size());
+    }
+    BigInteger[] qr = hostSize.multiply(BigInteger.valueOf(splitCount)).divideAndRemainder(ringSize);
+    int groupCount = qr[0].intValue() + (qr[1].shiftLeft(1).compareTo(ringSize) >= 0 ? 1 : 0);
+    groupCount = Math.max(1, Math.min(groupCount, ranges.size()));
+
+    List<List<Range>> groups = new ArrayList<List<Range>>();
+    List<Range> group = new ArrayList<Range>();
+    BigInteger accumulated = BigInteger.ZERO;
+    for (Range range : ranges) {
+      group.add(range);
+      accumulated = accumulated.add(range.size());
+      BigInteger boundary = hostSize.multiply(BigInteger.valueOf(groups.size() + 1))
+          .divide(BigInteger.valueOf(groupCount));
+      if (groups.size() < groupCount - 1 && accumulated.compareTo(boundary) >= 0) {
+        groups.add(group);
+        group = new ArrayList<Range>();
+      }
+    }
+    if (!group.isEmpty()) {
+      groups.add(group);
+    }
+    return groups;
+  }
+
+  /**
+   * 根据一个节点上 system.size_estimates 的统计按其覆盖的 token 比例推算整张表的大小，取不到时返回 -1
+   */
+  private long estimateTableSize() {
+    Session session = null;
+    try {
+      session = cluster.connect();
+      ResultSet rs = session.execute(new SimpleStatement(SIZE_ESTIMATES_QUERY, keyspace, table));
+      BigInteger bytes = BigInteger.ZERO;
+      BigInteger covered = BigInteger.ZERO;
+      for (Row row : rs) {
+        BigInteger start = new BigInteger(row.getString("range_start"));
+        BigInteger end = new BigInteger(row.getString("range_end"));
+        BigInteger span = end.subtract(start);
+        if (span.signum() <= 0) {
+          span = span.add(ringSize);
+        }
+        covered = covered.add(span);
+        bytes = bytes.add(BigInteger.valueOf(row.getLong("mean_partition_size"))
+            .multiply(BigInteger.valueOf(row.getLong("partitions_count"))));
+      }
+      if (covered.signum() <= 0) {
+        return -1;
+      }
+      return bytes.multiply(ringSize).divide(covered).min(BigInteger.valueOf(Long.MAX_VALUE)).longValue();
+    } catch (Exception e) {
+      LOG.warn("read system.size_estimates failed, split by adviceNumber only: " + e.getMessage());
+      return -1;
+    } finally {
+      if (session != null) {
+        session.close();
+      }
+    }
+  }
+
+  private static BigInteger toBigInteger(Object tokenValue) {
+    if (tokenValue instanceof BigInteger) {
+      return (BigInteger) tokenValue;
+    }
+    return new BigInteger(String.valueOf(tokenValue));
+  }
+
+  private static class Range {
+    final BigInteger start;
+    final BigInteger end;
+    final List<Host> replicas;
+
+    Range(BigInteger start, BigInteger end, List<Host> replicas) {
+      this.start = start;
+      this.end = end;
+      this.replicas = replicas;
+    }
+
+    BigInteger size() {
+      return end.subtract(start);
+    }
+  }
+}
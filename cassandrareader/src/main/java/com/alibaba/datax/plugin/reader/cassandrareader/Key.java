@@ -19,6 +19,9 @@ public class Key {
   public final static String CONSITANCY_LEVEL = "consistancyLevel";
   public final static String MIN_TOKEN = "minToken";
   public final static String MAX_TOKEN = "maxToken";
+  public final static String TOKEN_RANGES = "tokenRanges";
+  public final static String REPLICA_HOST = "replicaHost";
+  public final static String SPLIT_SIZE_IN_MB = "splitSizeInMB";
 
   /**
    * 每个列的名字
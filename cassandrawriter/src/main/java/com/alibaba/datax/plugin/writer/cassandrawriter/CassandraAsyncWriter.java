@@ -0,0 +1,199 @@
+package com.alibaba.datax.plugin.writer.cassandrawriter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.alibaba.datax.common.exception.DataXException;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.CodecRegistry;
+import com.datastax.driver.core.Host;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+
+/**
+ * 异步流水线写入：最多 maxInFlight 个请求同时在途，每个副本节点最多 maxInFlightPerHost 个，
+ * 窗口满时写线程阻塞，任意一个请求完成即可继续发送，而不是攒满 batchSize 后等整批返回。
+ * <p/>
+ * batchSize 大于 1 时每读满 batchSize 条按分区键分组，同一分区的多行合并为一个 UNLOGGED batch，
+ * 不同分区的行各自单独发送，避免跨分区 batch 给协调节点带来的额外压力。
+ * 请求直接发给负载最小的副本节点(Statement.setHost)。
+ */
+public class CassandraAsyncWriter {
+  private final Cluster cluster;
+  private final Session session;
+  private final ProtocolVersion protocolVersion;
+  private final CodecRegistry codecRegistry;
+  private final int batchSize;
+
+  private final int maxInFlight;
+  private final int maxInFlightPerHost;
+  private final Semaphore window;
+  private final Map<Host, Semaphore> hostWindows = new ConcurrentHashMap<Host, Semaphore>();
+
+  private final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+
+  // 分区键 -> 该分区待发送的行
+  private final Map<Object, List<BoundStatement>> pending = new LinkedHashMap<Object, List<BoundStatement>>();
+  private int pendingCount = 0;
+
+  public CassandraAsyncWriter(Cluster cluster, Session session, int batchSize,
+      int maxInFlight, int maxInFlightPerHost) {
+    if (maxInFlight < 1 || maxInFlightPerHost < 1) {
+      throw DataXException.asDataXException(CassandraWriterErrorCode.CONF_ERROR,
+          String.format("配置信息有错误. %s[%d] 和 %s[%d] 必须大于0.",
+              Key.MAX_IN_FLIGHT, maxInFlight, Key.MAX_IN_FLIGHT_PER_HOST, maxInFlightPerHost));
+    }
+    this.cluster = cluster;
+    this.session = session;
+    this.protocolVersion = cluster.getConfiguration().getProtocolOptions().getProtocolVersion();
+    this.codecRegistry = cluster.getConfiguration().getCodecRegistry();
+    this.batchSize = Math.max(batchSize, 1);
+    this.maxInFlight = maxInFlight;
+    this.maxInFlightPerHost = maxInFlightPerHost;
+    this.window = new Semaphore(maxInFlight);
+  }
+
+  public void write(BoundStatement stmt) {
+    checkError();
+    if (batchSize <= 1) {
+      send(stmt, stmt.getRoutingKey(protocolVersion, codecRegistry));
+      return;
+    }
+    ByteBuffer routingKey = stmt.getRoutingKey(protocolVersion, codecRegistry);
+    // 取不到分区键时不与其它行合并
+    Object groupKey = routingKey != null ? routingKey : new Object();
+    List<BoundStatement> group = pending.get(groupKey);
+    if (group == null) {
+      group = new ArrayList<BoundStatement>();
+      pending.put(groupKey, group);
+    }
+    group.add(stmt);
+    if (++pendingCount >= batchSize) {
+      flush();
+    }
+  }
+
+  public void flush() {
+    for (List<BoundStatement> group : pending.values()) {
+      BoundStatement first = group.get(0);
+      ByteBuffer routingKey = first.getRoutingKey(protocolVersion, codecRegistry);
+      if (group.size() == 1) {
+        send(first, routingKey);
+      } else {
+        BatchStatement batch = new BatchStatement(BatchStatement.Type.UNLOGGED);
+        batch.addAll(group);
+        batch.setConsistencyLevel(first.getConsistencyLevel());
+        send(batch, routingKey);
+      }
+    }
+    pending.clear();
+    pendingCount = 0;
+  }
+
+  /**
+   * 发送剩余数据并等待所有在途请求完成
+   */
+  public void close() {
+    flush();
+    window.acquireUninterruptibly(maxInFlight);
+    window.release(maxInFlight);
+    checkError();
+  }
+
+  private void send(Statement stmt, ByteBuffer routingKey) {
+    window.acquireUninterruptibly();
+    final Semaphore hostWindow;
+    try {
+      checkError();
+      Host host = chooseReplica(stmt.getKeyspace(), routingKey);
+      if (host != null) {
+        hostWindow = hostWindows.get(host);
+        hostWindow.acquireUninterruptibly();
+        stmt.setHost(host);
+      } else {
+        hostWindow = null;
+      }
+    } catch (RuntimeException e) {
+      window.release();
+      throw e;
+    }
+
+    ResultSetFuture future;
+    try {
+      future = session.executeAsync(stmt);
+    } catch (RuntimeException e) {
+      release(hostWindow);
+      throw e;
+    }
+    Futures.addCallback(future, new FutureCallback<ResultSet>() {
+      @Override public void onSuccess(ResultSet result) {
+        release(hostWindow);
+      }
+
+      @Override public void onFailure(Throwable t) {
+        error.compareAndSet(null, t);
+        release(hostWindow);
+      }
+    });
+  }
+
+  private void release(Semaphore hostWindow) {
+    if (hostWindow != null) {
+      hostWindow.release();
+    }
+    window.release();
+  }
+
+  /**
+   * 在线副本中选择在途请求最少的一个，取不到副本信息时返回 null，交给负载均衡策略
+   */
+  private Host chooseReplica(String keyspace, ByteBuffer routingKey) {
+    if (keyspace == null || routingKey == null) {
+      return null;
+    }
+    Set<Host> replicas = cluster.getMetadata().getReplicas(keyspace, routingKey);
+    Host chosen = null;
+    int chosenAvailable = -1;
+    for (Host host : replicas) {
+      if (!host.isUp()) {
+        continue;
+      }
+      Semaphore hostWindow = hostWindows.get(host);
+      if (hostWindow == null) {
+        hostWindow = new Semaphore(maxInFlightPerHost);
+        hostWindows.put(host, hostWindow);
+      }
+      if (hostWindow.availablePermits() > chosenAvailable) {
+        chosen = host;
+        chosenAvailable = hostWindow.availablePermits();
+      }
+    }
+    return chosen;
+  }
+
+  private void checkError() {
+    Throwable t = error.get();
+    if (t == null) {
+      return;
+    }
+    if (t instanceof DataXException) {
+      throw (DataXException) t;
+    }
+    throw DataXException.asDataXException(CassandraWriterErrorCode.WRITE_DATA_ERROR, t);
+  }
+}
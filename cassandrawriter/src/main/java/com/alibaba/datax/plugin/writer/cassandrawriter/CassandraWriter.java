@@ -2,7 +2,6 @@ package com.alibaba.datax.plugin.writer.cassandrawriter;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 import com.alibaba.datax.common.element.Column;
 import com.alibaba.datax.common.element.Record;
@@ -21,7 +20,6 @@ import com.datastax.driver.core.DataType;
 import com.datastax.driver.core.HostDistance;
 import com.datastax.driver.core.PoolingOptions;
 import com.datastax.driver.core.PreparedStatement;
-import com.datastax.driver.core.ResultSetFuture;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.TableMetadata;
 import com.datastax.driver.core.querybuilder.Insert;
@@ -69,7 +67,7 @@ public class CassandraWriter extends Writer {
     private int writeTimeCol = -1;
     private boolean asyncWrite = false;
     private long batchSize = 1;
-    private List<ResultSetFuture> unConfirmedWrite;
+    private CassandraAsyncWriter asyncWriter;
     private List<BoundStatement> bufferedWrite;
 
     @Override public void startWrite(RecordReceiver lineReceiver) {
@@ -103,42 +101,31 @@ public class CassandraWriter extends Writer {
             Column col = record.getColumn(writeTimeCol );
             boundStmt.setLong(columnNumber - 1,col.asLong());
           }
-          if( batchSize <= 1 ) {
+          if( asyncWrite ) {
+            asyncWriter.write(boundStmt);
+          } else if( batchSize <= 1 ) {
             session.execute(boundStmt);
           } else {
-            if( asyncWrite ) {
-              unConfirmedWrite.add(session.executeAsync(boundStmt));
-              if (unConfirmedWrite.size() >= batchSize) {
-                for (ResultSetFuture write : unConfirmedWrite) {
-                  write.getUninterruptibly(10000, TimeUnit.MILLISECONDS);
+            bufferedWrite.add(boundStmt);
+            if( bufferedWrite.size() >= batchSize ) {
+              BatchStatement batchStatement = new BatchStatement(Type.UNLOGGED);
+              batchStatement.addAll(bufferedWrite);
+              try {
+                session.execute(batchStatement);
+              } catch (Exception e ) {
+                LOG.error("batch写入失败，尝试逐条写入.",e);
+                for( BoundStatement stmt: bufferedWrite ) {
+                  session.execute(stmt);
                 }
-                unConfirmedWrite.clear();
-              }
-            } else {
-              bufferedWrite.add(boundStmt);
-              if( bufferedWrite.size() >= batchSize ) {
-                BatchStatement batchStatement = new BatchStatement(Type.UNLOGGED);
-                batchStatement.addAll(bufferedWrite);
-                try {
-                  session.execute(batchStatement);
-                } catch (Exception e ) {
-                  LOG.error("batch写入失败，尝试逐条写入.",e);
-                  for( BoundStatement stmt: bufferedWrite ) {
-                    session.execute(stmt);
-                  }
-                }
-                ///LOG.info("batch finished. size = " + bufferedWrite.size());
-                bufferedWrite.clear();
               }
+              ///LOG.info("batch finished. size = " + bufferedWrite.size());
+              bufferedWrite.clear();
             }
           }
 
         }
-        if( unConfirmedWrite != null && unConfirmedWrite.size() > 0 ) {
-          for( ResultSetFuture write : unConfirmedWrite ) {
-            write.getUninterruptibly(10000, TimeUnit.MILLISECONDS);
-          }
-          unConfirmedWrite.clear();
+        if( asyncWriter != null ) {
+          asyncWriter.close();
         }
         if( bufferedWrite !=null && bufferedWrite.size() > 0 ) {
           BatchStatement batchStatement = new BatchStatement(Type.UNLOGGED);
@@ -225,12 +212,12 @@ public class CassandraWriter extends Writer {
 
       statement = session.prepare(insertStmt);
 
-      if( batchSize > 1 ) {
-        if( asyncWrite ) {
-          unConfirmedWrite = new ArrayList<ResultSetFuture>();
-        } else {
-          bufferedWrite = new ArrayList<BoundStatement>();
-        }
+      if( asyncWrite ) {
+        int maxInFlight = taskConfig.getInt(Key.MAX_IN_FLIGHT,connectionsPerHost * maxPendingPerConnection);
+        int maxInFlightPerHost = taskConfig.getInt(Key.MAX_IN_FLIGHT_PER_HOST,maxInFlight);
+        asyncWriter = new CassandraAsyncWriter(cluster,session,(int)batchSize,maxInFlight,maxInFlightPerHost);
+      } else if( batchSize > 1 ) {
+        bufferedWrite = new ArrayList<BoundStatement>();
       }
 
     }
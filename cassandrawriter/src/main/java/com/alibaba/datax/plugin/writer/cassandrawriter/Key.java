@@ -23,6 +23,11 @@ public class Key {
    * 异步写入的批次大小，默认1（不异步写入）
    */
   public final static String BATCH_SIZE = "batchSize";
+  /**
+   * 异步写入时同时在途的请求数上限，以及每个节点上的上限
+   */
+  public final static String MAX_IN_FLIGHT = "maxInFlight";
+  public final static String MAX_IN_FLIGHT_PER_HOST = "maxInFlightPerHost";
 
   /**
    * 每个列的名字
@@ -0,0 +1,342 @@
+package com.alibaba.datax.plugin.writer.clickhousewriter;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.plugin.RecordReceiver;
+import com.alibaba.datax.common.plugin.TaskPluginCollector;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.plugin.rdbms.util.DBUtilErrorCode;
+import com.alibaba.datax.plugin.rdbms.writer.Constant;
+import com.alibaba.datax.plugin.rdbms.writer.Key;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 以 RowBinary 格式通过 HTTP 接口写入 ClickHouse，绕过 JDBC 驱动逐个字段的 setXxx 和 SQL 拼接：
+ * 1. 记录在读取线程中直接编码到复用的 RowBinaryBuffer，编码失败的记录作为脏数据，不影响同一批次的其它记录
+ * 2. 每 blockSize 行（或 batchByteSize 字节）作为一个 INSERT ... FORMAT RowBinary 请求，
+ *    由 insertThreadNumber 个线程并行发送，发送中的 buffer 数有上限，形成反压
+ * <p/>
+ * 一个批次在 ClickHouse 端整体写入，批次失败时任务直接失败（不逐条重试，避免重复写入）
+ */
+public class ClickhouseRowBinaryWriter {
+	private static final Logger LOG = LoggerFactory.getLogger(ClickhouseRowBinaryWriter.class);
+
+	private static final int CONNECT_TIMEOUT = 10000;
+
+	private static final int DEFAULT_HTTP_PORT = 8123;
+
+	private static final int DEFAULT_HTTPS_PORT = 8443;
+
+	private static final RowBinaryBuffer END_OF_STREAM = new RowBinaryBuffer(0);
+
+	private final String endpoint;
+
+	private final String database;
+
+	private final String username;
+
+	private final String password;
+
+	private final String table;
+
+	private final List<String> columns;
+
+	private final boolean emptyAsNull;
+
+	private final int blockSize;
+
+	private final int blockByteSize;
+
+	private final int insertThreadNumber;
+
+	private final int socketTimeout;
+
+	private final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+
+	private RowBinaryEncoder[] encoders;
+
+	public ClickhouseRowBinaryWriter(Configuration writerSliceConfig) {
+		String jdbcUrl = writerSliceConfig.getString(Key.JDBC_URL);
+		URI uri = URI.create(StringUtils.removeStartIgnoreCase(jdbcUrl, "jdbc:"));
+		Map<String, String> parameters = parseQuery(uri.getRawQuery());
+		boolean ssl = "true".equalsIgnoreCase(parameters.get("ssl"));
+		int port = uri.getPort() > 0 ? uri.getPort() : (ssl ? DEFAULT_HTTPS_PORT : DEFAULT_HTTP_PORT);
+		this.endpoint = String.format("%s://%s:%d/", ssl ? "https" : "http", uri.getHost(), port);
+		String path = StringUtils.strip(uri.getPath(), "/");
+		this.database = StringUtils.isBlank(path) ? null : path;
+
+		this.username = writerSliceConfig.getString(Key.USERNAME);
+		this.password = writerSliceConfig.getString(Key.PASSWORD);
+		this.table = writerSliceConfig.getString(Key.TABLE);
+		this.columns = writerSliceConfig.getList(Key.COLUMN, String.class);
+		this.emptyAsNull = writerSliceConfig.getBool(Key.EMPTY_AS_NULL, true);
+		this.blockSize = writerSliceConfig.getInt(Config.BLOCK_SIZE, Config.DEFAULT_BLOCK_SIZE);
+		this.blockByteSize = writerSliceConfig.getInt(Key.BATCH_BYTE_SIZE,
+				Constant.DEFAULT_BATCH_BYTE_SIZE);
+		this.insertThreadNumber = Math.max(1, writerSliceConfig.getInt(Config.INSERT_THREAD_NUMBER,
+				Config.DEFAULT_INSERT_THREAD_NUMBER));
+		this.socketTimeout = writerSliceConfig.getInt(Config.SOCKET_TIMEOUT, Config.DEFAULT_SOCKET_TIMEOUT);
+	}
+
+	public static boolean isEnabled(Configuration writerSliceConfig) {
+		return Config.WRITE_FORMAT_ROW_BINARY.equalsIgnoreCase(writerSliceConfig.getString(Config.WRITE_FORMAT));
+	}
+
+	private static Map<String, String> parseQuery(String query) {
+		Map<String, String> parameters = new HashMap<String, String>();
+		if (StringUtils.isNotBlank(query)) {
+			for (String pair : query.split("&")) {
+				int index = pair.indexOf('=');
+				if (index > 0) {
+					parameters.put(pair.substring(0, index), pair.substring(index + 1));
+				}
+			}
+		}
+		return parameters;
+	}
+
+	private static String unquote(String column) {
+		return StringUtils.strip(column.trim(), "`\"");
+	}
+
+	/**
+	 * 通过 DESCRIBE TABLE 获取字段的 ClickHouse 类型（JDBC 元数据中的类型名不包含 Nullable、精度等信息）
+	 */
+	private void initEncoders() throws IOException {
+		String describe = execute(String.format("DESCRIBE TABLE %s FORMAT TabSeparatedRaw", this.table), null);
+		Map<String, String> columnTypes = new HashMap<String, String>();
+		Map<String, String> lowerCaseColumnTypes = new HashMap<String, String>();
+		for (String line : describe.split("\n")) {
+			String[] fields = line.split("\t");
+			if (fields.length >= 2) {
+				columnTypes.put(fields[0], fields[1]);
+				lowerCaseColumnTypes.put(fields[0].toLowerCase(), fields[1]);
+			}
+		}
+
+		this.encoders = new RowBinaryEncoder[this.columns.size()];
+		for (int i = 0; i < this.columns.size(); i++) {
+			String column = unquote(this.columns.get(i));
+			String type = columnTypes.get(column);
+			if (null == type) {
+				type = lowerCaseColumnTypes.get(column.toLowerCase());
+			}
+			if (null == type) {
+				throw DataXException.asDataXException(DBUtilErrorCode.CONF_ERROR,
+						String.format("您配置的列 [%s] 不在表 [%s] 中. 请检查您的配置并作出修改.", column, this.table));
+			}
+			this.encoders[i] = RowBinaryEncoder.create(type);
+		}
+	}
+
+	public void startWrite(RecordReceiver recordReceiver, TaskPluginCollector taskPluginCollector) {
+		try {
+			initEncoders();
+		} catch (IOException e) {
+			throw DataXException.asDataXException(DBUtilErrorCode.GET_COLUMN_INFO_FAILED,
+					String.format("获取表:%s 的字段的元信息时失败. 请联系 DBA 核查该库、表信息.", this.table), e);
+		}
+		String insertQuery = String.format("INSERT INTO %s (%s) FORMAT RowBinary",
+				this.table, StringUtils.join(this.columns, ","));
+
+		// 每个发送线程最多持有一个 buffer，读取线程再持有一个
+		BlockingQueue<RowBinaryBuffer> freeBuffers = new ArrayBlockingQueue<RowBinaryBuffer>(this.insertThreadNumber + 1);
+		BlockingQueue<RowBinaryBuffer> fullBuffers = new ArrayBlockingQueue<RowBinaryBuffer>(this.insertThreadNumber + 1);
+		for (int i = 0; i <= this.insertThreadNumber; i++) {
+			freeBuffers.add(new RowBinaryBuffer(1 << 20));
+		}
+		List<Thread> senders = new ArrayList<Thread>(this.insertThreadNumber);
+		for (int i = 0; i < this.insertThreadNumber; i++) {
+			Thread sender = new Thread(new Sender(insertQuery, freeBuffers, fullBuffers),
+					Thread.currentThread().getName() + "-insert-" + i);
+			sender.setDaemon(true);
+			senders.add(sender);
+			sender.start();
+		}
+
+		try {
+			RowBinaryBuffer buffer = take(freeBuffers);
+			Record record;
+			while ((record = recordReceiver.getFromReader()) != null) {
+				if (record.getColumnNumber() != this.encoders.length) {
+					// 源头读取字段列数与目的表字段写入列数不相等，直接报错
+					throw DataXException.asDataXException(DBUtilErrorCode.CONF_ERROR,
+							String.format(
+									"列配置信息有错误. 因为您配置的任务中，源头读取字段数:%s 与 目的表要写入的字段数:%s 不相等. 请检查您的配置并作出修改.",
+									record.getColumnNumber(), this.encoders.length));
+				}
+				int mark = buffer.size();
+				try {
+					for (int i = 0; i < this.encoders.length; i++) {
+						encode(this.encoders[i], record.getColumn(i), buffer);
+					}
+				} catch (Exception e) {
+					buffer.truncate(mark);
+					taskPluginCollector.collectDirtyRecord(record, e);
+					continue;
+				}
+				buffer.incrementRows();
+
+				if (buffer.rows() >= this.blockSize || buffer.size() >= this.blockByteSize) {
+					put(fullBuffers, buffer);
+					buffer = take(freeBuffers);
+				}
+			}
+			if (buffer.rows() > 0) {
+				put(fullBuffers, buffer);
+			}
+			for (int i = 0; i < this.insertThreadNumber; i++) {
+				put(fullBuffers, END_OF_STREAM);
+			}
+			for (Thread sender : senders) {
+				sender.join();
+			}
+			checkError();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw DataXException.asDataXException(ClickhouseWriterErrorCode.ROW_BINARY_INSERT_ERROR, e);
+		} finally {
+			for (Thread sender : senders) {
+				sender.interrupt();
+			}
+		}
+	}
+
+	private void encode(RowBinaryEncoder encoder, Column column, RowBinaryBuffer buffer) {
+		if (null == column.getRawData()
+				|| (this.emptyAsNull && encoder.isNumeric() && column.getType() == Column.Type.STRING
+				&& "".equals(column.asString()))) {
+			encoder.encodeNull(buffer);
+		} else {
+			encoder.encode(column, buffer);
+		}
+	}
+
+	private RowBinaryBuffer take(BlockingQueue<RowBinaryBuffer> queue) throws InterruptedException {
+		RowBinaryBuffer buffer;
+		while ((buffer = queue.poll(100, TimeUnit.MILLISECONDS)) == null) {
+			checkError();
+		}
+		return buffer;
+	}
+
+	private void put(BlockingQueue<RowBinaryBuffer> queue, RowBinaryBuffer buffer) throws InterruptedException {
+		while (!queue.offer(buffer, 100, TimeUnit.MILLISECONDS)) {
+			checkError();
+		}
+	}
+
+	private void checkError() {
+		Throwable t = this.error.get();
+		if (null != t) {
+			if (t instanceof DataXException) {
+				throw (DataXException) t;
+			}
+			throw DataXException.asDataXException(ClickhouseWriterErrorCode.ROW_BINARY_INSERT_ERROR, t);
+		}
+	}
+
+	/**
+	 * 执行一个 HTTP 请求，body 为空时只执行 query
+	 *
+	 * @return 响应内容
+	 */
+	private String execute(String query, RowBinaryBuffer body) throws IOException {
+		StringBuilder url = new StringBuilder(this.endpoint).append("?query=").append(URLEncoder.encode(query, "UTF-8"));
+		if (null != this.database) {
+			url.append("&database=").append(URLEncoder.encode(this.database, "UTF-8"));
+		}
+		HttpURLConnection connection = (HttpURLConnection) new URL(url.toString()).openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		connection.setConnectTimeout(CONNECT_TIMEOUT);
+		connection.setReadTimeout(this.socketTimeout);
+		connection.setRequestProperty("Content-Type", "application/octet-stream");
+		if (StringUtils.isNotEmpty(this.username)) {
+			connection.setRequestProperty("X-ClickHouse-User", this.username);
+		}
+		if (StringUtils.isNotEmpty(this.password)) {
+			connection.setRequestProperty("X-ClickHouse-Key", this.password);
+		}
+		connection.setFixedLengthStreamingMode(null == body ? 0 : body.size());
+
+		OutputStream out = connection.getOutputStream();
+		try {
+			if (null != body) {
+				body.writeTo(out);
+			}
+		} finally {
+			out.close();
+		}
+
+		int responseCode = connection.getResponseCode();
+		InputStream in = responseCode == HttpURLConnection.HTTP_OK
+				? connection.getInputStream() : connection.getErrorStream();
+		String response;
+		try {
+			response = null == in ? "" : IOUtils.toString(in, "UTF-8");
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+		if (responseCode != HttpURLConnection.HTTP_OK) {
+			throw DataXException.asDataXException(ClickhouseWriterErrorCode.ROW_BINARY_INSERT_ERROR,
+					String.format("执行 [%s] 失败, HTTP 状态码: %d, 错误信息: %s", query, responseCode, response));
+		}
+		return response;
+	}
+
+	private class Sender implements Runnable {
+		private final String insertQuery;
+
+		private final BlockingQueue<RowBinaryBuffer> freeBuffers;
+
+		private final BlockingQueue<RowBinaryBuffer> fullBuffers;
+
+		Sender(String insertQuery, BlockingQueue<RowBinaryBuffer> freeBuffers,
+		       BlockingQueue<RowBinaryBuffer> fullBuffers) {
+			this.insertQuery = insertQuery;
+			this.freeBuffers = freeBuffers;
+			this.fullBuffers = fullBuffers;
+		}
+
+		@Override
+		public void run() {
+			try {
+				RowBinaryBuffer buffer;
+				while ((buffer = this.fullBuffers.take()) != END_OF_STREAM) {
+					long start = System.currentTimeMillis();
+					execute(this.insertQuery, buffer);
+					LOG.debug("insert {} rows, {} bytes in {} ms.", buffer.rows(), buffer.size(),
+							System.currentTimeMillis() - start);
+					buffer.clear();
+					this.freeBuffers.put(buffer);
+				}
+			} catch (InterruptedException e) {
+				// 读取线程结束或异常时中断，直接退出
+			} catch (Throwable t) {
+				LOG.error("RowBinary 方式写入失败.", t);
+				error.compareAndSet(null, t);
+			}
+		}
+	}
+}
@@ -312,6 +312,11 @@ public class ClickhouseWriter extends Writer {
 
 		@Override
 		public void startWrite(RecordReceiver recordReceiver) {
+			if (ClickhouseRowBinaryWriter.isEnabled(this.writerSliceConfig)) {
+				new ClickhouseRowBinaryWriter(this.writerSliceConfig).startWrite(recordReceiver,
+						super.getTaskPluginCollector());
+				return;
+			}
 			this.commonRdbmsWriterSlave.startWrite(recordReceiver, this.writerSliceConfig, super.getTaskPluginCollector());
 		}
 
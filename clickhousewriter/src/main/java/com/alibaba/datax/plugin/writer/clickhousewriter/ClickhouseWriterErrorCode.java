@@ -4,6 +4,8 @@ import com.alibaba.datax.common.spi.ErrorCode;
 
 public enum ClickhouseWriterErrorCode implements ErrorCode {
 	TUPLE_NOT_SUPPORTED_ERROR("ClickhouseWriter-00", "不支持TUPLE类型导入."),
+	ROW_BINARY_UNSUPPORTED_TYPE("ClickhouseWriter-01", "RowBinary方式写入不支持该字段类型."),
+	ROW_BINARY_INSERT_ERROR("ClickhouseWriter-02", "RowBinary方式写入失败."),
 	;
 
 	private final String code;
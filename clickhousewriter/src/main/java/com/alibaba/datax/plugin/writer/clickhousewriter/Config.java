@@ -0,0 +1,24 @@
+package com.alibaba.datax.plugin.writer.clickhousewriter;
+
+public interface Config {
+
+	// 写入方式：jdbc（默认）或 rowBinary
+	String WRITE_FORMAT = "writeFormat";
+
+	String WRITE_FORMAT_ROW_BINARY = "rowBinary";
+
+	// rowBinary 方式下每个 INSERT 请求的最大行数
+	String BLOCK_SIZE = "blockSize";
+
+	int DEFAULT_BLOCK_SIZE = 100000;
+
+	// rowBinary 方式下每个 task 并行发送 INSERT 请求的线程数
+	String INSERT_THREAD_NUMBER = "insertThreadNumber";
+
+	int DEFAULT_INSERT_THREAD_NUMBER = 1;
+
+	// rowBinary 方式下 HTTP 请求的读超时，单位毫秒
+	String SOCKET_TIMEOUT = "socketTimeout";
+
+	int DEFAULT_SOCKET_TIMEOUT = 300000;
+}
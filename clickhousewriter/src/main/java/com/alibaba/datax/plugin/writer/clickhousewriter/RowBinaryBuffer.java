@@ -0,0 +1,148 @@
+package com.alibaba.datax.plugin.writer.clickhousewriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * RowBinary 格式的写缓冲：整数均为小端序，字符串为 varint 长度 + UTF-8 字节。
+ * 一个缓冲对应一个 INSERT 请求的请求体，发送后 clear 复用
+ */
+public class RowBinaryBuffer {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private byte[] bytes;
+
+	private int size;
+
+	private int rows;
+
+	public RowBinaryBuffer(int initialCapacity) {
+		this.bytes = new byte[Math.max(initialCapacity, 1024)];
+	}
+
+	private void ensureCapacity(int extra) {
+		int required = this.size + extra;
+		if (required > this.bytes.length) {
+			this.bytes = Arrays.copyOf(this.bytes, Math.max(required, this.bytes.length << 1));
+		}
+	}
+
+	public void writeByte(int value) {
+		ensureCapacity(1);
+		this.bytes[this.size++] = (byte) value;
+	}
+
+	public void writeShort(int value) {
+		ensureCapacity(2);
+		this.bytes[this.size++] = (byte) value;
+		this.bytes[this.size++] = (byte) (value >>> 8);
+	}
+
+	public void writeInt(int value) {
+		ensureCapacity(4);
+		this.bytes[this.size++] = (byte) value;
+		this.bytes[this.size++] = (byte) (value >>> 8);
+		this.bytes[this.size++] = (byte) (value >>> 16);
+		this.bytes[this.size++] = (byte) (value >>> 24);
+	}
+
+	public void writeLong(long value) {
+		ensureCapacity(8);
+		for (int i = 0; i < 8; i++) {
+			this.bytes[this.size++] = (byte) (value >>> (i << 3));
+		}
+	}
+
+	public void writeVarInt(long value) {
+		ensureCapacity(10);
+		while ((value & ~0x7FL) != 0) {
+			this.bytes[this.size++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		this.bytes[this.size++] = (byte) value;
+	}
+
+	/**
+	 * 以 width 字节的小端补码写入，用于 Int128/Int256 以及 Decimal128/Decimal256
+	 */
+	public void writeBigInteger(BigInteger value, int width) {
+		byte[] bigEndian = value.toByteArray();
+		if (bigEndian.length > width) {
+			throw new ArithmeticException(String.format("数值 [%s] 超出了 %d 字节整数的范围.", value, width));
+		}
+		ensureCapacity(width);
+		for (int i = bigEndian.length - 1; i >= 0; i--) {
+			this.bytes[this.size++] = bigEndian[i];
+		}
+		byte fill = value.signum() < 0 ? (byte) -1 : 0;
+		for (int i = bigEndian.length; i < width; i++) {
+			this.bytes[this.size++] = fill;
+		}
+	}
+
+	public void writeBytes(byte[] value) {
+		ensureCapacity(value.length);
+		System.arraycopy(value, 0, this.bytes, this.size, value.length);
+		this.size += value.length;
+	}
+
+	public void writeZeros(int length) {
+		ensureCapacity(length);
+		Arrays.fill(this.bytes, this.size, this.size + length, (byte) 0);
+		this.size += length;
+	}
+
+	public void writeString(String value) {
+		int length = value.length();
+		boolean ascii = true;
+		for (int i = 0; i < length; i++) {
+			if (value.charAt(i) >= 0x80) {
+				ascii = false;
+				break;
+			}
+		}
+		if (!ascii) {
+			byte[] utf8 = value.getBytes(UTF_8);
+			writeVarInt(utf8.length);
+			writeBytes(utf8);
+			return;
+		}
+		// 纯 ASCII 时直接逐字符写入，不再创建中间 byte[]
+		writeVarInt(length);
+		ensureCapacity(length);
+		for (int i = 0; i < length; i++) {
+			this.bytes[this.size++] = (byte) value.charAt(i);
+		}
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * 回退到写入某条记录之前的位置，用于丢弃编码失败的脏数据
+	 */
+	public void truncate(int size) {
+		this.size = size;
+	}
+
+	public void incrementRows() {
+		this.rows++;
+	}
+
+	public int rows() {
+		return this.rows;
+	}
+
+	public void clear() {
+		this.size = 0;
+		this.rows = 0;
+	}
+
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(this.bytes, 0, this.size);
+	}
+}
@@ -0,0 +1,544 @@
+package com.alibaba.datax.plugin.writer.clickhousewriter;
+
+import com.alibaba.datax.common.element.BoolColumn;
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.DoubleColumn;
+import com.alibaba.datax.common.element.LongColumn;
+import com.alibaba.datax.common.element.StringColumn;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.charset.Charset;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 按 ClickHouse 字段类型把 Column 编码为 RowBinary，每个字段的类型只在任务开始时解析一次。
+ * <p/>
+ * 类型转换规则与 JDBC 方式写入保持一致：整数列按数值写入并检查范围，数组列的值为 JSON 数组字符串，
+ * 非 Nullable 列的 null 值写入类型默认值（同 ClickHouse 的 input_format_null_as_default）
+ */
+public abstract class RowBinaryEncoder {
+	private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	// JAVA TIMESTAMP 类型入参必须是 "2017-07-12 14:39:00.123566" 格式
+	private static final Pattern TIMESTAMP_PATTERN = Pattern.compile("^\\d+-\\d+-\\d+ \\d+:\\d+:\\d+.\\d+");
+
+	private static final Pattern ENUM_ENTRY_PATTERN = Pattern.compile("'((?:[^'\\\\]|\\\\.)*)'\\s*=\\s*(-?\\d+)");
+
+	private static final BigInteger MAX_UINT64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+
+	public abstract void encode(Column column, RowBinaryBuffer buffer);
+
+	public abstract void encodeNull(RowBinaryBuffer buffer);
+
+	/**
+	 * @return 是否数值类型，emptyAsNull 时数值列的空字符串按 null 写入
+	 */
+	public boolean isNumeric() {
+		return false;
+	}
+
+	public static RowBinaryEncoder create(String type) {
+		type = type.trim();
+		int paren = type.indexOf('(');
+		String name = paren < 0 ? type : type.substring(0, paren);
+		String args = paren < 0 ? "" : type.substring(paren + 1, type.lastIndexOf(')')).trim();
+
+		if ("Nullable".equals(name)) {
+			return new NullableEncoder(create(args));
+		} else if ("LowCardinality".equals(name)) {
+			// RowBinary 中 LowCardinality 与其内部类型的编码相同
+			return create(args);
+		} else if ("Array".equals(name)) {
+			return new ArrayEncoder(create(args));
+		} else if ("Int8".equals(name)) {
+			return new IntEncoder(1, Byte.MIN_VALUE, Byte.MAX_VALUE);
+		} else if ("UInt8".equals(name)) {
+			return new IntEncoder(1, 0, 0xFFL);
+		} else if ("Int16".equals(name)) {
+			return new IntEncoder(2, Short.MIN_VALUE, Short.MAX_VALUE);
+		} else if ("UInt16".equals(name)) {
+			return new IntEncoder(2, 0, 0xFFFFL);
+		} else if ("Int32".equals(name)) {
+			return new IntEncoder(4, Integer.MIN_VALUE, Integer.MAX_VALUE);
+		} else if ("UInt32".equals(name)) {
+			return new IntEncoder(4, 0, 0xFFFFFFFFL);
+		} else if ("Int64".equals(name)) {
+			return new IntEncoder(8, Long.MIN_VALUE, Long.MAX_VALUE);
+		} else if ("UInt64".equals(name)) {
+			return new BigIntEncoder(8, false);
+		} else if ("Int128".equals(name) || "UInt128".equals(name)) {
+			return new BigIntEncoder(16, "Int128".equals(name));
+		} else if ("Int256".equals(name) || "UInt256".equals(name)) {
+			return new BigIntEncoder(32, "Int256".equals(name));
+		} else if ("Float32".equals(name) || "Float64".equals(name)) {
+			return new FloatEncoder("Float32".equals(name));
+		} else if ("Bool".equals(name) || "Boolean".equals(name)) {
+			return new BoolEncoder();
+		} else if ("String".equals(name)) {
+			return new StringEncoder();
+		} else if ("FixedString".equals(name)) {
+			return new FixedStringEncoder(Integer.parseInt(args));
+		} else if ("Date".equals(name) || "Date32".equals(name)) {
+			return new DateEncoder("Date32".equals(name));
+		} else if ("DateTime".equals(name)) {
+			return new DateTimeEncoder();
+		} else if ("DateTime64".equals(name)) {
+			return new DateTime64Encoder(Integer.parseInt(splitArgs(args)[0]));
+		} else if ("Decimal".equals(name)) {
+			String[] precisionAndScale = splitArgs(args);
+			return new DecimalEncoder(Integer.parseInt(precisionAndScale[0]), Integer.parseInt(precisionAndScale[1]));
+		} else if ("Decimal32".equals(name)) {
+			return new DecimalEncoder(9, Integer.parseInt(args));
+		} else if ("Decimal64".equals(name)) {
+			return new DecimalEncoder(18, Integer.parseInt(args));
+		} else if ("Decimal128".equals(name)) {
+			return new DecimalEncoder(38, Integer.parseInt(args));
+		} else if ("Decimal256".equals(name)) {
+			return new DecimalEncoder(76, Integer.parseInt(args));
+		} else if ("UUID".equals(name)) {
+			return new UuidEncoder();
+		} else if ("Enum8".equals(name) || "Enum16".equals(name)) {
+			return new EnumEncoder("Enum8".equals(name) ? 1 : 2, args);
+		}
+		throw DataXException.asDataXException(ClickhouseWriterErrorCode.ROW_BINARY_UNSUPPORTED_TYPE,
+				String.format("RowBinary 方式写入不支持字段类型 [%s], 请使用 JDBC 方式写入或者不同步该字段.", type));
+	}
+
+	private static String[] splitArgs(String args) {
+		String[] parts = args.split(",");
+		for (int i = 0; i < parts.length; i++) {
+			parts[i] = parts[i].trim();
+		}
+		return parts;
+	}
+
+	private static long checkRange(long value, long min, long max) {
+		if (value < min || value > max) {
+			throw new ArithmeticException(String.format("数值 [%d] 超出了字段的取值范围 [%d, %d].", value, min, max));
+		}
+		return value;
+	}
+
+	private static long toMillis(Column column) {
+		return column.asDate().getTime();
+	}
+
+	private static void writeFixed(RowBinaryBuffer buffer, int width, long value) {
+		switch (width) {
+			case 1:
+				buffer.writeByte((int) value);
+				break;
+			case 2:
+				buffer.writeShort((int) value);
+				break;
+			case 4:
+				buffer.writeInt((int) value);
+				break;
+			default:
+				buffer.writeLong(value);
+				break;
+		}
+	}
+
+	private static class NullableEncoder extends RowBinaryEncoder {
+		private final RowBinaryEncoder nested;
+
+		NullableEncoder(RowBinaryEncoder nested) {
+			this.nested = nested;
+		}
+
+		@Override
+		public void encode(Column column, RowBinaryBuffer buffer) {
+			buffer.writeByte(0);
+			this.nested.encode(column, buffer);
+		}
+
+		@Override
+		public void encodeNull(RowBinaryBuffer buffer) {
+			buffer.writeByte(1);
+		}
+
+		@Override
+		public boolean isNumeric() {
+			return this.nested.isNumeric();
+		}
+	}
+
+	private static class ArrayEncoder extends RowBinaryEncoder {
+		private final RowBinaryEncoder element;
+
+		ArrayEncoder(RowBinaryEncoder element) {
+			this.element = element;
+		}
+
+		@Override
+		public void encode(Column column, RowBinaryBuffer buffer) {
+			List<Object> values = JSON.parseArray(column.asString(), Object.class);
+			buffer.writeVarInt(values.size());
+			for (Object value : values) {
+				if (null == value) {
+					this.element.encodeNull(buffer);
+				} else {
+					this.element.encode(toColumn(value), buffer);
+				}
+			}
+		}
+
+		private static Column toColumn(Object value) {
+			if (value instanceof BigDecimal) {
+				return new DoubleColumn((BigDecimal) value);
+			} else if (value instanceof Integer || value instanceof Long) {
+				return new LongColumn(((Number) value).longValue());
+			} else if (value instanceof BigInteger) {
+				return new LongColumn((BigInteger) value);
+			} else if (value instanceof Boolean) {
+				return new BoolColumn((Boolean) value);
+			} else if (value instanceof JSONArray) {
+				return new StringColumn(((JSONArray) value).toJSONString());
+			}
+			return new StringColumn(value.toString());
+		}
+
+		@Override
+		public void encodeNull(RowBinaryBuffer buffer) {
+			buffer.writeVarInt(0);
+		}
+	}
+
+	private static class IntEncoder extends RowBinaryEncoder {
+		private final int width;
+
+		private final long min;
+
+		private final long max;
+
+		IntEncoder(int width, long min, long max) {
+			this.width = width;
+			this.min = min;
+			this.max = max;
+		}
+
+		@Override
+		public void encode(Column column, RowBinaryBuffer buffer) {
+			writeFixed(buffer, this.width, checkRange(column.asLong(), this.min, this.max));
+		}
+
+		@Override
+		public void encodeNull(RowBinaryBuffer buffer) {
+			writeFixed(buffer, this.width, 0);
+		}
+
+		@Override
+		public boolean isNumeric() {
+			return true;
+		}
+	}
+
+	private static class BigIntEncoder extends RowBinaryEncoder {
+		private final int width;
+
+		private final boolean signed;
+
+		BigIntEncoder(int width, boolean signed) {
+			this.width = width;
+			this.signed = signed;
+		}
+
+		@Override
+		public void encode(Column column, RowBinaryBuffer buffer) {
+			BigInteger value = column.asBigInteger();
+			if (!this.signed && value.signum() < 0) {
+				throw new ArithmeticException(String.format("数值 [%s] 超出了无符号整数的取值范围.", value));
+			}
+			if (this.width == 8) {
+				if (value.compareTo(MAX_UINT64) > 0) {
+					throw new ArithmeticException(String.format("数值 [%s] 超出了 UInt64 的取值范围.", value));
+				}
+				buffer.writeLong(value.longValue());
+			} else if (!this.signed && value.bitLength() == this.width * 8) {
+				// 最高位为1的无符号数，按补码写入时去掉符号字节
+				buffer.writeBigInteger(value.subtract(BigInteger.ONE.shiftLeft(this.width * 8)), this.width);
+			} else {
+				buffer.writeBigInteger(value, this.width);
+			}
+		}
+
+		@Override
+		public void encodeNull(RowBinaryBuffer buffer) {
+			buffer.writeZeros(this.width);
+		}
+
+		@Override
+		public boolean isNumeric() {
+			return true;
+		}
+	}
+
+	private static class FloatEncoder extends RowBinaryEncoder {
+		private final boolean float32;
+
+		FloatEncoder(boolean float32) {
+			this.float32 = float32;
+		}
+
+		@Override
+		public void encode(Column column, RowBinaryBuffer buffer) {
+			if (this.float32) {
+				buffer.writeInt(Float.floatToIntBits(column.asDouble().floatValue()));
+			} else {
+				buffer.writeLong(Double.doubleToLongBits(column.asDouble()));
+			}
+		}
+
+		@Override
+		public void encodeNull(RowBinaryBuffer buffer) {
+			buffer.writeZeros(this.float32 ? 4 : 8);
+		}
+
+		@Override
+		public boolean isNumeric() {
+			return true;
+		}
+	}
+
+	private static class BoolEncoder extends RowBinaryEncoder {
+		@Override
+		public void encode(Column column, RowBinaryBuffer buffer) {
+			buffer.writeByte(column.asBoolean() ? 1 : 0);
+		}
+
+		@Override
+		public void encodeNull(RowBinaryBuffer buffer) {
+			buffer.writeByte(0);
+		}
+	}
+
+	private static class StringEncoder extends RowBinaryEncoder {
+		@Override
+		public void encode(Column column, RowBinaryBuffer buffer) {
+			if (column.getType() == Column.Type.BYTES) {
+				byte[] bytes = column.asBytes();
+				buffer.writeVarInt(bytes.length);
+				buffer.writeBytes(bytes);
+			} else {
+				buffer.writeString(column.asString());
+			}
+		}
+
+		@Override
+		public void encodeNull(RowBinaryBuffer buffer) {
+			buffer.writeVarInt(0);
+		}
+	}
+
+	private static class FixedStringEncoder extends RowBinaryEncoder {
+		private final int length;
+
+		FixedStringEncoder(int length) {
+			this.length = length;
+		}
+
+		@Override
+		public void encode(Column column, RowBinaryBuffer buffer) {
+			byte[] bytes = column.getType() == Column.Type.BYTES
+					? column.asBytes() : column.asString().getBytes(UTF_8);
+			if (bytes.length > this.length) {
+				throw new IllegalArgumentException(String.format("值的长度 [%d] 超出了 FixedString(%d) 的长度.",
+						bytes.length, this.length));
+			}
+			buffer.writeBytes(bytes);
+			buffer.writeZeros(this.length - bytes.length);
+		}
+
+		@Override
+		public void encodeNull(RowBinaryBuffer buffer) {
+			buffer.writeZeros(this.length);
+		}
+	}
+
+	/**
+	 * Date 为 UInt16、Date32 为 Int32 的自 1970-01-01 起的天数，按本地时区取日期，同 java.sql.Date
+	 */
+	private static class DateEncoder extends RowBinaryEncoder {
+		private final boolean date32;
+
+		private final TimeZone timeZone = TimeZone.getDefault();
+
+		DateEncoder(boolean date32) {
+			this.date32 = date32;
+		}
+
+		@Override
+		public void encode(Column column, RowBinaryBuffer buffer) {
+			long millis = toMillis(column);
+			long days = Math.floorDiv(millis + this.timeZone.getOffset(millis), MILLIS_PER_DAY);
+			if (this.date32) {
+				buffer.writeInt((int) checkRange(days, Integer.MIN_VALUE, Integer.MAX_VALUE));
+			} else {
+				buffer.writeShort((int) checkRange(days, 0, 0xFFFFL));
+			}
+		}
+
+		@Override
+		public void encodeNull(RowBinaryBuffer buffer) {
+			buffer.writeZeros(this.date32 ? 4 : 2);
+		}
+	}
+
+	private static class DateTimeEncoder extends RowBinaryEncoder {
+		@Override
+		public void encode(Column column, RowBinaryBuffer buffer) {
+			long seconds = Math.floorDiv(toMillis(column), 1000);
+			buffer.writeInt((int) checkRange(seconds, 0, 0xFFFFFFFFL));
+		}
+
+		@Override
+		public void encodeNull(RowBinaryBuffer buffer) {
+			buffer.writeInt(0);
+		}
+	}
+
+	/**
+	 * DateTime64(p) 为 Int64 的 10^-p 秒数；字符串形式的时间戳保留到纳秒精度，同 JDBC 方式写入
+	 */
+	private static class DateTime64Encoder extends RowBinaryEncoder {
+		private final int precision;
+
+		DateTime64Encoder(int precision) {
+			this.precision = precision;
+		}
+
+		@Override
+		public void encode(Column column, RowBinaryBuffer buffer) {
+			long seconds;
+			long nanos;
+			String value;
+			if (column.getType() == Column.Type.STRING
+					&& TIMESTAMP_PATTERN.matcher(value = column.asString()).matches()) {
+				Timestamp timestamp = Timestamp.valueOf(value);
+				seconds = Math.floorDiv(timestamp.getTime(), 1000);
+				nanos = timestamp.getNanos();
+			} else {
+				long millis = toMillis(column);
+				seconds = Math.floorDiv(millis, 1000);
+				nanos = Math.floorMod(millis, 1000) * 1000000L;
+			}
+			long scale = BigInteger.TEN.pow(this.precision).longValue();
+			buffer.writeLong(seconds * scale + nanos / (1000000000L / scale));
+		}
+
+		@Override
+		public void encodeNull(RowBinaryBuffer buffer) {
+			buffer.writeLong(0);
+		}
+	}
+
+	private static class DecimalEncoder extends RowBinaryEncoder {
+		private final int scale;
+
+		private final int width;
+
+		DecimalEncoder(int precision, int scale) {
+			this.scale = scale;
+			this.width = precision <= 9 ? 4 : precision <= 18 ? 8 : precision <= 38 ? 16 : 32;
+		}
+
+		@Override
+		public void encode(Column column, RowBinaryBuffer buffer) {
+			BigInteger unscaled = column.asBigDecimal().setScale(this.scale, RoundingMode.HALF_UP).unscaledValue();
+			if (this.width <= 8) {
+				if (unscaled.bitLength() >= this.width * 8) {
+					throw new ArithmeticException(String.format("数值 [%s] 超出了 Decimal 字段的精度.", column.asString()));
+				}
+				writeFixed(buffer, this.width, unscaled.longValue());
+			} else {
+				buffer.writeBigInteger(unscaled, this.width);
+			}
+		}
+
+		@Override
+		public void encodeNull(RowBinaryBuffer buffer) {
+			buffer.writeZeros(this.width);
+		}
+
+		@Override
+		public boolean isNumeric() {
+			return true;
+		}
+	}
+
+	/**
+	 * UUID 按高、低两个 UInt64 依次写入
+	 */
+	private static class UuidEncoder extends RowBinaryEncoder {
+		@Override
+		public void encode(Column column, RowBinaryBuffer buffer) {
+			UUID uuid = UUID.fromString(column.asString());
+			buffer.writeLong(uuid.getMostSignificantBits());
+			buffer.writeLong(uuid.getLeastSignificantBits());
+		}
+
+		@Override
+		public void encodeNull(RowBinaryBuffer buffer) {
+			buffer.writeZeros(16);
+		}
+	}
+
+	/**
+	 * 枚举值可以是名称也可以是对应的数值
+	 */
+	private static class EnumEncoder extends RowBinaryEncoder {
+		private final int width;
+
+		private final Map<String, Long> values = new HashMap<String, Long>();
+
+		private final List<Long> codes = new ArrayList<Long>();
+
+		EnumEncoder(int width, String definition) {
+			this.width = width;
+			Matcher matcher = ENUM_ENTRY_PATTERN.matcher(definition);
+			while (matcher.find()) {
+				long code = Long.parseLong(matcher.group(2));
+				this.values.put(matcher.group(1).replaceAll("\\\\(.)", "$1"), code);
+				this.codes.add(code);
+			}
+		}
+
+		@Override
+		public void encode(Column column, RowBinaryBuffer buffer) {
+			Long code;
+			if (column.getType() == Column.Type.LONG) {
+				code = column.asLong();
+				if (!this.codes.contains(code)) {
+					throw new IllegalArgumentException(String.format("枚举值 [%d] 不存在.", code));
+				}
+			} else {
+				code = this.values.get(column.asString());
+				if (null == code) {
+					throw new IllegalArgumentException(String.format("枚举值 [%s] 不存在.", column.asString()));
+				}
+			}
+			writeFixed(buffer, this.width, code);
+		}
+
+		@Override
+		public void encodeNull(RowBinaryBuffer buffer) {
+			writeFixed(buffer, this.width, this.codes.isEmpty() ? 0 : this.codes.get(0));
+		}
+	}
+}
@@ -8,6 +8,7 @@ import org.apache.commons.lang3.time.FastDateFormat;
 
 import java.io.UnsupportedEncodingException;
 import java.text.ParseException;
+import java.text.ParsePosition;
 import java.util.*;
 
 public final class ColumnCast {
@@ -64,6 +65,28 @@ class StringCast {
 
 	static String encoding = "UTF-8";
 
+	/**
+	 * extraFormats中的特殊格式：整串为数字时按epoch毫秒/秒解析
+	 */
+	static final String EPOCH_MILLIS_FORMAT = "epoch_millis";
+
+	static final String EPOCH_SECOND_FORMAT = "epoch_second";
+
+	/**
+	 * 按尝试顺序预先编译好的解析器：datetimeFormat, dateFormat, timeFormat, extraFormats
+	 */
+	static DateParser[] dateParsers;
+
+	/**
+	 * 每个线程记住最近几种字符串形态各自由哪个解析器解析成功
+	 */
+	private static final ThreadLocal<DateShapeCache> dateShapeCache = new ThreadLocal<DateShapeCache>() {
+		@Override
+		protected DateShapeCache initialValue() {
+			return new DateShapeCache();
+		}
+	};
+
 	static void init(final Configuration configuration) {
 		StringCast.datetimeFormat = configuration.getString(
 				"common.column.datetimeFormat", StringCast.datetimeFormat);
@@ -85,50 +108,67 @@ class StringCast {
 		StringCast.timeFormatter = FastDateFormat.getInstance(
 				StringCast.timeFormat, StringCast.timeZoner);
 
+		List<DateParser> parsers = new ArrayList<DateParser>(3 + StringCast.extraFormats.size());
+		parsers.add(new FormatDateParser(StringCast.datetimeFormatter));
+		parsers.add(new FormatDateParser(StringCast.dateFormatter));
+		parsers.add(new FormatDateParser(StringCast.timeFormatter));
+		for (String format : StringCast.extraFormats) {
+			if (EPOCH_MILLIS_FORMAT.equalsIgnoreCase(format)) {
+				parsers.add(new EpochDateParser(1L));
+			} else if (EPOCH_SECOND_FORMAT.equalsIgnoreCase(format)) {
+				parsers.add(new EpochDateParser(1000L));
+			} else {
+				parsers.add(new FormatDateParser(FastDateFormat.getInstance(format, StringCast.timeZoner)));
+			}
+		}
+		StringCast.dateParsers = parsers.toArray(new DateParser[parsers.size()]);
+
 		StringCast.encoding = configuration.getString("common.column.encoding",
 				StringCast.encoding);
 	}
 
+	/**
+	 * 依次尝试datetimeFormat, dateFormat, timeFormat, extraFormats，取第一个能解析的结果。
+	 * <p/>
+	 * 解析失败不抛异常，只有全部格式都不匹配时才抛出一次ParseException。
+	 * 两个字符串数字位置相同、其余字符完全相同时，各格式对它们的匹配结果也相同，
+	 * 因此同一形态的字符串直接使用上次成功的解析器，结果与逐个尝试一致
+	 */
 	static Date asDate(final StringColumn column) throws ParseException {
-		if (null == column.asString()) {
+		String source = column.asString();
+		if (null == source) {
 			return null;
 		}
 
-		try {
-			return StringCast.datetimeFormatter.parse(column.asString());
-		} catch (ParseException ignored) {
-		}
-
-		try {
-			return StringCast.dateFormatter.parse(column.asString());
-		} catch (ParseException ignored) {
-		}
-
-		ParseException e;
-		try {
-			return StringCast.timeFormatter.parse(column.asString());
-		} catch (ParseException ignored) {
-			e = ignored;
+		DateParser[] parsers = StringCast.dateParsers;
+		DateShapeCache shapeCache = StringCast.dateShapeCache.get();
+		int learned = shapeCache.lookup(parsers, source);
+		if (learned >= 0) {
+			Date date = parsers[learned].parse(source);
+			if (null != date) {
+				return date;
+			}
 		}
 
-		for (String format : StringCast.extraFormats) {
-			try{
-				return FastDateFormat.getInstance(format, StringCast.timeZoner).parse(column.asString());
-			} catch (ParseException ignored){
-				e = ignored;
+		for (int i = 0; i < parsers.length; i++) {
+			Date date = parsers[i].parse(source);
+			if (null != date) {
+				shapeCache.remember(parsers, source, i);
+				return date;
 			}
 		}
-		throw e;
+		throw new ParseException(String.format("Unparseable date: \"%s\"", source), 0);
 	}
 	
 	static Date asDate(final StringColumn column, String dateFormat) throws ParseException {
-		ParseException e;
-		try {
-			return FastDateFormat.getInstance(dateFormat, StringCast.timeZoner).parse(column.asString());
-		} catch (ParseException ignored) {
-			e = ignored;
+		String source = column.asString();
+		ParsePosition position = new ParsePosition(0);
+		Date date = FastDateFormat.getInstance(dateFormat, StringCast.timeZoner).parse(source, position);
+		if (null == date) {
+			throw new ParseException(String.format("Unparseable date: \"%s\" does not match %s",
+					source, dateFormat), position.getErrorIndex());
 		}
-		throw e;
+		return date;
 	}
 
 	static byte[] asBytes(final StringColumn column)
@@ -139,6 +179,117 @@ class StringCast {
 
 		return column.asString().getBytes(StringCast.encoding);
 	}
+
+	/**
+	 * 不抛异常的日期解析器，无法解析时返回null
+	 */
+	interface DateParser {
+		Date parse(String source);
+	}
+
+	/**
+	 * 与FastDateFormat.parse(String)的匹配规则一致（从头匹配，允许有剩余字符），只是失败时不构造异常
+	 */
+	static class FormatDateParser implements DateParser {
+		private final FastDateFormat format;
+
+		FormatDateParser(FastDateFormat format) {
+			this.format = format;
+		}
+
+		@Override
+		public Date parse(String source) {
+			return this.format.parse(source, new ParsePosition(0));
+		}
+	}
+
+	static class EpochDateParser implements DateParser {
+		private final long unitInMillis;
+
+		EpochDateParser(long unitInMillis) {
+			this.unitInMillis = unitInMillis;
+		}
+
+		@Override
+		public Date parse(String source) {
+			int length = source.length();
+			int start = length > 0 && source.charAt(0) == '-' ? 1 : 0;
+			// 超过18位可能溢出，交给其他格式处理
+			if (length == start || length - start > 18) {
+				return null;
+			}
+			long value = 0;
+			for (int i = start; i < length; i++) {
+				char c = source.charAt(i);
+				if (c < '0' || c > '9') {
+					return null;
+				}
+				value = value * 10 + (c - '0');
+			}
+			value = start == 1 ? -value : value;
+			if (this.unitInMillis > 1 && Math.abs(value) > Long.MAX_VALUE / this.unitInMillis) {
+				return null;
+			}
+			return new Date(value * this.unitInMillis);
+		}
+	}
+
+	/**
+	 * 线程内的小容量缓存：字符串形态 -> 解析成功的解析器下标。
+	 * 一行中常有多个不同格式的日期列，因此保留多个形态，按轮转方式淘汰
+	 */
+	static class DateShapeCache {
+		private static final int SIZE = 4;
+
+		private final String[] samples = new String[SIZE];
+
+		private final int[] indexes = new int[SIZE];
+
+		private DateParser[] parsers;
+
+		private int next = 0;
+
+		int lookup(DateParser[] currentParsers, String source) {
+			if (this.parsers != currentParsers) {
+				return -1;
+			}
+			for (int i = 0; i < SIZE; i++) {
+				if (null != this.samples[i] && sameShape(this.samples[i], source)) {
+					return this.indexes[i];
+				}
+			}
+			return -1;
+		}
+
+		void remember(DateParser[] currentParsers, String source, int index) {
+			if (this.parsers != currentParsers) {
+				Arrays.fill(this.samples, null);
+				this.parsers = currentParsers;
+				this.next = 0;
+			}
+			this.samples[this.next] = source;
+			this.indexes[this.next] = index;
+			this.next = (this.next + 1) % SIZE;
+		}
+
+		/**
+		 * 长度相同，数字出现在相同位置，其余字符完全相同
+		 */
+		static boolean sameShape(String sample, String source) {
+			int length = sample.length();
+			if (length != source.length()) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				char a = sample.charAt(i);
+				char b = source.charAt(i);
+				if (a != b && !(Character.isDigit(a) && Character.isDigit(b))) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
 }
 
 /**
@@ -0,0 +1,300 @@
+package com.alibaba.datax.common.element;
+
+import com.alibaba.datax.common.exception.CommonErrorCode;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Lz4BlockCodec;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.alibaba.datax.common.element.RecordEncoder.*;
+
+/**
+ * 解码 RecordEncoder 写出的数据流，格式见 RecordEncoder。
+ * <p/>
+ * 非线程安全。
+ */
+public class RecordDecoder implements Closeable {
+
+    private final InputStream in;
+
+    private final Class<? extends Record> recordClass;
+
+    private boolean compressed;
+
+    private boolean headerRead = false;
+
+    private boolean endOfStream = false;
+
+    private byte[] buffer = new byte[0];
+
+    private byte[] compressedBuffer = new byte[0];
+
+    private int position = 0;
+
+    private int limit = 0;
+
+    private int remainingRecords = 0;
+
+    private int[] schema;
+
+    private int[] tags = new int[16];
+
+    public RecordDecoder(InputStream in, Class<? extends Record> recordClass) {
+        this.in = in;
+        this.recordClass = recordClass;
+    }
+
+    /**
+     * 读取下一条记录，流结束时返回 null
+     */
+    public Record read() throws IOException {
+        if (this.remainingRecords == 0 && !readBlock()) {
+            return null;
+        }
+        this.remainingRecords--;
+
+        int flags = readByte();
+        int columnNumber;
+        int[] recordTags;
+        if ((flags & RECORD_SCHEMA) != 0) {
+            columnNumber = this.schema.length;
+            recordTags = this.schema;
+        } else {
+            columnNumber = readVarInt();
+            recordTags = readTags(columnNumber);
+        }
+
+        int bitmapLength = (columnNumber + 7) >>> 3;
+        checkAvailable(bitmapLength * 2);
+        int nullBitmap = this.position;
+        int sizeBitmap = this.position + bitmapLength;
+        this.position += bitmapLength * 2;
+
+        Record record = newRecord();
+        for (int i = 0; i < columnNumber; i++) {
+            int tag = recordTags[i];
+            if (tag == TAG_MISSING) {
+                record.setColumn(i, null);
+                continue;
+            }
+            boolean isNull = (this.buffer[nullBitmap + (i >>> 3)] & (1 << (i & 7))) != 0;
+            Column column = readColumn(tag, isNull);
+            if ((this.buffer[sizeBitmap + (i >>> 3)] & (1 << (i & 7))) != 0) {
+                column.setByteSize(readVarInt());
+            }
+            record.addColumn(column);
+        }
+
+        if ((flags & RECORD_META) != 0) {
+            int metaSize = readVarInt();
+            Map<String, String> meta = new HashMap<String, String>(Math.max(16, metaSize * 2));
+            for (int i = 0; i < metaSize; i++) {
+                String key = readString();
+                meta.put(key, readString());
+            }
+            record.setMeta(meta);
+        }
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+
+    private Column readColumn(int tag, boolean isNull) throws IOException {
+        switch (tag & 0x0F) {
+            case TAG_LONG:
+                return new LongColumn(isNull ? null : BigInteger.valueOf(unzigzag(readVarLong())));
+            case TAG_BIG_LONG:
+                return new LongColumn(isNull ? null : new BigInteger(readBytes()));
+            case TAG_DOUBLE:
+                return new DoubleColumn(isNull ? null : readString());
+            case TAG_STRING:
+                return new StringColumn(isNull ? null : readString());
+            case TAG_BOOL:
+                return new BoolColumn(isNull ? null : readByte() != 0);
+            case TAG_BYTES:
+                return new BytesColumn(isNull ? null : readBytes());
+            case TAG_DATE:
+                DateColumn.DateType[] subTypes = DateColumn.DateType.values();
+                int subType = tag >>> 4;
+                if (subType >= subTypes.length) {
+                    throw new IOException(String.format("未知的 Date 子类型[%d].", subType));
+                }
+                DateColumn column = new DateColumn(isNull ? null : unzigzag(readVarLong()));
+                column.setSubType(subTypes[subType]);
+                return column;
+            default:
+                throw new IOException(String.format("未知的列类型标签[%d].", tag));
+        }
+    }
+
+    private Record newRecord() {
+        try {
+            return this.recordClass.newInstance();
+        } catch (Exception e) {
+            throw DataXException.asDataXException(CommonErrorCode.RUNTIME_ERROR, e);
+        }
+    }
+
+    private boolean readBlock() throws IOException {
+        if (this.endOfStream) {
+            return false;
+        }
+        if (!this.headerRead) {
+            readHeader();
+        }
+        int recordCount = readStreamVarInt();
+        if (recordCount == 0) {
+            this.endOfStream = true;
+            return false;
+        }
+        int rawLength = readStreamVarInt();
+        int storedLength = readStreamVarInt();
+        if (this.buffer.length < rawLength) {
+            this.buffer = new byte[rawLength];
+        }
+        if (storedLength == 0) {
+            readFully(this.buffer, rawLength);
+        } else {
+            if (!this.compressed) {
+                throw new IOException("未压缩的数据流中出现了压缩 block.");
+            }
+            if (this.compressedBuffer.length < storedLength) {
+                this.compressedBuffer = new byte[storedLength];
+            }
+            readFully(this.compressedBuffer, storedLength);
+            Lz4BlockCodec.decompress(this.compressedBuffer, 0, storedLength, this.buffer, 0, rawLength);
+        }
+        this.position = 0;
+        this.limit = rawLength;
+        this.remainingRecords = recordCount;
+
+        int columnNumber = readVarInt();
+        int[] blockSchema = readTags(columnNumber);
+        this.schema = new int[columnNumber];
+        System.arraycopy(blockSchema, 0, this.schema, 0, columnNumber);
+        return true;
+    }
+
+    private void readHeader() throws IOException {
+        byte[] header = new byte[MAGIC.length + 2];
+        readFully(header, header.length);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (header[i] != MAGIC[i]) {
+                throw new IOException("数据流不是 RecordEncoder 格式.");
+            }
+        }
+        int version = header[MAGIC.length] & 0xFF;
+        if (version > VERSION) {
+            throw new IOException(String.format("不支持的 RecordEncoder 格式版本[%d], 当前支持的最高版本为[%d].",
+                    version, VERSION));
+        }
+        this.compressed = (header[MAGIC.length + 1] & FLAG_LZ4) != 0;
+        this.headerRead = true;
+    }
+
+    private int[] readTags(int columnNumber) throws IOException {
+        checkAvailable(columnNumber);
+        if (this.tags.length < columnNumber) {
+            this.tags = new int[Math.max(columnNumber, this.tags.length * 2)];
+        }
+        for (int i = 0; i < columnNumber; i++) {
+            this.tags[i] = this.buffer[this.position++] & 0xFF;
+        }
+        return this.tags;
+    }
+
+    private void readFully(byte[] bytes, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            int n = this.in.read(bytes, offset, length - offset);
+            if (n < 0) {
+                throw new EOFException("数据流意外结束.");
+            }
+            offset += n;
+        }
+    }
+
+    private int readStreamVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = this.in.read();
+            if (b < 0) {
+                throw new EOFException("数据流意外结束.");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("varint 格式错误.");
+    }
+
+    private void checkAvailable(int length) throws IOException {
+        if (length < 0 || length > this.limit - this.position) {
+            throw new IOException("block 数据不完整.");
+        }
+    }
+
+    private int readByte() throws IOException {
+        checkAvailable(1);
+        return this.buffer[this.position++] & 0xFF;
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("varint 格式错误.");
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("varint 格式错误.");
+    }
+
+    private byte[] readBytes() throws IOException {
+        int length = readVarInt();
+        checkAvailable(length);
+        byte[] bytes = new byte[length];
+        System.arraycopy(this.buffer, this.position, bytes, 0, length);
+        this.position += length;
+        return bytes;
+    }
+
+    private String readString() throws IOException {
+        int length = readVarInt();
+        if (length == 0) {
+            return null;
+        }
+        length--;
+        checkAvailable(length);
+        String value = new String(this.buffer, this.position, length, UTF_8);
+        this.position += length;
+        return value;
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
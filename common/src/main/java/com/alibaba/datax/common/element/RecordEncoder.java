@@ -0,0 +1,395 @@
+package com.alibaba.datax.common.element;
+
+import com.alibaba.datax.common.util.Lz4BlockCodec;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Record 的紧凑二进制编码，用于溢写磁盘、失败批次重放和跨进程传输，由 RecordDecoder 解码。
+ * <p/>
+ * 流格式：
+ * <pre>
+ * 流头    : "DXRC" 版本(1字节) 标志(1字节, bit0 表示 block 使用 LZ4 压缩)
+ * block   : 记录数(varint, 0 表示流结束) 原始长度(varint) 存储长度(varint, 0 表示未压缩) 数据
+ * block数据: schema(列数 varint + 每列类型标签) 若干条记录
+ * 记录    : 标志(1字节) [列数 varint + 每列类型标签](与 schema 不同时) null位图 byteSize位图 列值 [meta]
+ * </pre>
+ * 每个 block 以其第一条记录的列类型作为 schema，之后列类型一致的记录不再重复写类型标签。
+ * 整数、长度均为 varint，Long 列为 zigzag varint；列的 byteSize 与按值构造时不同才额外写出，解码后保持不变。
+ * <p/>
+ * 非线程安全。
+ */
+public class RecordEncoder implements Closeable, Flushable {
+
+    static final byte[] MAGIC = {'D', 'X', 'R', 'C'};
+
+    static final int VERSION = 1;
+
+    static final int FLAG_LZ4 = 1;
+
+    static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // 列类型标签，DATE 的子类型放在高 4 位
+    static final int TAG_MISSING = 0;
+    static final int TAG_LONG = 1;
+    static final int TAG_BIG_LONG = 2;
+    static final int TAG_DOUBLE = 3;
+    static final int TAG_STRING = 4;
+    static final int TAG_BOOL = 5;
+    static final int TAG_BYTES = 6;
+    static final int TAG_DATE = 7;
+
+    // 记录标志
+    static final int RECORD_SCHEMA = 1;
+    static final int RECORD_META = 2;
+
+    private static final int[] EMPTY_TAGS = new int[0];
+
+    private final OutputStream out;
+
+    private final boolean compress;
+
+    private final int blockSize;
+
+    private byte[] buffer;
+
+    private int position = 0;
+
+    private int recordCount = 0;
+
+    private int[] schema = EMPTY_TAGS;
+
+    private int[] tags = new int[16];
+
+    private boolean headerWritten = false;
+
+    private boolean finished = false;
+
+    public RecordEncoder(OutputStream out) {
+        this(out, false);
+    }
+
+    public RecordEncoder(OutputStream out, boolean compress) {
+        this(out, compress, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param compress  是否对每个 block 做 LZ4 压缩
+     * @param blockSize block 攒到多少字节后写出
+     */
+    public RecordEncoder(OutputStream out, boolean compress, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException(String.format("blockSize[%d]必须大于0.", blockSize));
+        }
+        this.out = out;
+        this.compress = compress;
+        this.blockSize = blockSize;
+        this.buffer = new byte[Math.min(blockSize, DEFAULT_BLOCK_SIZE) + 1024];
+    }
+
+    public void write(Record record) throws IOException {
+        if (this.finished) {
+            throw new IOException("RecordEncoder 已经结束.");
+        }
+        int columnNumber = record.getColumnNumber();
+        int[] recordTags = computeTags(record, columnNumber);
+
+        if (this.recordCount == 0) {
+            this.schema = Arrays.copyOf(recordTags, columnNumber);
+            writeVarInt(columnNumber);
+            writeTags(recordTags, columnNumber);
+        }
+        boolean matchSchema = matchSchema(recordTags, columnNumber);
+        Map<String, String> meta = record.getMeta();
+
+        writeByte((matchSchema ? RECORD_SCHEMA : 0) | (meta != null ? RECORD_META : 0));
+        if (!matchSchema) {
+            writeVarInt(columnNumber);
+            writeTags(recordTags, columnNumber);
+        }
+
+        // null 位图和 byteSize 位图
+        int bitmapLength = (columnNumber + 7) >>> 3;
+        ensureCapacity(bitmapLength * 2);
+        int nullBitmap = this.position;
+        int sizeBitmap = this.position + bitmapLength;
+        Arrays.fill(this.buffer, nullBitmap, sizeBitmap + bitmapLength, (byte) 0);
+        this.position += bitmapLength * 2;
+        for (int i = 0; i < columnNumber; i++) {
+            Column column = record.getColumn(i);
+            if (column == null) {
+                continue;
+            }
+            if (column.getRawData() == null) {
+                this.buffer[nullBitmap + (i >>> 3)] |= (byte) (1 << (i & 7));
+            }
+            if (column.getByteSize() != naturalByteSize(recordTags[i], column.getRawData())) {
+                this.buffer[sizeBitmap + (i >>> 3)] |= (byte) (1 << (i & 7));
+            }
+        }
+
+        for (int i = 0; i < columnNumber; i++) {
+            Column column = record.getColumn(i);
+            if (column == null) {
+                continue;
+            }
+            if (column.getRawData() != null) {
+                writeValue(recordTags[i], column);
+            }
+            if (column.getByteSize() != naturalByteSize(recordTags[i], column.getRawData())) {
+                writeVarInt(column.getByteSize());
+            }
+        }
+
+        if (meta != null) {
+            writeVarInt(meta.size());
+            for (Map.Entry<String, String> entry : meta.entrySet()) {
+                writeString(entry.getKey());
+                writeString(entry.getValue());
+            }
+        }
+
+        this.recordCount++;
+        if (this.position >= this.blockSize) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * 写出当前 block 并 flush 底层流
+     */
+    @Override
+    public void flush() throws IOException {
+        writeBlock();
+        this.out.flush();
+    }
+
+    /**
+     * 写出剩余数据和结束标记，不关闭底层流
+     */
+    public void finish() throws IOException {
+        if (this.finished) {
+            return;
+        }
+        writeBlock();
+        writeHeaderIfNeeded();
+        writeStreamVarInt(0);
+        this.out.flush();
+        this.finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            this.out.close();
+        }
+    }
+
+    /**
+     * 按列值构造列时得到的 byteSize，与 RecordDecoder 中的构造方式一致
+     */
+    static int naturalByteSize(int tag, Object rawData) {
+        switch (tag & 0x0F) {
+            case TAG_LONG:
+            case TAG_BIG_LONG:
+            case TAG_DATE:
+                return rawData == null ? 0 : 8;
+            case TAG_DOUBLE:
+            case TAG_STRING:
+                return rawData == null ? 0 : ((String) rawData).length();
+            case TAG_BOOL:
+                return 1;
+            case TAG_BYTES:
+                return rawData == null ? 0 : ((byte[]) rawData).length;
+            default:
+                return 0;
+        }
+    }
+
+    private int[] computeTags(Record record, int columnNumber) throws IOException {
+        if (this.tags.length < columnNumber) {
+            this.tags = new int[Math.max(columnNumber, this.tags.length * 2)];
+        }
+        for (int i = 0; i < columnNumber; i++) {
+            this.tags[i] = tagOf(record.getColumn(i));
+        }
+        return this.tags;
+    }
+
+    private static int tagOf(Column column) throws IOException {
+        if (column == null) {
+            return TAG_MISSING;
+        }
+        switch (column.getType()) {
+            case LONG:
+                Object rawData = column.getRawData();
+                return rawData != null && ((java.math.BigInteger) rawData).bitLength() > 63 ? TAG_BIG_LONG : TAG_LONG;
+            case DOUBLE:
+                return TAG_DOUBLE;
+            case STRING:
+                return TAG_STRING;
+            case BOOL:
+                return TAG_BOOL;
+            case BYTES:
+                return TAG_BYTES;
+            case DATE:
+                return TAG_DATE | (((DateColumn) column).getSubType().ordinal() << 4);
+            default:
+                throw new IOException(String.format("RecordEncoder 不支持的列类型[%s].", column.getType()));
+        }
+    }
+
+    private boolean matchSchema(int[] recordTags, int columnNumber) {
+        if (columnNumber != this.schema.length) {
+            return false;
+        }
+        for (int i = 0; i < columnNumber; i++) {
+            if (recordTags[i] != this.schema[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeValue(int tag, Column column) {
+        switch (tag & 0x0F) {
+            case TAG_LONG:
+                writeVarLong(zigzag(((java.math.BigInteger) column.getRawData()).longValue()));
+                break;
+            case TAG_BIG_LONG:
+                writeBytes(((java.math.BigInteger) column.getRawData()).toByteArray());
+                break;
+            case TAG_DOUBLE:
+            case TAG_STRING:
+                writeString((String) column.getRawData());
+                break;
+            case TAG_BOOL:
+                writeByte(((Boolean) column.getRawData()) ? 1 : 0);
+                break;
+            case TAG_BYTES:
+                writeBytes((byte[]) column.getRawData());
+                break;
+            case TAG_DATE:
+                writeVarLong(zigzag((Long) column.getRawData()));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void writeTags(int[] recordTags, int columnNumber) {
+        ensureCapacity(columnNumber);
+        for (int i = 0; i < columnNumber; i++) {
+            this.buffer[this.position++] = (byte) recordTags[i];
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (this.recordCount == 0) {
+            return;
+        }
+        writeHeaderIfNeeded();
+        writeStreamVarInt(this.recordCount);
+        writeStreamVarInt(this.position);
+        if (this.compress) {
+            byte[] compressed = new byte[Lz4BlockCodec.maxCompressedLength(this.position)];
+            int compressedLength = Lz4BlockCodec.compress(this.buffer, 0, this.position, compressed, 0);
+            if (compressedLength < this.position) {
+                writeStreamVarInt(compressedLength);
+                this.out.write(compressed, 0, compressedLength);
+            } else {
+                writeStreamVarInt(0);
+                this.out.write(this.buffer, 0, this.position);
+            }
+        } else {
+            writeStreamVarInt(0);
+            this.out.write(this.buffer, 0, this.position);
+        }
+        this.position = 0;
+        this.recordCount = 0;
+        this.schema = EMPTY_TAGS;
+    }
+
+    private void writeHeaderIfNeeded() throws IOException {
+        if (this.headerWritten) {
+            return;
+        }
+        this.out.write(MAGIC);
+        this.out.write(VERSION);
+        this.out.write(this.compress ? FLAG_LZ4 : 0);
+        this.headerWritten = true;
+    }
+
+    private void writeStreamVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            this.out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.out.write(value);
+    }
+
+    private void ensureCapacity(int length) {
+        if (this.position + length > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(this.position + length, this.buffer.length * 2));
+        }
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        this.buffer[this.position++] = (byte) value;
+    }
+
+    private void writeVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            this.buffer[this.position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.buffer[this.position++] = (byte) value;
+    }
+
+    private void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            this.buffer[this.position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.buffer[this.position++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] bytes) {
+        writeVarInt(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+        this.position += bytes.length;
+    }
+
+    /**
+     * 长度+1 后写出，0 表示 null
+     */
+    private void writeString(String value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        writeVarInt(bytes.length + 1);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+        this.position += bytes.length;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
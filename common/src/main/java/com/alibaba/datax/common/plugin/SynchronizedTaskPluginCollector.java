@@ -0,0 +1,25 @@
+package com.alibaba.datax.common.plugin;
+
+import com.alibaba.datax.common.element.Record;
+
+/**
+ * 插件内部用多个线程写入时，脏数据和自定义信息可能被同时收集，
+ * 用该类包装 TaskPluginCollector 使收集及其计数串行执行。
+ */
+public class SynchronizedTaskPluginCollector extends TaskPluginCollector {
+    private final TaskPluginCollector delegate;
+
+    public SynchronizedTaskPluginCollector(TaskPluginCollector delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized void collectDirtyRecord(Record dirtyRecord, Throwable t, String errorMessage) {
+        this.delegate.collectDirtyRecord(dirtyRecord, t, errorMessage);
+    }
+
+    @Override
+    public synchronized void collectMessage(String key, String value) {
+        this.delegate.collectMessage(key, value);
+    }
+}
@@ -4,6 +4,8 @@ import com.alibaba.datax.common.exception.CommonErrorCode;
 import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.spi.ErrorCode;
 import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
 import com.alibaba.fastjson.serializer.SerializerFeature;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.CharUtils;
@@ -49,6 +51,13 @@ import java.util.*;
  * ，使用"bazhen"作为value，第一种方式使用字符串表示key，难以处理这类问题。 <br>
  * 2. 返回树形结构，例如 a.b.c.d = "bazhen"，如果返回"a"下的所有元素，实际上是一个Map，需要合并处理 <br>
  * 3. 输出JSON，将上述对象转为JSON，要把上述Map的多级key转为树形结构，并输出为JSON <br>
+ * <p/>
+ * clone/getConfiguration 采用写时复制：新旧对象共享同一棵树，双方都放弃对树中节点的独占；
+ * 之后任何一方 set 时只沿 path 浅拷贝经过的 Map/List，get 返回 Map/List 时先把该子树拷贝为本对象独占，
+ * 已经交给调用方的 Map/List 不参与共享，clone 时为新对象单独拷贝，因此对外的行为与深拷贝一致。
+ * path 的切分结果全局缓存。<br>
+ * get/getConfiguration/clone 等读方法也会调整独占标记，因此访问树的方法都在本对象上同步，
+ * 多个线程并发读取同一个 Configuration(例如 LoadUtil 中的插件配置)仍然安全。<br>
  */
 public class Configuration {
 
@@ -61,6 +70,32 @@ public class Configuration {
 
 	private Object root = null;
 
+	/**
+	 * 本对象独占、可以原地修改的 Map/List 节点(按引用比较)，其余节点可能与其他 Configuration 共享
+	 */
+	private Set<Object> owned = null;
+
+	/**
+	 * 整棵子树都已独占的节点，get 返回这些节点时无需再遍历
+	 */
+	private Set<Object> deepOwned = null;
+
+	/**
+	 * 已交给调用方的子树(get/getInternal 返回的 Map/List，set 传入的 Map/List)，调用方之后仍可能原地修改，
+	 * 因此始终由本对象独占，clone/share 时为对方拷贝一份
+	 */
+	private Set<Object> escaped = null;
+
+	/**
+	 * 树中存在经 JSON 序列化再解析后会改变的值(Date、Double、自定义对象等)，此时 clone 仍走 JSON 深拷贝以保持原有语义
+	 */
+	private boolean hasForeignValue = false;
+
+	private static final int PATH_CACHE_CAPACITY = 8192;
+
+	private static final Map<String, List<String>> PATH_CACHE =
+			new java.util.concurrent.ConcurrentHashMap<String, List<String>>();
+
 	/**
 	 * 初始化空白的Configuration
 	 */
@@ -176,13 +211,20 @@ public class Configuration {
 	 * 
 	 * @return Java表示的JSON对象，如果path不存在或者对象不存在，均返回null。
 	 */
-	public Object get(final String path) {
+	public synchronized Object get(final String path) {
 		this.checkPath(path);
+		Object result;
 		try {
-			return this.findObject(path);
+			result = this.findObject(path);
 		} catch (Exception e) {
 			return null;
 		}
+		if (isContainer(result)) {
+			// 返回的 Map/List 可能被调用方修改，先转为本对象独占
+			result = this.ownPath(path);
+			this.markEscaped(result);
+		}
+		return result;
 	}
 
 	/**
@@ -191,13 +233,13 @@ public class Configuration {
 	 * <br>
 	 * 如果path获取的路径或者对象不存在，返回null
 	 */
-	public Configuration getConfiguration(final String path) {
-		Object object = this.get(path);
+	public synchronized Configuration getConfiguration(final String path) {
+		Object object = this.findObjectQuietly(path);
 		if (null == object) {
 			return null;
 		}
 
-		return Configuration.from(Configuration.toJSONString(object));
+		return this.share(object, this.isUnderEscaped(path));
 	}
 
 	/**
@@ -459,15 +501,17 @@ public class Configuration {
 	/**
 	 * 根据用户提供的json path，寻址包含Configuration的List，如果对象不存在，返回默认null
 	 */
-	public List<Configuration> getListConfiguration(final String path) {
-		List<Object> lists = getList(path);
+	@SuppressWarnings("unchecked")
+	public synchronized List<Configuration> getListConfiguration(final String path) {
+		List<Object> lists = (List<Object>) this.findObjectQuietly(path);
 		if (lists == null) {
 			return null;
 		}
 
+		boolean exclusive = this.isUnderEscaped(path) || this.isEscaped(lists);
 		List<Configuration> result = new ArrayList<Configuration>();
 		for (final Object object : lists) {
-			result.add(Configuration.from(Configuration.toJSONString(object)));
+			result.add(this.share(object, exclusive));
 		}
 		return result;
 	}
@@ -531,16 +575,16 @@ public class Configuration {
 	 * 根据用户提供的json path，寻址包含Configuration的Map，如果对象不存在，返回默认null
 	 */
 	@SuppressWarnings("unchecked")
-	public Map<String, Configuration> getMapConfiguration(final String path) {
-		Map<String, Object> map = this.get(path, Map.class);
+	public synchronized Map<String, Configuration> getMapConfiguration(final String path) {
+		Map<String, Object> map = (Map<String, Object>) this.findObjectQuietly(path);
 		if (null == map) {
 			return null;
 		}
 
+		boolean exclusive = this.isUnderEscaped(path) || this.isEscaped(map);
 		Map<String, Configuration> result = new HashMap<String, Configuration>();
 		for (final String key : map.keySet()) {
-			result.put(key, Configuration.from(Configuration.toJSONString(map
-					.get(key))));
+			result.put(key, this.share(map.get(key), exclusive));
 		}
 
 		return result;
@@ -575,9 +619,9 @@ public class Configuration {
 	/**
 	 * 格式化Configuration输出
 	 */
-	public String beautify() {
-		return JSON.toJSONString(this.getInternal(),
-				SerializerFeature.PrettyFormat);
+	public synchronized String beautify() {
+		return JSON.toJSONString(this.root,
+				SerializerFeature.PrettyFormat, SerializerFeature.DisableCircularReferenceDetect);
 	}
 
 	/**
@@ -604,11 +648,26 @@ public class Configuration {
 	public Object set(final String path, final Object object) {
 		checkPath(path);
 
-		Object result = this.get(path);
+		// 被插入的 Configuration 在它自己的锁内交出子树，不与本对象的锁嵌套
+		Object extracted = extractConfiguration(object);
 
-		setObject(path, extractConfiguration(object));
+		synchronized (this) {
+			Object result = this.findObjectQuietly(path);
 
-		return result;
+			if (!this.hasForeignValue && isForeign(object)) {
+				this.hasForeignValue = true;
+			}
+			this.deepOwned = null;
+			this.markEscapedValue(object);
+			Object value = extracted;
+			if (containsConfiguration(object) && this.isUnderEscaped(path)) {
+				// 调用方能从已交出的子树直接访问到这里，不能与其他 Configuration 共享
+				value = deepCopy(value);
+			}
+			setObject(path, value);
+
+			return result;
+		}
 	}
 
 	/**
@@ -622,16 +681,16 @@ public class Configuration {
 	 * <p/>
 	 * 下属的key包括: a.b.c[0],a.b.c[1],a.b.c[2],a.b.c[3],x
 	 */
-	public Set<String> getKeys() {
+	public synchronized Set<String> getKeys() {
 		Set<String> collect = new HashSet<String>();
-		this.getKeysRecursive(this.getInternal(), "", collect);
+		this.getKeysRecursive(this.root, "", collect);
 		return collect;
 	}
 
 	/**
 	 * 删除path对应的值，如果path不存在，将抛出异常。
 	 */
-	public Object remove(final String path) {
+	public synchronized Object remove(final String path) {
 		final Object result = this.get(path);
 		if (null == result) {
 			throw DataXException.asDataXException(
@@ -682,16 +741,20 @@ public class Configuration {
 	/**
 	 * 将Configuration作为JSON输出
 	 */
-	public String toJSON() {
-		return Configuration.toJSONString(this.getInternal());
+	public synchronized String toJSON() {
+		return Configuration.toJSONString(this.root);
 	}
 
 	/**
-	 * 拷贝当前Configuration，注意，这里使用了深拷贝，避免冲突
+	 * 拷贝当前Configuration，对外表现为深拷贝：双方共享同一棵树，修改时才复制经过的节点
 	 */
-	public Configuration clone() {
-		Configuration config = Configuration
-				.from(Configuration.toJSONString(this.getInternal()));
+	public synchronized Configuration clone() {
+		Configuration config;
+		if (this.hasForeignValue) {
+			config = Configuration.from(Configuration.toJSONString(this.root));
+		} else {
+			config = new Configuration(this.shareTree(this.root), false);
+		}
         config.addSecretKeyPath(this.secretKeyPathSet);
         return config;
 	}
@@ -760,10 +823,351 @@ public class Configuration {
 		return;
 	}
 
-	public Object getInternal() {
+	/**
+	 * 返回内部的树，调用方可能修改，因此先把整棵树转为本对象独占
+	 */
+	public synchronized Object getInternal() {
+		this.root = this.deepOwn(this.root);
+		this.markEscaped(this.root);
 		return this.root;
 	}
 
+	/**
+	 * exclusive 表示 object 位于已交给调用方的子树之下，调用方仍可能原地修改，只能给出深拷贝
+	 */
+	private Configuration share(final Object object, final boolean exclusive) {
+		if (this.hasForeignValue) {
+			return Configuration.from(Configuration.toJSONString(object));
+		}
+		if (exclusive) {
+			return new Configuration(deepCopy(object), false);
+		}
+		return new Configuration(this.shareTree(object), false);
+	}
+
+	/**
+	 * 返回可以与其他 Configuration 共享的 object：其中已交给调用方的子树替换为拷贝，其余节点原样共享
+	 */
+	private Object shareTree(final Object object) {
+		Object shared = this.detachEscaped(object);
+		this.releaseOwnership();
+		return shared;
+	}
+
+	/**
+	 * 与其他对象共享树之后，双方都不能再原地修改任何节点；调用方手里的子树没有共享出去，仍按 escaped 独占
+	 */
+	private void releaseOwnership() {
+		this.owned = null;
+		this.deepOwned = null;
+	}
+
+	private void markEscaped(final Object object) {
+		if (!isContainer(object)) {
+			return;
+		}
+		if (null == this.escaped) {
+			this.escaped = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		}
+		this.escaped.add(object);
+	}
+
+	/**
+	 * set 时顶层 Map/List 会被重新构造，其中的元素仍是调用方的对象；Configuration 的子树按写时复制处理，不在此列
+	 */
+	@SuppressWarnings("unchecked")
+	private void markEscapedValue(final Object object) {
+		Collection<Object> children;
+		if (object instanceof Map) {
+			children = ((Map<String, Object>) object).values();
+		} else if (object instanceof List) {
+			children = (List<Object>) object;
+		} else {
+			return;
+		}
+		for (Object child : children) {
+			if (isContainer(child)) {
+				this.markEscaped(child);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static boolean containsConfiguration(final Object object) {
+		if (object instanceof Configuration) {
+			return true;
+		}
+		Collection<Object> children;
+		if (object instanceof Map) {
+			children = ((Map<String, Object>) object).values();
+		} else if (object instanceof List) {
+			children = (List<Object>) object;
+		} else {
+			return false;
+		}
+		for (Object child : children) {
+			if (child instanceof Configuration) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * path 经过的节点中是否有已交给调用方的子树
+	 */
+	@SuppressWarnings("unchecked")
+	private boolean isUnderEscaped(final String path) {
+		if (null == this.escaped || this.escaped.isEmpty()) {
+			return false;
+		}
+		Object current = this.root;
+		for (final String each : split2List(path)) {
+			if (this.escaped.contains(current)) {
+				return true;
+			}
+			if (isPathMap(each) && current instanceof Map) {
+				current = ((Map<String, Object>) current).get(each);
+			} else if (isPathList(each) && current instanceof List
+					&& getIndex(each) < ((List<Object>) current).size()) {
+				current = ((List<Object>) current).get(getIndex(each));
+			} else {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 沿途拷贝包含已交出子树的节点，已交出的子树整体深拷贝
+	 */
+	@SuppressWarnings("unchecked")
+	private Object detachEscaped(final Object object) {
+		if (null == this.escaped || this.escaped.isEmpty() || !isContainer(object)) {
+			return object;
+		}
+		if (this.escaped.contains(object)) {
+			return deepCopy(object);
+		}
+
+		Object copy = null;
+		if (object instanceof Map) {
+			for (Map.Entry<String, Object> entry : ((Map<String, Object>) object).entrySet()) {
+				Object child = entry.getValue();
+				Object detached = this.detachEscaped(child);
+				if (detached != child) {
+					if (null == copy) {
+						copy = copyContainer(object);
+					}
+					((Map<String, Object>) copy).put(entry.getKey(), detached);
+				}
+			}
+		} else {
+			List<Object> list = (List<Object>) object;
+			for (int i = 0; i < list.size(); i++) {
+				Object child = list.get(i);
+				Object detached = this.detachEscaped(child);
+				if (detached != child) {
+					if (null == copy) {
+						copy = copyContainer(object);
+					}
+					((List<Object>) copy).set(i, detached);
+				}
+			}
+		}
+		return null == copy ? object : copy;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object deepCopy(final Object object) {
+		if (!isContainer(object)) {
+			return object;
+		}
+		Object copy = copyContainer(object);
+		if (copy instanceof Map) {
+			for (Map.Entry<String, Object> entry : ((Map<String, Object>) copy).entrySet()) {
+				entry.setValue(deepCopy(entry.getValue()));
+			}
+		} else {
+			List<Object> list = (List<Object>) copy;
+			for (int i = 0; i < list.size(); i++) {
+				list.set(i, deepCopy(list.get(i)));
+			}
+		}
+		return copy;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object copyContainer(final Object object) {
+		if (object instanceof JSONObject) {
+			return new JSONObject(new LinkedHashMap<String, Object>((Map<String, Object>) object));
+		} else if (object instanceof Map) {
+			return new LinkedHashMap<String, Object>((Map<String, Object>) object);
+		} else if (object instanceof JSONArray) {
+			return new JSONArray(new ArrayList<Object>((List<Object>) object));
+		} else {
+			return new ArrayList<Object>((List<Object>) object);
+		}
+	}
+
+	private static boolean isContainer(final Object object) {
+		return object instanceof Map || object instanceof List;
+	}
+
+	/**
+	 * 返回本对象可以原地修改的节点：未独占的 Map/List 浅拷贝一份(保持 JSONObject/JSONArray 类型)并记为独占
+	 */
+	@SuppressWarnings("unchecked")
+	private Object own(final Object object) {
+		if (!isContainer(object)) {
+			return object;
+		}
+		if (null != this.owned && this.owned.contains(object) || this.isEscaped(object)) {
+			return object;
+		}
+
+		Object copy = copyContainer(object);
+		this.markOwned(copy);
+		return copy;
+	}
+
+	/**
+	 * 已交出子树下的节点(包括调用方自己放进去的 Map/List)都由本对象独占，沿途经过已交出的节点后不再拷贝
+	 */
+	private Object ownUnder(final Object object, final boolean exclusive) {
+		return exclusive ? object : this.own(object);
+	}
+
+	private boolean isEscaped(final Object object) {
+		return null != this.escaped && this.escaped.contains(object);
+	}
+
+	private void markOwned(final Object object) {
+		if (null == this.owned) {
+			this.owned = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		}
+		this.owned.add(object);
+	}
+
+	/**
+	 * 把整棵子树转为本对象独占，返回(可能是新拷贝的)子树根节点
+	 */
+	@SuppressWarnings("unchecked")
+	private Object deepOwn(final Object object) {
+		if (!isContainer(object)) {
+			return object;
+		}
+		if (null != this.deepOwned && this.deepOwned.contains(object) || this.isEscaped(object)) {
+			return object;
+		}
+
+		Object current = this.own(object);
+		if (current instanceof Map) {
+			for (Map.Entry<String, Object> entry : ((Map<String, Object>) current).entrySet()) {
+				Object child = entry.getValue();
+				Object ownedChild = this.deepOwn(child);
+				if (ownedChild != child) {
+					entry.setValue(ownedChild);
+				}
+			}
+		} else {
+			List<Object> list = (List<Object>) current;
+			for (int i = 0; i < list.size(); i++) {
+				Object child = list.get(i);
+				Object ownedChild = this.deepOwn(child);
+				if (ownedChild != child) {
+					list.set(i, ownedChild);
+				}
+			}
+		}
+
+		if (null == this.deepOwned) {
+			this.deepOwned = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		}
+		this.deepOwned.add(current);
+		return current;
+	}
+
+	/**
+	 * 把 path 经过的节点以及 path 指向的子树转为本对象独占，返回 path 指向的节点
+	 */
+	@SuppressWarnings("unchecked")
+	private Object ownPath(final String path) {
+		if (StringUtils.isBlank(path)) {
+			return this.getInternal();
+		}
+
+		this.root = this.own(this.root);
+		Object parent = this.root;
+		boolean exclusive = this.isEscaped(parent);
+		List<String> paths = split2List(path);
+		for (int i = 0; i < paths.size(); i++) {
+			String each = paths.get(i);
+			boolean isLast = i == paths.size() - 1;
+			if (isPathMap(each)) {
+				Map<String, Object> mapping = (Map<String, Object>) parent;
+				Object child = mapping.get(each);
+				Object ownedChild = exclusive ? child : (isLast ? this.deepOwn(child) : this.own(child));
+				if (ownedChild != child) {
+					mapping.put(each, ownedChild);
+				}
+				parent = ownedChild;
+			} else {
+				List<Object> lists = (List<Object>) parent;
+				int listIndexer = getIndex(each);
+				Object child = lists.get(listIndexer);
+				Object ownedChild = exclusive ? child : (isLast ? this.deepOwn(child) : this.own(child));
+				if (ownedChild != child) {
+					lists.set(listIndexer, ownedChild);
+				}
+				parent = ownedChild;
+			}
+			exclusive = exclusive || this.isEscaped(parent);
+		}
+		return parent;
+	}
+
+	/**
+	 * 判断插入的值经 JSON 序列化再解析后是否会改变，JSON 解析本身产生的类型均不算
+	 */
+	@SuppressWarnings("unchecked")
+	private static boolean isForeign(final Object object) {
+		if (null == object || object instanceof String || object instanceof Integer
+				|| object instanceof Long || object instanceof Boolean
+				|| object instanceof java.math.BigDecimal || object instanceof java.math.BigInteger) {
+			return false;
+		}
+		if (object instanceof Configuration) {
+			return ((Configuration) object).hasForeignValue;
+		}
+		if (object instanceof Map) {
+			for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) object).entrySet()) {
+				if (!(entry.getKey() instanceof String) || isForeign(entry.getValue())) {
+					return true;
+				}
+			}
+			return false;
+		}
+		if (object instanceof List) {
+			for (Object each : (List<Object>) object) {
+				if (isForeign(each)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		return true;
+	}
+
+	private Object findObjectQuietly(final String path) {
+		this.checkPath(path);
+		try {
+			return this.findObject(path);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
 	private void setObject(final String path, final Object object) {
 		Object newRoot = setObjectRecursive(this.root, split2List(path), 0,
 				object);
@@ -807,7 +1211,11 @@ public class Configuration {
 
 	private Object extractFromConfiguration(final Object object) {
 		if (object instanceof Configuration) {
-			return ((Configuration) object).getInternal();
+			// 与被插入的 Configuration 共享子树
+			Configuration another = (Configuration) object;
+			synchronized (another) {
+				return another.shareTree(another.root);
+			}
 		}
 
 		return object;
@@ -853,9 +1261,14 @@ public class Configuration {
 		return child;
 	}
 
-	@SuppressWarnings("unchecked")
 	Object setObjectRecursive(Object current, final List<String> paths,
 			int index, final Object value) {
+		return this.setObjectRecursive(current, paths, index, value, false);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object setObjectRecursive(Object current, final List<String> paths,
+			int index, final Object value, boolean exclusive) {
 
 		// 如果是已经超出path，我们就返回value即可，作为最底层叶子节点
 		boolean isLastIndex = index == paths.size();
@@ -872,6 +1285,7 @@ public class Configuration {
 			boolean isCurrentMap = current instanceof Map;
 			if (!isCurrentMap) {
 				mapping = new HashMap<String, Object>();
+				this.markOwned(mapping);
 				mapping.put(
 						path,
 						buildObject(paths.subList(index + 1, paths.size()),
@@ -880,7 +1294,8 @@ public class Configuration {
 			}
 
 			// 当前是map，但是没有对应的key，也就是我们需要新建对象插入该map，并返回该map
-			mapping = ((Map<String, Object>) current);
+			exclusive = exclusive || this.isEscaped(current);
+			mapping = ((Map<String, Object>) this.ownUnder(current, exclusive));
 			boolean hasSameKey = mapping.containsKey(path);
 			if (!hasSameKey) {
 				mapping.put(
@@ -893,7 +1308,7 @@ public class Configuration {
 			// 当前是map，而且还竟然存在这个值，好吧，继续递归遍历
 			current = mapping.get(path);
 			mapping.put(path,
-					setObjectRecursive(current, paths, index + 1, value));
+					setObjectRecursive(current, paths, index + 1, value, exclusive));
 			return mapping;
 		}
 
@@ -906,6 +1321,7 @@ public class Configuration {
 			boolean isCurrentList = current instanceof List;
 			if (!isCurrentList) {
 				lists = expand(new ArrayList<Object>(), listIndexer + 1);
+				this.markOwned(lists);
 				lists.set(
 						listIndexer,
 						buildObject(paths.subList(index + 1, paths.size()),
@@ -914,7 +1330,8 @@ public class Configuration {
 			}
 
 			// 当前是list，但是对应的indexer是没有具体的值，也就是我们新建对象然后插入到该list，并返回该List
-			lists = (List<Object>) current;
+			exclusive = exclusive || this.isEscaped(current);
+			lists = (List<Object>) this.ownUnder(current, exclusive);
 			lists = expand(lists, listIndexer + 1);
 
 			boolean hasSameIndex = lists.get(listIndexer) != null;
@@ -929,7 +1346,7 @@ public class Configuration {
 			// 当前是list，并且存在对应的index，没有办法继续递归寻找
 			current = lists.get(listIndexer);
 			lists.set(listIndexer,
-					setObjectRecursive(current, paths, index + 1, value));
+					setObjectRecursive(current, paths, index + 1, value, exclusive));
 			return lists;
 		}
 
@@ -1029,7 +1446,15 @@ public class Configuration {
 	}
 
 	private List<String> split2List(final String path) {
-		return Arrays.asList(StringUtils.split(split(path), "."));
+		List<String> paths = PATH_CACHE.get(path);
+		if (null == paths) {
+			paths = Collections.unmodifiableList(Arrays.asList(StringUtils.split(split(path), ".")));
+			// 带下标的动态 path 可能很多，超过容量后不再缓存
+			if (PATH_CACHE.size() < PATH_CACHE_CAPACITY) {
+				PATH_CACHE.put(path, paths);
+			}
+		}
+		return paths;
 	}
 
 	private void checkPath(final String path) {
@@ -1059,6 +1484,11 @@ public class Configuration {
 		}
 	}
 
+	private Configuration(final Object root, final boolean hasForeignValue) {
+		this.root = root;
+		this.hasForeignValue = hasForeignValue;
+	}
+
 	private Configuration(final String json) {
 		try {
 			this.root = JSON.parse(json);
@@ -1069,7 +1499,8 @@ public class Configuration {
 	}
 
 	private static String toJSONString(final Object object) {
-		return JSON.toJSONString(object);
+		// 写时复制后同一节点可能出现在树中多处，不能输出为 $ref
+		return JSON.toJSONString(object, SerializerFeature.DisableCircularReferenceDetect);
 	}
 
 	public Set<String> getSecretKeyPathSet() {
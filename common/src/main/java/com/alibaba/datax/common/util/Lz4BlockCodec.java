@@ -0,0 +1,201 @@
+package com.alibaba.datax.common.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * LZ4 block 格式的纯 Java 实现(不含 frame 头)，压缩采用单 hash 表的贪心匹配，
+ * 输出与标准 LZ4 block 格式兼容，可以用任意 LZ4 实现解压。
+ * <p/>
+ * block 格式：若干 sequence，每个 sequence 为 token(高4位字面量长度，低4位匹配长度-4)、
+ * 扩展字面量长度、字面量、2字节小端偏移、扩展匹配长度；最后一个 sequence 只有字面量。
+ */
+public final class Lz4BlockCodec {
+
+    private static final int MIN_MATCH = 4;
+
+    // 最后 5 个字节必须是字面量
+    private static final int LAST_LITERALS = 5;
+
+    // 最后一个匹配必须在距结尾 12 个字节之前开始
+    private static final int MF_LIMIT = 12;
+
+    private static final int MAX_DISTANCE = 65535;
+
+    private static final int HASH_LOG = 12;
+
+    private Lz4BlockCodec() {
+    }
+
+    /**
+     * 压缩 srcLen 字节所需的最大输出空间
+     */
+    public static int maxCompressedLength(int srcLen) {
+        return srcLen + srcLen / 255 + 16;
+    }
+
+    /**
+     * 压缩 src 中的数据到 dst，dst 至少要有 maxCompressedLength(srcLen) 的剩余空间，返回压缩后的长度
+     */
+    public static int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+        final int srcEnd = srcOff + srcLen;
+        int dOff = dstOff;
+        int anchor = srcOff;
+
+        if (srcLen > MF_LIMIT) {
+            final int matchLimit = srcEnd - LAST_LITERALS;
+            final int mfLimit = srcEnd - MF_LIMIT;
+            int[] hashTable = new int[1 << HASH_LOG];
+            Arrays.fill(hashTable, -1);
+
+            int sOff = srcOff;
+            while (sOff < mfLimit) {
+                int sequence = readInt(src, sOff);
+                int h = hash(sequence);
+                int ref = hashTable[h];
+                hashTable[h] = sOff;
+                if (ref < 0 || sOff - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+                    sOff++;
+                    continue;
+                }
+                // 向前扩展匹配
+                while (sOff > anchor && ref > srcOff && src[sOff - 1] == src[ref - 1]) {
+                    sOff--;
+                    ref--;
+                }
+                int matchLen = MIN_MATCH;
+                while (sOff + matchLen < matchLimit && src[sOff + matchLen] == src[ref + matchLen]) {
+                    matchLen++;
+                }
+
+                dOff = writeSequence(src, anchor, sOff - anchor, sOff - ref, matchLen, dst, dOff);
+                sOff += matchLen;
+                anchor = sOff;
+                if (sOff < mfLimit) {
+                    hashTable[hash(readInt(src, sOff - 2))] = sOff - 2;
+                }
+            }
+        }
+
+        // 剩余的字面量
+        int literalLen = srcEnd - anchor;
+        int token = dOff++;
+        dst[token] = (byte) (Math.min(literalLen, 15) << 4);
+        if (literalLen >= 15) {
+            dOff = writeLength(literalLen - 15, dst, dOff);
+        }
+        System.arraycopy(src, anchor, dst, dOff, literalLen);
+        return dOff + literalLen - dstOff;
+    }
+
+    /**
+     * 解压 src 中的一个 block 到 dst，解压后的长度必须恰好为 dstLen，数据损坏时抛出 IOException
+     */
+    public static void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen)
+            throws IOException {
+        final int srcEnd = srcOff + srcLen;
+        final int dstEnd = dstOff + dstLen;
+        int sOff = srcOff;
+        int dOff = dstOff;
+
+        while (true) {
+            if (sOff >= srcEnd) {
+                throw new IOException("LZ4 block 数据不完整.");
+            }
+            int token = src[sOff++] & 0xFF;
+
+            int literalLen = token >>> 4;
+            if (literalLen == 15) {
+                int b;
+                do {
+                    if (sOff >= srcEnd) {
+                        throw new IOException("LZ4 block 数据不完整.");
+                    }
+                    b = src[sOff++] & 0xFF;
+                    literalLen += b;
+                } while (b == 255);
+            }
+            if (literalLen > srcEnd - sOff || literalLen > dstEnd - dOff) {
+                throw new IOException("LZ4 block 字面量长度越界.");
+            }
+            System.arraycopy(src, sOff, dst, dOff, literalLen);
+            sOff += literalLen;
+            dOff += literalLen;
+
+            if (sOff == srcEnd) {
+                break;
+            }
+
+            if (srcEnd - sOff < 2) {
+                throw new IOException("LZ4 block 数据不完整.");
+            }
+            int offset = (src[sOff] & 0xFF) | ((src[sOff + 1] & 0xFF) << 8);
+            sOff += 2;
+            if (offset == 0 || offset > dOff - dstOff) {
+                throw new IOException("LZ4 block 匹配偏移越界.");
+            }
+
+            int matchLen = token & 0x0F;
+            if (matchLen == 15) {
+                int b;
+                do {
+                    if (sOff >= srcEnd) {
+                        throw new IOException("LZ4 block 数据不完整.");
+                    }
+                    b = src[sOff++] & 0xFF;
+                    matchLen += b;
+                } while (b == 255);
+            }
+            matchLen += MIN_MATCH;
+            if (matchLen > dstEnd - dOff) {
+                throw new IOException("LZ4 block 匹配长度越界.");
+            }
+            // 匹配区域可能与输出重叠，逐字节复制
+            int ref = dOff - offset;
+            for (int i = 0; i < matchLen; i++) {
+                dst[dOff++] = dst[ref++];
+            }
+        }
+
+        if (dOff != dstEnd) {
+            throw new IOException(String.format("LZ4 block 解压后长度[%d]与期望长度[%d]不一致.",
+                    dOff - dstOff, dstLen));
+        }
+    }
+
+    private static int writeSequence(byte[] src, int literalOff, int literalLen, int offset, int matchLen,
+                                     byte[] dst, int dOff) {
+        int token = dOff++;
+        int matchCode = matchLen - MIN_MATCH;
+        dst[token] = (byte) ((Math.min(literalLen, 15) << 4) | Math.min(matchCode, 15));
+        if (literalLen >= 15) {
+            dOff = writeLength(literalLen - 15, dst, dOff);
+        }
+        System.arraycopy(src, literalOff, dst, dOff, literalLen);
+        dOff += literalLen;
+        dst[dOff++] = (byte) offset;
+        dst[dOff++] = (byte) (offset >>> 8);
+        if (matchCode >= 15) {
+            dOff = writeLength(matchCode - 15, dst, dOff);
+        }
+        return dOff;
+    }
+
+    private static int writeLength(int length, byte[] dst, int dOff) {
+        while (length >= 255) {
+            dst[dOff++] = (byte) 255;
+            length -= 255;
+        }
+        dst[dOff++] = (byte) length;
+        return dOff;
+    }
+
+    private static int readInt(byte[] buf, int off) {
+        return (buf[off] & 0xFF) | ((buf[off + 1] & 0xFF) << 8)
+                | ((buf[off + 2] & 0xFF) << 16) | ((buf[off + 3] & 0xFF) << 24);
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+}
@@ -0,0 +1,227 @@
+package com.alibaba.datax.common.element;
+
+import com.alibaba.datax.common.util.Lz4BlockCodec;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class RecordCodecTest {
+
+    @Test
+    public void testAllColumnTypes() throws IOException {
+        List<Record> records = new ArrayList<Record>();
+        records.add(newRecord(
+                new LongColumn(42L),
+                new LongColumn(Long.MIN_VALUE),
+                new LongColumn(new BigInteger("123456789012345678901234567890")),
+                new LongColumn("-17"),
+                new DoubleColumn("3.1415926535897932384626"),
+                new DoubleColumn(1.5d),
+                new StringColumn("hello, 数据"),
+                new StringColumn(""),
+                new BoolColumn(true),
+                new BoolColumn("false"),
+                new BytesColumn(new byte[]{0, 1, -1, 127}),
+                new DateColumn(new java.sql.Date(1000000L)),
+                new DateColumn(new java.sql.Time(-3600000L)),
+                new DateColumn(new java.sql.Timestamp(1500000000123L))));
+        // 全部为 null 值
+        records.add(newRecord(
+                new LongColumn(), new DoubleColumn(), new StringColumn(), new BoolColumn(),
+                new BoolColumn((String) null), new BytesColumn(), new DateColumn()));
+        // 中间有未设置的列
+        SimpleRecord sparse = newRecord(new StringColumn("a"));
+        sparse.setColumn(2, new LongColumn(7L));
+        records.add(sparse);
+        // 带 meta
+        SimpleRecord withMeta = newRecord(new StringColumn("m"));
+        Map<String, String> meta = new HashMap<String, String>();
+        meta.put("k", "v");
+        meta.put("nullValue", null);
+        withMeta.setMeta(meta);
+        records.add(withMeta);
+        records.add(newRecord());
+
+        for (boolean compress : new boolean[]{false, true}) {
+            assertRecordsEqual(records, roundTrip(records, compress, 64 * 1024));
+        }
+    }
+
+    @Test
+    public void testSchemaAndBlocks() throws IOException {
+        List<Record> records = new ArrayList<Record>();
+        for (int i = 0; i < 5000; i++) {
+            if (i % 100 == 0) {
+                // 与 schema 不同的记录
+                records.add(newRecord(new StringColumn(String.valueOf(i)), new BoolColumn(i % 3 == 0)));
+            } else {
+                records.add(newRecord(new LongColumn((long) i), new StringColumn("value-" + (i % 10)),
+                        new DateColumn((long) i * 1000)));
+            }
+        }
+        for (boolean compress : new boolean[]{false, true}) {
+            assertRecordsEqual(records, roundTrip(records, compress, 1024));
+        }
+
+        ByteArrayOutputStream raw = encode(records, false, 64 * 1024);
+        ByteArrayOutputStream compressed = encode(records, true, 64 * 1024);
+        Assert.assertTrue(compressed.size() < raw.size());
+    }
+
+    @Test
+    public void testEmptyStream() throws IOException {
+        Assert.assertTrue(roundTrip(new ArrayList<Record>(), true, 1024).isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnsupportedVersion() throws IOException {
+        byte[] bytes = encode(Arrays.<Record>asList(newRecord(new LongColumn(1L))), false, 1024).toByteArray();
+        bytes[RecordEncoder.MAGIC.length] = (byte) (RecordEncoder.VERSION + 1);
+        new RecordDecoder(new ByteArrayInputStream(bytes), SimpleRecord.class).read();
+    }
+
+    @Test
+    public void testLz4Block() throws IOException {
+        Random random = new Random(1);
+        byte[][] inputs = new byte[4][];
+        inputs[0] = new byte[0];
+        inputs[1] = "abcabcabcabcabcabcabcabcabcabcabcabcabc".getBytes("UTF-8");
+        inputs[2] = new byte[100000];
+        random.nextBytes(inputs[2]);
+        inputs[3] = new byte[200000];
+        for (int i = 0; i < inputs[3].length; i++) {
+            inputs[3][i] = (byte) (random.nextInt(4) + (i / 1000 % 7));
+        }
+        for (byte[] input : inputs) {
+            byte[] compressed = new byte[Lz4BlockCodec.maxCompressedLength(input.length)];
+            int compressedLength = Lz4BlockCodec.compress(input, 0, input.length, compressed, 0);
+            byte[] output = new byte[input.length];
+            Lz4BlockCodec.decompress(compressed, 0, compressedLength, output, 0, output.length);
+            Assert.assertArrayEquals(input, output);
+        }
+    }
+
+    private static List<Record> roundTrip(List<Record> records, boolean compress, int blockSize) throws IOException {
+        ByteArrayOutputStream bytes = encode(records, compress, blockSize);
+        RecordDecoder decoder = new RecordDecoder(new ByteArrayInputStream(bytes.toByteArray()), SimpleRecord.class);
+        List<Record> result = new ArrayList<Record>();
+        Record record;
+        while ((record = decoder.read()) != null) {
+            result.add(record);
+        }
+        Assert.assertNull(decoder.read());
+        decoder.close();
+        return result;
+    }
+
+    private static ByteArrayOutputStream encode(List<Record> records, boolean compress, int blockSize)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        RecordEncoder encoder = new RecordEncoder(bytes, compress, blockSize);
+        for (Record record : records) {
+            encoder.write(record);
+        }
+        encoder.close();
+        return bytes;
+    }
+
+    private static void assertRecordsEqual(List<Record> expected, List<Record> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Record e = expected.get(i);
+            Record a = actual.get(i);
+            Assert.assertEquals(e.getColumnNumber(), a.getColumnNumber());
+            Assert.assertEquals(e.getByteSize(), a.getByteSize());
+            Assert.assertEquals(e.getMeta(), a.getMeta());
+            for (int j = 0; j < e.getColumnNumber(); j++) {
+                Column ec = e.getColumn(j);
+                Column ac = a.getColumn(j);
+                if (ec == null) {
+                    Assert.assertNull(ac);
+                    continue;
+                }
+                Assert.assertEquals(ec.getClass(), ac.getClass());
+                Assert.assertEquals(ec.getType(), ac.getType());
+                Assert.assertEquals(ec.getByteSize(), ac.getByteSize());
+                if (ec.getRawData() instanceof byte[]) {
+                    Assert.assertArrayEquals((byte[]) ec.getRawData(), (byte[]) ac.getRawData());
+                } else {
+                    Assert.assertEquals(ec.getRawData(), ac.getRawData());
+                }
+                if (ec instanceof DateColumn) {
+                    Assert.assertEquals(((DateColumn) ec).getSubType(), ((DateColumn) ac).getSubType());
+                }
+            }
+        }
+    }
+
+    private static SimpleRecord newRecord(Column... columns) {
+        SimpleRecord record = new SimpleRecord();
+        for (Column column : columns) {
+            record.addColumn(column);
+        }
+        return record;
+    }
+
+    public static class SimpleRecord implements Record {
+        private final List<Column> columns = new ArrayList<Column>();
+        private Map<String, String> meta;
+
+        @Override
+        public void addColumn(Column column) {
+            this.columns.add(column);
+        }
+
+        @Override
+        public void setColumn(int i, Column column) {
+            while (this.columns.size() <= i) {
+                this.columns.add(null);
+            }
+            this.columns.set(i, column);
+        }
+
+        @Override
+        public Column getColumn(int i) {
+            return i < this.columns.size() ? this.columns.get(i) : null;
+        }
+
+        @Override
+        public int getColumnNumber() {
+            return this.columns.size();
+        }
+
+        @Override
+        public int getByteSize() {
+            int size = 0;
+            for (Column column : this.columns) {
+                size += column == null ? 0 : column.getByteSize();
+            }
+            return size;
+        }
+
+        @Override
+        public int getMemorySize() {
+            return getByteSize();
+        }
+
+        @Override
+        public void setMeta(Map<String, String> meta) {
+            this.meta = meta;
+        }
+
+        @Override
+        public Map<String, String> getMeta() {
+            return this.meta;
+        }
+    }
+}
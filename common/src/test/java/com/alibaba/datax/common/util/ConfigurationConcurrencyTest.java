@@ -0,0 +1,127 @@
+package com.alibaba.datax.common.util;
+
+import com.alibaba.fastjson.JSON;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 与 LoadUtil 中的插件配置一样，多个线程并发读取同一个 Configuration
+ */
+public class ConfigurationConcurrencyTest {
+
+    private static final int PLUGINS = 8;
+
+    private static final int THREADS = 16;
+
+    // 独占标记主要在首次读取时调整，多次使用新的 Configuration 重复并发读
+    private static final int TRIALS = 20;
+
+    private static final int ROUNDS = 100;
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        for (int i = 0; i < TRIALS; i++) {
+            concurrentReads(i);
+        }
+    }
+
+    private void concurrentReads(int trial) throws Exception {
+        final String json = buildJson();
+        final Configuration shared = Configuration.from(json);
+        final ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<Throwable>();
+        final ConcurrentLinkedQueue<Object[]> handles = new ConcurrentLinkedQueue<Object[]>();
+        final CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            final long seed = trial * THREADS + t;
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        readRandomly(shared, new Random(seed), handles);
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        if (!errors.isEmpty()) {
+            AssertionError error = new AssertionError(errors.size() + " reader threads failed");
+            error.initCause(errors.peek());
+            throw error;
+        }
+        Assert.assertEquals(JSON.parse(json), JSON.parse(shared.toJSON()));
+        // 交给调用方的 Map 必须仍是树中的节点，否则调用方之后的修改会丢失
+        for (Object[] handle : handles) {
+            Assert.assertSame(handle[1], shared.getMap((String) handle[0]));
+        }
+    }
+
+    private static void readRandomly(Configuration shared, Random random,
+                                     ConcurrentLinkedQueue<Object[]> handles) {
+        List<Object[]> collected = new ArrayList<Object[]>();
+        for (int i = 0; i < ROUNDS; i++) {
+            int id = random.nextInt(PLUGINS);
+            String path = "plugin.reader.r" + id;
+            switch (random.nextInt(6)) {
+                case 0:
+                    Configuration plugin = shared.getConfiguration(path);
+                    Assert.assertEquals("r" + id, plugin.getString("name"));
+                    // 拿到的子集是独立的，修改不影响其他线程
+                    plugin.set("parameter.column[0]", "changed");
+                    break;
+                case 1:
+                    Map<String, Object> parameter = shared.getMap(path + ".parameter");
+                    Assert.assertEquals(3, ((List<Object>) parameter.get("column")).size());
+                    if (collected.size() < 16) {
+                        collected.add(new Object[]{path + ".parameter", parameter});
+                    }
+                    break;
+                case 2:
+                    Assert.assertEquals("/plugin/r" + id, shared.getString(path + ".path"));
+                    break;
+                case 3:
+                    Configuration copy = shared.clone();
+                    copy.set(path + ".name", "changed");
+                    Assert.assertEquals("r" + id, shared.getString(path + ".name"));
+                    break;
+                case 4:
+                    List<Configuration> columns = shared.getListConfiguration(path + ".parameter.column");
+                    Assert.assertEquals(3, columns.size());
+                    break;
+                default:
+                    Assert.assertEquals(PLUGINS, shared.getMapConfiguration("plugin.reader").size());
+                    break;
+            }
+        }
+        handles.addAll(collected);
+    }
+
+    private static String buildJson() {
+        StringBuilder json = new StringBuilder("{\"plugin\":{\"reader\":{");
+        for (int i = 0; i < PLUGINS; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format("\"r%d\":{\"name\":\"r%d\",\"path\":\"/plugin/r%d\","
+                    + "\"parameter\":{\"column\":[\"a\",\"b\",\"c\"],\"limit\":%d}}", i, i, i, i));
+        }
+        return json.append("}}}").toString();
+    }
+}
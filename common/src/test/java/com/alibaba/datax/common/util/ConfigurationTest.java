@@ -0,0 +1,344 @@
+package com.alibaba.datax.common.util;
+
+import com.alibaba.fastjson.JSON;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class ConfigurationTest {
+
+    @Test
+    public void testCloneIsolatedFromMapHandedOutBefore() {
+        Configuration p = Configuration.from("{\"m\":{\"x\":1}}");
+        Map<String, Object> m = p.getMap("m");
+        Configuration q = p.clone();
+        m.put("y", 2);
+
+        assertJson("{\"m\":{\"x\":1}}", q);
+        // 与原来一样，返回值仍是 p 内部的对象
+        assertJson("{\"m\":{\"x\":1,\"y\":2}}", p);
+    }
+
+    @Test
+    public void testCloneIsolatedFromListHandedOutBefore() {
+        Configuration p = Configuration.from("{\"l\":[1,{\"k\":\"v\"}]}");
+        List<Object> l = p.getList("l");
+        Configuration q = p.clone();
+        l.add(3);
+        ((Map<String, Object>) l.get(1)).put("k", "changed");
+
+        assertJson("{\"l\":[1,{\"k\":\"v\"}]}", q);
+        assertJson("{\"l\":[1,{\"k\":\"changed\"},3]}", p);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCloneIsolatedFromInternalRoot() {
+        Configuration p = Configuration.from("{\"a\":{\"b\":1},\"c\":[1]}");
+        Map<String, Object> root = (Map<String, Object>) p.getInternal();
+        Configuration q = p.clone();
+        root.put("d", 1);
+        ((Map<String, Object>) root.get("a")).put("b", 2);
+        ((List<Object>) root.get("c")).add(2);
+
+        assertJson("{\"a\":{\"b\":1},\"c\":[1]}", q);
+        assertJson("{\"a\":{\"b\":2},\"c\":[1,2],\"d\":1}", p);
+    }
+
+    @Test
+    public void testNestedHandleIsolatedFromClone() {
+        Configuration p = Configuration.from("{\"a\":{\"m\":{\"x\":1}}}");
+        Map<String, Object> a = p.getMap("a");
+        Configuration q = p.clone();
+        ((Map<String, Object>) a.get("m")).put("x", 2);
+
+        assertJson("{\"a\":{\"m\":{\"x\":1}}}", q);
+        Assert.assertEquals(2, (int) p.getInt("a.m.x"));
+    }
+
+    @Test
+    public void testGetConfigurationIsolatedFromHandle() {
+        Configuration p = Configuration.from("{\"a\":{\"m\":{\"x\":1}}}");
+        Map<String, Object> m = p.getMap("a.m");
+        Configuration sub = p.getConfiguration("a");
+        List<Configuration> subs = Configuration.from("{\"l\":[{\"x\":1}]}").getListConfiguration("l");
+        m.put("x", 2);
+
+        assertJson("{\"m\":{\"x\":1}}", sub);
+        assertJson("{\"x\":1}", subs.get(0));
+    }
+
+    @Test
+    public void testHandleStillAliasesOwner() {
+        Configuration p = Configuration.from("{\"m\":{\"x\":1}}");
+        Map<String, Object> m = p.getMap("m");
+        p.clone();
+        p.set("m.y", 2);
+        Assert.assertEquals(2, m.get("y"));
+
+        m.put("z", 3);
+        Assert.assertEquals(3, (int) p.getInt("m.z"));
+        Assert.assertSame(m, p.getMap("m"));
+    }
+
+    @Test
+    public void testCloneIsolatedFromValuePassedToSet() {
+        Map<String, Object> inner = new HashMap<String, Object>();
+        inner.put("x", 1);
+        Map<String, Object> value = new HashMap<String, Object>();
+        value.put("inner", inner);
+
+        Configuration p = Configuration.newDefault();
+        p.set("v", value);
+        Configuration q = p.clone();
+        inner.put("x", 2);
+
+        assertJson("{\"v\":{\"inner\":{\"x\":1}}}", q);
+        assertJson("{\"v\":{\"inner\":{\"x\":2}}}", p);
+    }
+
+    @Test
+    public void testSetConfigurationUnderHandle() {
+        Configuration p = Configuration.from("{\"m\":{}}");
+        Map<String, Object> m = p.getMap("m");
+        Configuration other = Configuration.from("{\"x\":1}");
+        p.set("m.c", other);
+
+        ((Map<String, Object>) m.get("c")).put("x", 2);
+        other.set("y", 3);
+
+        assertJson("{\"x\":1,\"y\":3}", other);
+        assertJson("{\"m\":{\"c\":{\"x\":2}}}", p);
+    }
+
+    @Test
+    public void testSetConfigurationIsCopyOnWrite() {
+        Configuration reader = Configuration.from("{\"k\":\"v\",\"l\":[1]}");
+        Configuration task = Configuration.newDefault();
+        task.set("reader", reader);
+        reader.set("k", "changed");
+        task.set("reader.l[1]", 2);
+
+        assertJson("{\"k\":\"changed\",\"l\":[1]}", reader);
+        assertJson("{\"reader\":{\"k\":\"v\",\"l\":[1,2]}}", task);
+    }
+
+    /**
+     * 随机操作序列，与不共享任何节点、clone 走 JSON 往返的参考实现逐步比对
+     */
+    @Test
+    public void testRandomizedAgainstJsonClone() {
+        for (long seed = 0; seed < 10; seed++) {
+            new Differential(new Random(seed)).run(500);
+        }
+    }
+
+    private static void assertJson(String expected, Configuration actual) {
+        Assert.assertEquals(JSON.parse(expected), JSON.parse(actual.toJSON()));
+    }
+
+    private static class Pair {
+        private final Configuration subject;
+        private final Configuration reference;
+
+        Pair(Configuration subject, Configuration reference) {
+            this.subject = subject;
+            this.reference = reference;
+        }
+    }
+
+    private static class Differential {
+        private static final String[] KEYS = {"a", "b", "c"};
+
+        private final Random random;
+        private final List<Pair> configurations = new ArrayList<Pair>();
+        // 交给调用方的 Map/List，两边按相同方式原地修改
+        private final List<Object[]> handles = new ArrayList<Object[]>();
+
+        Differential(Random random) {
+            this.random = random;
+            String json = "{\"a\":{\"b\":[1,{\"c\":\"x\"}],\"c\":2},\"b\":[{\"a\":1},[true]],\"c\":\"s\"}";
+            configurations.add(new Pair(Configuration.from(json), Configuration.from(json)));
+        }
+
+        void run(int rounds) {
+            for (int i = 0; i < rounds; i++) {
+                step();
+                verify(i);
+            }
+        }
+
+        private void step() {
+            Pair pair = configurations.get(random.nextInt(configurations.size()));
+            String path = randomPath();
+            switch (random.nextInt(10)) {
+                case 0:
+                    addConfiguration(new Pair(pair.subject.clone(),
+                            Configuration.from(pair.reference.toJSON())));
+                    break;
+                case 1:
+                case 2:
+                    String json = randomValueJson();
+                    Object subjectValue = JSON.parse(json);
+                    Object referenceValue = JSON.parse(json);
+                    boolean subjectFailed = setFails(pair.subject, path, subjectValue);
+                    boolean referenceFailed = setFails(pair.reference, path, referenceValue);
+                    Assert.assertEquals(referenceFailed, subjectFailed);
+                    addChildHandles(subjectValue, referenceValue);
+                    break;
+                case 3:
+                    Pair other = configurations.get(random.nextInt(configurations.size()));
+                    // 限制规模，避免反复嵌套后树指数增长
+                    if (other != pair && isContainerRoot(other) && other.reference.toJSON().length() < 512) {
+                        boolean f1 = setFails(pair.subject, path, other.subject);
+                        boolean f2 = setFails(pair.reference, path, JSON.parse(other.reference.toJSON()));
+                        Assert.assertEquals(f2, f1);
+                    }
+                    break;
+                case 4:
+                case 5:
+                    addHandle(pair.subject.get(path), pair.reference.get(path));
+                    break;
+                case 6:
+                    if (random.nextInt(4) == 0) {
+                        addHandle(pair.subject.getInternal(), pair.reference.getInternal());
+                    }
+                    break;
+                case 7:
+                    mutateHandle();
+                    break;
+                case 8:
+                    Object value = pair.reference.get(path);
+                    if (value instanceof Map) {
+                        addConfiguration(new Pair(pair.subject.getConfiguration(path),
+                                Configuration.from(JSON.toJSONString(value))));
+                    } else if (value instanceof List) {
+                        List<Configuration> subjects = pair.subject.getListConfiguration(path);
+                        List<Object> references = (List<Object>) value;
+                        Assert.assertEquals(references.size(), subjects.size());
+                        for (int i = 0; i < subjects.size(); i++) {
+                            if (references.get(i) instanceof Map) {
+                                addConfiguration(new Pair(subjects.get(i),
+                                        Configuration.from(JSON.toJSONString(references.get(i)))));
+                            }
+                        }
+                    }
+                    break;
+                default:
+                    if (pair.reference.get(path) != null && !path.contains("[")) {
+                        pair.subject.remove(path);
+                        pair.reference.remove(path);
+                    }
+                    break;
+            }
+        }
+
+        private void verify(int round) {
+            for (Pair pair : configurations) {
+                Assert.assertEquals("round " + round, JSON.parse(pair.reference.toJSON()),
+                        JSON.parse(pair.subject.toJSON()));
+            }
+            for (Object[] handle : handles) {
+                Assert.assertEquals("round " + round, JSON.parse(JSON.toJSONString(handle[1])),
+                        JSON.parse(JSON.toJSONString(handle[0])));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void mutateHandle() {
+            if (handles.isEmpty()) {
+                return;
+            }
+            Object[] handle = handles.get(random.nextInt(handles.size()));
+            String json = randomValueJson();
+            Object subjectValue = JSON.parse(json);
+            Object referenceValue = JSON.parse(json);
+            if (handle[0] instanceof Map) {
+                String key = KEYS[random.nextInt(KEYS.length)];
+                ((Map<String, Object>) handle[0]).put(key, subjectValue);
+                ((Map<String, Object>) handle[1]).put(key, referenceValue);
+            } else {
+                ((List<Object>) handle[0]).add(subjectValue);
+                ((List<Object>) handle[1]).add(referenceValue);
+            }
+            addHandle(subjectValue, referenceValue);
+        }
+
+        private void addHandle(Object subject, Object reference) {
+            Assert.assertEquals(JSON.parse(JSON.toJSONString(reference)), JSON.parse(JSON.toJSONString(subject)));
+            if ((subject instanceof Map || subject instanceof List) && handles.size() < 32) {
+                handles.add(new Object[]{subject, reference});
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void addChildHandles(Object subjectValue, Object referenceValue) {
+            if (subjectValue instanceof Map) {
+                for (String key : ((Map<String, Object>) subjectValue).keySet()) {
+                    addHandle(((Map<String, Object>) subjectValue).get(key),
+                            ((Map<String, Object>) referenceValue).get(key));
+                }
+            } else if (subjectValue instanceof List) {
+                List<Object> subjects = (List<Object>) subjectValue;
+                for (int i = 0; i < subjects.size(); i++) {
+                    addHandle(subjects.get(i), ((List<Object>) referenceValue).get(i));
+                }
+            }
+        }
+
+        private void addConfiguration(Pair pair) {
+            if (configurations.size() < 8) {
+                configurations.add(pair);
+            } else {
+                configurations.set(1 + random.nextInt(configurations.size() - 1), pair);
+            }
+        }
+
+        private boolean isContainerRoot(Pair pair) {
+            Object root = JSON.parse(pair.reference.toJSON());
+            return root instanceof Map || root instanceof List;
+        }
+
+        private String randomPath() {
+            StringBuilder path = new StringBuilder(KEYS[random.nextInt(KEYS.length)]);
+            int depth = random.nextInt(3);
+            for (int i = 0; i < depth; i++) {
+                if (random.nextBoolean()) {
+                    path.append('.').append(KEYS[random.nextInt(KEYS.length)]);
+                } else {
+                    path.append('[').append(random.nextInt(3)).append(']');
+                }
+            }
+            return path.toString();
+        }
+
+        private String randomValueJson() {
+            switch (random.nextInt(5)) {
+                case 0:
+                    return String.valueOf(random.nextInt(100));
+                case 1:
+                    return "\"v" + random.nextInt(100) + "\"";
+                case 2:
+                    return "{\"a\":" + random.nextInt(10) + ",\"b\":{\"c\":[" + random.nextInt(10) + "]}}";
+                case 3:
+                    return "[" + random.nextInt(10) + ",{\"a\":\"x\"}]";
+                default:
+                    return "true";
+            }
+        }
+
+        private static boolean setFails(Configuration configuration, String path, Object value) {
+            try {
+                configuration.set(path, value);
+                return false;
+            } catch (RuntimeException e) {
+                return true;
+            }
+        }
+    }
+}
@@ -16,11 +16,16 @@ import com.alibaba.datax.core.container.util.HookInvoker;
 import com.alibaba.datax.core.container.util.JobAssignUtil;
 import com.alibaba.datax.core.job.scheduler.AbstractScheduler;
 import com.alibaba.datax.core.job.scheduler.processinner.StandAloneScheduler;
+import com.alibaba.datax.core.statistics.bottleneck.BottleneckAnalyzer;
 import com.alibaba.datax.core.statistics.communication.Communication;
 import com.alibaba.datax.core.statistics.communication.CommunicationTool;
 import com.alibaba.datax.core.statistics.container.communicator.AbstractContainerCommunicator;
 import com.alibaba.datax.core.statistics.container.communicator.job.StandAloneJobContainerCommunicator;
+import com.alibaba.datax.core.statistics.metrics.MetricsRegistry;
+import com.alibaba.datax.core.statistics.metrics.PrometheusMetricsServer;
 import com.alibaba.datax.core.statistics.plugin.DefaultJobPluginCollector;
+import com.alibaba.datax.core.statistics.plugin.task.dirty.DirtyRecordDispatcher;
+import com.alibaba.datax.core.util.DirtyRecordLimiter;
 import com.alibaba.datax.core.util.ErrorRecordChecker;
 import com.alibaba.datax.core.util.FrameworkErrorCode;
 import com.alibaba.datax.core.util.container.ClassLoaderSwapper;
@@ -82,6 +87,8 @@ public class JobContainer extends AbstractContainer {
 
     private ErrorRecordChecker errorLimit;
 
+    private PrometheusMetricsServer metricsServer;
+
     public JobContainer(Configuration configuration) {
         super(configuration);
 
@@ -163,6 +170,9 @@ public class JobContainer extends AbstractContainer {
                     FrameworkErrorCode.RUNTIME_ERROR, e);
         } finally {
             if(!isDryRun) {
+                this.stopMetricsServer();
+                DirtyRecordDispatcher.getInstance().shutdown();
+                DirtyRecordLimiter.getInstance().reset();
 
                 this.destroy();
                 this.endTimeStamp = System.currentTimeMillis();
@@ -530,6 +540,8 @@ public class JobContainer extends AbstractContainer {
 
             LOG.info("Running by {} Mode.", executeMode);
 
+            this.startMetricsServer();
+
             this.startTransferTimeStamp = System.currentTimeMillis();
 
             scheduler.schedule(taskGroupConfigs);
@@ -556,6 +568,36 @@ public class JobContainer extends AbstractContainer {
         return new StandAloneScheduler(containerCommunicator);
     }
 
+    /**
+     * 开启后通过内嵌HTTP服务以Prometheus格式暴露job/taskGroup/task的实时统计
+     */
+    private void startMetricsServer() {
+        if (!this.configuration.getBool(CoreConstant.DATAX_CORE_CONTAINER_METRICS_ENABLE, false)) {
+            return;
+        }
+        int port = this.configuration.getInt(CoreConstant.DATAX_CORE_CONTAINER_METRICS_PORT, 9527);
+        int portRange = this.configuration.getInt(CoreConstant.DATAX_CORE_CONTAINER_METRICS_PORTRANGE, 10);
+        MetricsRegistry.getInstance().enable(this.jobId);
+        this.metricsServer = new PrometheusMetricsServer(port, portRange);
+        if (!this.metricsServer.start()) {
+            this.metricsServer = null;
+            MetricsRegistry.getInstance().disable();
+        }
+    }
+
+    private void stopMetricsServer() {
+        if (this.metricsServer == null) {
+            return;
+        }
+        try {
+            this.metricsServer.stop();
+        } catch (Exception e) {
+            LOG.warn("stop metrics server failed, ignore it.", e);
+        }
+        this.metricsServer = null;
+        MetricsRegistry.getInstance().disable();
+    }
+
     private void post() {
         this.postJobWriter();
         this.postJobReader();
@@ -643,6 +685,11 @@ public class JobContainer extends AbstractContainer {
             ));
         }
 
+        String bottleneckSummary = BottleneckAnalyzer.summarize(communication, this.userConf);
+        if (bottleneckSummary != null) {
+            LOG.info(bottleneckSummary);
+        }
+
 
     }
 
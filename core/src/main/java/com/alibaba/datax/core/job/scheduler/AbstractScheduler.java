@@ -5,6 +5,7 @@ import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.core.statistics.communication.Communication;
 import com.alibaba.datax.core.statistics.communication.CommunicationTool;
 import com.alibaba.datax.core.statistics.container.communicator.AbstractContainerCommunicator;
+import com.alibaba.datax.core.util.DirtyRecordLimiter;
 import com.alibaba.datax.core.util.ErrorRecordChecker;
 import com.alibaba.datax.core.util.FrameworkErrorCode;
 import com.alibaba.datax.core.util.container.CoreConstant;
@@ -21,6 +22,8 @@ public abstract class AbstractScheduler {
 
     private ErrorRecordChecker errorLimit;
 
+    private DirtyRecordLimiter dirtyRecordLimiter = DirtyRecordLimiter.getInstance();
+
     private AbstractContainerCommunicator containerCommunicator;
 
     private Long jobId;
@@ -87,6 +90,9 @@ public abstract class AbstractScheduler {
                 }
 
                 errorLimit.checkRecordLimit(nowJobContainerCommunication);
+                if (dirtyRecordLimiter.isExceeded()) {
+                    dealFailedStat(this.containerCommunicator, dirtyRecordLimiter.getExceedException());
+                }
 
                 if (nowJobContainerCommunication.getState() == State.SUCCEEDED) {
                     LOG.info("Scheduler accomplished all tasks.");
@@ -99,7 +105,8 @@ public abstract class AbstractScheduler {
                     dealFailedStat(this.containerCommunicator, nowJobContainerCommunication.getThrowable());
                 }
 
-                Thread.sleep(jobSleepIntervalInMillSec);
+                // task中发现脏数据超限时提前醒来，不必等满一个周期
+                dirtyRecordLimiter.awaitExceeded(jobSleepIntervalInMillSec);
             }
         } catch (InterruptedException e) {
             // 以 failed 状态退出
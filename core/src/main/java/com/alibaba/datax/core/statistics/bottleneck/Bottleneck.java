@@ -0,0 +1,38 @@
+package com.alibaba.datax.core.statistics.bottleneck;
+
+/**
+ * task在一个分析周期内的瓶颈归类，每个归类在Communication中对应一个周期计数counter，
+ * 通过Communication的合并自然汇总到taskGroup和job
+ */
+public enum Bottleneck {
+    /**
+     * writer长时间等待reader：读端慢
+     */
+    SOURCE_BOUND("bottleneckSourceBoundIntervals"),
+    /**
+     * reader长时间等待channel空位：写端慢
+     */
+    SINK_BOUND("bottleneckSinkBoundIntervals"),
+    /**
+     * writer在等待reader，而reader线程的大部分时间花在transformer上
+     */
+    TRANSFORM_BOUND("bottleneckTransformBoundIntervals"),
+    /**
+     * channel限速导致的休眠占比高
+     */
+    THROTTLED("bottleneckThrottledIntervals"),
+    /**
+     * 读写两端都不等待，两端都在满负荷工作
+     */
+    BALANCED("bottleneckBalancedIntervals");
+
+    private final String counterKey;
+
+    Bottleneck(String counterKey) {
+        this.counterKey = counterKey;
+    }
+
+    public String getCounterKey() {
+        return counterKey;
+    }
+}
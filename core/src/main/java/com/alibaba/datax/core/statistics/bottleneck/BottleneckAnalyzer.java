@@ -0,0 +1,176 @@
+package com.alibaba.datax.core.statistics.bottleneck;
+
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.statistics.communication.CommunicationTool;
+import com.alibaba.datax.core.util.container.CoreConstant;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * task级别的瓶颈分析，由taskGroupContainer在每个汇报周期对正在运行的task调用
+ * <p/>
+ * 依据周期内以下时间占周期时长的比例进行归类：
+ * 1. waitReaderTime：writer等待reader（channel为空）
+ * 2. waitWriterTime：reader等待writer（channel已满）
+ * 3. transformer耗时：reader线程执行transformer的时间
+ * 4. channel限速休眠时间
+ * <p/>
+ * 非线程安全，每个taskGroupContainer持有一个实例
+ */
+public class BottleneckAnalyzer {
+
+    /**
+     * 等待时间占比超过该值才认为该侧存在瓶颈
+     */
+    private static final double RATIO_THRESHOLD = 0.3;
+
+    private final Map<Integer, Snapshot> lastSnapshots = new HashMap<Integer, Snapshot>();
+
+    /**
+     * @return 本周期的归类，首次调用（没有上一周期数据）时返回null
+     */
+    public Bottleneck analyze(int taskId, Communication communication) {
+        Snapshot current = new Snapshot(System.nanoTime(), communication);
+        Snapshot last = this.lastSnapshots.put(taskId, current);
+        if (last == null) {
+            return null;
+        }
+
+        long interval = current.timestamp - last.timestamp;
+        if (interval <= 0) {
+            return null;
+        }
+
+        Bottleneck bottleneck = classify(
+                ratio(current.waitReaderTime - last.waitReaderTime, interval),
+                ratio(current.waitWriterTime - last.waitWriterTime, interval),
+                ratio(current.transformerUsedTime - last.transformerUsedTime, interval),
+                ratio(current.throttleTime - last.throttleTime, interval));
+        communication.increaseCounter(bottleneck.getCounterKey(), 1);
+        return bottleneck;
+    }
+
+    public void removeTask(int taskId) {
+        this.lastSnapshots.remove(taskId);
+    }
+
+    static Bottleneck classify(double waitReaderRatio, double waitWriterRatio,
+                               double transformerRatio, double throttleRatio) {
+        if (throttleRatio >= RATIO_THRESHOLD) {
+            return Bottleneck.THROTTLED;
+        }
+        if (waitWriterRatio >= RATIO_THRESHOLD && waitWriterRatio >= waitReaderRatio) {
+            return Bottleneck.SINK_BOUND;
+        }
+        if (waitReaderRatio >= RATIO_THRESHOLD) {
+            return transformerRatio >= RATIO_THRESHOLD ? Bottleneck.TRANSFORM_BOUND : Bottleneck.SOURCE_BOUND;
+        }
+        return Bottleneck.BALANCED;
+    }
+
+    private static double ratio(long delta, long interval) {
+        // task failover后communication会被重置，此时差值可能为负
+        if (delta <= 0) {
+            return 0;
+        }
+        return Math.min(1.0, delta / (double) interval);
+    }
+
+    /**
+     * 根据job汇总的各归类周期数给出瓶颈结论和调优建议，没有任何分析数据时返回null
+     */
+    public static String summarize(Communication jobCommunication, Configuration jobConfiguration) {
+        Map<Bottleneck, Long> intervals = new HashMap<Bottleneck, Long>();
+        long total = 0;
+        Bottleneck dominant = null;
+        for (Bottleneck bottleneck : Bottleneck.values()) {
+            long count = jobCommunication.getLongCounter(bottleneck.getCounterKey());
+            intervals.put(bottleneck, count);
+            total += count;
+            if (count > 0 && (dominant == null || count > intervals.get(dominant))) {
+                dominant = bottleneck;
+            }
+        }
+        if (total == 0) {
+            return null;
+        }
+
+        DecimalFormat df = new DecimalFormat("0.00");
+        StringBuilder sb = new StringBuilder("\n瓶颈分析(按task汇报周期统计): ");
+        for (Bottleneck bottleneck : Bottleneck.values()) {
+            sb.append(bottleneck.name()).append('=')
+                    .append(df.format(intervals.get(bottleneck) * 100.0 / total)).append("% ");
+        }
+        sb.append('\n');
+        for (String recommendation : recommend(dominant, jobConfiguration)) {
+            sb.append("  - ").append(recommendation).append('\n');
+        }
+        return sb.toString();
+    }
+
+    static List<String> recommend(Bottleneck dominant, Configuration jobConfiguration) {
+        List<String> recommendations = new ArrayList<String>();
+        switch (dominant) {
+            case SOURCE_BOUND:
+                recommendations.add("读端是瓶颈：writer大部分时间在等待reader产出数据。可调大job.setting.speed.channel以提高读并发。");
+                if (isRdbmsReaderWithoutSplitPk(jobConfiguration)) {
+                    recommendations.add("reader未配置splitPk，单表只能由一个task读取，建议配置splitPk对大表做切分。");
+                }
+                break;
+            case SINK_BOUND:
+                recommendations.add("写端是瓶颈：reader大部分时间在等待channel空位。可调大writer的batchSize，"
+                        + "或调大job.setting.speed.channel以提高写并发，同时检查目标端负载。");
+                break;
+            case TRANSFORM_BOUND:
+                recommendations.add("transformer是瓶颈：reader线程大部分时间在执行transformer。建议简化transformer逻辑，"
+                        + "或调大job.setting.speed.channel以提高并发。");
+                break;
+            case THROTTLED:
+                recommendations.add("限速生效：channel因限速休眠的时间占比高。如需更高吞吐，可调大job.setting.speed.byte/record"
+                        + "或core.transport.channel.speed.byte/record。");
+                break;
+            case BALANCED:
+            default:
+                recommendations.add("读写两端均接近满负荷，可尝试调大job.setting.speed.channel。");
+                break;
+        }
+        return recommendations;
+    }
+
+    private static boolean isRdbmsReaderWithoutSplitPk(Configuration jobConfiguration) {
+        if (jobConfiguration == null) {
+            return false;
+        }
+        Configuration readerParameter = jobConfiguration.getConfiguration(
+                CoreConstant.DATAX_JOB_CONTENT_READER_PARAMETER);
+        if (readerParameter == null || readerParameter.get("connection") == null) {
+            return false;
+        }
+        if (readerParameter.getList("connection[0].querySql") != null) {
+            return false;
+        }
+        return readerParameter.getString("splitPk") == null
+                || readerParameter.getString("splitPk").trim().isEmpty();
+    }
+
+    private static class Snapshot {
+        private final long timestamp;
+        private final long waitReaderTime;
+        private final long waitWriterTime;
+        private final long transformerUsedTime;
+        private final long throttleTime;
+
+        private Snapshot(long timestamp, Communication communication) {
+            this.timestamp = timestamp;
+            this.waitReaderTime = communication.getLongCounter(CommunicationTool.WAIT_READER_TIME);
+            this.waitWriterTime = communication.getLongCounter(CommunicationTool.WAIT_WRITER_TIME);
+            this.transformerUsedTime = communication.getLongCounter(CommunicationTool.TRANSFORMER_USED_TIME);
+            this.throttleTime = communication.getLongCounter(CommunicationTool.CHANNEL_THROTTLE_TIME);
+        }
+    }
+}
@@ -6,20 +6,57 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * DataX所有的状态及统计信息交互类，job、taskGroup、task等的消息汇报都走该类
  */
 public class Communication extends BaseObject implements Cloneable {
     /**
-     * 所有的数值key-value对 *
+     * 热点counter：channel在每个batch的push/pull时都会累加，reader、writer以及汇报线程会同时访问，
+     * 这些key预先注册为按下标访问的LongAdder，累加时不加锁
+     */
+    private static final String[] HOT_COUNTER_KEYS = new String[]{
+            CommunicationTool.READ_SUCCEED_RECORDS,
+            CommunicationTool.READ_SUCCEED_BYTES,
+            CommunicationTool.READ_FAILED_RECORDS,
+            CommunicationTool.READ_FAILED_BYTES,
+            CommunicationTool.WRITE_RECEIVED_RECORDS,
+            CommunicationTool.WRITE_RECEIVED_BYTES,
+            CommunicationTool.WRITE_FAILED_RECORDS,
+            CommunicationTool.WRITE_FAILED_BYTES,
+            CommunicationTool.WAIT_READER_TIME,
+            CommunicationTool.WAIT_WRITER_TIME
+    };
+
+    private static final Map<String, Integer> HOT_COUNTER_INDEX = new HashMap<String, Integer>();
+
+    static {
+        for (int i = 0; i < HOT_COUNTER_KEYS.length; i++) {
+            HOT_COUNTER_INDEX.put(HOT_COUNTER_KEYS[i], i);
+        }
+    }
+
+    /**
+     * 所有的数值key-value对（热点counter除外） *
      */
     private Map<String, Number> counter;
 
+    /**
+     * 热点counter的值，下标与HOT_COUNTER_KEYS一致 *
+     */
+    private LongAdder[] hotCounter;
+
+    /**
+     * 热点counter是否被设置过，用于在getCounter()中保持原有的key语义 *
+     */
+    private boolean[] hotCounterTouched;
+
     /**
      * 运行状态 *
      */
@@ -50,14 +87,57 @@ public class Communication extends BaseObject implements Cloneable {
 
     private void init() {
         this.counter = new ConcurrentHashMap<String, Number>();
+        this.hotCounter = new LongAdder[HOT_COUNTER_KEYS.length];
+        for (int i = 0; i < HOT_COUNTER_KEYS.length; i++) {
+            this.hotCounter[i] = new LongAdder();
+        }
+        this.hotCounterTouched = new boolean[HOT_COUNTER_KEYS.length];
         this.state = State.RUNNING;
         this.throwable = null;
         this.message = new ConcurrentHashMap<String, List<String>>();
         this.timestamp = System.currentTimeMillis();
     }
 
+    /**
+     * 返回所有counter的快照（包含热点counter），对返回值的修改不会影响本对象
+     */
     public Map<String, Number> getCounter() {
-        return this.counter;
+        Map<String, Number> snapshot = new HashMap<String, Number>(this.counter);
+        for (int i = 0; i < HOT_COUNTER_KEYS.length; i++) {
+            long value = this.hotCounter[i].sum();
+            if (isHotCounterTouched(i, value)) {
+                snapshot.put(HOT_COUNTER_KEYS[i], value);
+            }
+        }
+        return snapshot;
+    }
+
+    private static int hotCounterIndex(final String key) {
+        Integer index = HOT_COUNTER_INDEX.get(key);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * hotCounterTouched是普通数组，其他线程可能读到旧值；先取sum()，非0即视为已设置，
+     * 写线程在add之前设置了标记，LongAdder的CAS会把标记一起发布出去
+     */
+    private boolean isHotCounterTouched(final int index, final long value) {
+        return value != 0 || this.hotCounterTouched[index];
+    }
+
+    private void addHotCounter(final int index, final long deltaValue) {
+        // 先读后写，避免reader/writer线程反复写同一个数组造成缓存行争用
+        if (!this.hotCounterTouched[index]) {
+            this.hotCounterTouched[index] = true;
+        }
+        this.hotCounter[index].add(deltaValue);
+    }
+
+    private void setHotCounter(final int index, final long value) {
+        this.hotCounterTouched[index] = true;
+        LongAdder adder = this.hotCounter[index];
+        // set只在单线程上下文中使用（如channel的waitTime、限速的lastCommunication），与add并发时以最终累加结果为准
+        adder.add(value - adder.sum());
     }
 
     public State getState() {
@@ -123,21 +203,43 @@ public class Communication extends BaseObject implements Cloneable {
         valueList.add(value);
     }
 
-    public synchronized Long getLongCounter(final String key) {
-        Number value = this.counter.get(key);
+    public Long getLongCounter(final String key) {
+        int index = hotCounterIndex(key);
+        if (index >= 0) {
+            return this.hotCounter[index].sum();
+        }
+
+        synchronized (this) {
+            Number value = this.counter.get(key);
 
-        return value == null ? 0 : value.longValue();
+            return value == null ? 0 : value.longValue();
+        }
     }
 
-    public synchronized void setLongCounter(final String key, final long value) {
+    public void setLongCounter(final String key, final long value) {
         Validate.isTrue(StringUtils.isNotBlank(key), "设置counter的key不能为空");
-        this.counter.put(key, value);
+        int index = hotCounterIndex(key);
+        if (index >= 0) {
+            setHotCounter(index, value);
+            return;
+        }
+
+        synchronized (this) {
+            this.counter.put(key, value);
+        }
     }
 
-    public synchronized Double getDoubleCounter(final String key) {
-        Number value = this.counter.get(key);
+    public Double getDoubleCounter(final String key) {
+        int index = hotCounterIndex(key);
+        if (index >= 0) {
+            return (double) this.hotCounter[index].sum();
+        }
+
+        synchronized (this) {
+            Number value = this.counter.get(key);
 
-        return value == null ? 0.0d : value.doubleValue();
+            return value == null ? 0.0d : value.doubleValue();
+        }
     }
 
     public synchronized void setDoubleCounter(final String key, final double value) {
@@ -145,12 +247,19 @@ public class Communication extends BaseObject implements Cloneable {
         this.counter.put(key, value);
     }
 
-    public synchronized void increaseCounter(final String key, final long deltaValue) {
+    public void increaseCounter(final String key, final long deltaValue) {
         Validate.isTrue(StringUtils.isNotBlank(key), "增加counter的key不能为空");
+        int index = hotCounterIndex(key);
+        if (index >= 0) {
+            addHotCounter(index, deltaValue);
+            return;
+        }
 
-        long value = this.getLongCounter(key);
+        synchronized (this) {
+            long value = this.getLongCounter(key);
 
-        this.counter.put(key, value + deltaValue);
+            this.counter.put(key, value + deltaValue);
+        }
     }
 
     @Override
@@ -171,6 +280,12 @@ public class Communication extends BaseObject implements Cloneable {
                 }
             }
         }
+        for (int i = 0; i < HOT_COUNTER_KEYS.length; i++) {
+            long value = this.hotCounter[i].sum();
+            if (isHotCounterTouched(i, value)) {
+                communication.setHotCounter(i, value);
+            }
+        }
 
         communication.setState(this.state, true);
         communication.setThrowable(this.throwable, true);
@@ -201,7 +316,14 @@ public class Communication extends BaseObject implements Cloneable {
          * counter的合并，将otherComm的值累加到this中，不存在的则创建
          * 同为long
          */
-        for (Entry<String, Number> entry : otherComm.getCounter().entrySet()) {
+        for (int i = 0; i < HOT_COUNTER_KEYS.length; i++) {
+            long value = otherComm.hotCounter[i].sum();
+            if (otherComm.isHotCounterTouched(i, value)) {
+                this.addHotCounter(i, value);
+            }
+        }
+
+        for (Entry<String, Number> entry : otherComm.counter.entrySet()) {
             String key = entry.getKey();
             Number otherValue = entry.getValue();
             if (otherValue == null) {
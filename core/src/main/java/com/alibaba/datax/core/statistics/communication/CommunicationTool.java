@@ -43,6 +43,8 @@ public final class CommunicationTool {
 
     public static final String WAIT_READER_TIME = "waitReaderTime";
 
+    public static final String CHANNEL_THROTTLE_TIME = "channelThrottleTime";
+
     public static final String TRANSFORMER_USED_TIME = "totalTransformerUsedTime";
     public static final String TRANSFORMER_SUCCEED_RECORDS = "totalTransformerSuccessRecords";
     public static final String TRANSFORMER_FAILED_RECORDS = "totalTransformerFailedRecords";
@@ -0,0 +1,68 @@
+package com.alibaba.datax.core.statistics.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定桶的耗时直方图，观测值单位为纳秒，输出时换算为秒
+ * 每个桶只记录落在该区间的次数，输出时再做累加
+ */
+public class LatencyHistogram {
+
+    /**
+     * 桶上界，单位秒
+     */
+    private static final double[] BUCKET_BOUNDS_IN_SECONDS = new double[]{
+            0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10
+    };
+
+    private static final long[] BUCKET_BOUNDS_IN_NANOS = new long[BUCKET_BOUNDS_IN_SECONDS.length];
+
+    static {
+        for (int i = 0; i < BUCKET_BOUNDS_IN_SECONDS.length; i++) {
+            BUCKET_BOUNDS_IN_NANOS[i] = (long) (BUCKET_BOUNDS_IN_SECONDS[i] * 1000 * 1000 * 1000);
+        }
+    }
+
+    /**
+     * 最后一个桶为 +Inf
+     */
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_IN_NANOS.length + 1];
+
+    private final LongAdder sumInNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void observe(long nanos) {
+        int i = 0;
+        while (i < BUCKET_BOUNDS_IN_NANOS.length && nanos > BUCKET_BOUNDS_IN_NANOS[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        sumInNanos.add(nanos);
+    }
+
+    public static double[] getBucketBoundsInSeconds() {
+        return BUCKET_BOUNDS_IN_SECONDS.clone();
+    }
+
+    /**
+     * @return 累计计数，下标与getBucketBoundsInSeconds()一致，最后一个元素为 +Inf 即总数
+     */
+    public long[] getCumulativeCounts() {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            total += buckets[i].sum();
+            counts[i] = total;
+        }
+        return counts;
+    }
+
+    public double getSumInSeconds() {
+        return sumInNanos.sum() / 1e9;
+    }
+}
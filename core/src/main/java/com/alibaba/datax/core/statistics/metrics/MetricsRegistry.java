@@ -0,0 +1,177 @@
+package com.alibaba.datax.core.statistics.metrics;
+
+import com.alibaba.datax.core.statistics.bottleneck.Bottleneck;
+import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.transport.channel.Channel;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内的实时监控数据登记处，供 PrometheusMetricsServer 在抓取时读取
+ * <p/>
+ * job 和 taskGroup 级别的数据来自 LocalTGCommunicationManager，这里只登记：
+ * 1. 正在运行的 task 的 Communication 和 Channel
+ * 2. 每个 taskGroup 的 channel push/pull 批次耗时直方图
+ * 3. job 最近一次汇报的 Communication（含速度）
+ * <p/>
+ * 未开启监控时所有登记操作直接返回，不产生额外开销
+ */
+public final class MetricsRegistry {
+    private static final MetricsRegistry instance = new MetricsRegistry();
+
+    private volatile boolean enabled = false;
+
+    private volatile long jobId = -1;
+
+    private volatile Communication lastJobReportCommunication;
+
+    private final Map<Integer, TaskMetrics> runningTasks = new ConcurrentHashMap<Integer, TaskMetrics>();
+
+    private final Map<Integer, LatencyHistogram> pushBatchHistograms = new ConcurrentHashMap<Integer, LatencyHistogram>();
+
+    private final Map<Integer, LatencyHistogram> pullBatchHistograms = new ConcurrentHashMap<Integer, LatencyHistogram>();
+
+    private MetricsRegistry() {
+    }
+
+    public static MetricsRegistry getInstance() {
+        return instance;
+    }
+
+    public void enable(long jobId) {
+        this.jobId = jobId;
+        this.enabled = true;
+    }
+
+    public void disable() {
+        this.enabled = false;
+        this.runningTasks.clear();
+        this.pushBatchHistograms.clear();
+        this.pullBatchHistograms.clear();
+        this.lastJobReportCommunication = null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getJobId() {
+        return jobId;
+    }
+
+    public void registerTask(int taskGroupId, int taskId, Communication communication, Channel channel) {
+        if (!enabled) {
+            return;
+        }
+        runningTasks.put(taskId, new TaskMetrics(taskGroupId, taskId, communication, channel));
+    }
+
+    public void removeTask(int taskId) {
+        if (!enabled) {
+            return;
+        }
+        runningTasks.remove(taskId);
+    }
+
+    public void updateTaskBottleneck(int taskId, Bottleneck bottleneck) {
+        if (!enabled || bottleneck == null) {
+            return;
+        }
+        TaskMetrics task = runningTasks.get(taskId);
+        if (task != null) {
+            task.bottleneck = bottleneck;
+        }
+    }
+
+    public Collection<TaskMetrics> getRunningTasks() {
+        return runningTasks.values();
+    }
+
+    /**
+     * @return 未开启监控时返回null，调用方据此跳过计时
+     */
+    public LatencyHistogram getPushBatchHistogram(int taskGroupId) {
+        return getOrCreateHistogram(pushBatchHistograms, taskGroupId);
+    }
+
+    public LatencyHistogram getPullBatchHistogram(int taskGroupId) {
+        return getOrCreateHistogram(pullBatchHistograms, taskGroupId);
+    }
+
+    public Map<Integer, LatencyHistogram> getPushBatchHistograms() {
+        return pushBatchHistograms;
+    }
+
+    public Map<Integer, LatencyHistogram> getPullBatchHistograms() {
+        return pullBatchHistograms;
+    }
+
+    private LatencyHistogram getOrCreateHistogram(Map<Integer, LatencyHistogram> histograms, int taskGroupId) {
+        if (!enabled) {
+            return null;
+        }
+        LatencyHistogram histogram = histograms.get(taskGroupId);
+        if (histogram == null) {
+            histograms.putIfAbsent(taskGroupId, new LatencyHistogram());
+            histogram = histograms.get(taskGroupId);
+        }
+        return histogram;
+    }
+
+    public void reportJobCommunication(Communication communication) {
+        if (!enabled) {
+            return;
+        }
+        this.lastJobReportCommunication = communication;
+    }
+
+    public Communication getLastJobReportCommunication() {
+        return lastJobReportCommunication;
+    }
+
+    public static class TaskMetrics {
+        private final int taskGroupId;
+        private final int taskId;
+        private final Communication communication;
+        private final Channel channel;
+        private final long startTimeStamp;
+        private volatile Bottleneck bottleneck;
+
+        private TaskMetrics(int taskGroupId, int taskId, Communication communication, Channel channel) {
+            this.taskGroupId = taskGroupId;
+            this.taskId = taskId;
+            this.communication = communication;
+            this.channel = channel;
+            this.startTimeStamp = System.currentTimeMillis();
+        }
+
+        public int getTaskGroupId() {
+            return taskGroupId;
+        }
+
+        public int getTaskId() {
+            return taskId;
+        }
+
+        public Communication getCommunication() {
+            return communication;
+        }
+
+        public Channel getChannel() {
+            return channel;
+        }
+
+        public long getStartTimeStamp() {
+            return startTimeStamp;
+        }
+
+        /**
+         * @return 最近一个分析周期的瓶颈归类，尚未分析时为null
+         */
+        public Bottleneck getBottleneck() {
+            return bottleneck;
+        }
+    }
+}
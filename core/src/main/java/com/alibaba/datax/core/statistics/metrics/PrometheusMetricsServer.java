@@ -0,0 +1,407 @@
+package com.alibaba.datax.core.statistics.metrics;
+
+import com.alibaba.datax.core.statistics.bottleneck.Bottleneck;
+import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.statistics.communication.CommunicationTool;
+import com.alibaba.datax.core.statistics.communication.LocalTGCommunicationManager;
+import com.alibaba.datax.core.taskgroup.TaskMonitor;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 内嵌的 HTTP 服务，以 Prometheus 文本格式(version 0.0.4)在 /metrics 上输出 job、taskGroup、task 的实时统计
+ * <p/>
+ * 速率类指标以 counter 形式输出，由 Prometheus 端通过 rate() 计算；
+ * job 级别额外输出最近一次汇报时计算出的 byteSpeed/recordSpeed
+ */
+public class PrometheusMetricsServer {
+    private static final Logger LOG = LoggerFactory.getLogger(PrometheusMetricsServer.class);
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final int port;
+
+    private final int portRange;
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    /**
+     * 依次尝试 [port, port + portRange) 中的端口，同一台机器上多个job同时开启监控时不会互相冲突；
+     * port 为 0 时由系统分配端口
+     */
+    public PrometheusMetricsServer(int port, int portRange) {
+        this.port = port;
+        this.portRange = Math.max(portRange, 1);
+    }
+
+    /**
+     * 监控只是辅助功能，端口都不可用时只打印告警并返回false，不影响job运行
+     */
+    public boolean start() {
+        int lastPort = this.port == 0 ? 0 : this.port + this.portRange - 1;
+        for (int p = this.port; p <= lastPort && this.server == null; p++) {
+            try {
+                this.server = HttpServer.create(new InetSocketAddress(p), 0);
+            } catch (IOException e) {
+                LOG.debug("metrics port [{}] is not available: {}", p, e.getMessage());
+            }
+        }
+        if (this.server == null) {
+            LOG.warn("DataX metrics server not started, no available port in [{}, {}], job continues without metrics.",
+                    this.port, lastPort);
+            return false;
+        }
+        this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "datax-metrics-http");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/metrics", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body;
+                try {
+                    body = scrape().getBytes(UTF_8);
+                } catch (Throwable e) {
+                    LOG.warn("metrics scrape failed, ignore it.", e);
+                    exchange.sendResponseHeaders(500, -1);
+                    exchange.close();
+                    return;
+                }
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream os = exchange.getResponseBody();
+                try {
+                    os.write(body);
+                } finally {
+                    os.close();
+                }
+            }
+        });
+        this.server.start();
+        LOG.info("DataX metrics server started at port [{}], path [/metrics].", this.server.getAddress().getPort());
+        return true;
+    }
+
+    public void stop() {
+        if (this.server != null) {
+            this.server.stop(0);
+            this.server = null;
+        }
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+            this.executor = null;
+        }
+    }
+
+    public int getPort() {
+        return this.server == null ? this.port : this.server.getAddress().getPort();
+    }
+
+    String scrape() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        String jobId = String.valueOf(registry.getJobId());
+        TextWriter writer = new TextWriter();
+
+        // job
+        List<Sample<Communication>> jobSamples = new ArrayList<Sample<Communication>>();
+        jobSamples.add(new Sample<Communication>(labels("job_id", jobId),
+                LocalTGCommunicationManager.getJobCommunication()));
+        writeCommunicationMetrics(writer, "datax_job", jobSamples);
+
+        Communication jobReport = registry.getLastJobReportCommunication();
+        if (jobReport != null) {
+            writer.family("datax_job_byte_speed", "gauge", "bytes per second computed at last job report");
+            writer.sample("datax_job_byte_speed", labels("job_id", jobId),
+                    jobReport.getLongCounter(CommunicationTool.BYTE_SPEED));
+            writer.family("datax_job_record_speed", "gauge", "records per second computed at last job report");
+            writer.sample("datax_job_record_speed", labels("job_id", jobId),
+                    jobReport.getLongCounter(CommunicationTool.RECORD_SPEED));
+            writer.family("datax_job_percentage", "gauge", "finished stage percentage of the job");
+            writer.sample("datax_job_percentage", labels("job_id", jobId),
+                    jobReport.getDoubleCounter(CommunicationTool.PERCENTAGE));
+        }
+
+        writer.family("datax_job_running_tasks", "gauge", "number of running tasks");
+        writer.sample("datax_job_running_tasks", labels("job_id", jobId), registry.getRunningTasks().size());
+
+        // taskGroup
+        List<Sample<Communication>> taskGroupSamples = new ArrayList<Sample<Communication>>();
+        for (Map.Entry<Integer, Communication> entry :
+                LocalTGCommunicationManager.getTaskGroupCommunicationMap().entrySet()) {
+            taskGroupSamples.add(new Sample<Communication>(
+                    labels("job_id", jobId, "task_group_id", String.valueOf(entry.getKey())), entry.getValue()));
+        }
+        writeCommunicationMetrics(writer, "datax_task_group", taskGroupSamples);
+        writeHistograms(writer, "datax_task_group_channel_push_batch_seconds",
+                "time spent pushing one batch into channel, including waiting for free space",
+                jobId, registry.getPushBatchHistograms());
+        writeHistograms(writer, "datax_task_group_channel_pull_batch_seconds",
+                "time spent pulling one batch from channel, including waiting for records",
+                jobId, registry.getPullBatchHistograms());
+
+        // task
+        List<Sample<Communication>> taskSamples = new ArrayList<Sample<Communication>>();
+        for (MetricsRegistry.TaskMetrics task : registry.getRunningTasks()) {
+            taskSamples.add(new Sample<Communication>(taskLabels(jobId, task), task.getCommunication()));
+        }
+        writeCommunicationMetrics(writer, "datax_task", taskSamples);
+        writeTaskMetrics(writer, jobId, registry);
+
+        writeJvmMetrics(writer);
+
+        return writer.toString();
+    }
+
+    private void writeCommunicationMetrics(TextWriter writer, String prefix, List<Sample<Communication>> samples) {
+        if (samples.isEmpty()) {
+            return;
+        }
+
+        String name = prefix + "_read_succeed_records_total";
+        writer.family(name, "counter", "records successfully pushed by reader");
+        for (Sample<Communication> sample : samples) {
+            writer.sample(name, sample.labels, sample.value.getLongCounter(CommunicationTool.READ_SUCCEED_RECORDS));
+        }
+
+        name = prefix + "_read_succeed_bytes_total";
+        writer.family(name, "counter", "bytes successfully pushed by reader");
+        for (Sample<Communication> sample : samples) {
+            writer.sample(name, sample.labels, sample.value.getLongCounter(CommunicationTool.READ_SUCCEED_BYTES));
+        }
+
+        name = prefix + "_write_received_records_total";
+        writer.family(name, "counter", "records pulled by writer");
+        for (Sample<Communication> sample : samples) {
+            writer.sample(name, sample.labels, sample.value.getLongCounter(CommunicationTool.WRITE_RECEIVED_RECORDS));
+        }
+
+        name = prefix + "_write_received_bytes_total";
+        writer.family(name, "counter", "bytes pulled by writer");
+        for (Sample<Communication> sample : samples) {
+            writer.sample(name, sample.labels, sample.value.getLongCounter(CommunicationTool.WRITE_RECEIVED_BYTES));
+        }
+
+        name = prefix + "_dirty_records_total";
+        writer.family(name, "counter", "dirty records collected by reader and writer");
+        for (Sample<Communication> sample : samples) {
+            writer.sample(name, sample.labels, CommunicationTool.getTotalErrorRecords(sample.value));
+        }
+
+        name = prefix + "_wait_reader_seconds_total";
+        writer.family(name, "counter", "time writer spent waiting for records from reader");
+        for (Sample<Communication> sample : samples) {
+            writer.sample(name, sample.labels,
+                    sample.value.getLongCounter(CommunicationTool.WAIT_READER_TIME) / NANOS_PER_SECOND);
+        }
+
+        name = prefix + "_wait_writer_seconds_total";
+        writer.family(name, "counter", "time reader spent waiting for free space in channel");
+        for (Sample<Communication> sample : samples) {
+            writer.sample(name, sample.labels,
+                    sample.value.getLongCounter(CommunicationTool.WAIT_WRITER_TIME) / NANOS_PER_SECOND);
+        }
+
+        name = prefix + "_channel_throttle_seconds_total";
+        writer.family(name, "counter", "time reader slept because of channel speed limit");
+        for (Sample<Communication> sample : samples) {
+            writer.sample(name, sample.labels,
+                    sample.value.getLongCounter(CommunicationTool.CHANNEL_THROTTLE_TIME) / NANOS_PER_SECOND);
+        }
+
+        name = prefix + "_bottleneck_intervals_total";
+        writer.family(name, "counter", "analysis intervals classified into each bottleneck kind");
+        for (Sample<Communication> sample : samples) {
+            for (Bottleneck bottleneck : Bottleneck.values()) {
+                writer.sample(name, appendLabel(sample.labels, "kind", bottleneck.name().toLowerCase()),
+                        sample.value.getLongCounter(bottleneck.getCounterKey()));
+            }
+        }
+    }
+
+    private void writeTaskMetrics(TextWriter writer, String jobId, MetricsRegistry registry) {
+        if (registry.getRunningTasks().isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+
+        writer.family("datax_task_channel_size", "gauge", "records currently buffered in the task channel");
+        for (MetricsRegistry.TaskMetrics task : registry.getRunningTasks()) {
+            writer.sample("datax_task_channel_size", taskLabels(jobId, task), task.getChannel().size());
+        }
+
+        writer.family("datax_task_channel_capacity", "gauge", "record capacity of the task channel");
+        for (MetricsRegistry.TaskMetrics task : registry.getRunningTasks()) {
+            writer.sample("datax_task_channel_capacity", taskLabels(jobId, task), task.getChannel().getCapacity());
+        }
+
+        writer.family("datax_task_running_seconds", "gauge", "time since the task was started");
+        for (MetricsRegistry.TaskMetrics task : registry.getRunningTasks()) {
+            writer.sample("datax_task_running_seconds", taskLabels(jobId, task),
+                    (now - task.getStartTimeStamp()) / 1000.0);
+        }
+
+        writer.family("datax_task_bottleneck", "gauge", "bottleneck kind of the task in the last analysis interval");
+        for (MetricsRegistry.TaskMetrics task : registry.getRunningTasks()) {
+            if (task.getBottleneck() != null) {
+                writer.sample("datax_task_bottleneck", appendLabel(taskLabels(jobId, task), "kind",
+                        task.getBottleneck().name().toLowerCase()), 1);
+            }
+        }
+
+        // 由TaskMonitor在taskGroup汇报时更新，可用于发现卡住的任务
+        writer.family("datax_task_idle_seconds", "gauge", "time since the task read records count last increased");
+        for (MetricsRegistry.TaskMetrics task : registry.getRunningTasks()) {
+            TaskMonitor.TaskCommunication taskCommunication =
+                    TaskMonitor.getInstance().getTaskCommunication(task.getTaskId());
+            if (taskCommunication != null) {
+                writer.sample("datax_task_idle_seconds", taskLabels(jobId, task),
+                        (now - taskCommunication.getLastUpdateComunicationTS()) / 1000.0);
+            }
+        }
+    }
+
+    private void writeHistograms(TextWriter writer, String name, String help, String jobId,
+                                 Map<Integer, LatencyHistogram> histograms) {
+        if (histograms.isEmpty()) {
+            return;
+        }
+        double[] bounds = LatencyHistogram.getBucketBoundsInSeconds();
+        writer.family(name, "histogram", help);
+        for (Map.Entry<Integer, LatencyHistogram> entry : histograms.entrySet()) {
+            String taskGroupId = String.valueOf(entry.getKey());
+            long[] counts = entry.getValue().getCumulativeCounts();
+            for (int i = 0; i < bounds.length; i++) {
+                writer.sample(name + "_bucket",
+                        labels("job_id", jobId, "task_group_id", taskGroupId, "le", formatDouble(bounds[i])), counts[i]);
+            }
+            long total = counts[counts.length - 1];
+            writer.sample(name + "_bucket", labels("job_id", jobId, "task_group_id", taskGroupId, "le", "+Inf"), total);
+            writer.sample(name + "_sum", labels("job_id", jobId, "task_group_id", taskGroupId),
+                    entry.getValue().getSumInSeconds());
+            writer.sample(name + "_count", labels("job_id", jobId, "task_group_id", taskGroupId), total);
+        }
+    }
+
+    private void writeJvmMetrics(TextWriter writer) {
+        List<GarbageCollectorMXBean> gcBeans = ManagementFactory.getGarbageCollectorMXBeans();
+        writer.family("datax_jvm_gc_collection_count_total", "counter", "gc collection count");
+        for (GarbageCollectorMXBean gc : gcBeans) {
+            writer.sample("datax_jvm_gc_collection_count_total", labels("gc", gc.getName()),
+                    Math.max(gc.getCollectionCount(), 0));
+        }
+        writer.family("datax_jvm_gc_collection_seconds_total", "counter", "gc collection time");
+        for (GarbageCollectorMXBean gc : gcBeans) {
+            writer.sample("datax_jvm_gc_collection_seconds_total", labels("gc", gc.getName()),
+                    Math.max(gc.getCollectionTime(), 0) / 1000.0);
+        }
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        writer.family("datax_jvm_heap_used_bytes", "gauge", "used heap memory");
+        writer.sample("datax_jvm_heap_used_bytes", "", heap.getUsed());
+        writer.family("datax_jvm_heap_max_bytes", "gauge", "max heap memory");
+        writer.sample("datax_jvm_heap_max_bytes", "", heap.getMax());
+    }
+
+    private static String taskLabels(String jobId, MetricsRegistry.TaskMetrics task) {
+        return labels("job_id", jobId, "task_group_id", String.valueOf(task.getTaskGroupId()),
+                "task_id", String.valueOf(task.getTaskId()));
+    }
+
+    private static String labels(String... keyValues) {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(keyValues[i]).append("=\"");
+            String value = keyValues[i + 1];
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (c == '\\' || c == '"') {
+                    sb.append('\\').append(c);
+                } else if (c == '\n') {
+                    sb.append("\\n");
+                } else {
+                    sb.append(c);
+                }
+            }
+            sb.append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String appendLabel(String labels, String key, String value) {
+        String extra = labels(key, value);
+        if ("{}".equals(labels)) {
+            return extra;
+        }
+        return labels.substring(0, labels.length() - 1) + "," + extra.substring(1);
+    }
+
+    private static String formatDouble(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            return String.valueOf((long) value);
+        }
+        return String.valueOf(value);
+    }
+
+    private static class Sample<T> {
+        private final String labels;
+        private final T value;
+
+        private Sample(String labels, T value) {
+            this.labels = labels;
+            this.value = value;
+        }
+    }
+
+    private static class TextWriter {
+        private final StringBuilder sb = new StringBuilder(4096);
+
+        private void family(String name, String type, String help) {
+            sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        }
+
+        private void sample(String name, String labels, long value) {
+            sb.append(name).append(labels).append(' ').append(value).append('\n');
+        }
+
+        private void sample(String name, String labels, double value) {
+            sb.append(name).append(labels).append(' ').append(formatDouble(value)).append('\n');
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.alibaba.datax.common.element.Record;
 import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.plugin.TaskPluginCollector;
 import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.util.DirtyRecordLimiter;
 import com.alibaba.datax.core.util.FrameworkErrorCode;
 
 import org.slf4j.Logger;
@@ -25,6 +26,8 @@ public abstract class AbstractTaskPluginCollector extends TaskPluginCollector {
 
     private PluginType pluginType;
 
+    private DirtyRecordLimiter dirtyRecordLimiter = DirtyRecordLimiter.getInstance();
+
     public AbstractTaskPluginCollector(Configuration conf, Communication communication,
                                        PluginType type) {
         this.configuration = conf;
@@ -73,5 +76,8 @@ public abstract class AbstractTaskPluginCollector extends TaskPluginCollector {
                     FrameworkErrorCode.RUNTIME_ERROR,
                     String.format("不知道的插件类型[%s].", this.pluginType));
         }
+
+        // 计数之后再检查，超过 errorLimit.record 时直接在插件线程中抛错
+        this.dirtyRecordLimiter.increase();
     }
 }
@@ -5,15 +5,12 @@ import com.alibaba.datax.common.element.Record;
 import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.core.statistics.communication.Communication;
 import com.alibaba.datax.core.util.container.CoreConstant;
-import com.alibaba.datax.core.statistics.plugin.task.util.DirtyRecord;
-import com.alibaba.fastjson.JSON;
+import com.alibaba.datax.core.statistics.plugin.task.dirty.DirtyRecordDispatcher;
+import com.alibaba.datax.core.statistics.plugin.task.dirty.DirtyRecordEntry;
 
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -29,6 +26,8 @@ public class StdoutPluginCollector extends AbstractTaskPluginCollector {
 
     private AtomicInteger currentLogNum = new AtomicInteger(0);
 
+    private final DirtyRecordDispatcher dispatcher = DirtyRecordDispatcher.getInstance();
+
     public StdoutPluginCollector(Configuration configuration, Communication communication,
                                  PluginType type) {
         super(configuration, communication, type);
@@ -36,25 +35,7 @@ public class StdoutPluginCollector extends AbstractTaskPluginCollector {
                 configuration.getInt(
                         CoreConstant.DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_MAXDIRTYNUM,
                         DEFAULT_MAX_DIRTYNUM));
-    }
-
-    private String formatDirty(final Record dirty, final Throwable t,
-                               final String msg) {
-        Map<String, Object> msgGroup = new HashMap<String, Object>();
-
-        msgGroup.put("type", super.getPluginType().toString());
-        if (StringUtils.isNotBlank(msg)) {
-            msgGroup.put("message", msg);
-        }
-        if (null != t && StringUtils.isNotBlank(t.getMessage())) {
-            msgGroup.put("exception", t.getMessage());
-        }
-        if (null != dirty) {
-            msgGroup.put("record", DirtyRecord.asDirtyRecord(dirty)
-                    .getColumns());
-        }
-
-        return JSON.toJSONString(msgGroup);
+        dispatcher.init(configuration);
     }
 
     @Override
@@ -64,9 +45,17 @@ public class StdoutPluginCollector extends AbstractTaskPluginCollector {
         if(logNum==0 && t!=null){
             LOG.error("", t);
         }
-        if (maxLogNum.intValue() < 0 || currentLogNum.intValue() < maxLogNum.intValue()) {
-            LOG.error("脏数据: \n"
-                    + this.formatDirty(dirtyRecord, t, errorMessage));
+        if (null == dirtyRecord) {
+            // 由父类打印告警，不进入 dispatcher
+            super.collectDirtyRecord(null, t, errorMessage);
+            return;
+        }
+        // 格式化和输出放到 dispatcher 的后台线程，这里只做判断和入队
+        boolean log = maxLogNum.intValue() < 0 || currentLogNum.intValue() < maxLogNum.intValue();
+        boolean sink = dispatcher.sample();
+        if (log || sink) {
+            dispatcher.dispatch(new DirtyRecordEntry(super.getPluginType(), dirtyRecord, t,
+                    errorMessage, log, sink));
         }
 
         super.collectDirtyRecord(dirtyRecord, t, errorMessage);
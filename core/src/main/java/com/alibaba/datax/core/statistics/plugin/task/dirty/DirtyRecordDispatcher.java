@@ -0,0 +1,278 @@
+package com.alibaba.datax.core.statistics.plugin.task.dirty;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.statistics.plugin.task.util.DirtyRecord;
+import com.alibaba.datax.core.util.ClassUtil;
+import com.alibaba.datax.core.util.FrameworkErrorCode;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import com.alibaba.fastjson.JSON;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内的脏数据异步输出：插件线程只做采样判断并放入有界队列，
+ * 格式化、打日志、写 sink 都在一个后台线程中完成，队列满时直接丢弃并计数，不阻塞插件线程。
+ * <p/>
+ * 脏数据条数、字节数的统计仍由 AbstractTaskPluginCollector 同步累加，不受采样和丢弃影响。
+ */
+public final class DirtyRecordDispatcher {
+    private static final Logger LOG = LoggerFactory.getLogger(DirtyRecordDispatcher.class);
+
+    private static final DirtyRecordDispatcher instance = new DirtyRecordDispatcher();
+
+    private static final String SINK_TYPE_FILE = "file";
+
+    private static final int DEFAULT_QUEUE_SIZE = 10000;
+
+    private static final long DEFAULT_SHUTDOWN_TIMEOUT_MILLIS = 30000L;
+
+    private volatile DirtyRecordSink sink;
+
+    private double sampleRate = 1.0;
+
+    private long maxRecords = -1;
+
+    private long shutdownTimeoutMillis = DEFAULT_SHUTDOWN_TIMEOUT_MILLIS;
+
+    private BlockingQueue<DirtyRecordEntry> queue;
+
+    private Thread worker;
+
+    private volatile boolean initialized = false;
+
+    private volatile boolean running = false;
+
+    // shutdown 等待超时后置位，后台线程不再处理队列中剩余的脏数据
+    private volatile boolean aborted = false;
+
+    private final AtomicLong sinkAccepted = new AtomicLong(0);
+
+    private final AtomicLong sampledOut = new AtomicLong(0);
+
+    private final AtomicLong dropped = new AtomicLong(0);
+
+    private final AtomicLong failed = new AtomicLong(0);
+
+    private DirtyRecordDispatcher() {
+    }
+
+    public static DirtyRecordDispatcher getInstance() {
+        return instance;
+    }
+
+    /**
+     * 由第一个 collector 触发初始化，之后的调用直接返回
+     */
+    public void init(Configuration configuration) {
+        if (this.initialized) {
+            return;
+        }
+        synchronized (this) {
+            if (this.initialized) {
+                return;
+            }
+            this.sink = createSink(configuration);
+            this.sampleRate = configuration.getDouble(
+                    CoreConstant.DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_DIRTYSINK_SAMPLERATE, 1.0);
+            this.maxRecords = configuration.getLong(
+                    CoreConstant.DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_DIRTYSINK_MAXRECORDS, -1);
+            int queueSize = configuration.getInt(
+                    CoreConstant.DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_DIRTYSINK_QUEUESIZE, DEFAULT_QUEUE_SIZE);
+            if (this.sampleRate <= 0 || this.sampleRate > 1 || queueSize <= 0) {
+                throw DataXException.asDataXException(FrameworkErrorCode.CONFIG_ERROR, String.format(
+                        "脏数据 sampleRate[%s] 必须在 (0, 1] 之间, queueSize[%d] 必须大于0.", this.sampleRate, queueSize));
+            }
+            this.shutdownTimeoutMillis = configuration.getLong(
+                    CoreConstant.DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_DIRTYSINK_SHUTDOWNTIMEOUT,
+                    DEFAULT_SHUTDOWN_TIMEOUT_MILLIS);
+            this.queue = new ArrayBlockingQueue<DirtyRecordEntry>(queueSize);
+            this.sinkAccepted.set(0);
+            this.sampledOut.set(0);
+            this.dropped.set(0);
+            this.failed.set(0);
+
+            this.aborted = false;
+            this.running = true;
+            this.worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    drainLoop();
+                }
+            }, "dirty-record-dispatcher");
+            this.worker.setDaemon(true);
+            this.worker.start();
+            this.initialized = true;
+            if (this.sink != null) {
+                LOG.info("dirty records will be written to [{}], sampleRate={}, maxRecords={}.",
+                        this.sink, this.sampleRate, this.maxRecords);
+            }
+        }
+    }
+
+    public boolean hasSink() {
+        return this.sink != null;
+    }
+
+    /**
+     * 按采样率和 maxRecords 判断这条脏数据是否写入 sink，只在插件线程调用
+     */
+    public boolean sample() {
+        if (this.sink == null) {
+            return false;
+        }
+        if (this.sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= this.sampleRate) {
+            this.sampledOut.incrementAndGet();
+            return false;
+        }
+        if (this.maxRecords >= 0 && this.sinkAccepted.incrementAndGet() > this.maxRecords) {
+            this.sampledOut.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 放入队列，队列满或尚未初始化时丢弃
+     */
+    public void dispatch(DirtyRecordEntry entry) {
+        if (!this.running || !this.queue.offer(entry)) {
+            this.dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * 等队列中已有的脏数据全部输出后关闭 sink，job 结束时调用。
+     * 最多等待 shutdownTimeout 毫秒，sink 卡住(远端写入慢、磁盘满等)时放弃剩余的脏数据并中断后台线程，不阻塞 job 退出
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if (!this.initialized) {
+                return;
+            }
+            this.running = false;
+            try {
+                this.worker.join(this.shutdownTimeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (this.worker.isAlive()) {
+                this.aborted = true;
+                this.worker.interrupt();
+                LOG.warn("dirty record sink [{}] did not finish within {} ms, {} dirty records were not written, "
+                                + "{} dropped because queue was full.",
+                        this.sink, this.shutdownTimeoutMillis, this.queue.size(), this.dropped.get());
+                // 后台线程可能仍在 sink 中，不再关闭 sink，避免与其并发
+                this.sink = null;
+                this.initialized = false;
+                return;
+            }
+            if (this.sink != null) {
+                try {
+                    this.sink.close();
+                } catch (Exception e) {
+                    LOG.warn("close dirty record sink failed.", e);
+                }
+                LOG.info("dirty record sink [{}] closed, sampled out {}, dropped {} because queue was full, {} failed.",
+                        this.sink, this.sampledOut.get(), this.dropped.get(), this.failed.get());
+            } else if (this.dropped.get() > 0) {
+                LOG.warn("{} dirty records were not logged because queue was full.", this.dropped.get());
+            }
+            this.sink = null;
+            this.initialized = false;
+        }
+    }
+
+    private void drainLoop() {
+        while (!this.aborted) {
+            DirtyRecordEntry entry;
+            try {
+                entry = this.queue.poll(200L, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                entry = null;
+            }
+            if (entry == null) {
+                if (!this.running && this.queue.isEmpty()) {
+                    break;
+                }
+                flushSink();
+                continue;
+            }
+            handle(entry);
+        }
+        if (!this.aborted) {
+            flushSink();
+        }
+    }
+
+    private void handle(DirtyRecordEntry entry) {
+        try {
+            if (entry.isLog()) {
+                LOG.error("脏数据: \n" + formatDirty(entry));
+            }
+            DirtyRecordSink sink = this.sink;
+            if (entry.isSink() && sink != null) {
+                sink.write(entry);
+            }
+        } catch (Exception e) {
+            if (this.failed.getAndIncrement() == 0) {
+                LOG.warn("write dirty record failed, later failures will only be counted.", e);
+            }
+        }
+    }
+
+    private void flushSink() {
+        DirtyRecordSink sink = this.sink;
+        if (sink == null) {
+            return;
+        }
+        try {
+            sink.flush();
+        } catch (Exception e) {
+            LOG.warn("flush dirty record sink failed.", e);
+        }
+    }
+
+    private static String formatDirty(DirtyRecordEntry entry) {
+        Map<String, Object> msgGroup = new HashMap<String, Object>();
+
+        msgGroup.put("type", entry.getPluginType().toString());
+        if (StringUtils.isNotBlank(entry.getMessage())) {
+            msgGroup.put("message", entry.getMessage());
+        }
+        if (StringUtils.isNotBlank(entry.getException())) {
+            msgGroup.put("exception", entry.getException());
+        }
+        if (null != entry.getRecord()) {
+            msgGroup.put("record", DirtyRecord.asDirtyRecord(entry.getRecord())
+                    .getColumns());
+        }
+
+        return JSON.toJSONString(msgGroup);
+    }
+
+    private static DirtyRecordSink createSink(Configuration configuration) {
+        String type = configuration.getString(CoreConstant.DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_DIRTYSINK_TYPE);
+        if (StringUtils.isBlank(type)) {
+            return null;
+        }
+        if (SINK_TYPE_FILE.equalsIgnoreCase(type)) {
+            return new LocalFileDirtyRecordSink(configuration);
+        }
+        try {
+            return ClassUtil.instantiate(type, DirtyRecordSink.class, configuration);
+        } catch (IllegalArgumentException e) {
+            throw DataXException.asDataXException(FrameworkErrorCode.CONFIG_ERROR,
+                    String.format("脏数据 sink[%s] 初始化失败.", type), e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.alibaba.datax.core.statistics.plugin.task.dirty;
+
+import com.alibaba.datax.common.constant.PluginType;
+import com.alibaba.datax.common.element.Record;
+
+/**
+ * 一条待输出的脏数据，由插件线程放入队列，在 DirtyRecordDispatcher 的后台线程中格式化
+ */
+public class DirtyRecordEntry {
+
+    private final long timestamp;
+
+    private final PluginType pluginType;
+
+    private final Record record;
+
+    private final String exception;
+
+    private final String message;
+
+    // 是否打印到日志(受 maxDirtyNumber 限制)
+    private final boolean log;
+
+    // 是否写入 sink(受采样和 maxRecords 限制)
+    private final boolean sink;
+
+    public DirtyRecordEntry(PluginType pluginType, Record record, Throwable t, String message,
+                            boolean log, boolean sink) {
+        this.timestamp = System.currentTimeMillis();
+        this.pluginType = pluginType;
+        this.record = record;
+        this.exception = t == null ? null : t.getMessage();
+        this.message = message;
+        this.log = log;
+        this.sink = sink;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public PluginType getPluginType() {
+        return pluginType;
+    }
+
+    public Record getRecord() {
+        return record;
+    }
+
+    public String getException() {
+        return exception;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isLog() {
+        return log;
+    }
+
+    public boolean isSink() {
+        return sink;
+    }
+}
@@ -0,0 +1,21 @@
+package com.alibaba.datax.core.statistics.plugin.task.dirty;
+
+import java.io.IOException;
+
+/**
+ * 脏数据的输出目标，只会在 DirtyRecordDispatcher 的后台线程中被调用，实现不需要考虑线程安全。
+ * <p/>
+ * 自定义实现通过 core.statistics.collector.plugin.dirtySink.type 配置类名，
+ * 需要提供参数为 com.alibaba.datax.common.util.Configuration 的构造方法。
+ */
+public interface DirtyRecordSink {
+
+    void write(DirtyRecordEntry entry) throws IOException;
+
+    /**
+     * 队列暂时为空时调用
+     */
+    void flush() throws IOException;
+
+    void close() throws IOException;
+}
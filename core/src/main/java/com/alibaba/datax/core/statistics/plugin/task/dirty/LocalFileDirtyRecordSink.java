@@ -0,0 +1,133 @@
+package com.alibaba.datax.core.statistics.plugin.task.dirty;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.statistics.plugin.task.util.DirtyRecord;
+import com.alibaba.datax.core.util.FrameworkErrorCode;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import com.alibaba.fastjson.JSON;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 脏数据写到本地文件，每个 job 一个文件 dirty_{jobId}_{时间}.{format}。
+ * <p/>
+ * jsonl：每行一个 JSON 对象，字段为 time、type、message、exception、record(与日志中的格式一致)；<br/>
+ * csv：time,type,message,exception 之后依次为各列的字符串值。
+ */
+public class LocalFileDirtyRecordSink implements DirtyRecordSink {
+
+    public static final String FORMAT_JSONL = "jsonl";
+
+    public static final String FORMAT_CSV = "csv";
+
+    private final String format;
+
+    private final File file;
+
+    private final Writer writer;
+
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+
+    public LocalFileDirtyRecordSink(Configuration configuration) {
+        String path = configuration.getNecessaryValue(
+                CoreConstant.DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_DIRTYSINK_PATH, FrameworkErrorCode.CONFIG_ERROR);
+        this.format = configuration.getString(
+                CoreConstant.DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_DIRTYSINK_FORMAT, FORMAT_JSONL).toLowerCase();
+        if (!FORMAT_JSONL.equals(this.format) && !FORMAT_CSV.equals(this.format)) {
+            throw DataXException.asDataXException(FrameworkErrorCode.CONFIG_ERROR,
+                    String.format("脏数据文件格式[%s]不支持, 只支持 jsonl 或 csv.", this.format));
+        }
+
+        File dir = new File(path);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw DataXException.asDataXException(FrameworkErrorCode.CONFIG_ERROR,
+                    String.format("创建脏数据目录[%s]失败.", path));
+        }
+        long jobId = configuration.getLong(CoreConstant.DATAX_CORE_CONTAINER_JOB_ID, -1);
+        this.file = new File(dir, String.format("dirty_%d_%s.%s", jobId,
+                new SimpleDateFormat("yyyyMMddHHmmss").format(new Date()), this.format));
+        try {
+            this.writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(this.file, true), Charset.forName("UTF-8")), 1 << 16);
+        } catch (IOException e) {
+            throw DataXException.asDataXException(FrameworkErrorCode.CONFIG_ERROR, e);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public void write(DirtyRecordEntry entry) throws IOException {
+        String time = this.dateFormat.format(new Date(entry.getTimestamp()));
+        if (FORMAT_CSV.equals(this.format)) {
+            StringBuilder line = new StringBuilder();
+            appendCsv(line, time);
+            appendCsv(line.append(','), entry.getPluginType().toString());
+            appendCsv(line.append(','), entry.getMessage());
+            appendCsv(line.append(','), entry.getException());
+            Record record = entry.getRecord();
+            for (int i = 0; record != null && i < record.getColumnNumber(); i++) {
+                Column column = record.getColumn(i);
+                appendCsv(line.append(','), column == null ? null : column.asString());
+            }
+            this.writer.write(line.toString());
+        } else {
+            Map<String, Object> json = new LinkedHashMap<String, Object>();
+            json.put("time", time);
+            json.put("type", entry.getPluginType().toString());
+            if (StringUtils.isNotBlank(entry.getMessage())) {
+                json.put("message", entry.getMessage());
+            }
+            if (StringUtils.isNotBlank(entry.getException())) {
+                json.put("exception", entry.getException());
+            }
+            if (null != entry.getRecord()) {
+                json.put("record", DirtyRecord.asDirtyRecord(entry.getRecord()).getColumns());
+            }
+            this.writer.write(JSON.toJSONString(json));
+        }
+        this.writer.write('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+
+    @Override
+    public String toString() {
+        return this.file.getAbsolutePath();
+    }
+
+    private static void appendCsv(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        if (StringUtils.containsAny(value, ",\"\r\n")) {
+            line.append('"').append(value.replace("\"", "\"\"")).append('"');
+        } else {
+            line.append(value);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.alibaba.datax.core.taskgroup;
+
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.statistics.communication.CommunicationTool;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * taskGroup内并发channel数的反馈控制器，只在taskGroupContainer的调度线程中使用
+ * <p/>
+ * 从min开始，按周期观察taskGroup的总吞吐：
+ * 1. 周期内脏数据比例超过maxErrorRatio时，channel数减半
+ * 2. reader等待writer的平均时间占比超过maxWaitWriterRatio时，认为写端已饱和，不再增加
+ * 3. 上一次增加后吞吐提升不足minThroughputGain时，回退一个channel并保持cooldownIntervals个周期
+ * 4. 否则增加一个channel
+ * 结果始终在[min, max]之间，max不超过taskGroup分配到的channel数。
+ * 减少channel数时不会中断正在运行的task，只是task结束后不再补足
+ */
+public class AdaptiveChannelController {
+    private static final Logger LOG = LoggerFactory.getLogger(AdaptiveChannelController.class);
+
+    private final int taskGroupId;
+
+    private final int minChannel;
+
+    private final int maxChannel;
+
+    private final long intervalInMillSec;
+
+    private final double minThroughputGain;
+
+    private final double maxErrorRatio;
+
+    private final double maxWaitWriterRatio;
+
+    private final int cooldownIntervals;
+
+    private int currentChannel;
+
+    private boolean lastIncreased = false;
+
+    private int holdIntervals = 0;
+
+    private long lastTimestamp = -1;
+
+    private long lastReadBytes;
+
+    private long lastReadRecords;
+
+    private long lastErrorRecords;
+
+    private long lastWaitWriterTime;
+
+    private double lastThroughput = -1;
+
+    public AdaptiveChannelController(Configuration configuration, int taskGroupId, int channelNumber,
+                                     long defaultIntervalInMillSec) {
+        this.taskGroupId = taskGroupId;
+        this.maxChannel = Math.max(1, Math.min(channelNumber, configuration.getInt(
+                CoreConstant.DATAX_CORE_CONTAINER_TASKGROUP_ADAPTIVECHANNEL_MAX, channelNumber)));
+        this.minChannel = Math.max(1, Math.min(this.maxChannel, configuration.getInt(
+                CoreConstant.DATAX_CORE_CONTAINER_TASKGROUP_ADAPTIVECHANNEL_MIN, 1)));
+        this.intervalInMillSec = configuration.getLong(
+                CoreConstant.DATAX_CORE_CONTAINER_TASKGROUP_ADAPTIVECHANNEL_INTERVAL, defaultIntervalInMillSec);
+        this.minThroughputGain = configuration.getDouble(
+                CoreConstant.DATAX_CORE_CONTAINER_TASKGROUP_ADAPTIVECHANNEL_MINTHROUGHPUTGAIN, 0.05);
+        this.maxErrorRatio = configuration.getDouble(
+                CoreConstant.DATAX_CORE_CONTAINER_TASKGROUP_ADAPTIVECHANNEL_MAXERRORRATIO, 0.01);
+        this.maxWaitWriterRatio = configuration.getDouble(
+                CoreConstant.DATAX_CORE_CONTAINER_TASKGROUP_ADAPTIVECHANNEL_MAXWAITWRITERRATIO, 0.9);
+        this.cooldownIntervals = configuration.getInt(
+                CoreConstant.DATAX_CORE_CONTAINER_TASKGROUP_ADAPTIVECHANNEL_COOLDOWNINTERVALS, 3);
+        this.currentChannel = this.minChannel;
+
+        LOG.info("taskGroup[{}] adaptive channel enabled, min[{}] max[{}] interval[{}]ms.",
+                taskGroupId, this.minChannel, this.maxChannel, this.intervalInMillSec);
+    }
+
+    public static boolean isEnabled(Configuration configuration) {
+        return configuration.getBool(CoreConstant.DATAX_CORE_CONTAINER_TASKGROUP_ADAPTIVECHANNEL_ENABLE, false);
+    }
+
+    public int getCurrentChannel() {
+        return currentChannel;
+    }
+
+    /**
+     * 是否到了下一个调整周期，避免调度线程每次循环都去汇总task的Communication
+     */
+    public boolean isDue() {
+        return this.lastTimestamp < 0 || System.currentTimeMillis() - this.lastTimestamp >= this.intervalInMillSec;
+    }
+
+    /**
+     * @param taskGroupCommunication taskGroup下所有task汇总的Communication
+     * @param runningTaskCount       正在运行的task数
+     * @param hasPendingTask         是否还有待运行的task
+     * @return 调整后的channel数
+     */
+    public int adjust(Communication taskGroupCommunication, int runningTaskCount, boolean hasPendingTask) {
+        long now = System.currentTimeMillis();
+        long readBytes = CommunicationTool.getTotalReadBytes(taskGroupCommunication);
+        long readRecords = CommunicationTool.getTotalReadRecords(taskGroupCommunication);
+        long errorRecords = CommunicationTool.getTotalErrorRecords(taskGroupCommunication);
+        long waitWriterTime = taskGroupCommunication.getLongCounter(CommunicationTool.WAIT_WRITER_TIME);
+
+        if (this.lastTimestamp < 0) {
+            snapshot(now, readBytes, readRecords, errorRecords, waitWriterTime);
+            return this.currentChannel;
+        }
+
+        long interval = now - this.lastTimestamp;
+        if (interval < this.intervalInMillSec) {
+            return this.currentChannel;
+        }
+
+        // 优先按字节计算吞吐，reader不统计字节时退化为按记录数
+        long deltaBytes = readBytes - this.lastReadBytes;
+        long deltaRecords = readRecords - this.lastReadRecords;
+        double throughput = (deltaBytes > 0 ? deltaBytes : Math.max(deltaRecords, 0)) * 1000.0 / interval;
+        double errorRatio = deltaRecords > 0 ? (errorRecords - this.lastErrorRecords) / (double) deltaRecords : 0;
+        double waitWriterRatio = runningTaskCount > 0
+                ? (waitWriterTime - this.lastWaitWriterTime) / (interval * 1000.0 * 1000.0 * runningTaskCount) : 0;
+
+        int before = this.currentChannel;
+        if (errorRatio > this.maxErrorRatio) {
+            this.currentChannel = Math.max(this.minChannel, this.currentChannel / 2);
+            this.holdIntervals = this.cooldownIntervals;
+            this.lastIncreased = false;
+        } else if (this.holdIntervals > 0) {
+            this.holdIntervals--;
+            this.lastIncreased = false;
+        } else if (this.lastIncreased && throughput < this.lastThroughput * (1 + this.minThroughputGain)) {
+            this.currentChannel = Math.max(this.minChannel, this.currentChannel - 1);
+            this.holdIntervals = this.cooldownIntervals;
+            this.lastIncreased = false;
+        } else if (hasPendingTask && waitWriterRatio < this.maxWaitWriterRatio
+                && runningTaskCount >= this.currentChannel && this.currentChannel < this.maxChannel) {
+            this.currentChannel++;
+            this.lastIncreased = true;
+        } else {
+            this.lastIncreased = false;
+        }
+
+        if (before != this.currentChannel) {
+            LOG.info("taskGroup[{}] adjust channel from [{}] to [{}], throughput[{}/s] errorRatio[{}] waitWriterRatio[{}].",
+                    this.taskGroupId, before, this.currentChannel, (long) throughput,
+                    String.format("%.4f", errorRatio), String.format("%.2f", waitWriterRatio));
+        }
+
+        this.lastThroughput = throughput;
+        snapshot(now, readBytes, readRecords, errorRecords, waitWriterTime);
+        return this.currentChannel;
+    }
+
+    private void snapshot(long now, long readBytes, long readRecords, long errorRecords, long waitWriterTime) {
+        this.lastTimestamp = now;
+        this.lastReadBytes = readBytes;
+        this.lastReadRecords = readRecords;
+        this.lastErrorRecords = errorRecords;
+        this.lastWaitWriterTime = waitWriterTime;
+    }
+}
@@ -10,9 +10,12 @@ import com.alibaba.datax.common.statistics.PerfTrace;
 import com.alibaba.datax.common.statistics.VMInfo;
 import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.core.AbstractContainer;
+import com.alibaba.datax.core.statistics.bottleneck.Bottleneck;
+import com.alibaba.datax.core.statistics.bottleneck.BottleneckAnalyzer;
 import com.alibaba.datax.core.statistics.communication.Communication;
 import com.alibaba.datax.core.statistics.communication.CommunicationTool;
 import com.alibaba.datax.core.statistics.container.communicator.taskgroup.StandaloneTGContainerCommunicator;
+import com.alibaba.datax.core.statistics.metrics.MetricsRegistry;
 import com.alibaba.datax.core.statistics.plugin.task.AbstractTaskPluginCollector;
 import com.alibaba.datax.core.taskgroup.runner.AbstractRunner;
 import com.alibaba.datax.core.taskgroup.runner.ReaderRunner;
@@ -22,6 +25,7 @@ import com.alibaba.datax.core.transport.exchanger.BufferedRecordExchanger;
 import com.alibaba.datax.core.transport.exchanger.BufferedRecordTransformerExchanger;
 import com.alibaba.datax.core.transport.transformer.TransformerExecution;
 import com.alibaba.datax.core.util.ClassUtil;
+import com.alibaba.datax.core.util.DirtyRecordLimiter;
 import com.alibaba.datax.core.util.FrameworkErrorCode;
 import com.alibaba.datax.core.util.TransformerUtil;
 import com.alibaba.datax.core.util.container.CoreConstant;
@@ -33,6 +37,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 public class TaskGroupContainer extends AbstractContainer {
     private static final Logger LOG = LoggerFactory
@@ -60,6 +67,17 @@ public class TaskGroupContainer extends AbstractContainer {
 
     private TaskMonitor taskMonitor = TaskMonitor.getInstance();
 
+    private MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+
+    private BottleneckAnalyzer bottleneckAnalyzer = new BottleneckAnalyzer();
+
+    private DirtyRecordLimiter dirtyRecordLimiter = DirtyRecordLimiter.getInstance();
+
+    /**
+     * reader/writer线程结束时投递taskId，调度线程据此立即检查task状态，而不是固定间隔轮询
+     */
+    private final BlockingQueue<Integer> taskEventQueue = new LinkedBlockingQueue<Integer>();
+
     public TaskGroupContainer(Configuration configuration) {
         super(configuration);
 
@@ -74,6 +92,8 @@ public class TaskGroupContainer extends AbstractContainer {
                 CoreConstant.DATAX_CORE_TRANSPORT_CHANNEL_CLASS);
         this.taskCollectorClass = this.configuration.getString(
                 CoreConstant.DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_TASKCLASS);
+
+        this.dirtyRecordLimiter.init(this.configuration);
     }
 
     private void initCommunicator(Configuration configuration) {
@@ -91,9 +111,11 @@ public class TaskGroupContainer extends AbstractContainer {
 
     @Override
     public void start() {
+        Map<Integer, TaskExecutor> runTasks = new LinkedHashMap<Integer, TaskExecutor>(); //taskId与正在运行task
         try {
             /**
-             * 状态check时间间隔，较短，可以把任务及时分发到对应channel中
+             * 状态check时间间隔，较短，可以把任务及时分发到对应channel中；
+             * task的reader/writer结束时也会立即唤醒调度
              */
             int sleepIntervalInMillSec = this.configuration.getInt(
                     CoreConstant.DATAX_CORE_CONTAINER_TASKGROUP_SLEEPINTERVAL, 100);
@@ -137,32 +159,47 @@ public class TaskGroupContainer extends AbstractContainer {
             Map<Integer, Configuration> taskConfigMap = buildTaskConfigMap(taskConfigs); //taskId与task配置
             List<Configuration> taskQueue = buildRemainTasks(taskConfigs); //待运行task列表
             Map<Integer, TaskExecutor> taskFailedExecutorMap = new HashMap<Integer, TaskExecutor>(); //taskId与上次失败实例
-            List<TaskExecutor> runTasks = new ArrayList<TaskExecutor>(channelNumber); //正在运行task
             Map<Integer, Long> taskStartTimeMap = new HashMap<Integer, Long>(); //任务开始时间
 
             long lastReportTimeStamp = 0;
             Communication lastTaskGroupContainerCommunication = new Communication();
 
+            //开启自适应channel时，同时运行的task数由控制器根据吞吐动态调整，上限为channelNumber
+            AdaptiveChannelController adaptiveChannelController = null;
+            int activeChannelNumber = channelNumber;
+            if (AdaptiveChannelController.isEnabled(this.configuration)) {
+                adaptiveChannelController = new AdaptiveChannelController(this.configuration,
+                        this.taskGroupId, channelNumber, reportIntervalInMillSec);
+                activeChannelNumber = adaptiveChannelController.getCurrentChannel();
+            }
+
             while (true) {
-            	//1.判断task状态
+            	//1.判断task状态，只需检查正在运行的task
             	boolean failedOrKilled = false;
-            	Map<Integer, Communication> communicationMap = containerCommunicator.getCommunicationMap();
-            	for(Map.Entry<Integer, Communication> entry : communicationMap.entrySet()){
+            	Iterator<Map.Entry<Integer, TaskExecutor>> runIterator = runTasks.entrySet().iterator();
+            	while(runIterator.hasNext()){
+            		Map.Entry<Integer, TaskExecutor> entry = runIterator.next();
             		Integer taskId = entry.getKey();
-            		Communication taskCommunication = entry.getValue();
+            		Communication taskCommunication = containerCommunicator.getCommunication(taskId);
                     if(!taskCommunication.isFinished()){
                         continue;
                     }
-                    TaskExecutor taskExecutor = removeTask(runTasks, taskId);
+                    TaskExecutor taskExecutor = entry.getValue();
+                    runIterator.remove();
 
                     //上面从runTasks里移除了，因此对应在monitor里移除
                     taskMonitor.removeTask(taskId);
+                    metricsRegistry.removeTask(taskId);
+                    bottleneckAnalyzer.removeTask(taskId);
 
                     //失败，看task是否支持failover，重试次数未超过最大限制
             		if(taskCommunication.getState() == State.FAILED){
                         taskFailedExecutorMap.put(taskId, taskExecutor);
-            			if(taskExecutor.supportFailOver() && taskExecutor.getAttemptCount() < taskMaxRetryTimes){
+            			//脏数据超限导致的失败重试也没有意义
+            			if(taskExecutor.supportFailOver() && taskExecutor.getAttemptCount() < taskMaxRetryTimes
+                                && !dirtyRecordLimiter.isExceeded()){
                             taskExecutor.shutdown(); //关闭老的executor
+                            dirtyRecordLimiter.release(taskCommunication); //扣除失败那次尝试的脏数据
                             containerCommunicator.resetCommunication(taskId); //将task的状态重置
             				Configuration taskConfig = taskConfigMap.get(taskId);
             				taskQueue.add(taskConfig); //重新加入任务列表
@@ -188,6 +225,10 @@ public class TaskGroupContainer extends AbstractContainer {
             	}
             	
                 // 2.发现该taskGroup下taskExecutor的总状态失败则汇报错误
+                // 脏数据超过限制(可能由其他taskGroup触发)时，取消正在运行的task后失败退出
+                if (dirtyRecordLimiter.isExceeded()) {
+                    throw dirtyRecordLimiter.getExceedException();
+                }
                 if (failedOrKilled) {
                     lastTaskGroupContainerCommunication = reportTaskGroupCommunication(
                             lastTaskGroupContainerCommunication, taskCountInThisTaskGroup);
@@ -197,8 +238,12 @@ public class TaskGroupContainer extends AbstractContainer {
                 }
                 
                 //3.有任务未执行，且正在运行的任务数小于最大通道限制
+                if (adaptiveChannelController != null && adaptiveChannelController.isDue()) {
+                    activeChannelNumber = adaptiveChannelController.adjust(
+                            this.containerCommunicator.collect(), runTasks.size(), !taskQueue.isEmpty());
+                }
                 Iterator<Configuration> iterator = taskQueue.iterator();
-                while(iterator.hasNext() && runTasks.size() < channelNumber){
+                while(iterator.hasNext() && runTasks.size() < activeChannelNumber){
                     Configuration taskConfig = iterator.next();
                     Integer taskId = taskConfig.getInt(CoreConstant.TASK_ID);
                     int attemptCount = 1;
@@ -230,10 +275,12 @@ public class TaskGroupContainer extends AbstractContainer {
                 	taskExecutor.doStart();
 
                     iterator.remove();
-                    runTasks.add(taskExecutor);
+                    runTasks.put(taskId, taskExecutor);
 
                     //上面，增加task到runTasks列表，因此在monitor里注册。
                     taskMonitor.registerTask(taskId, this.containerCommunicator.getCommunication(taskId));
+                    metricsRegistry.registerTask(this.taskGroupId, taskId,
+                            this.containerCommunicator.getCommunication(taskId), taskExecutor.getChannel());
 
                     taskFailedExecutorMap.remove(taskId);
                     LOG.info("taskGroup[{}] taskId[{}] attemptCount[{}] is started",
@@ -241,7 +288,7 @@ public class TaskGroupContainer extends AbstractContainer {
                 }
 
                 //4.任务列表为空，executor已结束, 搜集状态为success--->成功
-                if (taskQueue.isEmpty() && isAllTaskDone(runTasks) && containerCommunicator.collectState() == State.SUCCEEDED) {
+                if (taskQueue.isEmpty() && isAllTaskDone(runTasks.values()) && containerCommunicator.collectState() == State.SUCCEEDED) {
                 	// 成功的情况下，也需要汇报一次。否则在任务结束非常快的情况下，采集的信息将会不准确
                     lastTaskGroupContainerCommunication = reportTaskGroupCommunication(
                             lastTaskGroupContainerCommunication, taskCountInThisTaskGroup);
@@ -258,21 +305,29 @@ public class TaskGroupContainer extends AbstractContainer {
 
                     lastReportTimeStamp = now;
 
-                    //taskMonitor对于正在运行的task，每reportIntervalInMillSec进行检查
-                    for(TaskExecutor taskExecutor:runTasks){
-                        taskMonitor.report(taskExecutor.getTaskId(),this.containerCommunicator.getCommunication(taskExecutor.getTaskId()));
+                    //taskMonitor对于正在运行的task，每reportIntervalInMillSec进行检查，同时做瓶颈分析
+                    for(TaskExecutor taskExecutor:runTasks.values()){
+                        Communication taskCommunication = this.containerCommunicator.getCommunication(taskExecutor.getTaskId());
+                        taskMonitor.report(taskExecutor.getTaskId(), taskCommunication);
+                        Bottleneck bottleneck = bottleneckAnalyzer.analyze(taskExecutor.getTaskId(), taskCommunication);
+                        metricsRegistry.updateTaskBottleneck(taskExecutor.getTaskId(), bottleneck);
                     }
 
                 }
 
-                Thread.sleep(sleepIntervalInMillSec);
+                // 6.等待task结束事件或超时，多个事件合并为一次状态检查
+                taskEventQueue.poll(sleepIntervalInMillSec, TimeUnit.MILLISECONDS);
+                taskEventQueue.clear();
             }
 
-            //6.最后还要汇报一次
+            //7.最后还要汇报一次
             reportTaskGroupCommunication(lastTaskGroupContainerCommunication, taskCountInThisTaskGroup);
 
 
         } catch (Throwable e) {
+            if (dirtyRecordLimiter.isExceeded()) {
+                cancelTasks(runTasks.values());
+            }
             Communication nowTaskGroupContainerCommunication = this.containerCommunicator.collect();
 
             if (nowTaskGroupContainerCommunication.getThrowable() == null) {
@@ -314,19 +369,7 @@ public class TaskGroupContainer extends AbstractContainer {
     	return remainTasks;
     }
     
-    private TaskExecutor removeTask(List<TaskExecutor> taskList, int taskId){
-    	Iterator<TaskExecutor> iterator = taskList.iterator();
-    	while(iterator.hasNext()){
-    		TaskExecutor taskExecutor = iterator.next();
-    		if(taskExecutor.getTaskId() == taskId){
-    			iterator.remove();
-    			return taskExecutor;
-    		}
-    	}
-    	return null;
-    }
-    
-    private boolean isAllTaskDone(List<TaskExecutor> taskList){
+    private boolean isAllTaskDone(Collection<TaskExecutor> taskList){
     	for(TaskExecutor taskExecutor : taskList){
     		if(!taskExecutor.isTaskFinished()){
     			return false;
@@ -344,6 +387,15 @@ public class TaskGroupContainer extends AbstractContainer {
         return reportCommunication;
     }
 
+    private void cancelTasks(Collection<TaskExecutor> taskList){
+        for(TaskExecutor taskExecutor : taskList){
+            if(!taskExecutor.isShutdown()){
+                LOG.info("taskGroup[{}] taskId[{}] is cancelled", this.taskGroupId, taskExecutor.getTaskId());
+                taskExecutor.shutdown();
+            }
+        }
+    }
+
     private void markCommunicationFailed(Integer taskId){
         Communication communication = containerCommunicator.getCommunication(taskId);
         communication.setState(State.FAILED);
@@ -365,6 +417,14 @@ public class TaskGroupContainer extends AbstractContainer {
         private Thread readerThread;
 
         private Thread writerThread;
+
+        /**
+         * reader/writer的run已经返回，在投递结束事件之前置位。
+         * 调度线程被唤醒时线程本身可能还没退出，因此不能用isAlive判断task是否结束
+         */
+        private volatile boolean readerExited = false;
+
+        private volatile boolean writerExited = false;
         
         private ReaderRunner readerRunner;
         
@@ -411,7 +471,7 @@ public class TaskGroupContainer extends AbstractContainer {
              * 生成writerThread
              */
             writerRunner = (WriterRunner) generateRunner(PluginType.WRITER);
-            this.writerThread = new Thread(writerRunner,
+            this.writerThread = new Thread(notifyOnExit(writerRunner, PluginType.WRITER),
                     String.format("%d-%d-%d-writer",
                             jobId, taskGroupId, this.taskId));
             //通过设置thread的contextClassLoader，即可实现同步和主程序不通的加载器
@@ -423,7 +483,7 @@ public class TaskGroupContainer extends AbstractContainer {
              * 生成readerThread
              */
             readerRunner = (ReaderRunner) generateRunner(PluginType.READER,transformerInfoExecs);
-            this.readerThread = new Thread(readerRunner,
+            this.readerThread = new Thread(notifyOnExit(readerRunner, PluginType.READER),
                     String.format("%d-%d-%d-reader",
                             jobId, taskGroupId, this.taskId));
             /**
@@ -457,6 +517,34 @@ public class TaskGroupContainer extends AbstractContainer {
         }
 
 
+        /**
+         * runner退出时（此时task的状态已经更新）通知调度线程，使空闲的channel能立即分配给下一个task
+         */
+        private Runnable notifyOnExit(final Runnable runner, final PluginType pluginType) {
+            return new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        runner.run();
+                    } finally {
+                        if (pluginType == PluginType.READER) {
+                            readerExited = true;
+                        } else {
+                            writerExited = true;
+                        }
+                        taskEventQueue.offer(taskId);
+                    }
+                }
+            };
+        }
+
+        /**
+         * 线程未启动(doStart中途失败)也视为已结束，与isAlive的语义一致
+         */
+        private boolean hasExited(Thread thread, boolean exited) {
+            return exited || thread.getState() == Thread.State.NEW;
+        }
+
         private AbstractRunner generateRunner(PluginType pluginType) {
             return generateRunner(pluginType, null);
         }
@@ -522,7 +610,7 @@ public class TaskGroupContainer extends AbstractContainer {
         // 检查任务是否结束
         private boolean isTaskFinished() {
             // 如果reader 或 writer没有完成工作，那么直接返回工作没有完成
-            if (readerThread.isAlive() || writerThread.isAlive()) {
+            if (!hasExited(readerThread, readerExited) || !hasExited(writerThread, writerExited)) {
                 return false;
             }
 
@@ -537,6 +625,10 @@ public class TaskGroupContainer extends AbstractContainer {
         	return taskId;
         }
 
+        private Channel getChannel(){
+            return channel;
+        }
+
         private long getTimeStamp(){
             return taskCommunication.getTimestamp();
         }
@@ -561,7 +653,7 @@ public class TaskGroupContainer extends AbstractContainer {
         }
 
         private boolean isShutdown(){
-            return !readerThread.isAlive() && !writerThread.isAlive();
+            return hasExited(readerThread, readerExited) && hasExited(writerThread, writerExited);
         }
     }
 }
@@ -4,6 +4,8 @@ import com.alibaba.datax.common.element.Record;
 import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.core.statistics.communication.Communication;
 import com.alibaba.datax.core.statistics.communication.CommunicationTool;
+import com.alibaba.datax.core.statistics.metrics.LatencyHistogram;
+import com.alibaba.datax.core.statistics.metrics.MetricsRegistry;
 import com.alibaba.datax.core.transport.record.TerminateRecord;
 import com.alibaba.datax.core.util.container.CoreConstant;
 import org.apache.commons.lang.Validate;
@@ -41,12 +43,21 @@ public abstract class Channel {
 
     protected volatile long waitWriterTime = 0;
 
+    protected volatile long throttleTime = 0;
+
     private static Boolean isFirstPrint = true;
 
     private Communication currentCommunication;
 
     private Communication lastCommunication = new Communication();
 
+    /**
+     * 批次push/pull耗时统计，未开启监控时为null
+     */
+    private LatencyHistogram pushBatchHistogram;
+
+    private LatencyHistogram pullBatchHistogram;
+
     public Channel(final Configuration configuration) {
         //channel的queue里默认record为1万条。原来为512条
         int capacity = configuration.getInt(
@@ -82,6 +93,8 @@ public abstract class Channel {
         this.byteCapacity = configuration.getInt(
                 CoreConstant.DATAX_CORE_TRANSPORT_CHANNEL_CAPACITY_BYTE, 8 * 1024 * 1024);
         this.configuration = configuration;
+        this.pushBatchHistogram = MetricsRegistry.getInstance().getPushBatchHistogram(this.taskGroupId);
+        this.pullBatchHistogram = MetricsRegistry.getInstance().getPullBatchHistogram(this.taskGroupId);
     }
 
     public void close() {
@@ -135,7 +148,13 @@ public abstract class Channel {
     public void pushAll(final Collection<Record> rs) {
         Validate.notNull(rs);
         Validate.noNullElements(rs);
-        this.doPushAll(rs);
+        if (this.pushBatchHistogram != null) {
+            long startTime = System.nanoTime();
+            this.doPushAll(rs);
+            this.pushBatchHistogram.observe(System.nanoTime() - startTime);
+        } else {
+            this.doPushAll(rs);
+        }
         this.statPush(rs.size(), this.getByteSize(rs));
     }
 
@@ -147,7 +166,13 @@ public abstract class Channel {
 
     public void pullAll(final Collection<Record> rs) {
         Validate.notNull(rs);
-        this.doPullAll(rs);
+        if (this.pullBatchHistogram != null) {
+            long startTime = System.nanoTime();
+            this.doPullAll(rs);
+            this.pullBatchHistogram.observe(System.nanoTime() - startTime);
+        } else {
+            this.doPullAll(rs);
+        }
         this.statPull(rs.size(), this.getByteSize(rs));
     }
 
@@ -224,6 +249,9 @@ public abstract class Channel {
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                 }
+                // 与waitTime一致，按纳秒记录限速休眠时间
+                throttleTime += sleepTime * 1000L * 1000L;
+                currentCommunication.setLongCounter(CommunicationTool.CHANNEL_THROTTLE_TIME, throttleTime);
             }
 
             lastCommunication.setLongCounter(CommunicationTool.READ_SUCCEED_BYTES,
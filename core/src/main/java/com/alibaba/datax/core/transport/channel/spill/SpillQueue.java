@@ -0,0 +1,202 @@
+package com.alibaba.datax.core.transport.channel.spill;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.element.RecordDecoder;
+import com.alibaba.datax.common.element.RecordEncoder;
+import com.alibaba.datax.core.transport.record.TerminateRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedList;
+
+/**
+ * 磁盘上先进先出的 Record 批次队列，由若干个段文件组成：
+ * 写入总是追加到最后一个段，超过 segmentSize 后新开一个段；读取从第一个段开始，读完的段立即删除。
+ * 每一批为 [长度, 记录数(TerminateRecord 为 -1), RecordEncoder 编码的记录]。
+ * <p/>
+ * 非线程安全，由 SpillableMemoryChannel 加锁访问。
+ */
+class SpillQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SpillQueue.class);
+
+    private static final int TERMINATE = -1;
+
+    private final File dir;
+
+    private final long segmentSize;
+
+    private final Class<? extends Record> recordClass;
+
+    private final boolean compress;
+
+    private final LinkedList<Segment> segments = new LinkedList<Segment>();
+
+    private int segmentSequence = 0;
+
+    private int records = 0;
+
+    private long bytes = 0;
+
+    SpillQueue(File dir, long segmentSize, Class<? extends Record> recordClass, boolean compress) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.recordClass = recordClass;
+        this.compress = compress;
+    }
+
+    boolean isEmpty() {
+        return this.segments.isEmpty();
+    }
+
+    int size() {
+        return this.records;
+    }
+
+    /**
+     * 磁盘上尚未读取的字节数
+     */
+    long getBytes() {
+        return this.bytes;
+    }
+
+    void write(Collection<Record> rs) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream batchOut = new DataOutputStream(buffer);
+        if (rs.size() == 1 && rs.iterator().next() instanceof TerminateRecord) {
+            batchOut.writeInt(TERMINATE);
+        } else {
+            batchOut.writeInt(rs.size());
+            RecordEncoder encoder = new RecordEncoder(batchOut, this.compress);
+            for (Record record : rs) {
+                encoder.write(record);
+            }
+            encoder.finish();
+        }
+        batchOut.flush();
+
+        Segment segment = this.segments.isEmpty() ? null : this.segments.getLast();
+        if (segment == null || segment.out == null || segment.writtenBytes >= this.segmentSize) {
+            if (segment != null) {
+                segment.closeOutput();
+            }
+            segment = newSegment();
+            this.segments.add(segment);
+        }
+        segment.out.writeInt(buffer.size());
+        buffer.writeTo(segment.out);
+        // 读端用另一个流读同一个文件，每批写完都要 flush
+        segment.out.flush();
+        segment.writtenBytes += 4 + buffer.size();
+        segment.unreadBatches++;
+
+        this.records += rs.size();
+        this.bytes += 4 + buffer.size();
+    }
+
+    /**
+     * 读出最早写入的一批，队列为空时不做任何事
+     */
+    void read(Collection<Record> rs) throws IOException {
+        if (this.segments.isEmpty()) {
+            return;
+        }
+        Segment segment = this.segments.getFirst();
+        if (segment.in == null) {
+            segment.in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment.file), 1 << 16));
+        }
+        int length = segment.in.readInt();
+        byte[] batch = new byte[length];
+        segment.in.readFully(batch);
+        segment.unreadBatches--;
+        this.bytes -= 4 + length;
+
+        DataInputStream batchIn = new DataInputStream(new ByteArrayInputStream(batch));
+        int count = batchIn.readInt();
+        if (count == TERMINATE) {
+            rs.add(TerminateRecord.get());
+            count = 1;
+        } else {
+            RecordDecoder decoder = new RecordDecoder(batchIn, this.recordClass);
+            Record record;
+            while ((record = decoder.read()) != null) {
+                rs.add(record);
+            }
+        }
+        this.records -= count;
+
+        if (segment.unreadBatches == 0) {
+            this.segments.removeFirst();
+            segment.delete();
+        }
+    }
+
+    void clear() {
+        for (Segment segment : this.segments) {
+            segment.delete();
+        }
+        this.segments.clear();
+        this.records = 0;
+        this.bytes = 0;
+    }
+
+    private Segment newSegment() throws IOException {
+        if (!this.dir.exists() && !this.dir.mkdirs() && !this.dir.exists()) {
+            throw new IOException(String.format("创建溢写目录[%s]失败.", this.dir));
+        }
+        File file = new File(this.dir, String.format("segment-%05d.spill", this.segmentSequence++));
+        file.deleteOnExit();
+        return new Segment(file);
+    }
+
+    private static class Segment {
+        private final File file;
+        private DataOutputStream out;
+        private DataInputStream in;
+        private long writtenBytes = 0;
+        private int unreadBatches = 0;
+
+        Segment(File file) throws IOException {
+            this.file = file;
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        }
+
+        void closeOutput() {
+            if (this.out == null) {
+                return;
+            }
+            try {
+                this.out.close();
+            } catch (IOException e) {
+                LOG.warn("close spill segment [{}] failed.", this.file, e);
+            }
+            this.out = null;
+        }
+
+        void delete() {
+            closeOutput();
+            if (this.in != null) {
+                try {
+                    this.in.close();
+                } catch (IOException e) {
+                    LOG.warn("close spill segment [{}] failed.", this.file, e);
+                }
+                this.in = null;
+            }
+            if (!this.file.delete()) {
+                LOG.warn("delete spill segment [{}] failed.", this.file);
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.alibaba.datax.core.transport.channel.spill;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.transport.channel.Channel;
+import com.alibaba.datax.core.transport.record.TerminateRecord;
+import com.alibaba.datax.core.util.FrameworkErrorCode;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 内存放满后溢写到本地磁盘的Channel。
+ * <p/>
+ * 内存部分与MemoryChannel一样受capacity和byteCapacity限制，放不下时整批写到磁盘，
+ * 写端只在磁盘用量超过diskQuota时才阻塞。这样writer暂时卡住(如目标库checkpoint)时reader仍能继续读，
+ * 不会长时间占着源端的游标或事务。
+ * <p/>
+ * 磁盘上有数据时新数据也一律写磁盘，读端先读完内存再按写入顺序读磁盘，保证记录顺序不变。
+ */
+public class SpillableMemoryChannel extends Channel {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SpillableMemoryChannel.class);
+
+    private static final long DEFAULT_DISK_QUOTA = 1024L * 1024 * 1024;
+
+    private static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    private int bufferSize = 0;
+
+    private long diskQuota;
+
+    private int memoryBytes = 0;
+
+    private final ArrayDeque<Record> queue;
+
+    private final SpillQueue spillQueue;
+
+    private boolean spillLogged = false;
+
+    private ReentrantLock lock;
+
+    private Condition notInsufficient, notEmpty;
+
+    @SuppressWarnings("unchecked")
+    public SpillableMemoryChannel(final Configuration configuration) {
+        super(configuration);
+        this.queue = new ArrayDeque<Record>(this.getCapacity());
+        this.bufferSize = configuration.getInt(CoreConstant.DATAX_CORE_TRANSPORT_EXCHANGER_BUFFERSIZE);
+        this.diskQuota = configuration.getLong(
+                CoreConstant.DATAX_CORE_TRANSPORT_CHANNEL_SPILL_DISKQUOTA, DEFAULT_DISK_QUOTA);
+        long segmentSize = configuration.getLong(
+                CoreConstant.DATAX_CORE_TRANSPORT_CHANNEL_SPILL_SEGMENTSIZE, DEFAULT_SEGMENT_SIZE);
+        if (this.diskQuota <= 0 || segmentSize <= 0) {
+            throw DataXException.asDataXException(FrameworkErrorCode.CONFIG_ERROR, String.format(
+                    "溢写磁盘配额[%d]和段文件大小[%d]必须大于0.", this.diskQuota, segmentSize));
+        }
+
+        Class<? extends Record> recordClass;
+        try {
+            recordClass = (Class<? extends Record>) Class.forName(configuration.getString(
+                    CoreConstant.DATAX_CORE_TRANSPORT_RECORD_CLASS,
+                    "com.alibaba.datax.core.transport.record.DefaultRecord"));
+        } catch (Exception e) {
+            throw DataXException.asDataXException(FrameworkErrorCode.CONFIG_ERROR, e);
+        }
+        File dir = new File(configuration.getString(CoreConstant.DATAX_CORE_TRANSPORT_CHANNEL_SPILL_DIR,
+                System.getProperty("java.io.tmpdir")),
+                String.format("datax-spill-%d-%s", this.taskGroupId, UUID.randomUUID().toString()));
+        dir.deleteOnExit();
+        boolean compress = configuration.getBool(
+                CoreConstant.DATAX_CORE_TRANSPORT_CHANNEL_SPILL_COMPRESS, true);
+        this.spillQueue = new SpillQueue(dir, segmentSize, recordClass, compress);
+
+        lock = new ReentrantLock();
+        notInsufficient = lock.newCondition();
+        notEmpty = lock.newCondition();
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        this.doPush(TerminateRecord.get());
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            this.queue.clear();
+            this.memoryBytes = 0;
+            this.spillQueue.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    protected void doPush(Record r) {
+        this.doPushAll(Collections.singletonList(r));
+    }
+
+    @Override
+    protected void doPushAll(Collection<Record> rs) {
+        try {
+            long startTime = System.nanoTime();
+            lock.lockInterruptibly();
+            try {
+                int bytes = getRecordBytes(rs);
+                while (true) {
+                    if (this.spillQueue.isEmpty()
+                            && this.memoryBytes + bytes <= this.byteCapacity
+                            && this.queue.size() + rs.size() <= this.capacity) {
+                        this.queue.addAll(rs);
+                        this.memoryBytes += bytes;
+                        break;
+                    }
+                    if (this.spillQueue.getBytes() < this.diskQuota) {
+                        if (!this.spillLogged) {
+                            LOG.info("taskGroup[{}] channel memory is full, spill records to disk.", this.taskGroupId);
+                            this.spillLogged = true;
+                        }
+                        this.spillQueue.write(rs);
+                        break;
+                    }
+                    notInsufficient.await(200L, TimeUnit.MILLISECONDS);
+                }
+                waitWriterTime += System.nanoTime() - startTime;
+                notEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        } catch (InterruptedException e) {
+            throw DataXException.asDataXException(
+                    FrameworkErrorCode.RUNTIME_ERROR, e);
+        } catch (IOException e) {
+            throw DataXException.asDataXException(
+                    FrameworkErrorCode.RUNTIME_ERROR, e);
+        }
+    }
+
+    @Override
+    protected Record doPull() {
+        try {
+            long startTime = System.nanoTime();
+            lock.lockInterruptibly();
+            try {
+                awaitRecords();
+                waitReaderTime += System.nanoTime() - startTime;
+                Record r = this.queue.poll();
+                this.memoryBytes -= r.getMemorySize();
+                notInsufficient.signalAll();
+                return r;
+            } finally {
+                lock.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    protected void doPullAll(Collection<Record> rs) {
+        assert rs != null;
+        rs.clear();
+        try {
+            long startTime = System.nanoTime();
+            lock.lockInterruptibly();
+            try {
+                awaitRecords();
+                waitReaderTime += System.nanoTime() - startTime;
+                int bytes = 0;
+                while (rs.size() < bufferSize && !this.queue.isEmpty()) {
+                    Record r = this.queue.poll();
+                    bytes += r.getMemorySize();
+                    rs.add(r);
+                }
+                this.memoryBytes -= bytes;
+                notInsufficient.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        } catch (InterruptedException e) {
+            throw DataXException.asDataXException(
+                    FrameworkErrorCode.RUNTIME_ERROR, e);
+        }
+    }
+
+    /**
+     * 等到内存中有数据，内存读空后从磁盘读回最早的一批，调用时须持有锁
+     */
+    private void awaitRecords() throws InterruptedException {
+        while (this.queue.isEmpty()) {
+            if (!this.spillQueue.isEmpty()) {
+                try {
+                    this.spillQueue.read(this.queue);
+                } catch (IOException e) {
+                    throw DataXException.asDataXException(
+                            FrameworkErrorCode.RUNTIME_ERROR, e);
+                }
+                this.memoryBytes += getRecordBytes(this.queue);
+                continue;
+            }
+            notEmpty.await(200L, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private int getRecordBytes(Collection<Record> rs) {
+        int bytes = 0;
+        for (Record r : rs) {
+            bytes += r.getMemorySize();
+        }
+        return bytes;
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return this.queue.size() + this.spillQueue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+}
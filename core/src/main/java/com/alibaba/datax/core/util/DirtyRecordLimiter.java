@@ -0,0 +1,127 @@
+package com.alibaba.datax.core.util;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.statistics.communication.CommunicationTool;
+import com.alibaba.datax.core.util.container.CoreConstant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内所有task共享的脏数据条数计数，用于尽早发现超过 errorLimit.record。
+ * <p/>
+ * ErrorRecordChecker 依赖汇报上来的 Communication，最长要一个汇报周期才能发现超限；
+ * 这里每条脏数据都原子累加，超限时当前插件线程立即抛错，taskGroup 和 scheduler 随即取消其余正在运行的task。
+ * <p/>
+ * errorLimit.percentage 的分母要到任务结束才确定，仍只由 ErrorRecordChecker 在任务结束时校验。
+ */
+public final class DirtyRecordLimiter {
+    private static final Logger LOG = LoggerFactory
+            .getLogger(DirtyRecordLimiter.class);
+
+    private static final DirtyRecordLimiter instance = new DirtyRecordLimiter();
+
+    private final AtomicLong dirtyRecords = new AtomicLong(0);
+
+    // 小于0表示不限制
+    private volatile long recordLimit = -1;
+
+    private volatile DataXException exceedException;
+
+    private volatile CountDownLatch exceedLatch = new CountDownLatch(1);
+
+    private boolean initialized = false;
+
+    private Long jobId;
+
+    private DirtyRecordLimiter() {
+    }
+
+    public static DirtyRecordLimiter getInstance() {
+        return instance;
+    }
+
+    /**
+     * 同一个job的taskGroup重复调用时直接返回
+     */
+    public synchronized void init(Configuration configuration) {
+        Long jobId = configuration.getLong(CoreConstant.DATAX_CORE_CONTAINER_JOB_ID);
+        if (this.initialized && (jobId == null ? this.jobId == null : jobId.equals(this.jobId))) {
+            return;
+        }
+        Long limit = configuration.getLong(CoreConstant.DATAX_JOB_SETTING_ERRORLIMIT_RECORD);
+        this.jobId = jobId;
+        this.recordLimit = limit == null ? -1 : limit;
+        this.dirtyRecords.set(0);
+        this.exceedException = null;
+        this.exceedLatch = new CountDownLatch(1);
+        this.initialized = true;
+    }
+
+    public synchronized void reset() {
+        this.initialized = false;
+        this.jobId = null;
+        this.recordLimit = -1;
+        this.dirtyRecords.set(0);
+        this.exceedException = null;
+        this.exceedLatch = new CountDownLatch(1);
+    }
+
+    /**
+     * 累加一条脏数据，超过限制时抛出 PLUGIN_DIRTY_DATA_LIMIT_EXCEED
+     */
+    public void increase() {
+        long limit = this.recordLimit;
+        if (limit < 0) {
+            return;
+        }
+        long count = this.dirtyRecords.incrementAndGet();
+        if (count <= limit) {
+            return;
+        }
+        String message = String.format("脏数据条数检查不通过，限制是[%d]条，但实际上捕获了[%d]条.", limit, count);
+        DataXException e = DataXException.asDataXException(
+                FrameworkErrorCode.PLUGIN_DIRTY_DATA_LIMIT_EXCEED, message);
+        if (this.exceedException == null) {
+            synchronized (this) {
+                if (this.exceedException == null) {
+                    LOG.error("dirty record limit exceeded, cancel all running tasks: {}", message);
+                    this.exceedException = e;
+                    this.exceedLatch.countDown();
+                }
+            }
+        }
+        throw e;
+    }
+
+    /**
+     * task failover 重试前调用：失败那次尝试的 Communication 会被重置，其脏数据不再计入 ErrorRecordChecker，
+     * 这里同样扣除，避免重试后的脏数据被重复计数
+     */
+    public void release(Communication failedAttempt) {
+        if (this.recordLimit < 0 || failedAttempt == null) {
+            return;
+        }
+        this.dirtyRecords.addAndGet(-CommunicationTool.getTotalErrorRecords(failedAttempt));
+    }
+
+    public boolean isExceeded() {
+        return this.exceedException != null;
+    }
+
+    public DataXException getExceedException() {
+        return this.exceedException;
+    }
+
+    /**
+     * 最多等待timeoutInMillSec，期间超限则立即返回true
+     */
+    public boolean awaitExceeded(long timeoutInMillSec) throws InterruptedException {
+        return this.exceedLatch.await(timeoutInMillSec, TimeUnit.MILLISECONDS);
+    }
+}
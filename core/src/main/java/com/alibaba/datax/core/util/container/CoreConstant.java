@@ -31,12 +31,34 @@ public class CoreConstant {
 
 	public static final String DATAX_CORE_CONTAINER_TASKGROUP_REPORTINTERVAL = "core.container.taskGroup.reportInterval";
 
+	public static final String DATAX_CORE_CONTAINER_TASKGROUP_ADAPTIVECHANNEL_ENABLE = "core.container.taskGroup.adaptiveChannel.enable";
+
+	public static final String DATAX_CORE_CONTAINER_TASKGROUP_ADAPTIVECHANNEL_MIN = "core.container.taskGroup.adaptiveChannel.min";
+
+	public static final String DATAX_CORE_CONTAINER_TASKGROUP_ADAPTIVECHANNEL_MAX = "core.container.taskGroup.adaptiveChannel.max";
+
+	public static final String DATAX_CORE_CONTAINER_TASKGROUP_ADAPTIVECHANNEL_INTERVAL = "core.container.taskGroup.adaptiveChannel.interval";
+
+	public static final String DATAX_CORE_CONTAINER_TASKGROUP_ADAPTIVECHANNEL_MINTHROUGHPUTGAIN = "core.container.taskGroup.adaptiveChannel.minThroughputGain";
+
+	public static final String DATAX_CORE_CONTAINER_TASKGROUP_ADAPTIVECHANNEL_MAXERRORRATIO = "core.container.taskGroup.adaptiveChannel.maxErrorRatio";
+
+	public static final String DATAX_CORE_CONTAINER_TASKGROUP_ADAPTIVECHANNEL_MAXWAITWRITERRATIO = "core.container.taskGroup.adaptiveChannel.maxWaitWriterRatio";
+
+	public static final String DATAX_CORE_CONTAINER_TASKGROUP_ADAPTIVECHANNEL_COOLDOWNINTERVALS = "core.container.taskGroup.adaptiveChannel.cooldownIntervals";
+
 	public static final String DATAX_CORE_CONTAINER_TASK_FAILOVER_MAXRETRYTIMES = "core.container.task.failOver.maxRetryTimes";
 
 	public static final String DATAX_CORE_CONTAINER_TASK_FAILOVER_RETRYINTERVALINMSEC = "core.container.task.failOver.retryIntervalInMsec";
 
 	public static final String DATAX_CORE_CONTAINER_TASK_FAILOVER_MAXWAITINMSEC = "core.container.task.failOver.maxWaitInMsec";
 
+	public static final String DATAX_CORE_CONTAINER_METRICS_ENABLE = "core.container.metrics.enable";
+
+	public static final String DATAX_CORE_CONTAINER_METRICS_PORT = "core.container.metrics.port";
+
+	public static final String DATAX_CORE_CONTAINER_METRICS_PORTRANGE = "core.container.metrics.portRange";
+
     public static final String DATAX_CORE_DATAXSERVER_ADDRESS = "core.dataXServer.address";
 
 	public static final String DATAX_CORE_DSC_ADDRESS = "core.dsc.address";
@@ -59,6 +81,14 @@ public class CoreConstant {
 
 	public static final String DATAX_CORE_TRANSPORT_CHANNEL_FLOWCONTROLINTERVAL = "core.transport.channel.flowControlInterval";
 
+	public static final String DATAX_CORE_TRANSPORT_CHANNEL_SPILL_DIR = "core.transport.channel.spill.dir";
+
+	public static final String DATAX_CORE_TRANSPORT_CHANNEL_SPILL_DISKQUOTA = "core.transport.channel.spill.diskQuota";
+
+	public static final String DATAX_CORE_TRANSPORT_CHANNEL_SPILL_SEGMENTSIZE = "core.transport.channel.spill.segmentSize";
+
+	public static final String DATAX_CORE_TRANSPORT_CHANNEL_SPILL_COMPRESS = "core.transport.channel.spill.compress";
+
 	public static final String DATAX_CORE_TRANSPORT_EXCHANGER_BUFFERSIZE = "core.transport.exchanger.bufferSize";
 
     public static final String DATAX_CORE_TRANSPORT_RECORD_CLASS = "core.transport.record.class";
@@ -67,6 +97,20 @@ public class CoreConstant {
 
 	public static final String DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_MAXDIRTYNUM = "core.statistics.collector.plugin.maxDirtyNumber";
 
+	public static final String DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_DIRTYSINK_TYPE = "core.statistics.collector.plugin.dirtySink.type";
+
+	public static final String DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_DIRTYSINK_PATH = "core.statistics.collector.plugin.dirtySink.path";
+
+	public static final String DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_DIRTYSINK_FORMAT = "core.statistics.collector.plugin.dirtySink.format";
+
+	public static final String DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_DIRTYSINK_SAMPLERATE = "core.statistics.collector.plugin.dirtySink.sampleRate";
+
+	public static final String DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_DIRTYSINK_MAXRECORDS = "core.statistics.collector.plugin.dirtySink.maxRecords";
+
+	public static final String DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_DIRTYSINK_QUEUESIZE = "core.statistics.collector.plugin.dirtySink.queueSize";
+
+	public static final String DATAX_CORE_STATISTICS_COLLECTOR_PLUGIN_DIRTYSINK_SHUTDOWNTIMEOUT = "core.statistics.collector.plugin.dirtySink.shutdownTimeout";
+
 	public static final String DATAX_JOB_CONTENT_READER_NAME = "job.content[0].reader.name";
 
 	public static final String DATAX_JOB_CONTENT_READER_PARAMETER = "job.content[0].reader.parameter";
@@ -0,0 +1,130 @@
+package com.alibaba.datax.core.util;
+
+import com.alibaba.datax.common.constant.PluginType;
+import com.alibaba.datax.common.element.StringColumn;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.core.statistics.communication.Communication;
+import com.alibaba.datax.core.statistics.communication.CommunicationTool;
+import com.alibaba.datax.core.statistics.plugin.task.AbstractTaskPluginCollector;
+import com.alibaba.datax.core.transport.record.DefaultRecord;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DirtyRecordLimiterTest {
+
+    private DirtyRecordLimiter limiter = DirtyRecordLimiter.getInstance();
+
+    @Before
+    public void setUp() {
+        limiter.reset();
+    }
+
+    @After
+    public void tearDown() {
+        limiter.reset();
+    }
+
+    @Test
+    public void testExceedRecordLimit() throws InterruptedException {
+        limiter.init(newConfiguration(1L, 3L));
+        Communication communication = new Communication();
+        AbstractTaskPluginCollector collector = newCollector(communication, PluginType.WRITER);
+
+        collectDirty(collector, 3);
+        Assert.assertFalse(limiter.isExceeded());
+        Assert.assertFalse(limiter.awaitExceeded(1));
+
+        try {
+            collectDirty(collector, 1);
+            Assert.fail("dirty record limit should be exceeded");
+        } catch (DataXException e) {
+            Assert.assertEquals(FrameworkErrorCode.PLUGIN_DIRTY_DATA_LIMIT_EXCEED, e.getErrorCode());
+        }
+        Assert.assertTrue(limiter.isExceeded());
+        Assert.assertTrue(limiter.awaitExceeded(1));
+        // 计数与 ErrorRecordChecker 使用的 Communication 保持一致
+        Assert.assertEquals(4L, (long) communication.getLongCounter(CommunicationTool.WRITE_FAILED_RECORDS));
+    }
+
+    @Test
+    public void testNoRecordLimit() {
+        limiter.init(newConfiguration(1L, null));
+        collectDirty(newCollector(new Communication(), PluginType.READER), 1000);
+        Assert.assertFalse(limiter.isExceeded());
+    }
+
+    /**
+     * 与 TaskGroupContainer 的 failover 流程一致：失败尝试的 Communication 被重置前先 release，
+     * 重试产生的脏数据不能与失败那次重复计数
+     */
+    @Test
+    public void testFailoverDoesNotDoubleCount() {
+        limiter.init(newConfiguration(1L, 10L));
+
+        Communication firstAttempt = new Communication();
+        collectDirty(newCollector(firstAttempt, PluginType.READER), 3);
+        collectDirty(newCollector(firstAttempt, PluginType.WRITER), 3);
+        limiter.release(firstAttempt);
+
+        Communication secondAttempt = new Communication();
+        collectDirty(newCollector(secondAttempt, PluginType.WRITER), 6);
+        Assert.assertFalse(limiter.isExceeded());
+
+        // 重试这一次自身仍受限制约束
+        collectDirty(newCollector(secondAttempt, PluginType.READER), 4);
+        Assert.assertFalse(limiter.isExceeded());
+        try {
+            collectDirty(newCollector(secondAttempt, PluginType.READER), 1);
+            Assert.fail("dirty record limit should be exceeded");
+        } catch (DataXException e) {
+            Assert.assertEquals(FrameworkErrorCode.PLUGIN_DIRTY_DATA_LIMIT_EXCEED, e.getErrorCode());
+        }
+    }
+
+    @Test
+    public void testInitIsIdempotentPerJob() {
+        limiter.init(newConfiguration(1L, 2L));
+        AbstractTaskPluginCollector collector = newCollector(new Communication(), PluginType.WRITER);
+        collectDirty(collector, 2);
+
+        // 同一个job的其他taskGroup初始化不会清零计数
+        limiter.init(newConfiguration(1L, 2L));
+        try {
+            collectDirty(collector, 1);
+            Assert.fail("dirty record limit should be exceeded");
+        } catch (DataXException e) {
+            Assert.assertTrue(limiter.isExceeded());
+        }
+
+        // 新的job重新计数
+        limiter.init(newConfiguration(2L, 2L));
+        Assert.assertFalse(limiter.isExceeded());
+        collectDirty(collector, 2);
+        Assert.assertFalse(limiter.isExceeded());
+    }
+
+    private static Configuration newConfiguration(Long jobId, Long recordLimit) {
+        Configuration configuration = Configuration.newDefault();
+        configuration.set("core.container.job.id", jobId);
+        if (recordLimit != null) {
+            configuration.set("job.setting.errorLimit.record", recordLimit);
+        }
+        return configuration;
+    }
+
+    private static AbstractTaskPluginCollector newCollector(Communication communication, PluginType type) {
+        return new AbstractTaskPluginCollector(Configuration.newDefault(), communication, type) {
+        };
+    }
+
+    private static void collectDirty(AbstractTaskPluginCollector collector, int count) {
+        for (int i = 0; i < count; i++) {
+            DefaultRecord record = new DefaultRecord();
+            record.addColumn(new StringColumn("dirty-" + i));
+            collector.collectDirtyRecord(record, null, "test");
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.alibaba.datax.plugin.writer.elasticsearchwriter;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.plugin.SynchronizedTaskPluginCollector;
+import com.alibaba.datax.common.plugin.TaskPluginCollector;
+import com.alibaba.datax.common.util.Configuration;
+import io.searchbox.client.JestResult;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.BulkResult;
+import io.searchbox.core.Index;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 流水线方式的 bulk 写入：读线程把序列化好的文档按条数(batchSize)或字节数(batchByteSize)切成批次交给发送线程，
+ * 自己继续读下一批；最多 bulkConcurrency 个 bulk 请求同时在途，在途请求已满时读线程阻塞，形成背压。
+ * <p/>
+ * 失败重试只重发 bulk 中可重试(429/5xx)的失败条目，不再整批重发；收到 429 时所有发送线程一起暂停退避。
+ * 注意 bulkConcurrency 大于 1 时批次之间的写入顺序不再有保证，同一 id 的多次写入可能乱序。
+ */
+public class ESBulkProcessor {
+    private static final Logger log = LoggerFactory.getLogger(ESBulkProcessor.class);
+
+    private static final long MAX_BACKOFF_MILLIS = 60000L;
+
+    // 每条 action 元数据行的大致长度，用于估算批次大小
+    private static final int ACTION_OVERHEAD = 64;
+
+    private final ESClient esClient;
+    // 多个发送线程并发收集脏数据，必须是 SynchronizedTaskPluginCollector
+    private final TaskPluginCollector taskPluginCollector;
+
+    private final String index;
+    private final String type;
+    private final int batchSize;
+    private final long batchByteSize;
+    private final int trySize;
+    private final boolean ignoreWriteError;
+    private final boolean ignoreParseError;
+
+    private final int concurrency;
+    private final Semaphore inFlight;
+    private final ExecutorService executor;
+
+    private final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+    private final AtomicLong total = new AtomicLong();
+    // 收到 429 后所有发送线程暂停到该时间点
+    private volatile long pauseUntil;
+
+    private List<BulkItem> pending;
+    private long pendingBytes;
+
+    public ESBulkProcessor(ESClient esClient, Configuration conf, TaskPluginCollector taskPluginCollector) {
+        this.esClient = esClient;
+        this.taskPluginCollector = taskPluginCollector instanceof SynchronizedTaskPluginCollector
+                ? taskPluginCollector : new SynchronizedTaskPluginCollector(taskPluginCollector);
+        this.index = Key.getIndexName(conf);
+        this.type = Key.getTypeName(conf);
+        this.batchSize = Key.getBatchSize(conf);
+        this.batchByteSize = Key.getBatchByteSize(conf);
+        this.trySize = Math.max(Key.getTrySize(conf), 1);
+        this.ignoreWriteError = Key.isIgnoreWriteError(conf);
+        this.ignoreParseError = Key.isIgnoreParseError(conf);
+
+        int concurrency = Key.getBulkConcurrency(conf);
+        if (concurrency < 1) {
+            throw DataXException.asDataXException(ESWriterErrorCode.BAD_CONFIG_VALUE,
+                    String.format("bulkConcurrency [%d] 必须大于 0", concurrency));
+        }
+        if (concurrency > 1 && !Key.isMultiThread(conf)) {
+            log.warn("multiThread is false, http client is not thread safe, so bulkConcurrency is set to 1");
+            concurrency = 1;
+        }
+        this.concurrency = concurrency;
+        this.inFlight = new Semaphore(concurrency);
+        this.executor = Executors.newFixedThreadPool(concurrency, new ThreadFactory() {
+            private final AtomicInteger number = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "es-bulk-" + number.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.pending = new ArrayList<BulkItem>(this.batchSize);
+    }
+
+    public void add(Record record, String id, String source) {
+        this.pending.add(new BulkItem(record, id, source));
+        this.pendingBytes += source.length() + (id == null ? 0 : id.length()) + ACTION_OVERHEAD;
+        if (this.pending.size() >= this.batchSize || this.pendingBytes >= this.batchByteSize) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        checkError();
+        if (this.pending.isEmpty()) {
+            return;
+        }
+        final List<BulkItem> batch = this.pending;
+        this.pending = new ArrayList<BulkItem>(this.batchSize);
+        this.pendingBytes = 0;
+
+        try {
+            this.inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw DataXException.asDataXException(ESWriterErrorCode.ES_INDEX_INSERT, e);
+        }
+        // 等待期间其它批次可能已经失败
+        if (this.error.get() != null) {
+            this.inFlight.release();
+            checkError();
+        }
+        this.executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    total.addAndGet(send(batch));
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                } finally {
+                    inFlight.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * 发送剩余批次并等待所有在途请求完成，返回成功写入的条数
+     */
+    public long close() {
+        flush();
+        try {
+            this.inFlight.acquire(this.concurrency);
+            this.inFlight.release(this.concurrency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw DataXException.asDataXException(ESWriterErrorCode.ES_INDEX_INSERT, e);
+        }
+        checkError();
+        return this.total.get();
+    }
+
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    private void checkError() {
+        Throwable e = this.error.get();
+        if (e == null) {
+            return;
+        }
+        if (e instanceof DataXException) {
+            throw (DataXException) e;
+        }
+        throw DataXException.asDataXException(ESWriterErrorCode.ES_INDEX_INSERT, e);
+    }
+
+    private long send(List<BulkItem> batch) throws InterruptedException {
+        List<BulkItem> remaining = batch;
+        long succeeded = 0;
+        for (int attempt = 0; ; attempt++) {
+            waitIfPaused();
+
+            Bulk.Builder bulkAction = new Bulk.Builder().defaultIndex(this.index).defaultType(this.type);
+            for (BulkItem item : remaining) {
+                bulkAction.addAction(item.toAction());
+            }
+
+            JestResult jestResult = null;
+            String failure;
+            try {
+                jestResult = this.esClient.bulkInsert(bulkAction, 1);
+            } catch (Exception e) {
+                log.warn("bulk request failed: " + e.toString());
+            }
+
+            List<BulkItem> retryItems = remaining;
+            boolean tooManyRequests = false;
+            if (jestResult == null) {
+                failure = "bulk request failed";
+            } else if (jestResult.isSucceeded()) {
+                return succeeded + remaining.size();
+            } else if (this.esClient.isBulkResult(jestResult)
+                    && ((BulkResult) jestResult).getItems().size() == remaining.size()) {
+                List<BulkResult.BulkResultItem> items = ((BulkResult) jestResult).getItems();
+                retryItems = new ArrayList<BulkItem>();
+                String lastError = null;
+                for (int idx = 0; idx < items.size(); ++idx) {
+                    BulkResult.BulkResultItem item = items.get(idx);
+                    BulkItem bulkItem = remaining.get(idx);
+                    if (item.error == null || "".equals(item.error)) {
+                        succeeded++;
+                    } else if (isRetryable(item.status)) {
+                        tooManyRequests |= item.status == 429;
+                        lastError = String.format("status:[%d], error: %s", item.status, item.error);
+                        retryItems.add(bulkItem);
+                    } else if (item.status == 400 && this.ignoreParseError) {
+                        this.taskPluginCollector.collectDirtyRecord(bulkItem.record, String.format("status:[%d], error: %s", item.status, item.error));
+                    } else {
+                        // 不可重试的错误：400(不忽略解析错误时)或非数据异常，重试也不会成功，只有 ignoreWriteError 时才允许忽略
+                        String message = item.status == 400
+                                ? String.format("status:[%d], error: %s, config not ignoreParseError so throw this error", item.status, item.error)
+                                : String.format("status:[%d], error: %s", item.status, item.error);
+                        if (!this.ignoreWriteError) {
+                            throw DataXException.asDataXException(ESWriterErrorCode.ES_INDEX_INSERT, message);
+                        }
+                        log.warn(String.format("写入失败，忽略该错误，继续写入! %s", message));
+                        this.taskPluginCollector.collectDirtyRecord(bulkItem.record, message);
+                    }
+                }
+                if (retryItems.isEmpty()) {
+                    return succeeded;
+                }
+                failure = String.format("%d of %d items failed, last %s", retryItems.size(), items.size(), lastError);
+            } else {
+                int status = statusOf(jestResult);
+                tooManyRequests = status == 429;
+                failure = String.format("response code: [%d] error :[%s]", status, jestResult.getErrorMessage());
+            }
+
+            if (attempt + 1 >= this.trySize) {
+                if (this.ignoreWriteError) {
+                    log.warn(String.format("重试[%d]次写入失败，忽略该错误，继续写入! %s", this.trySize, failure));
+                    return succeeded;
+                }
+                throw DataXException.asDataXException(ESWriterErrorCode.ES_INDEX_INSERT, failure);
+            }
+
+            long backoff = Math.min(1000L << Math.min(attempt, 6), MAX_BACKOFF_MILLIS);
+            log.warn(String.format("%s, retry %d items after %d ms", failure, retryItems.size(), backoff));
+            if (tooManyRequests) {
+                // 集群拒绝写入时所有发送线程一起退避，读线程随之阻塞在 flush 上
+                log.warn("server response too many requests, so auto reduce speed");
+                this.pauseUntil = Math.max(this.pauseUntil, System.currentTimeMillis() + backoff);
+            } else {
+                Thread.sleep(backoff);
+            }
+            remaining = retryItems;
+        }
+    }
+
+    private void waitIfPaused() throws InterruptedException {
+        long wait;
+        while ((wait = this.pauseUntil - System.currentTimeMillis()) > 0) {
+            Thread.sleep(wait);
+        }
+    }
+
+    private int statusOf(JestResult jestResult) {
+        if (jestResult.getResponseCode() > 0) {
+            return jestResult.getResponseCode();
+        }
+        return jestResult.getJsonObject() == null ? 600 : this.esClient.getStatus(jestResult);
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 429 || status == 500 || status == 502 || status == 503 || status == 504;
+    }
+
+    private static class BulkItem {
+        private final Record record;
+        private final String id;
+        // 已经序列化好的文档 json
+        private final String source;
+
+        BulkItem(Record record, String id, String source) {
+            this.record = record;
+            this.id = id;
+            this.source = source;
+        }
+
+        Index toAction() {
+            Index.Builder builder = new Index.Builder(this.source);
+            if (this.id != null) {
+                builder.id(this.id);
+            }
+            return builder.build();
+        }
+    }
+}
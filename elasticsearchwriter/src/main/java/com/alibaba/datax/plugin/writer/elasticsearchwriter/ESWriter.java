@@ -4,16 +4,12 @@ import com.alibaba.datax.common.element.Column;
 import com.alibaba.datax.common.element.Record;
 import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.plugin.RecordReceiver;
+import com.alibaba.datax.common.plugin.SynchronizedTaskPluginCollector;
 import com.alibaba.datax.common.spi.Writer;
 import com.alibaba.datax.common.util.Configuration;
-import com.alibaba.datax.common.util.RetryUtil;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.alibaba.fastjson.TypeReference;
-import io.searchbox.client.JestResult;
-import io.searchbox.core.Bulk;
-import io.searchbox.core.BulkResult;
-import io.searchbox.core.Index;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.joda.time.format.DateTimeFormat;
@@ -22,9 +18,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.net.URLEncoder;
 import java.util.*;
-import java.util.concurrent.Callable;
 
 public class ESWriter extends Writer {
     private final static String WRITE_COLUMNS = "write_columns";
@@ -228,28 +222,45 @@ public class ESWriter extends Writer {
         private List<ESFieldType> typeList;
         private List<ESColumn> columnList;
 
-        private int trySize;
-        private int batchSize;
-        private String index;
-        private String type;
         private String splitter;
 
+        // 以下按列预先计算，避免每条记录重复解析
+        private String[] fieldNames;
+        private boolean[] arrayColumns;
+        private DateTimeZone[] timeZones;
+        private DateTimeFormatter[] formatters;
+
         @Override
         public void init() {
             this.conf = super.getPluginJobConf();
-            index = Key.getIndexName(conf);
-            type = Key.getTypeName(conf);
 
-            trySize = Key.getTrySize(conf);
-            batchSize = Key.getBatchSize(conf);
             splitter = Key.getSplitter(conf);
             columnList = JSON.parseObject(this.conf.getString(WRITE_COLUMNS), new TypeReference<List<ESColumn>>() {
             });
 
             typeList = new ArrayList<ESFieldType>();
 
-            for (ESColumn col : columnList) {
+            int columnNumber = columnList.size();
+            fieldNames = new String[columnNumber];
+            arrayColumns = new boolean[columnNumber];
+            timeZones = new DateTimeZone[columnNumber];
+            formatters = new DateTimeFormatter[columnNumber];
+            for (int i = 0; i < columnNumber; i++) {
+                ESColumn col = columnList.get(i);
                 typeList.add(ESFieldType.getESFieldType(col.getType()));
+
+                StringBuilder name = new StringBuilder();
+                appendJsonString(name, col.getName());
+                fieldNames[i] = name.append(':').toString();
+                arrayColumns[i] = col.isArray() != null && col.isArray();
+                timeZones[i] = DateTimeZone.getDefault();
+                if (col.getTimezone() != null) {
+                    // 所有时区参考 http://www.joda.org/joda-time/timezones.html
+                    timeZones[i] = DateTimeZone.forID(col.getTimezone());
+                }
+                if (col.getFormat() != null) {
+                    formatters[i] = DateTimeFormat.forPattern(col.getFormat()).withZone(timeZones[i]);
+                }
             }
 
             esClient = new ESClient();
@@ -268,20 +279,21 @@ public class ESWriter extends Writer {
 
         @Override
         public void startWrite(RecordReceiver recordReceiver) {
-            List<Record> writerBuffer = new ArrayList<Record>(this.batchSize);
+            // bulk 请求由多个线程并发发送，与本线程的类型转换错误一起收集脏数据
+            setTaskPluginCollector(new SynchronizedTaskPluginCollector(getTaskPluginCollector()));
+            ESBulkProcessor bulkProcessor = new ESBulkProcessor(esClient, conf, getTaskPluginCollector());
+            StringBuilder document = new StringBuilder();
             Record record = null;
-            long total = 0;
-            while ((record = recordReceiver.getFromReader()) != null) {
-                writerBuffer.add(record);
-                if (writerBuffer.size() >= this.batchSize) {
-                    total += doBatchInsert(writerBuffer);
-                    writerBuffer.clear();
+            long total;
+            try {
+                while ((record = recordReceiver.getFromReader()) != null) {
+                    document.setLength(0);
+                    String id = buildDocument(record, document);
+                    bulkProcessor.add(record, id, document.toString());
                 }
-            }
-
-            if (!writerBuffer.isEmpty()) {
-                total += doBatchInsert(writerBuffer);
-                writerBuffer.clear();
+                total = bulkProcessor.close();
+            } finally {
+                bulkProcessor.shutdown();
             }
 
             String msg = String.format("task end, write size :%d", total);
@@ -290,162 +302,166 @@ public class ESWriter extends Writer {
             esClient.closeJestClient();
         }
 
-        private String getDateStr(ESColumn esColumn, Column column) {
-            DateTime date = null;
-            DateTimeZone dtz = DateTimeZone.getDefault();
-            if (esColumn.getTimezone() != null) {
-                // 所有时区参考 http://www.joda.org/joda-time/timezones.html
-                dtz = DateTimeZone.forID(esColumn.getTimezone());
-            }
-            if (column.getType() != Column.Type.DATE && esColumn.getFormat() != null) {
-                DateTimeFormatter formatter = DateTimeFormat.forPattern(esColumn.getFormat());
-                date = formatter.withZone(dtz).parseDateTime(column.asString());
-                return date.toString();
+        private String getDateStr(int i, Column column) {
+            if (column.getType() != Column.Type.DATE && formatters[i] != null) {
+                return formatters[i].parseDateTime(column.asString()).toString();
             } else if (column.getType() == Column.Type.DATE) {
-                date = new DateTime(column.asLong(), dtz);
-                return date.toString();
+                return new DateTime(column.asLong(), timeZones[i]).toString();
             } else {
                 return column.asString();
             }
         }
 
-        private long doBatchInsert(final List<Record> writerBuffer) {
-            Map<String, Object> data = null;
-            final Bulk.Builder bulkaction = new Bulk.Builder().defaultIndex(this.index).defaultType(this.type);
-            for (Record record : writerBuffer) {
-                data = new HashMap<String, Object>();
-                String id = null;
-                for (int i = 0; i < record.getColumnNumber(); i++) {
-                    Column column = record.getColumn(i);
-                    String columnName = columnList.get(i).getName();
-                    ESFieldType columnType = typeList.get(i);
-                    //如果是数组类型，那它传入的必是字符串类型
-                    if (columnList.get(i).isArray() != null && columnList.get(i).isArray()) {
-                        String[] dataList = column.asString().split(splitter);
-                        if (!columnType.equals(ESFieldType.DATE)) {
-                            data.put(columnName, dataList);
-                        } else {
-                            for (int pos = 0; pos < dataList.length; pos++) {
-                                dataList[pos] = getDateStr(columnList.get(i), column);
-                            }
-                            data.put(columnName, dataList);
-                        }
+        /**
+         * 把记录直接序列化为文档 json 写入 document，不再经过中间的 Map；返回文档 id，没有 id 列时返回 null。
+         * 值为 null 的字段不输出，与之前经 Gson 序列化 Map 的结果一致
+         */
+        private String buildDocument(Record record, StringBuilder document) {
+            String id = null;
+            document.append('{');
+            boolean first = true;
+            for (int i = 0; i < record.getColumnNumber(); i++) {
+                Column column = record.getColumn(i);
+                ESFieldType columnType = typeList.get(i);
+                if (columnType == ESFieldType.ID) {
+                    if (id != null) {
+                        id += column.asString();
                     } else {
-                        switch (columnType) {
-                            case ID:
-                                if (id != null) {
-                                    id += record.getColumn(i).asString();
-                                } else {
-                                    id = record.getColumn(i).asString();
-                                }
-                                break;
-                            case DATE:
-                                try {
-                                    String dateStr = getDateStr(columnList.get(i), column);
-                                    data.put(columnName, dateStr);
-                                } catch (Exception e) {
-                                    getTaskPluginCollector().collectDirtyRecord(record, String.format("时间类型解析失败 [%s:%s] exception: %s", columnName, column.toString(), e.toString()));
-                                }
-                                break;
-                            case KEYWORD:
-                            case STRING:
-                            case TEXT:
-                            case IP:
-                            case GEO_POINT:
-                                data.put(columnName, column.asString());
-                                break;
-                            case BOOLEAN:
-                                data.put(columnName, column.asBoolean());
-                                break;
-                            case BYTE:
-                            case BINARY:
-                                data.put(columnName, column.asBytes());
-                                break;
-                            case LONG:
-                                data.put(columnName, column.asLong());
-                                break;
-                            case INTEGER:
-                                data.put(columnName, column.asBigInteger());
-                                break;
-                            case SHORT:
-                                data.put(columnName, column.asBigInteger());
-                                break;
-                            case FLOAT:
-                            case DOUBLE:
-                                data.put(columnName, column.asDouble());
-                                break;
-                            case NESTED:
-                            case OBJECT:
-                            case GEO_SHAPE:
-                                data.put(columnName, JSON.parse(column.asString()));
-                                break;
-                            default:
-                                getTaskPluginCollector().collectDirtyRecord(record, "类型错误:不支持的类型:" + columnType + " " + columnName);
-                        }
+                        id = column.asString();
                     }
+                    continue;
+                }
+                if (column.getRawData() == null) {
+                    continue;
                 }
 
-                if (id == null) {
-                    //id = UUID.randomUUID().toString();
-                    bulkaction.addAction(new Index.Builder(data).build());
+                int mark = document.length();
+                if (!first) {
+                    document.append(',');
+                }
+                document.append(fieldNames[i]);
+                boolean written;
+                try {
+                    written = appendValue(document, i, columnType, column, record);
+                } catch (RuntimeException e) {
+                    if (columnType != ESFieldType.DATE) {
+                        throw e;
+                    }
+                    getTaskPluginCollector().collectDirtyRecord(record, String.format("时间类型解析失败 [%s:%s] exception: %s", columnList.get(i).getName(), column.toString(), e.toString()));
+                    written = false;
+                }
+                if (written) {
+                    first = false;
                 } else {
-                    bulkaction.addAction(new Index.Builder(data).id(id).build());
+                    document.setLength(mark);
+                }
+            }
+            document.append('}');
+            return id;
+        }
+
+        private boolean appendValue(StringBuilder document, int i, ESFieldType columnType, Column column, Record record) {
+            //如果是数组类型，那它传入的必是字符串类型
+            if (arrayColumns[i]) {
+                String[] dataList = column.asString().split(splitter);
+                document.append('[');
+                for (int pos = 0; pos < dataList.length; pos++) {
+                    if (pos > 0) {
+                        document.append(',');
+                    }
+                    String value = dataList[pos];
+                    if (columnType.equals(ESFieldType.DATE) && formatters[i] != null) {
+                        value = formatters[i].parseDateTime(value).toString();
+                    }
+                    appendJsonString(document, value);
                 }
+                document.append(']');
+                return true;
             }
 
-            try {
-                return RetryUtil.executeWithRetry(new Callable<Integer>() {
-                    @Override
-                    public Integer call() throws Exception {
-                        JestResult jestResult = esClient.bulkInsert(bulkaction, 1);
-                        if (jestResult.isSucceeded()) {
-                            return writerBuffer.size();
+            switch (columnType) {
+                case DATE:
+                    appendJsonString(document, getDateStr(i, column));
+                    return true;
+                case KEYWORD:
+                case STRING:
+                case TEXT:
+                case IP:
+                case GEO_POINT:
+                    appendJsonString(document, column.asString());
+                    return true;
+                case BOOLEAN:
+                    document.append(column.asBoolean());
+                    return true;
+                case BYTE:
+                case BINARY: {
+                    byte[] bytes = column.asBytes();
+                    document.append('[');
+                    for (int pos = 0; pos < bytes.length; pos++) {
+                        if (pos > 0) {
+                            document.append(',');
                         }
+                        document.append(bytes[pos]);
+                    }
+                    document.append(']');
+                    return true;
+                }
+                case LONG:
+                    document.append(column.asLong());
+                    return true;
+                case INTEGER:
+                case SHORT:
+                    document.append(column.asBigInteger());
+                    return true;
+                case FLOAT:
+                case DOUBLE: {
+                    Double value = column.asDouble();
+                    if (value.isNaN() || value.isInfinite()) {
+                        return false;
+                    }
+                    document.append(value.doubleValue());
+                    return true;
+                }
+                case NESTED:
+                case OBJECT:
+                case GEO_SHAPE:
+                    document.append(JSON.toJSONString(JSON.parse(column.asString())));
+                    return true;
+                default:
+                    getTaskPluginCollector().collectDirtyRecord(record, "类型错误:不支持的类型:" + columnType + " " + columnList.get(i).getName());
+                    return false;
+            }
+        }
 
-                        String msg = String.format("response code: [%d] error :[%s]", jestResult.getResponseCode(), jestResult.getErrorMessage());
-                        log.warn(msg);
-                        if (esClient.isBulkResult(jestResult)) {
-                            BulkResult brst = (BulkResult) jestResult;
-                            List<BulkResult.BulkResultItem> failedItems = brst.getFailedItems();
-                            for (BulkResult.BulkResultItem item : failedItems) {
-                                if (item.status != 400) {
-                                    // 400 BAD_REQUEST  如果非数据异常,请求异常,则不允许忽略
-                                    throw DataXException.asDataXException(ESWriterErrorCode.ES_INDEX_INSERT, String.format("status:[%d], error: %s", item.status, item.error));
-                                } else {
-                                    // 如果用户选择不忽略解析错误,则抛异常,默认为忽略
-                                    if (!Key.isIgnoreParseError(conf)) {
-                                        throw DataXException.asDataXException(ESWriterErrorCode.ES_INDEX_INSERT, String.format("status:[%d], error: %s, config not ignoreParseError so throw this error", item.status, item.error));
-                                    }
-                                }
-                            }
-
-                            List<BulkResult.BulkResultItem> items = brst.getItems();
-                            for (int idx = 0; idx < items.size(); ++idx) {
-                                BulkResult.BulkResultItem item = items.get(idx);
-                                if (item.error != null && !"".equals(item.error)) {
-                                    getTaskPluginCollector().collectDirtyRecord(writerBuffer.get(idx), String.format("status:[%d], error: %s", item.status, item.error));
-                                }
-                            }
-                            return writerBuffer.size() - brst.getFailedItems().size();
+        private static void appendJsonString(StringBuilder sb, String value) {
+            sb.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"':
+                        sb.append("\\\"");
+                        break;
+                    case '\\':
+                        sb.append("\\\\");
+                        break;
+                    case '\n':
+                        sb.append("\\n");
+                        break;
+                    case '\r':
+                        sb.append("\\r");
+                        break;
+                    case '\t':
+                        sb.append("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            sb.append(String.format("\\u%04x", (int) c));
                         } else {
-                            Integer status = esClient.getStatus(jestResult);
-                            switch (status) {
-                                case 429: //TOO_MANY_REQUESTS
-                                    log.warn("server response too many requests, so auto reduce speed");
-                                    break;
-                            }
-                            throw DataXException.asDataXException(ESWriterErrorCode.ES_INDEX_INSERT, jestResult.getErrorMessage());
+                            sb.append(c);
                         }
-                    }
-                }, trySize, 60000L, true);
-            } catch (Exception e) {
-                if (Key.isIgnoreWriteError(this.conf)) {
-                    log.warn(String.format("重试[%d]次写入失败，忽略该错误，继续写入!", trySize));
-                } else {
-                    throw DataXException.asDataXException(ESWriterErrorCode.ES_INDEX_INSERT, e);
                 }
             }
-            return 0;
+            sb.append('"');
         }
 
         @Override
@@ -52,6 +52,14 @@ public final class Key {
         return conf.getInt("batchSize", 1000);
     }
 
+    public static long getBatchByteSize(Configuration conf) {
+        return conf.getLong("batchByteSize", 10L * 1024 * 1024);
+    }
+
+    public static int getBulkConcurrency(Configuration conf) {
+        return conf.getInt("bulkConcurrency", 1);
+    }
+
     public static int getTrySize(Configuration conf) {
         return conf.getInt("trySize", 30);
     }
@@ -32,6 +32,19 @@ public class Hbase11xHelper {
     private static final Logger LOG = LoggerFactory.getLogger(Hbase11xHelper.class);
 
     public static org.apache.hadoop.hbase.client.Connection getHbaseConnection(String hbaseConfig) {
+        org.apache.hadoop.conf.Configuration hConfiguration = Hbase11xHelper.getHbaseConfiguration(hbaseConfig);
+        org.apache.hadoop.hbase.client.Connection hConnection = null;
+        try {
+            hConnection = ConnectionFactory.createConnection(hConfiguration);
+
+        } catch (Exception e) {
+            Hbase11xHelper.closeConnection(hConnection);
+            throw DataXException.asDataXException(Hbase11xReaderErrorCode.GET_HBASE_CONNECTION_ERROR, e);
+        }
+        return hConnection;
+    }
+
+    public static org.apache.hadoop.conf.Configuration getHbaseConfiguration(String hbaseConfig) {
         if (StringUtils.isBlank(hbaseConfig)) {
             throw DataXException.asDataXException(Hbase11xReaderErrorCode.REQUIRED_VALUE, "读 Hbase 时需要配置hbaseConfig，其内容为 Hbase 连接信息，请联系 Hbase PE 获取该信息.");
         }
@@ -46,15 +59,7 @@ public class Hbase11xHelper {
         } catch (Exception e) {
             throw DataXException.asDataXException(Hbase11xReaderErrorCode.GET_HBASE_CONNECTION_ERROR, e);
         }
-        org.apache.hadoop.hbase.client.Connection hConnection = null;
-        try {
-            hConnection = ConnectionFactory.createConnection(hConfiguration);
-
-        } catch (Exception e) {
-            Hbase11xHelper.closeConnection(hConnection);
-            throw DataXException.asDataXException(Hbase11xReaderErrorCode.GET_HBASE_CONNECTION_ERROR, e);
-        }
-        return hConnection;
+        return hConfiguration;
     }
 
 
@@ -326,26 +331,7 @@ public class Hbase11xHelper {
             byte[] regionStartKey = regionRanges.getFirst()[i];
             byte[] regionEndKey = regionRanges.getSecond()[i];
 
-            // 当前的region为最后一个region
-            // 如果最后一个region的start Key大于用户指定的userEndKey,则最后一个region，应该不包含在内
-            // 注意如果用户指定userEndKey为"",则此判断应该不成立。userEndKey为""表示取得最大的region
-            if (Bytes.compareTo(regionEndKey, HConstants.EMPTY_BYTE_ARRAY) == 0
-                    && (endRowkeyByte.length != 0 && (Bytes.compareTo(
-                    regionStartKey, endRowkeyByte) > 0))) {
-                continue;
-            }
-
-            // 如果当前的region不是最后一个region，
-            // 用户配置的userStartKey大于等于region的endkey,则这个region不应该含在内
-            if ((Bytes.compareTo(regionEndKey, HConstants.EMPTY_BYTE_ARRAY) != 0)
-                    && (Bytes.compareTo(startRowkeyByte, regionEndKey) >= 0)) {
-                continue;
-            }
-
-            // 如果用户配置的userEndKey小于等于 region的startkey,则这个region不应该含在内
-            // 注意如果用户指定的userEndKey为"",则次判断应该不成立。userEndKey为""表示取得最大的region
-            if (endRowkeyByte.length != 0
-                    && (Bytes.compareTo(endRowkeyByte, regionStartKey) <= 0)) {
+            if (!isRegionInRange(startRowkeyByte, endRowkeyByte, regionStartKey, regionEndKey)) {
                 continue;
             }
 
@@ -366,7 +352,37 @@ public class Hbase11xHelper {
         return configurations;
     }
 
-    private static String getEndKey(byte[] endRowkeyByte, byte[] regionEndKey) {
+    /**
+     * region [regionStartKey, regionEndKey) 与用户配置的 rowkey 范围是否有交集
+     */
+    static boolean isRegionInRange(byte[] startRowkeyByte, byte[] endRowkeyByte,
+                                   byte[] regionStartKey, byte[] regionEndKey) {
+        // 当前的region为最后一个region
+        // 如果最后一个region的start Key大于用户指定的userEndKey,则最后一个region，应该不包含在内
+        // 注意如果用户指定userEndKey为"",则此判断应该不成立。userEndKey为""表示取得最大的region
+        if (Bytes.compareTo(regionEndKey, HConstants.EMPTY_BYTE_ARRAY) == 0
+                && (endRowkeyByte.length != 0 && (Bytes.compareTo(
+                regionStartKey, endRowkeyByte) > 0))) {
+            return false;
+        }
+
+        // 如果当前的region不是最后一个region，
+        // 用户配置的userStartKey大于等于region的endkey,则这个region不应该含在内
+        if ((Bytes.compareTo(regionEndKey, HConstants.EMPTY_BYTE_ARRAY) != 0)
+                && (Bytes.compareTo(startRowkeyByte, regionEndKey) >= 0)) {
+            return false;
+        }
+
+        // 如果用户配置的userEndKey小于等于 region的startkey,则这个region不应该含在内
+        // 注意如果用户指定的userEndKey为"",则次判断应该不成立。userEndKey为""表示取得最大的region
+        if (endRowkeyByte.length != 0
+                && (Bytes.compareTo(endRowkeyByte, regionStartKey) <= 0)) {
+            return false;
+        }
+        return true;
+    }
+
+    static String getEndKey(byte[] endRowkeyByte, byte[] regionEndKey) {
         if (endRowkeyByte == null) {// 由于之前处理过，所以传入的userStartKey不可能为null
             throw new IllegalArgumentException("userEndKey should not be null!");
         }
@@ -389,7 +405,7 @@ public class Hbase11xHelper {
         return Bytes.toStringBinary(tempEndRowkeyByte);
     }
 
-    private static String getStartKey(byte[] startRowkeyByte, byte[] regionStarKey) {
+    static String getStartKey(byte[] startRowkeyByte, byte[] regionStarKey) {
         if (startRowkeyByte == null) {// 由于之前处理过，所以传入的userStartKey不可能为null
             throw new IllegalArgumentException(
                     "userStartKey should not be null!");
@@ -440,6 +456,10 @@ public class Hbase11xHelper {
 
         int scanBatchSize = originalConfig.getInt(Key.SCAN_BATCH_SIZE,Constant.DEFAULT_SCAN_BATCH_SIZE);
         originalConfig.set(Key.SCAN_BATCH_SIZE,scanBatchSize);
+
+        if (Hbase11xSnapshotHelper.isSnapshotMode(originalConfig)) {
+            Hbase11xSnapshotHelper.validateParameter(originalConfig);
+        }
     }
 
     private static String validateMode(com.alibaba.datax.common.util.Configuration  originalConfig) {
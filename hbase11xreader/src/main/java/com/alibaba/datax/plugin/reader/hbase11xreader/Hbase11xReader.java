@@ -18,22 +18,36 @@ import java.util.List;
 public class Hbase11xReader extends Reader {
     public static class Job extends Reader.Job {
         private Configuration originConfig = null;
+        private boolean snapshotMode = false;
 
         @Override
         public void init() {
             this.originConfig = this.getPluginJobConf();
             Hbase11xHelper.validateParameter(this.originConfig);
+            this.snapshotMode = Hbase11xSnapshotHelper.isSnapshotMode(this.originConfig);
+        }
+
+        @Override
+        public void prepare() {
+            if (this.snapshotMode) {
+                Hbase11xSnapshotHelper.prepare(this.originConfig);
+            }
         }
 
         @Override
         public List<Configuration> split(int adviceNumber) {
+            if (this.snapshotMode) {
+                return Hbase11xSnapshotHelper.split(this.originConfig);
+            }
             return Hbase11xHelper.split(this.originConfig);
         }
 
 
         @Override
         public void destroy() {
-
+            if (this.snapshotMode) {
+                Hbase11xSnapshotHelper.cleanup(this.originConfig);
+            }
         }
 
     }
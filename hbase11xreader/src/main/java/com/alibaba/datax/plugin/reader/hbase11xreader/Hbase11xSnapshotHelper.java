@@ -0,0 +1,232 @@
+package com.alibaba.datax.plugin.reader.hbase11xreader;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.client.ClientSideRegionScanner;
+import org.apache.hadoop.hbase.client.IsolationLevel;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.protobuf.generated.HBaseProtos.SnapshotDescription;
+import org.apache.hadoop.hbase.protobuf.generated.SnapshotProtos.SnapshotRegionManifest;
+import org.apache.hadoop.hbase.snapshot.RestoreSnapshotHelper;
+import org.apache.hadoop.hbase.snapshot.SnapshotDescriptionUtils;
+import org.apache.hadoop.hbase.snapshot.SnapshotManifest;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.FSUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 快照读取：类似 TableSnapshotInputFormat，Job 创建(或使用已有的)表快照并恢复到临时目录，
+ * 按快照中的 region 切分任务，每个 task 用 ClientSideRegionScanner 直接读取 HDFS 上该 region 的 HFile，
+ * 不经过 RegionServer，全表导出不影响线上读写。
+ * <p/>
+ * 要求 DataX 所在机器能访问 HBase 所在的 HDFS，hbaseConfig 中需要包含 hbase.rootdir 及 HDFS 的连接配置。
+ */
+public class Hbase11xSnapshotHelper {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Hbase11xSnapshotHelper.class);
+
+    public static boolean isSnapshotMode(Configuration configuration) {
+        return StringUtils.isNotBlank(configuration.getString(Key.SNAPSHOT_NAME))
+                || configuration.getBool(Key.CREATE_SNAPSHOT, false);
+    }
+
+    public static void validateParameter(Configuration originalConfig) {
+        originalConfig.getNecessaryValue(Key.SNAPSHOT_RESTORE_DIR, Hbase11xReaderErrorCode.REQUIRED_VALUE);
+        boolean createSnapshot = originalConfig.getBool(Key.CREATE_SNAPSHOT, false);
+        originalConfig.set(Key.CREATE_SNAPSHOT, createSnapshot);
+        if (createSnapshot && StringUtils.isBlank(originalConfig.getString(Key.SNAPSHOT_NAME))) {
+            // 表名可能带有 namespace，快照名中不能出现冒号
+            String table = originalConfig.getString(Key.TABLE).replace(':', '_');
+            originalConfig.set(Key.SNAPSHOT_NAME, "datax_" + table + "_" + System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 按需创建快照，并把快照恢复到 snapshotRestoreDir 下的一个临时目录(只创建指向 HFile 的引用，不拷贝数据)，
+     * 恢复出的目录回填到配置中供各个 task 使用
+     */
+    public static void prepare(Configuration configuration) {
+        String snapshotName = configuration.getString(Key.SNAPSHOT_NAME);
+        if (configuration.getBool(Key.CREATE_SNAPSHOT, false)) {
+            createSnapshot(configuration, snapshotName);
+        }
+        org.apache.hadoop.conf.Configuration hConfiguration =
+                Hbase11xHelper.getHbaseConfiguration(configuration.getString(Key.HBASE_CONFIG));
+        Path restoreDir = new Path(configuration.getString(Key.SNAPSHOT_RESTORE_DIR), UUID.randomUUID().toString());
+        try {
+            Path rootDir = FSUtils.getRootDir(hConfiguration);
+            FileSystem fs = rootDir.getFileSystem(hConfiguration);
+            RestoreSnapshotHelper.copySnapshotForScanner(hConfiguration, fs, rootDir, restoreDir, snapshotName);
+        } catch (Exception e) {
+            throw DataXException.asDataXException(Hbase11xReaderErrorCode.SNAPSHOT_ERROR,
+                    String.format("恢复快照[%s]到目录[%s]失败.", snapshotName, restoreDir), e);
+        }
+        configuration.set(Key.SNAPSHOT_RESTORE_PATH, restoreDir.toString());
+        LOG.info("restore snapshot [{}] to [{}].", snapshotName, restoreDir);
+    }
+
+    /**
+     * 按快照中的 region 切分，region 范围与用户配置的 rowkey 范围取交集
+     */
+    public static List<Configuration> split(Configuration configuration) {
+        byte[] startRowkeyByte = Hbase11xHelper.convertUserStartRowkey(configuration);
+        byte[] endRowkeyByte = Hbase11xHelper.convertUserEndRowkey(configuration);
+        if (startRowkeyByte.length != 0 && endRowkeyByte.length != 0
+                && Bytes.compareTo(startRowkeyByte, endRowkeyByte) > 0) {
+            throw DataXException.asDataXException(Hbase11xReaderErrorCode.ILLEGAL_VALUE, "Hbasereader 中 startRowkey 不得大于 endRowkey.");
+        }
+
+        List<HRegionInfo> regions;
+        try {
+            regions = openManifest(configuration).regions;
+        } catch (Exception e) {
+            throw DataXException.asDataXException(Hbase11xReaderErrorCode.SPLIT_ERROR, "切分源头 Hbase 快照失败.", e);
+        }
+
+        List<Configuration> configurations = new ArrayList<Configuration>();
+        for (HRegionInfo region : regions) {
+            if (!Hbase11xHelper.isRegionInRange(startRowkeyByte, endRowkeyByte, region.getStartKey(), region.getEndKey())) {
+                continue;
+            }
+            Configuration p = configuration.clone();
+            p.set(Key.START_ROWKEY, Hbase11xHelper.getStartKey(startRowkeyByte, region.getStartKey()));
+            p.set(Key.END_ROWKEY, Hbase11xHelper.getEndKey(endRowkeyByte, region.getEndKey()));
+            p.set(Key.SNAPSHOT_REGION, region.getEncodedName());
+            configurations.add(p);
+        }
+        LOG.info("HBaseReader split snapshot [{}] into {} tasks.", configuration.getString(Key.SNAPSHOT_NAME), configurations.size());
+        return configurations;
+    }
+
+    /**
+     * 打开 task 对应 region 的 scanner，直接读取恢复目录中引用的 HFile
+     */
+    public static ResultScanner getRegionScanner(Configuration configuration, Scan scan) {
+        String encodedName = configuration.getString(Key.SNAPSHOT_REGION);
+        try {
+            SnapshotRegions snapshotRegions = openManifest(configuration);
+            for (HRegionInfo region : snapshotRegions.regions) {
+                if (region.getEncodedName().equals(encodedName)) {
+                    Path restoreDir = new Path(configuration.getString(Key.SNAPSHOT_RESTORE_PATH));
+                    // 快照中的数据不会变化，不需要 mvcc 隔离
+                    scan.setIsolationLevel(IsolationLevel.READ_UNCOMMITTED);
+                    return new ClientSideRegionScanner(snapshotRegions.hConfiguration, snapshotRegions.fs,
+                            restoreDir, snapshotRegions.tableDescriptor, region, scan, null);
+                }
+            }
+        } catch (Exception e) {
+            throw DataXException.asDataXException(Hbase11xReaderErrorCode.SNAPSHOT_ERROR,
+                    String.format("打开快照 region[%s]失败.", encodedName), e);
+        }
+        throw DataXException.asDataXException(Hbase11xReaderErrorCode.SNAPSHOT_ERROR,
+                String.format("快照[%s]中不存在 region[%s].", configuration.getString(Key.SNAPSHOT_NAME), encodedName));
+    }
+
+    /**
+     * 删除恢复目录，以及由本任务创建的快照；失败只打印日志
+     */
+    public static void cleanup(Configuration configuration) {
+        String restorePath = configuration.getString(Key.SNAPSHOT_RESTORE_PATH);
+        if (StringUtils.isNotBlank(restorePath)) {
+            try {
+                org.apache.hadoop.conf.Configuration hConfiguration =
+                        Hbase11xHelper.getHbaseConfiguration(configuration.getString(Key.HBASE_CONFIG));
+                Path restoreDir = new Path(restorePath);
+                restoreDir.getFileSystem(hConfiguration).delete(restoreDir, true);
+            } catch (Exception e) {
+                LOG.warn(String.format("删除快照恢复目录[%s]失败, 请手动清理.", restorePath), e);
+            }
+        }
+        if (configuration.getBool(Key.CREATE_SNAPSHOT, false)) {
+            String snapshotName = configuration.getString(Key.SNAPSHOT_NAME);
+            org.apache.hadoop.hbase.client.Connection hConnection = null;
+            Admin admin = null;
+            try {
+                hConnection = Hbase11xHelper.getHbaseConnection(configuration.getString(Key.HBASE_CONFIG));
+                admin = hConnection.getAdmin();
+                admin.deleteSnapshot(snapshotName);
+                LOG.info("delete snapshot [{}].", snapshotName);
+            } catch (Exception e) {
+                LOG.warn(String.format("删除快照[%s]失败, 请手动清理.", snapshotName), e);
+            } finally {
+                Hbase11xHelper.closeAdmin(admin);
+                Hbase11xHelper.closeConnection(hConnection);
+            }
+        }
+    }
+
+    private static void createSnapshot(Configuration configuration, String snapshotName) {
+        TableName hTableName = TableName.valueOf(configuration.getString(Key.TABLE));
+        org.apache.hadoop.hbase.client.Connection hConnection = Hbase11xHelper.getHbaseConnection(configuration.getString(Key.HBASE_CONFIG));
+        Admin admin = null;
+        try {
+            admin = hConnection.getAdmin();
+            Hbase11xHelper.checkHbaseTable(admin, hTableName);
+            LOG.info("begin to create snapshot [{}] of table [{}].", snapshotName, hTableName);
+            admin.snapshot(snapshotName, hTableName);
+        } catch (DataXException e) {
+            throw e;
+        } catch (Exception e) {
+            throw DataXException.asDataXException(Hbase11xReaderErrorCode.SNAPSHOT_ERROR,
+                    String.format("创建表[%s]的快照[%s]失败.", hTableName, snapshotName), e);
+        } finally {
+            Hbase11xHelper.closeAdmin(admin);
+            Hbase11xHelper.closeConnection(hConnection);
+        }
+    }
+
+    private static SnapshotRegions openManifest(Configuration configuration) throws Exception {
+        SnapshotRegions snapshotRegions = new SnapshotRegions();
+        snapshotRegions.hConfiguration = Hbase11xHelper.getHbaseConfiguration(configuration.getString(Key.HBASE_CONFIG));
+        Path rootDir = FSUtils.getRootDir(snapshotRegions.hConfiguration);
+        snapshotRegions.fs = rootDir.getFileSystem(snapshotRegions.hConfiguration);
+
+        String snapshotName = configuration.getString(Key.SNAPSHOT_NAME);
+        Path snapshotDir = SnapshotDescriptionUtils.getCompletedSnapshotDir(snapshotName, rootDir);
+        SnapshotDescription snapshotDesc = SnapshotDescriptionUtils.readSnapshotInfo(snapshotRegions.fs, snapshotDir);
+        SnapshotManifest manifest = SnapshotManifest.open(snapshotRegions.hConfiguration, snapshotRegions.fs, snapshotDir, snapshotDesc);
+        snapshotRegions.tableDescriptor = manifest.getTableDescriptor();
+
+        snapshotRegions.regions = new ArrayList<HRegionInfo>();
+        List<SnapshotRegionManifest> regionManifests = manifest.getRegionManifests();
+        if (regionManifests != null) {
+            for (SnapshotRegionManifest regionManifest : regionManifests) {
+                HRegionInfo region = HRegionInfo.convert(regionManifest.getRegionInfo());
+                // 已经分裂的父 region 数据都在子 region 中，跳过
+                if (region.isOffline() && (region.isSplit() || region.isSplitParent())) {
+                    continue;
+                }
+                snapshotRegions.regions.add(region);
+            }
+        }
+        Collections.sort(snapshotRegions.regions, new Comparator<HRegionInfo>() {
+            @Override
+            public int compare(HRegionInfo o1, HRegionInfo o2) {
+                return Bytes.compareTo(o1.getStartKey(), o2.getStartKey());
+            }
+        });
+        return snapshotRegions;
+    }
+
+    private static class SnapshotRegions {
+        private org.apache.hadoop.conf.Configuration hConfiguration;
+        private FileSystem fs;
+        private HTableDescriptor tableDescriptor;
+        private List<HRegionInfo> regions;
+    }
+}
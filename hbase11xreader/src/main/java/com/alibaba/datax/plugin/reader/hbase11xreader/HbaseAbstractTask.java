@@ -21,6 +21,9 @@ public abstract class HbaseAbstractTask {
     private byte[] endKey = null;
 
     protected Table htable;
+    // 快照读取时不连接 RegionServer，htable 为 null
+    protected boolean snapshotMode;
+    private com.alibaba.datax.common.util.Configuration configuration;
     protected String encoding;
     protected int scanCacheSize;
     protected int  scanBatchSize;
@@ -32,7 +35,11 @@ public abstract class HbaseAbstractTask {
 
     public HbaseAbstractTask(com.alibaba.datax.common.util.Configuration configuration) {
 
-        this.htable = Hbase11xHelper.getTable(configuration);
+        this.configuration = configuration;
+        this.snapshotMode = Hbase11xSnapshotHelper.isSnapshotMode(configuration);
+        if (!this.snapshotMode) {
+            this.htable = Hbase11xHelper.getTable(configuration);
+        }
 
         this.encoding = configuration.getString(Key.ENCODING,Constant.DEFAULT_ENCODING);
         this.startKey = Hbase11xHelper.convertInnerStartRowkey(configuration);
@@ -61,7 +68,11 @@ public abstract class HbaseAbstractTask {
         this.scan.setCacheBlocks(false);
         initScan(this.scan);
 
-        this.resultScanner = this.htable.getScanner(this.scan);
+        if (this.snapshotMode) {
+            this.resultScanner = Hbase11xSnapshotHelper.getRegionScanner(this.configuration, this.scan);
+        } else {
+            this.resultScanner = this.htable.getScanner(this.scan);
+        }
     }
 
     public void close()  {
@@ -74,6 +85,10 @@ public abstract class HbaseAbstractTask {
         try {
             result = resultScanner.next();
         } catch (IOException e) {
+            // 快照读取是本地打开的 region，没有 RegionServer 迁移等可恢复的情况
+            if (this.snapshotMode) {
+                throw e;
+            }
             if (lastResult != null) {
                 this.scan.setStartRow(lastResult.getRow());
             }
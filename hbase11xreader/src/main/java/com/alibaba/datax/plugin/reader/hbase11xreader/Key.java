@@ -48,4 +48,26 @@ public final class Key {
 
     public final static String SCAN_BATCH_SIZE = "scanBatchSize";
 
+    /**
+     * 配置后从该快照读取：不经过 RegionServer，直接读取 HDFS 上的 HFile
+     */
+    public final static String SNAPSHOT_NAME = "snapshotName";
+
+    /**
+     * 为 true 时由任务自己创建快照(snapshotName 为空时自动生成名字)，任务结束后删除。默认 false
+     */
+    public final static String CREATE_SNAPSHOT = "createSnapshot";
+
+    /**
+     * 快照读取时恢复快照使用的临时目录，必须与 hbase.rootdir 在同一个文件系统上，且不能在 hbase.rootdir 之下
+     */
+    public final static String SNAPSHOT_RESTORE_DIR = "snapshotRestoreDir";
+
+    /**
+     * 内部使用：快照实际恢复到的目录，以及 task 读取的 region
+     */
+    public final static String SNAPSHOT_RESTORE_PATH = "snapshotRestorePath";
+
+    public final static String SNAPSHOT_REGION = "snapshotRegion";
+
 }
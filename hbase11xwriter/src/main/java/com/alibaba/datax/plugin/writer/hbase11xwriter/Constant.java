@@ -5,4 +5,5 @@ public final class Constant {
     public static final String DEFAULT_DATA_FORMAT = "yyyy-MM-dd HH:mm:ss";
     public static final String DEFAULT_NULL_MODE = "skip";
     public static final long DEFAULT_WRITE_BUFFER_SIZE = 8 * 1024 * 1024;
+    public static final long DEFAULT_SORT_BUFFER_SIZE = 64 * 1024 * 1024;
 }
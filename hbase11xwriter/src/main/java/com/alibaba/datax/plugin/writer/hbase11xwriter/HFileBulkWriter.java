@@ -0,0 +1,219 @@
+package com.alibaba.datax.plugin.writer.hbase11xwriter;
+
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeyValueUtil;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.io.hfile.HFileContext;
+import org.apache.hadoop.hbase.io.hfile.HFileContextBuilder;
+import org.apache.hadoop.hbase.regionserver.HStore;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * bulkLoad 模式下一个 task 的写入端：Put 拆成 KeyValue 交给 KeyValueSorter 外部排序，
+ * 全部读完后按顺序写 HFile，每个列族一个文件，rowkey 跨过 region 边界时换新文件，
+ * 保证每个 HFile 只落在一个 region 内，bulkload 时不需要再拆分。
+ * <p/>
+ * 参考 HFileOutputFormat2 的写法，HFile 的压缩、编码、布隆过滤器等与表的列族定义一致。
+ */
+public class HFileBulkWriter implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(HFileBulkWriter.class);
+
+    private final org.apache.hadoop.conf.Configuration hConfiguration;
+    private final FileSystem fs;
+    private final Path outputDir;
+    private final String taskId = UUID.randomUUID().toString();
+
+    private final Map<byte[], HColumnDescriptor> families = new TreeMap<byte[], HColumnDescriptor>(Bytes.BYTES_COMPARATOR);
+    // 按 region 起始 rowkey 升序，第一个为空数组
+    private final byte[][] startKeys;
+
+    private final KeyValueSorter sorter;
+    private final byte[] now = Bytes.toBytes(System.currentTimeMillis());
+
+    // 当前 region 内每个列族正在写的 HFile
+    private final Map<byte[], StoreFile.Writer> writers = new TreeMap<byte[], StoreFile.Writer>(Bytes.BYTES_COMPARATOR);
+
+    public HFileBulkWriter(Configuration configuration) {
+        String hbaseConfig = configuration.getString(Key.HBASE_CONFIG);
+        TableName hTableName = TableName.valueOf(configuration.getString(Key.TABLE));
+        this.hConfiguration = Hbase11xHelper.getHbaseConfiguration(hbaseConfig);
+
+        Connection hConnection = Hbase11xHelper.getHbaseConnection(hbaseConfig);
+        Admin admin = null;
+        RegionLocator regionLocator = null;
+        try {
+            admin = hConnection.getAdmin();
+            HTableDescriptor tableDescriptor = admin.getTableDescriptor(hTableName);
+            for (HColumnDescriptor family : tableDescriptor.getColumnFamilies()) {
+                this.families.put(family.getName(), family);
+            }
+            regionLocator = hConnection.getRegionLocator(hTableName);
+            byte[][] keys = regionLocator.getStartKeys();
+            Arrays.sort(keys, Bytes.BYTES_COMPARATOR);
+            this.startKeys = keys;
+
+            this.outputDir = new Path(configuration.getString(Key.BULK_LOAD_PATH));
+            this.fs = this.outputDir.getFileSystem(this.hConfiguration);
+        } catch (IOException e) {
+            throw DataXException.asDataXException(Hbase11xWriterErrorCode.GET_HBASE_TABLE_ERROR, e);
+        } finally {
+            if (regionLocator != null) {
+                try {
+                    regionLocator.close();
+                } catch (IOException e) {
+                    LOG.warn("close RegionLocator failed.", e);
+                }
+            }
+            Hbase11xHelper.closeAdmin(admin);
+            Hbase11xHelper.closeConnection(hConnection);
+        }
+
+        long sortBufferSize = configuration.getLong(Key.SORT_BUFFER_SIZE, Constant.DEFAULT_SORT_BUFFER_SIZE);
+        File spillDir = new File(configuration.getString(Key.SORT_SPILL_DIR, System.getProperty("java.io.tmpdir")));
+        this.sorter = new KeyValueSorter(sortBufferSize, spillDir);
+    }
+
+    /**
+     * 与 BufferedMutator.mutate 一致，空 Put 抛出 IllegalArgumentException("No columns to insert")，
+     * 列族不存在时同样抛出 IllegalArgumentException，由调用方作为脏数据处理
+     */
+    public void add(Put put) throws IOException {
+        if (put.isEmpty()) {
+            throw new IllegalArgumentException("No columns to insert");
+        }
+        for (byte[] family : put.getFamilyCellMap().keySet()) {
+            if (!this.families.containsKey(family)) {
+                throw new IllegalArgumentException(String.format("列族[%s]在表中不存在", Bytes.toString(family)));
+            }
+        }
+        for (List<Cell> cells : put.getFamilyCellMap().values()) {
+            for (Cell cell : cells) {
+                KeyValue kv = KeyValueUtil.ensureKeyValue(cell);
+                // 未指定版本时使用 task 启动时间，与 HFileOutputFormat2 一致
+                kv.updateLatestStamp(this.now);
+                this.sorter.add(kv);
+            }
+        }
+    }
+
+    /**
+     * 归并排序结果，按 region 切分写出 HFile
+     */
+    public void flush() throws IOException {
+        long count = 0;
+        byte[] regionEnd = null;
+        boolean regionLocated = false;
+        Iterator<KeyValue> iterator = this.sorter.sorted();
+        while (iterator.hasNext()) {
+            KeyValue kv = iterator.next();
+            if (!regionLocated || (regionEnd != null && Bytes.compareTo(
+                    kv.getRowArray(), kv.getRowOffset(), kv.getRowLength(), regionEnd, 0, regionEnd.length) >= 0)) {
+                closeWriters();
+                regionEnd = getRegionEnd(kv);
+                regionLocated = true;
+            }
+            getWriter(kv.getFamily()).append(kv);
+            count++;
+        }
+        closeWriters();
+        LOG.info("task {} wrote {} KeyValues to HFiles under [{}].", this.taskId, count, this.outputDir);
+    }
+
+    @Override
+    public void close() {
+        this.sorter.close();
+        // 正常结束时 writers 已经为空，这里只处理出错时剩下的文件，未完成的 HFile 由 job destroy 时随目录一起删除
+        for (StoreFile.Writer writer : this.writers.values()) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                LOG.warn("close HFile writer failed.", e);
+            }
+        }
+        this.writers.clear();
+    }
+
+    /**
+     * 返回 kv 所在 region 的结束 rowkey，最后一个 region 返回 null
+     */
+    private byte[] getRegionEnd(KeyValue kv) {
+        int low = 0;
+        int high = this.startKeys.length - 1;
+        // 找最后一个 startKey <= row
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            byte[] startKey = this.startKeys[mid];
+            if (Bytes.compareTo(startKey, 0, startKey.length,
+                    kv.getRowArray(), kv.getRowOffset(), kv.getRowLength()) <= 0) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low + 1 < this.startKeys.length ? this.startKeys[low + 1] : null;
+    }
+
+    private StoreFile.Writer getWriter(byte[] family) throws IOException {
+        StoreFile.Writer writer = this.writers.get(family);
+        if (writer != null) {
+            return writer;
+        }
+        HColumnDescriptor familyDescriptor = this.families.get(family);
+        HFileContext fileContext = new HFileContextBuilder()
+                .withCompression(familyDescriptor.getCompressionType())
+                .withChecksumType(HStore.getChecksumType(this.hConfiguration))
+                .withBytesPerCheckSum(HStore.getBytesPerChecksum(this.hConfiguration))
+                .withBlockSize(familyDescriptor.getBlocksize())
+                .withDataBlockEncoding(familyDescriptor.getDataBlockEncoding())
+                .build();
+        // 写 HFile 不需要 block cache
+        org.apache.hadoop.conf.Configuration noCacheConf = new org.apache.hadoop.conf.Configuration(this.hConfiguration);
+        noCacheConf.setFloat(HConstants.HFILE_BLOCK_CACHE_SIZE_KEY, 0.0f);
+        writer = new StoreFile.WriterBuilder(this.hConfiguration, new CacheConfig(noCacheConf), this.fs)
+                .withOutputDir(new Path(this.outputDir, Bytes.toString(family)))
+                .withBloomType(familyDescriptor.getBloomFilterType())
+                .withComparator(KeyValue.COMPARATOR)
+                .withFileContext(fileContext)
+                .build();
+        this.writers.put(family, writer);
+        return writer;
+    }
+
+    private void closeWriters() throws IOException {
+        for (StoreFile.Writer writer : this.writers.values()) {
+            writer.appendFileInfo(StoreFile.BULKLOAD_TIME_KEY, Bytes.toBytes(System.currentTimeMillis()));
+            writer.appendFileInfo(StoreFile.BULKLOAD_TASK_KEY, Bytes.toBytes(this.taskId));
+            writer.appendFileInfo(StoreFile.MAJOR_COMPACTION_KEY, Bytes.toBytes(true));
+            writer.appendFileInfo(StoreFile.EXCLUDE_FROM_MINOR_COMPACTION_KEY, Bytes.toBytes(false));
+            writer.appendTrackedTimestampsToMetadata();
+            writer.close();
+        }
+        this.writers.clear();
+    }
+}
@@ -6,9 +6,12 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.TypeReference;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.*;
+import org.apache.hadoop.hbase.mapreduce.LoadIncrementalHFiles;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,6 +19,7 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 
 public class Hbase11xHelper {
@@ -145,6 +149,94 @@ public class Hbase11xHelper {
         }
     }
 
+    public static boolean isBulkLoad(com.alibaba.datax.common.util.Configuration configuration) {
+        return configuration.getBool(Key.BULK_LOAD, false);
+    }
+
+    /**
+     * 在 bulkLoadDir 下为本次任务生成一个独立的子目录，各 task 的 HFile 都写到这个目录下
+     */
+    public static void prepareBulkLoad(com.alibaba.datax.common.util.Configuration configuration) {
+        String hbaseConfig = configuration.getString(Key.HBASE_CONFIG);
+        String userTable = configuration.getString(Key.TABLE);
+        Path bulkLoadPath = new Path(configuration.getString(Key.BULK_LOAD_DIR),
+                String.format("datax_%s_%s", userTable.replace(':', '_'), UUID.randomUUID().toString()));
+        try {
+            FileSystem fs = bulkLoadPath.getFileSystem(Hbase11xHelper.getHbaseConfiguration(hbaseConfig));
+            if (!fs.mkdirs(bulkLoadPath)) {
+                throw DataXException.asDataXException(Hbase11xWriterErrorCode.WRITE_HFILE_ERROR,
+                        String.format("创建 HFile 目录[%s]失败", bulkLoadPath));
+            }
+        } catch (IOException e) {
+            throw DataXException.asDataXException(Hbase11xWriterErrorCode.WRITE_HFILE_ERROR, e);
+        }
+        LOG.info(String.format("bulkLoad 模式, HFile 输出目录为 [%s].", bulkLoadPath));
+        configuration.set(Key.BULK_LOAD_PATH, bulkLoadPath.toString());
+    }
+
+    /**
+     * 将所有 task 生成的 HFile 导入表中
+     */
+    public static void bulkLoad(com.alibaba.datax.common.util.Configuration configuration) {
+        String hbaseConfig = configuration.getString(Key.HBASE_CONFIG);
+        TableName hTableName = TableName.valueOf(configuration.getString(Key.TABLE));
+        Path bulkLoadPath = new Path(configuration.getString(Key.BULK_LOAD_PATH));
+        org.apache.hadoop.conf.Configuration hConfiguration = Hbase11xHelper.getHbaseConfiguration(hbaseConfig);
+        org.apache.hadoop.hbase.client.Connection hConnection = null;
+        org.apache.hadoop.hbase.client.Admin admin = null;
+        org.apache.hadoop.hbase.client.Table hTable = null;
+        RegionLocator regionLocator = null;
+        try {
+            FileSystem fs = bulkLoadPath.getFileSystem(hConfiguration);
+            if (!fs.exists(bulkLoadPath) || fs.listStatus(bulkLoadPath).length == 0) {
+                LOG.info(String.format("目录[%s]下没有 HFile, 跳过 bulkload.", bulkLoadPath));
+                return;
+            }
+            LOG.info(String.format("begin to bulkload HFiles under [%s] into table %s .", bulkLoadPath, hTableName));
+            hConnection = ConnectionFactory.createConnection(hConfiguration);
+            admin = hConnection.getAdmin();
+            Hbase11xHelper.checkHbaseTable(admin, hTableName);
+            hTable = hConnection.getTable(hTableName);
+            regionLocator = hConnection.getRegionLocator(hTableName);
+            new LoadIncrementalHFiles(hConfiguration).doBulkLoad(bulkLoadPath, admin, hTable, regionLocator);
+            LOG.info("bulkload finished.");
+        } catch (DataXException e) {
+            throw e;
+        } catch (Exception e) {
+            throw DataXException.asDataXException(Hbase11xWriterErrorCode.BULK_LOAD_ERROR, e);
+        } finally {
+            if (regionLocator != null) {
+                try {
+                    regionLocator.close();
+                } catch (IOException e) {
+                    LOG.warn("close RegionLocator failed.", e);
+                }
+            }
+            Hbase11xHelper.closeTable(hTable);
+            Hbase11xHelper.closeAdmin(admin);
+            Hbase11xHelper.closeConnection(hConnection);
+        }
+    }
+
+    /**
+     * 删除本次任务的 HFile 目录，bulkload 成功后该目录下只剩空的列族目录
+     */
+    public static void cleanupBulkLoad(com.alibaba.datax.common.util.Configuration configuration) {
+        String bulkLoadPath = configuration.getString(Key.BULK_LOAD_PATH);
+        if (StringUtils.isBlank(bulkLoadPath)) {
+            return;
+        }
+        Path path = new Path(bulkLoadPath);
+        try {
+            FileSystem fs = path.getFileSystem(Hbase11xHelper.getHbaseConfiguration(configuration.getString(Key.HBASE_CONFIG)));
+            if (fs.exists(path)) {
+                fs.delete(path, true);
+            }
+        } catch (Exception e) {
+            LOG.warn(String.format("删除 HFile 目录[%s]失败, 请手动清理.", bulkLoadPath), e);
+        }
+    }
+
     public static void closeConnection(Connection hConnection){
         try {
             if(null != hConnection)
@@ -214,6 +306,16 @@ public class Hbase11xHelper {
         originalConfig.set(Key.WAL_FLAG, walFlag);
         long writeBufferSize = originalConfig.getLong(Key.WRITE_BUFFER_SIZE,Constant.DEFAULT_WRITE_BUFFER_SIZE);
         originalConfig.set(Key.WRITE_BUFFER_SIZE, writeBufferSize);
+
+        if (Hbase11xHelper.isBulkLoad(originalConfig)) {
+            originalConfig.getNecessaryValue(Key.BULK_LOAD_DIR, Hbase11xWriterErrorCode.REQUIRED_VALUE);
+            long sortBufferSize = originalConfig.getLong(Key.SORT_BUFFER_SIZE, Constant.DEFAULT_SORT_BUFFER_SIZE);
+            if (sortBufferSize <= 0) {
+                throw DataXException.asDataXException(Hbase11xWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("您配置的 sortBufferSize [%s] 不正确, 必须大于0.", sortBufferSize));
+            }
+            originalConfig.set(Key.SORT_BUFFER_SIZE, sortBufferSize);
+        }
     }
 
 
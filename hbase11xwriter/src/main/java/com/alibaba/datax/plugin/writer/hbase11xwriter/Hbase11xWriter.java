@@ -28,6 +28,9 @@ public class Hbase11xWriter extends Writer {
             if(truncate){
                 Hbase11xHelper.truncateTable(this.originConfig);
             }
+            if(Hbase11xHelper.isBulkLoad(this.originConfig)){
+                Hbase11xHelper.prepareBulkLoad(this.originConfig);
+            }
         }
         @Override
         public List<Configuration> split(int mandatoryNumber) {
@@ -39,8 +42,17 @@ public class Hbase11xWriter extends Writer {
         }
 
         @Override
-        public void destroy() {
+        public void post() {
+            if(Hbase11xHelper.isBulkLoad(this.originConfig)){
+                Hbase11xHelper.bulkLoad(this.originConfig);
+            }
+        }
 
+        @Override
+        public void destroy() {
+            if(Hbase11xHelper.isBulkLoad(this.originConfig)){
+                Hbase11xHelper.cleanupBulkLoad(this.originConfig);
+            }
         }
     }
     public static class Task extends Writer.Task {
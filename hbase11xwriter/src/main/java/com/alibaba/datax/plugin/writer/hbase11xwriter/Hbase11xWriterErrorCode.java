@@ -21,6 +21,8 @@ public enum Hbase11xWriterErrorCode implements ErrorCode {
     CONSTRUCT_VERSION_ERROR("Hbasewriter-11", "构建version时发生异常."),
     GET_HBASE_BUFFEREDMUTATOR_ERROR("Hbasewriter-12", "获取hbase BufferedMutator 时出错."),
     CLOSE_HBASE_BUFFEREDMUTATOR_ERROR("Hbasewriter-13", "关闭 Hbase BufferedMutator时出错."),
+    WRITE_HFILE_ERROR("Hbasewriter-14", "生成 HFile 时出错."),
+    BULK_LOAD_ERROR("Hbasewriter-15", "bulkload HFile 时出错."),
     ;
     private final String code;
     private final String description;
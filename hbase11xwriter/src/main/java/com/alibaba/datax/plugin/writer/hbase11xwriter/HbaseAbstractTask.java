@@ -31,11 +31,16 @@ public abstract class HbaseAbstractTask {
     public String encoding;
     public Boolean walFlag;
     public BufferedMutator bufferedMutator;
+    public HFileBulkWriter bulkWriter;
 
 
     public HbaseAbstractTask(com.alibaba.datax.common.util.Configuration configuration) {
         //this.htable = Hbase11xHelper.getTable(configuration);
-        this.bufferedMutator = Hbase11xHelper.getBufferedMutator(configuration);
+        if (Hbase11xHelper.isBulkLoad(configuration)) {
+            this.bulkWriter = new HFileBulkWriter(configuration);
+        } else {
+            this.bufferedMutator = Hbase11xHelper.getBufferedMutator(configuration);
+        }
         this.columns = configuration.getListConfiguration(Key.COLUMN);
         this.rowkeyColumn = configuration.getListConfiguration(Key.ROWKEY_COLUMN);
         this.versionColumn = configuration.getConfiguration(Key.VERSION_COLUMN);
@@ -57,7 +62,11 @@ public abstract class HbaseAbstractTask {
                 }
                 try {
                     //this.htable.put(put);
-                    this.bufferedMutator.mutate(put);
+                    if (this.bulkWriter != null) {
+                        this.bulkWriter.add(put);
+                    } else {
+                        this.bufferedMutator.mutate(put);
+                    }
                 } catch (IllegalArgumentException e) {
                     if(e.getMessage().equals("No columns to insert") && nullMode.equals(NullModeType.Skip)){
                         LOG.info(String.format("record is empty, 您配置nullMode为[skip],将会忽略这条记录,record[%s]", record.toString()));
@@ -68,11 +77,21 @@ public abstract class HbaseAbstractTask {
                     }
                 }
             }
+            if (this.bulkWriter != null) {
+                try {
+                    this.bulkWriter.flush();
+                } catch (IOException e) {
+                    throw DataXException.asDataXException(Hbase11xWriterErrorCode.WRITE_HFILE_ERROR, e);
+                }
+            }
         }catch (IOException e){
             throw DataXException.asDataXException(Hbase11xWriterErrorCode.PUT_HBASE_ERROR,e);
         }finally {
             //Hbase11xHelper.closeTable(this.htable);
             Hbase11xHelper.closeBufferedMutator(this.bufferedMutator);
+            if (this.bulkWriter != null) {
+                this.bulkWriter.close();
+            }
         }
     }
 
@@ -82,6 +101,9 @@ public abstract class HbaseAbstractTask {
     public void close()  {
         //Hbase11xHelper.closeTable(this);
         Hbase11xHelper.closeBufferedMutator(this.bufferedMutator);
+        if (this.bulkWriter != null) {
+            this.bulkWriter.close();
+        }
     }
 
 
@@ -50,4 +50,29 @@ public final class Key {
 
     public static  final String WRITE_BUFFER_SIZE = "writeBufferSize";
 
+    /**
+     * 为 true 时不通过 Put 写入，而是每个 task 按 rowkey 排序后生成 HFile，job post 时统一 bulkload，默认 false
+     */
+    public static  final String BULK_LOAD = "bulkLoad";
+
+    /**
+     * bulkLoad 模式下存放 HFile 的目录，需要与 hbase 在同一个 HDFS 上
+     */
+    public static  final String BULK_LOAD_DIR = "bulkLoadDir";
+
+    /**
+     * bulkLoad 模式下每个 task 排序时内存中缓存的数据量(字节)，超过后排序写到本地临时文件
+     */
+    public static  final String SORT_BUFFER_SIZE = "sortBufferSize";
+
+    /**
+     * bulkLoad 模式下排序临时文件的本地目录，默认为 java.io.tmpdir
+     */
+    public static  final String SORT_SPILL_DIR = "sortSpillDir";
+
+    /**
+     * 内部使用：本次任务 HFile 的实际输出目录(bulkLoadDir 下的子目录)
+     */
+    public static  final String BULK_LOAD_PATH = "bulkLoadPath";
+
 }
@@ -0,0 +1,253 @@
+package com.alibaba.datax.plugin.writer.hbase11xwriter;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * bulkLoad 模式下按 KeyValue 顺序排序：内存中攒到 sortBufferSize 后排序写到本地临时文件，
+ * 最后对所有临时文件和内存中剩余的数据做多路归并。
+ * <p/>
+ * 与 Put 写入的语义一致，同一个 rowkey/列/版本 写入多次时只保留最后一次。
+ */
+public class KeyValueSorter implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(KeyValueSorter.class);
+
+    // 相同 key 时后写入的排在前面，归并时保留第一个
+    private static final Comparator<Entry> ENTRY_COMPARATOR = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry o1, Entry o2) {
+            int c = KeyValue.COMPARATOR.compare(o1.kv, o2.kv);
+            if (c != 0) {
+                return c;
+            }
+            return o1.seq < o2.seq ? 1 : (o1.seq == o2.seq ? 0 : -1);
+        }
+    };
+
+    private final long bufferSize;
+    private final File spillDir;
+
+    private List<Entry> buffer = new ArrayList<Entry>();
+    private long bufferedBytes = 0;
+    private long seq = 0;
+
+    private final List<File> spillFiles = new ArrayList<File>();
+    private final List<SpillRun> openRuns = new ArrayList<SpillRun>();
+
+    public KeyValueSorter(long bufferSize, File spillDir) {
+        this.bufferSize = bufferSize;
+        this.spillDir = spillDir;
+    }
+
+    public void add(KeyValue kv) throws IOException {
+        this.buffer.add(new Entry(kv, this.seq++));
+        this.bufferedBytes += kv.heapSize();
+        if (this.bufferedBytes >= this.bufferSize) {
+            spill();
+        }
+    }
+
+    /**
+     * 返回全部数据排序、去重后的迭代器，只能调用一次
+     */
+    public Iterator<KeyValue> sorted() throws IOException {
+        Collections.sort(this.buffer, ENTRY_COMPARATOR);
+        List<Iterator<Entry>> runs = new ArrayList<Iterator<Entry>>();
+        for (File spillFile : this.spillFiles) {
+            SpillRun run = new SpillRun(spillFile);
+            this.openRuns.add(run);
+            runs.add(run);
+        }
+        runs.add(this.buffer.iterator());
+        if (!this.spillFiles.isEmpty()) {
+            LOG.info("merge {} spill files and {} in-memory KeyValues.", this.spillFiles.size(), this.buffer.size());
+        }
+        return new MergeIterator(runs);
+    }
+
+    @Override
+    public void close() {
+        for (SpillRun run : this.openRuns) {
+            run.close();
+        }
+        this.openRuns.clear();
+        for (File spillFile : this.spillFiles) {
+            if (!spillFile.delete()) {
+                LOG.warn("delete spill file [{}] failed.", spillFile);
+            }
+        }
+        this.spillFiles.clear();
+        this.buffer = new ArrayList<Entry>();
+    }
+
+    private void spill() throws IOException {
+        Collections.sort(this.buffer, ENTRY_COMPARATOR);
+        File spillFile = File.createTempFile("datax-hbase-sort-", ".spill", this.spillDir);
+        this.spillFiles.add(spillFile);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile), 1 << 16));
+        try {
+            for (Entry entry : this.buffer) {
+                out.writeLong(entry.seq);
+                out.writeInt(entry.kv.getLength());
+                out.write(entry.kv.getBuffer(), entry.kv.getOffset(), entry.kv.getLength());
+            }
+        } finally {
+            out.close();
+        }
+        LOG.info("spill {} KeyValues ({} bytes in memory) to [{}].", this.buffer.size(), this.bufferedBytes, spillFile);
+        this.buffer = new ArrayList<Entry>();
+        this.bufferedBytes = 0;
+    }
+
+    private static class Entry {
+        private final KeyValue kv;
+        private final long seq;
+
+        Entry(KeyValue kv, long seq) {
+            this.kv = kv;
+            this.seq = seq;
+        }
+    }
+
+    private static class SpillRun implements Iterator<Entry> {
+        private final DataInputStream in;
+        private Entry next;
+
+        SpillRun(File file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+            this.next = read();
+        }
+
+        private Entry read() throws IOException {
+            long seq;
+            try {
+                seq = this.in.readLong();
+            } catch (EOFException e) {
+                return null;
+            }
+            byte[] bytes = new byte[this.in.readInt()];
+            this.in.readFully(bytes);
+            return new Entry(new KeyValue(bytes, 0, bytes.length), seq);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public Entry next() {
+            Entry current = this.next;
+            try {
+                this.next = read();
+            } catch (IOException e) {
+                throw new IllegalStateException("read spill file failed.", e);
+            }
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        void close() {
+            try {
+                this.in.close();
+            } catch (IOException e) {
+                LOG.warn("close spill file failed.", e);
+            }
+        }
+    }
+
+    private static class MergeIterator implements Iterator<KeyValue> {
+        private final PriorityQueue<Head> heads;
+        private KeyValue next;
+
+        MergeIterator(List<Iterator<Entry>> runs) {
+            this.heads = new PriorityQueue<Head>(Math.max(1, runs.size()), new Comparator<Head>() {
+                @Override
+                public int compare(Head o1, Head o2) {
+                    return ENTRY_COMPARATOR.compare(o1.entry, o2.entry);
+                }
+            });
+            for (Iterator<Entry> run : runs) {
+                if (run.hasNext()) {
+                    this.heads.add(new Head(run.next(), run));
+                }
+            }
+            this.next = poll();
+        }
+
+        private Entry pollEntry() {
+            Head head = this.heads.poll();
+            if (head == null) {
+                return null;
+            }
+            Entry entry = head.entry;
+            if (head.run.hasNext()) {
+                head.entry = head.run.next();
+                this.heads.add(head);
+            }
+            return entry;
+        }
+
+        private KeyValue poll() {
+            Entry entry = pollEntry();
+            if (entry == null) {
+                return null;
+            }
+            // 跳过被覆盖的旧值
+            while (!this.heads.isEmpty()
+                    && KeyValue.COMPARATOR.compare(this.heads.peek().entry.kv, entry.kv) == 0) {
+                pollEntry();
+            }
+            return entry.kv;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public KeyValue next() {
+            KeyValue current = this.next;
+            this.next = poll();
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class Head {
+        private Entry entry;
+        private final Iterator<Entry> run;
+
+        Head(Entry entry, Iterator<Entry> run) {
+            this.entry = entry;
+            this.run = run;
+        }
+    }
+}
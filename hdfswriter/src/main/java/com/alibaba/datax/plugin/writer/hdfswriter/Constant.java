@@ -4,4 +4,6 @@ public class Constant {
 
 	public static final String DEFAULT_ENCODING = "UTF-8";
 	public static final String DEFAULT_NULL_FORMAT = "\\N";
+	// 分区列值为null或空串时的分区名, 同hive
+	public static final String DEFAULT_PARTITION_NAME = "__HIVE_DEFAULT_PARTITION__";
 }
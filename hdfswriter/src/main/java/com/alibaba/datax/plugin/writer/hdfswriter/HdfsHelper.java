@@ -15,12 +15,9 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.tuple.MutablePair;
 import org.apache.hadoop.fs.*;
-import org.apache.hadoop.hive.ql.io.orc.OrcOutputFormat;
 import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
-import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
-import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.mapred.*;
@@ -32,7 +29,6 @@ import parquet.schema.PrimitiveType;
 import parquet.schema.Types;
 
 import java.io.IOException;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 public  class HdfsHelper {
@@ -42,6 +38,8 @@ public  class HdfsHelper {
     public org.apache.hadoop.conf.Configuration hadoopConf = null;
     public static final String HADOOP_SECURITY_AUTHENTICATION_KEY = "hadoop.security.authentication";
     public static final String HDFS_DEFAULTFS_KEY = "fs.defaultFS";
+    // truncate模式提交分区时，目标分区中的旧文件先移到临时目录下的该目录，提交成功后随临时目录一起删除
+    public static final String TRUNCATED_BACKUP_DIR = ".truncated";
 
     // Kerberos
     private Boolean haveKerberos = false;
@@ -252,6 +250,123 @@ public  class HdfsHelper {
         }
     }
 
+    /**
+     * 动态分区模式下在Job的post阶段提交所有分区：
+     * 1. 先检查所有目标分区，nonConflict模式下任一分区已有同前缀文件则在移动任何文件之前报错
+     * 2. truncate模式下把目标分区中同前缀的旧文件移到临时目录下的备份目录，而不是直接删除
+     * 3. 目标分区目录不存在时整个目录一次rename，已存在时逐个移动文件
+     * 全部移动成功后才删除临时目录(连同备份的旧文件)；任一步失败则按相反顺序撤回已做的移动，
+     * 恢复旧文件并保留临时目录，避免目标目录只提交了一部分分区
+     */
+    public void commitPartitions(String tmpDir, String endDir, String fileNamePrefix, String writeMode){
+        Path tmpPath = new Path(tmpDir);
+        List<Path[]> moved = new ArrayList<Path[]>();
+        try {
+            if (!fileSystem.exists(tmpPath)) {
+                LOG.info(String.format("临时目录[%s]不存在, 没有需要提交的分区.", tmpDir));
+                return;
+            }
+            String tmpRoot = tmpPath.toUri().getPath();
+            Map<String, Path> partitions = new TreeMap<String, Path>();
+            RemoteIterator<LocatedFileStatus> files = fileSystem.listFiles(tmpPath, true);
+            while (files.hasNext()) {
+                Path partitionDir = files.next().getPath().getParent();
+                String partition = StringUtils.removeStart(
+                        partitionDir.toUri().getPath().substring(tmpRoot.length()), Path.SEPARATOR);
+                partitions.put(partition, partitionDir);
+            }
+
+            Map<String, Path> targets = new LinkedHashMap<String, Path>();
+            for (String partition : partitions.keySet()) {
+                Path target = new Path(endDir, partition);
+                targets.put(partition, target);
+                if (fileSystem.exists(target) && hdfsDirList(target.toString(), fileNamePrefix).length > 0
+                        && "nonconflict".equalsIgnoreCase(writeMode)) {
+                    throw DataXException.asDataXException(HdfsWriterErrorCode.ILLEGAL_VALUE,
+                            String.format("由于您配置了writeMode nonConflict,但分区目录[%s]下已存在以[%s]开头的文件.",
+                                    target, fileNamePrefix));
+                }
+            }
+
+            if ("truncate".equalsIgnoreCase(writeMode)) {
+                Path backupRoot = new Path(tmpPath, TRUNCATED_BACKUP_DIR);
+                for (Map.Entry<String, Path> entry : targets.entrySet()) {
+                    if (!fileSystem.exists(entry.getValue())) {
+                        continue;
+                    }
+                    Path backupDir = new Path(backupRoot, entry.getKey());
+                    fileSystem.mkdirs(backupDir);
+                    for (Path oldFile : hdfsDirList(entry.getValue().toString(), fileNamePrefix)) {
+                        movePath(oldFile, new Path(backupDir, oldFile.getName()), moved);
+                    }
+                }
+            }
+
+            for (Map.Entry<String, Path> entry : partitions.entrySet()) {
+                Path target = targets.get(entry.getKey());
+                if (fileSystem.exists(target)) {
+                    for (FileStatus file : fileSystem.listStatus(entry.getValue())) {
+                        if (file.getLen() > 0) {
+                            movePath(file.getPath(), new Path(target, file.getPath().getName()), moved);
+                        }
+                    }
+                } else {
+                    fileSystem.mkdirs(target.getParent());
+                    movePath(entry.getValue(), target, moved);
+                }
+                LOG.info(String.format("finish commit partition [%s].", entry.getKey()));
+            }
+        } catch (Exception e) {
+            rollbackPartitions(moved, tmpDir);
+            if (e instanceof DataXException) {
+                throw (DataXException) e;
+            }
+            String message = String.format("提交分区时发生异常,请检查您的网络是否正常！");
+            LOG.error(message);
+            throw DataXException.asDataXException(HdfsWriterErrorCode.HDFS_RENAME_FILE_ERROR, e);
+        }
+        deleteDir(tmpPath);
+    }
+
+    /**
+     * 按相反顺序撤回已完成的移动：先把已提交的文件移回临时目录，再把truncate备份的旧文件移回目标分区。
+     * 某一步撤回失败时继续撤回其余文件，临时目录保留以便人工处理
+     */
+    private void rollbackPartitions(List<Path[]> moved, String tmpDir) {
+        if (moved.isEmpty()) {
+            return;
+        }
+        int failed = 0;
+        for (int i = moved.size() - 1; i >= 0; i--) {
+            Path src = moved.get(i)[0];
+            Path dst = moved.get(i)[1];
+            try {
+                if (!fileSystem.rename(dst, src)) {
+                    failed++;
+                    LOG.error(String.format("回滚时将[%s]移回[%s]失败.", dst, src));
+                }
+            } catch (Exception e) {
+                failed++;
+                LOG.error(String.format("回滚时将[%s]移回[%s]失败.", dst, src), e);
+            }
+        }
+        if (failed > 0) {
+            LOG.error(String.format("提交分区失败, 有[%s]个文件未能回滚, 请根据临时目录[%s]人工恢复.", failed, tmpDir));
+        } else {
+            LOG.warn(String.format("提交分区失败, 已回滚[%s]个文件, 保留临时目录[%s].", moved.size(), tmpDir));
+        }
+    }
+
+    private void movePath(Path src, Path dst, List<Path[]> moved) throws IOException {
+        LOG.info(String.format("start rename [%s] to [%s].", src, dst));
+        if (!fileSystem.rename(src, dst)) {
+            String message = String.format("重命名文件[%s]失败,请检查您的网络是否正常！", src);
+            LOG.error(message);
+            throw DataXException.asDataXException(HdfsWriterErrorCode.HDFS_RENAME_FILE_ERROR, message);
+        }
+        moved.add(new Path[]{src, dst});
+    }
+
     //关闭FileSystem
     public void closeFileSystem(){
         try {
@@ -288,34 +403,29 @@ public  class HdfsHelper {
      */
     public void textFileStartWrite(RecordReceiver lineReceiver, Configuration config, String fileName,
                                    TaskPluginCollector taskPluginCollector){
-        char fieldDelimiter = config.getChar(Key.FIELD_DELIMITER);
-        List<Configuration>  columns = config.getListConfiguration(Key.COLUMN);
-        String compress = config.getString(Key.COMPRESS,null);
-
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMddHHmm");
-        String attempt = "attempt_"+dateFormat.format(new Date())+"_0001_m_000000_0";
-        Path outputPath = new Path(fileName);
-        //todo 需要进一步确定TASK_ATTEMPT_ID
-        conf.set(JobContext.TASK_ATTEMPT_ID, attempt);
-        FileOutputFormat outFormat = new TextOutputFormat();
-        outFormat.setOutputPath(conf, outputPath);
-        outFormat.setWorkOutputPath(conf, outputPath);
-        if(null != compress) {
-            Class<? extends CompressionCodec> codecClass = getCompressCodec(compress);
-            if (null != codecClass) {
-                outFormat.setOutputCompressorClass(conf, codecClass);
+        startWrite(lineReceiver, config, fileName, taskPluginCollector, new PartitionedFileWriter.WriterFactory() {
+            @Override
+            public HdfsRecordWriter create(Configuration dataConfig) {
+                return new TextFileWriter(HdfsHelper.this, dataConfig);
             }
-        }
+        });
+    }
+
+    /**
+     * 按配置选择写入方式：开启动态分区时按分区路由，否则写单个文件，两者都支持按大小/记录数滚动文件
+     */
+    private void startWrite(RecordReceiver lineReceiver, Configuration config, String fileName,
+                            TaskPluginCollector taskPluginCollector, PartitionedFileWriter.WriterFactory writerFactory){
+        HdfsRecordWriter writer = PartitionedFileWriter.isEnabled(config)
+                ? new PartitionedFileWriter(config, writerFactory)
+                : new RollingFileWriter(writerFactory.create(config), config, 0);
         try {
-            RecordWriter writer = outFormat.getRecordWriter(fileSystem, conf, outputPath.toString(), Reporter.NULL);
+            writer.open(fileName);
             Record record = null;
             while ((record = lineReceiver.getFromReader()) != null) {
-                MutablePair<Text, Boolean> transportResult = transportOneRecord(record, fieldDelimiter, columns, taskPluginCollector);
-                if (!transportResult.getRight()) {
-                    writer.write(NullWritable.get(),transportResult.getLeft());
-                }
+                writer.write(record, taskPluginCollector);
             }
-            writer.close(Reporter.NULL);
+            writer.close();
         } catch (Exception e) {
             String message = String.format("写文件文件[%s]时发生IO异常,请检查您的网络是否正常！", fileName);
             LOG.error(message);
@@ -339,6 +449,22 @@ public  class HdfsHelper {
         return transportResult;
     }
 
+    /**
+     * 与StringUtils.join(fields, fieldDelimiter)结果一致，null输出为空串
+     */
+    static void joinFields(StringBuilder line, List<Object> fields, char fieldDelimiter) {
+        line.setLength(0);
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                line.append(fieldDelimiter);
+            }
+            Object field = fields.get(i);
+            if (null != field) {
+                line.append(field);
+            }
+        }
+    }
+
     public Class<? extends CompressionCodec>  getCompressCodec(String compress){
         Class<? extends CompressionCodec> codecClass = null;
         if(null == compress){
@@ -368,39 +494,29 @@ public  class HdfsHelper {
      */
     public void orcFileStartWrite(RecordReceiver lineReceiver, Configuration config, String fileName,
                                   TaskPluginCollector taskPluginCollector){
-        List<Configuration>  columns = config.getListConfiguration(Key.COLUMN);
-        String compress = config.getString(Key.COMPRESS, null);
-        List<String> columnNames = getColumnNames(columns);
-        List<ObjectInspector> columnTypeInspectors = getColumnTypeInspectors(columns);
-        StructObjectInspector inspector = (StructObjectInspector)ObjectInspectorFactory
-                .getStandardStructObjectInspector(columnNames, columnTypeInspectors);
-
-        OrcSerde orcSerde = new OrcSerde();
-
-        FileOutputFormat outFormat = new OrcOutputFormat();
-        if(!"NONE".equalsIgnoreCase(compress) && null != compress ) {
-            Class<? extends CompressionCodec> codecClass = getCompressCodec(compress);
-            if (null != codecClass) {
-                outFormat.setOutputCompressorClass(conf, codecClass);
+        startWrite(lineReceiver, config, fileName, taskPluginCollector, new PartitionedFileWriter.WriterFactory() {
+            @Override
+            public HdfsRecordWriter create(Configuration dataConfig) {
+                return new OrcFileWriter(fileSystem, conf, dataConfig);
             }
-        }
-        try {
-            RecordWriter writer = outFormat.getRecordWriter(fileSystem, conf, fileName, Reporter.NULL);
-            Record record = null;
-            while ((record = lineReceiver.getFromReader()) != null) {
-                MutablePair<List<Object>, Boolean> transportResult =  transportOneRecord(record,columns,taskPluginCollector);
-                if (!transportResult.getRight()) {
-                    writer.write(NullWritable.get(), orcSerde.serialize(transportResult.getLeft(), inspector));
-                }
+        });
+    }
+
+    /**
+     * 写parquet类型文件，schema由Job端的 unitizeParquetConfig 生成
+     * @param lineReceiver
+     * @param config
+     * @param fileName
+     * @param taskPluginCollector
+     */
+    public void parquetFileStartWrite(RecordReceiver lineReceiver, Configuration config, String fileName,
+                                      TaskPluginCollector taskPluginCollector){
+        startWrite(lineReceiver, config, fileName, taskPluginCollector, new PartitionedFileWriter.WriterFactory() {
+            @Override
+            public HdfsRecordWriter create(Configuration dataConfig) {
+                return new ParquetFileWriter(conf, dataConfig);
             }
-            writer.close(Reporter.NULL);
-        } catch (Exception e) {
-            String message = String.format("写文件文件[%s]时发生IO异常,请检查您的网络是否正常！", fileName);
-            LOG.error(message);
-            Path path = new Path(fileName);
-            deleteDir(path.getParent());
-            throw DataXException.asDataXException(HdfsWriterErrorCode.Write_FILE_IO_ERROR, e);
-        }
+        });
     }
 
     public List<String> getColumnNames(List<Configuration> columns){
@@ -0,0 +1,24 @@
+package com.alibaba.datax.plugin.writer.hdfswriter;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.plugin.TaskPluginCollector;
+
+import java.io.IOException;
+
+/**
+ * 按文件类型把Record写入hdfs文件，同一时刻只打开一个文件，非线程安全
+ */
+public interface HdfsRecordWriter {
+
+    /**
+     * 打开新文件，之前打开的文件需先close
+     */
+    void open(String fileName) throws IOException;
+
+    /**
+     * @return 写入的字节数（列式文件为估算值），转换失败时作为脏数据收集并返回-1
+     */
+    long write(Record record, TaskPluginCollector taskPluginCollector) throws IOException;
+
+    void close() throws IOException;
+}
@@ -5,6 +5,7 @@ import com.alibaba.datax.common.plugin.RecordReceiver;
 import com.alibaba.datax.common.spi.Writer;
 import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.plugin.unstructuredstorage.writer.Constant;
+import com.alibaba.datax.plugin.unstructuredstorage.writer.FileRollingPolicy;
 import com.google.common.collect.Sets;
 import org.apache.commons.io.Charsets;
 import org.apache.commons.io.IOUtils;
@@ -33,8 +34,11 @@ public class HdfsWriter extends Writer {
         private String fieldDelimiter;
         private String compress;
         private String encoding;
-        private HashSet<String> tmpFiles = new HashSet<String>();//临时文件全路径
-        private HashSet<String> endFiles = new HashSet<String>();//最终文件全路径
+        //renameFile按迭代顺序一一对应临时文件和最终文件，需保持插入顺序
+        private HashSet<String> tmpFiles = new LinkedHashSet<String>();//临时文件全路径
+        private HashSet<String> endFiles = new LinkedHashSet<String>();//最终文件全路径
+        private String tmpStorePath;
+        private String endStorePath;
 
         private HdfsHelper hdfsHelper = null;
 
@@ -53,8 +57,9 @@ public class HdfsWriter extends Writer {
             this.defaultFS = this.writerSliceConfig.getNecessaryValue(Key.DEFAULT_FS, HdfsWriterErrorCode.REQUIRED_VALUE);
             //fileType check
             this.fileType = this.writerSliceConfig.getNecessaryValue(Key.FILE_TYPE, HdfsWriterErrorCode.REQUIRED_VALUE);
-            if( !fileType.equalsIgnoreCase("ORC") && !fileType.equalsIgnoreCase("TEXT")){
-                String message = "HdfsWriter插件目前只支持ORC和TEXT两种格式的文件,请将filetype选项的值配置为ORC或者TEXT";
+            if( !fileType.equalsIgnoreCase("ORC") && !fileType.equalsIgnoreCase("TEXT")
+                    && !fileType.equalsIgnoreCase("PARQUET")){
+                String message = "HdfsWriter插件目前只支持ORC、TEXT和PARQUET三种格式的文件,请将filetype选项的值配置为ORC、TEXT或者PARQUET";
                 throw DataXException.asDataXException(HdfsWriterErrorCode.ILLEGAL_VALUE, message);
             }
             //path
@@ -80,6 +85,24 @@ public class HdfsWriter extends Writer {
                     eachColumnConf.getNecessaryValue(Key.TYPE, HdfsWriterErrorCode.COLUMN_REQUIRED_VALUE);
                 }
             }
+            //partitionColumn check
+            if (PartitionedFileWriter.isEnabled(this.writerSliceConfig)) {
+                List<String> partitionColumns = this.writerSliceConfig.getList(Key.PARTITION_COLUMN, String.class);
+                Set<String> columnNames = new HashSet<String>();
+                for (Configuration eachColumnConf : columns) {
+                    columnNames.add(eachColumnConf.getString(Key.NAME).toLowerCase());
+                }
+                for (String partitionColumn : partitionColumns) {
+                    if (!columnNames.contains(partitionColumn.toLowerCase())) {
+                        throw DataXException.asDataXException(HdfsWriterErrorCode.ILLEGAL_VALUE,
+                                String.format("您配置的分区列[%s]不在column中.", partitionColumn));
+                    }
+                }
+                if (PartitionedFileWriter.getDataColumns(this.writerSliceConfig).isEmpty()) {
+                    throw DataXException.asDataXException(HdfsWriterErrorCode.ILLEGAL_VALUE,
+                            "column中除分区列外至少需要一列.");
+                }
+            }
             //writeMode check
             this.writeMode = this.writerSliceConfig.getNecessaryValue(Key.WRITE_MODE, HdfsWriterErrorCode.REQUIRED_VALUE);
             writeMode = writeMode.toLowerCase().trim();
@@ -128,6 +151,19 @@ public class HdfsWriter extends Writer {
                     }
                 }
 
+            }else if(fileType.equalsIgnoreCase("PARQUET")){
+                Set<String> parquetSupportedCompress = Sets.newHashSet("NONE", "SNAPPY", "GZIP");
+                if(StringUtils.isBlank(compress)){
+                    this.writerSliceConfig.set(Key.COMPRESS, "NONE");
+                }else {
+                    compress = compress.toUpperCase().trim();
+                    if(!parquetSupportedCompress.contains(compress)){
+                        throw DataXException.asDataXException(HdfsWriterErrorCode.ILLEGAL_VALUE,
+                                String.format("目前PARQUET FILE仅支持SNAPPY、GZIP压缩, 不支持您配置的 compress 模式 : [%s]",
+                                        compress));
+                    }
+                }
+                unitizeParquetConfig(this.writerSliceConfig);
             }
             //Kerberos check
             Boolean haveKerberos = this.writerSliceConfig.getBool(Key.HAVE_KERBEROS, false);
@@ -193,9 +229,36 @@ public class HdfsWriter extends Writer {
 
         @Override
         public void post() {
+            if (PartitionedFileWriter.isEnabled(this.writerSliceConfig)) {
+                hdfsHelper.commitPartitions(this.tmpStorePath, this.endStorePath, this.fileName, this.writeMode);
+                return;
+            }
+            if (FileRollingPolicy.isEnabled(this.writerSliceConfig)) {
+                addRollingFiles();
+            }
             hdfsHelper.renameFile(tmpFiles, endFiles);
         }
 
+        /**
+         * 开启文件滚动时，task在临时目录下额外生成的 fileName_N 文件也需要移动到最终目录
+         */
+        private void addRollingFiles() {
+            if (null == this.tmpStorePath || !hdfsHelper.isPathexists(this.tmpStorePath)) {
+                return;
+            }
+            Set<String> splitFileNames = new HashSet<String>();
+            for (String tmpFile : this.tmpFiles) {
+                splitFileNames.add(new Path(tmpFile).getName());
+            }
+            for (String tmpFile : hdfsHelper.hdfsDirList(this.tmpStorePath)) {
+                String rollingFileName = new Path(tmpFile).getName();
+                if (!splitFileNames.contains(rollingFileName)) {
+                    this.tmpFiles.add(tmpFile);
+                    this.endFiles.add(String.format("%s%s%s", defaultFS, this.endStorePath, rollingFileName));
+                }
+            }
+        }
+
         @Override
         public void destroy() {
             hdfsHelper.closeFileSystem();
@@ -220,6 +283,8 @@ public class HdfsWriter extends Writer {
             //最终存放路径
             String endStorePath = buildFilePath();
             this.path = endStorePath;
+            this.tmpStorePath = storePath;
+            this.endStorePath = endStorePath;
             for (int i = 0; i < mandatoryNumber; i++) {
                 // handle same file name
 
@@ -239,11 +304,12 @@ public class HdfsWriter extends Writer {
                 }
                 allFiles.add(endFullFileName);
 
-                //设置临时文件全路径和最终文件全路径
-                if("GZIP".equalsIgnoreCase(this.compress)){
+                //设置临时文件全路径和最终文件全路径, 只有TEXT文件的压缩会带上后缀
+                boolean isText = "TEXT".equalsIgnoreCase(this.fileType);
+                if(isText && "GZIP".equalsIgnoreCase(this.compress)){
                     this.tmpFiles.add(fullFileName + ".gz");
                     this.endFiles.add(endFullFileName + ".gz");
-                }else if("BZIP2".equalsIgnoreCase(compress)){
+                }else if(isText && "BZIP2".equalsIgnoreCase(compress)){
                     this.tmpFiles.add(fullFileName + ".bz2");
                     this.endFiles.add(endFullFileName + ".bz2");
                 }else{
@@ -332,7 +398,8 @@ public class HdfsWriter extends Writer {
                 return;
             }
 
-            List<Configuration> columns = writerSliceConfig.getListConfiguration(Key.COLUMN);
+            // 分区列不写入文件, 不出现在schema中
+            List<Configuration> columns = PartitionedFileWriter.getDataColumns(writerSliceConfig);
             if (columns == null || columns.isEmpty()) {
                 throw DataXException.asDataXException("parquetSchema or column can't be blank!");
             }
@@ -415,6 +482,10 @@ public class HdfsWriter extends Writer {
                 //写ORC FILE
                 hdfsHelper.orcFileStartWrite(lineReceiver,this.writerSliceConfig, this.fileName,
                         this.getTaskPluginCollector());
+            }else if(fileType.equalsIgnoreCase("PARQUET")){
+                //写PARQUET FILE
+                hdfsHelper.parquetFileStartWrite(lineReceiver,this.writerSliceConfig, this.fileName,
+                        this.getTaskPluginCollector());
             }
 
             LOG.info("end do write");
@@ -46,4 +46,21 @@ public class Key {
 
     public static final String PARQUET_SCHEMA = "parquetSchema";
     public static final String PARQUET_MERGE_RESULT = "parquetMergeResult";
+
+    // orc写入参数, 不配置时使用hive的默认值
+    public static final String ORC_STRIPE_SIZE = "orcStripeSize";
+    public static final String ORC_ROW_INDEX_STRIDE = "orcRowIndexStride";
+    public static final String ORC_BUFFER_SIZE = "orcBufferSize";
+    public static final String ORC_DICTIONARY_KEY_THRESHOLD = "orcDictionaryKeyThreshold";
+
+    // 动态分区, 配置分区列名列表, 分区列需在column中且不写入文件
+    public static final String PARTITION_COLUMN = "partitionColumn";
+    // 每个task同时打开的分区文件数上限, 默认16
+    public static final String MAX_OPEN_PARTITION_WRITERS = "maxOpenPartitionWriters";
+
+    // parquet写入参数, 默认row group 128M, page 1M, 开启字典编码
+    public static final String PARQUET_BLOCK_SIZE = "parquetBlockSize";
+    public static final String PARQUET_PAGE_SIZE = "parquetPageSize";
+    public static final String PARQUET_DICTIONARY_PAGE_SIZE = "parquetDictionaryPageSize";
+    public static final String PARQUET_ENABLE_DICTIONARY = "parquetEnableDictionary";
 }
@@ -0,0 +1,86 @@
+package com.alibaba.datax.plugin.writer.hdfswriter;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.plugin.TaskPluginCollector;
+import com.alibaba.datax.common.util.Configuration;
+import org.apache.hadoop.fs.Path;
+import parquet.column.ParquetProperties;
+import parquet.hadoop.ParquetWriter;
+import parquet.hadoop.metadata.CompressionCodecName;
+import parquet.schema.MessageTypeParser;
+
+import java.io.IOException;
+
+/**
+ * 写parquet类型文件，schema由Job端的 unitizeParquetConfig 生成
+ */
+public class ParquetFileWriter implements HdfsRecordWriter {
+    private final org.apache.hadoop.conf.Configuration conf;
+
+    private final ParquetRecordWriteSupport writeSupport;
+
+    private final CompressionCodecName codecName;
+
+    private final int blockSize;
+
+    private final int pageSize;
+
+    private final int dictionaryPageSize;
+
+    private final boolean enableDictionary;
+
+    private ParquetWriter<Record> writer;
+
+    public ParquetFileWriter(org.apache.hadoop.conf.Configuration conf, Configuration config) {
+        this.conf = conf;
+        this.writeSupport = new ParquetRecordWriteSupport(
+                MessageTypeParser.parseMessageType(config.getString(Key.PARQUET_SCHEMA)));
+        this.codecName = getCompressCodec(config.getString(Key.COMPRESS, null));
+        this.blockSize = config.getInt(Key.PARQUET_BLOCK_SIZE, ParquetWriter.DEFAULT_BLOCK_SIZE);
+        this.pageSize = config.getInt(Key.PARQUET_PAGE_SIZE, ParquetWriter.DEFAULT_PAGE_SIZE);
+        this.dictionaryPageSize = config.getInt(Key.PARQUET_DICTIONARY_PAGE_SIZE, this.pageSize);
+        this.enableDictionary = config.getBool(Key.PARQUET_ENABLE_DICTIONARY,
+                ParquetWriter.DEFAULT_IS_DICTIONARY_ENABLED);
+    }
+
+    private static CompressionCodecName getCompressCodec(String compress) {
+        if (null == compress || "NONE".equalsIgnoreCase(compress)) {
+            return CompressionCodecName.UNCOMPRESSED;
+        } else if ("SNAPPY".equalsIgnoreCase(compress)) {
+            return CompressionCodecName.SNAPPY;
+        } else if ("GZIP".equalsIgnoreCase(compress)) {
+            return CompressionCodecName.GZIP;
+        }
+        throw DataXException.asDataXException(HdfsWriterErrorCode.ILLEGAL_VALUE,
+                String.format("目前不支持您配置的 compress 模式 : [%s]", compress));
+    }
+
+    @Override
+    public void open(String fileName) throws IOException {
+        this.writer = new ParquetWriter<Record>(new Path(fileName), this.writeSupport, this.codecName,
+                this.blockSize, this.pageSize, this.dictionaryPageSize, this.enableDictionary, false,
+                ParquetProperties.WriterVersion.PARQUET_1_0, this.conf);
+    }
+
+    @Override
+    public long write(Record record, TaskPluginCollector taskPluginCollector) throws IOException {
+        try {
+            this.writeSupport.prepare(record);
+        } catch (Exception e) {
+            // warn: 此处认为脏数据
+            taskPluginCollector.collectDirtyRecord(record, e);
+            return -1;
+        }
+        this.writer.write(record);
+        return record.getByteSize();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (null != this.writer) {
+            this.writer.close();
+            this.writer = null;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.alibaba.datax.plugin.writer.hdfswriter;
+
+import com.alibaba.datax.common.element.BytesColumn;
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.DataXException;
+import org.apache.hadoop.hive.ql.io.parquet.timestamp.NanoTimeUtils;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import parquet.hadoop.api.WriteSupport;
+import parquet.io.api.Binary;
+import parquet.io.api.RecordConsumer;
+import parquet.schema.DecimalMetadata;
+import parquet.schema.MessageType;
+import parquet.schema.OriginalType;
+import parquet.schema.PrimitiveType;
+import parquet.schema.Type;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.util.HashMap;
+
+/**
+ * 把Record按parquetSchema直接写给parquet的列写入器，不经过中间对象模型。
+ * <p/>
+ * 只支持扁平的schema，schema的第i个字段对应record的第i列。
+ * 写入分两步：prepare 先把整条记录转换到按列复用的数组中，转换失败即为脏数据，此时还没有写出任何字段；
+ * write 再把转换结果交给RecordConsumer，保证不会写出半条记录
+ */
+public class ParquetRecordWriteSupport extends WriteSupport<Record> {
+    private final MessageType schema;
+
+    private final PrimitiveType[] fieldTypes;
+
+    private final String[] fieldNames;
+
+    private final boolean[] nulls;
+
+    private final long[] longValues;
+
+    private final double[] doubleValues;
+
+    private final Binary[] binaryValues;
+
+    private final java.sql.Date date = new java.sql.Date(0);
+
+    private RecordConsumer recordConsumer;
+
+    private Record preparedRecord;
+
+    public ParquetRecordWriteSupport(MessageType schema) {
+        this.schema = schema;
+        int fieldNumber = schema.getFieldCount();
+        this.fieldTypes = new PrimitiveType[fieldNumber];
+        this.fieldNames = new String[fieldNumber];
+        for (int i = 0; i < fieldNumber; i++) {
+            Type field = schema.getType(i);
+            if (!field.isPrimitive() || field.isRepetition(Type.Repetition.REPEATED)) {
+                throw DataXException.asDataXException(HdfsWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("parquetSchema仅支持非重复的基本类型字段, 不支持您配置的字段:[%s]", field));
+            }
+            this.fieldTypes[i] = field.asPrimitiveType();
+            this.fieldNames[i] = field.getName();
+        }
+        this.nulls = new boolean[fieldNumber];
+        this.longValues = new long[fieldNumber];
+        this.doubleValues = new double[fieldNumber];
+        this.binaryValues = new Binary[fieldNumber];
+    }
+
+    @Override
+    public WriteContext init(org.apache.hadoop.conf.Configuration configuration) {
+        return new WriteContext(this.schema, new HashMap<String, String>());
+    }
+
+    @Override
+    public void prepareForWrite(RecordConsumer recordConsumer) {
+        this.recordConsumer = recordConsumer;
+    }
+
+    /**
+     * 转换一条记录，抛出异常表示脏数据
+     */
+    public void prepare(Record record) {
+        this.preparedRecord = null;
+        if (record.getColumnNumber() != this.fieldTypes.length) {
+            throw new IllegalArgumentException(String.format("记录的字段个数[%s]与parquetSchema的字段个数[%s]不一致.",
+                    record.getColumnNumber(), this.fieldTypes.length));
+        }
+        for (int i = 0; i < this.fieldTypes.length; i++) {
+            Column column = record.getColumn(i);
+            this.nulls[i] = null == column.getRawData();
+            if (this.nulls[i]) {
+                if (this.fieldTypes[i].isRepetition(Type.Repetition.REQUIRED)) {
+                    throw new IllegalArgumentException(String.format("字段[%s]不允许为null.", this.fieldNames[i]));
+                }
+                continue;
+            }
+            convert(i, column);
+        }
+        this.preparedRecord = record;
+    }
+
+    private void convert(int index, Column column) {
+        PrimitiveType type = this.fieldTypes[index];
+        OriginalType originalType = type.getOriginalType();
+        switch (type.getPrimitiveTypeName()) {
+            case INT32:
+                if (OriginalType.DATE == originalType) {
+                    this.date.setTime(column.asDate().getTime());
+                    this.longValues[index] = DateWritable.dateToDays(this.date);
+                } else {
+                    long value = column.asLong();
+                    if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                        throw new NumberFormatException(String.format("Value out of range. Value:\"%s\"", value));
+                    }
+                    this.longValues[index] = value;
+                }
+                break;
+            case INT64:
+                this.longValues[index] = OriginalType.TIMESTAMP_MILLIS == originalType
+                        ? column.asDate().getTime() : column.asLong();
+                break;
+            case BOOLEAN:
+                this.longValues[index] = column.asBoolean() ? 1 : 0;
+                break;
+            case FLOAT:
+            case DOUBLE:
+                this.doubleValues[index] = column.asDouble();
+                break;
+            case BINARY:
+                if (OriginalType.UTF8 != originalType && column instanceof BytesColumn) {
+                    this.binaryValues[index] = Binary.fromByteArray(column.asBytes());
+                } else {
+                    this.binaryValues[index] = Binary.fromString(column.asString());
+                }
+                break;
+            case INT96:
+                // hive约定的INT96 timestamp
+                this.binaryValues[index] = NanoTimeUtils.getNanoTime(
+                        new Timestamp(column.asDate().getTime())).toBinary();
+                break;
+            case FIXED_LEN_BYTE_ARRAY:
+                if (OriginalType.DECIMAL == originalType) {
+                    this.binaryValues[index] = Binary.fromByteArray(
+                            toFixedLengthDecimal(column.asBigDecimal(), type));
+                } else {
+                    byte[] bytes = column.asBytes();
+                    if (bytes.length != type.getTypeLength()) {
+                        throw new IllegalArgumentException(String.format("字段[%s]的长度必须为[%s].",
+                                this.fieldNames[index], type.getTypeLength()));
+                    }
+                    this.binaryValues[index] = Binary.fromByteArray(bytes);
+                }
+                break;
+            default:
+                throw DataXException.asDataXException(HdfsWriterErrorCode.ILLEGAL_VALUE,
+                        String.format("不支持的parquet字段类型:[%s]", type));
+        }
+    }
+
+    private static byte[] toFixedLengthDecimal(BigDecimal value, PrimitiveType type) {
+        DecimalMetadata decimalMetadata = type.getDecimalMetadata();
+        BigDecimal scaled = value.setScale(decimalMetadata.getScale(), RoundingMode.HALF_UP);
+        if (scaled.precision() > decimalMetadata.getPrecision()) {
+            throw new NumberFormatException(String.format("Value out of precision. Value:\"%s\"", value));
+        }
+        byte[] unscaled = scaled.unscaledValue().toByteArray();
+        int length = type.getTypeLength();
+        if (unscaled.length > length) {
+            throw new NumberFormatException(String.format("Value out of range. Value:\"%s\"", value));
+        }
+        // 按符号位补齐到固定长度
+        byte[] fixed = new byte[length];
+        byte padding = (byte) (scaled.signum() < 0 ? 0xFF : 0x00);
+        int offset = length - unscaled.length;
+        for (int i = 0; i < offset; i++) {
+            fixed[i] = padding;
+        }
+        System.arraycopy(unscaled, 0, fixed, offset, unscaled.length);
+        return fixed;
+    }
+
+    @Override
+    public void write(Record record) {
+        if (record != this.preparedRecord) {
+            prepare(record);
+        }
+        this.preparedRecord = null;
+
+        RecordConsumer consumer = this.recordConsumer;
+        consumer.startMessage();
+        for (int i = 0; i < this.fieldTypes.length; i++) {
+            if (this.nulls[i]) {
+                continue;
+            }
+            consumer.startField(this.fieldNames[i], i);
+            switch (this.fieldTypes[i].getPrimitiveTypeName()) {
+                case INT32:
+                    consumer.addInteger((int) this.longValues[i]);
+                    break;
+                case INT64:
+                    consumer.addLong(this.longValues[i]);
+                    break;
+                case BOOLEAN:
+                    consumer.addBoolean(this.longValues[i] == 1);
+                    break;
+                case FLOAT:
+                    consumer.addFloat((float) this.doubleValues[i]);
+                    break;
+                case DOUBLE:
+                    consumer.addDouble(this.doubleValues[i]);
+                    break;
+                default:
+                    consumer.addBinary(this.binaryValues[i]);
+                    break;
+            }
+            consumer.endField(this.fieldNames[i], i);
+        }
+        consumer.endMessage();
+    }
+}
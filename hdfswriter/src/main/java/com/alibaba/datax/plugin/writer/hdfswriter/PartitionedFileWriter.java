@@ -0,0 +1,314 @@
+package com.alibaba.datax.plugin.writer.hdfswriter;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.DateColumn;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.plugin.TaskPluginCollector;
+import com.alibaba.datax.common.util.Configuration;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.common.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 动态分区写入：按partitionColumn配置的列值把记录路由到 dt=xxx/hour=xxx 形式的子目录，
+ * 分区列本身不写入文件（同hive分区表）。
+ * <p/>
+ * 每个分区一个writer，最多同时打开maxOpenPartitionWriters个，超出时关闭最久未写入的分区；
+ * 被关闭的分区再次出现时接着写一个新的滚动文件（fileName_N），不会覆盖已写的文件
+ */
+public class PartitionedFileWriter implements HdfsRecordWriter {
+    private static final Logger LOG = LoggerFactory.getLogger(PartitionedFileWriter.class);
+
+    public static final int DEFAULT_MAX_OPEN_PARTITION_WRITERS = 16;
+
+    /**
+     * 为每个分区创建写入单个文件的writer
+     */
+    public interface WriterFactory {
+        HdfsRecordWriter create(Configuration dataConfig);
+    }
+
+    private final WriterFactory writerFactory;
+
+    private final Configuration dataConfig;
+
+    private final String[] partitionNames;
+
+    private final int[] partitionIndexes;
+
+    private final SimpleDateFormat[] partitionDateFormats;
+
+    private final int[] dataIndexes;
+
+    private final int maxOpenWriters;
+
+    // 按访问顺序排列，第一个即最久未写入的分区
+    private final LinkedHashMap<String, RollingFileWriter> openWriters =
+            new LinkedHashMap<String, RollingFileWriter>(16, 0.75f, true);
+
+    private final Map<String, Integer> nextRollingNumbers = new HashMap<String, Integer>();
+
+    private final ProjectedRecord projectedRecord;
+
+    private final SourceRecordCollector sourceRecordCollector = new SourceRecordCollector();
+
+    private final StringBuilder partitionPath = new StringBuilder();
+
+    private String parentPath;
+
+    private String baseName;
+
+    public PartitionedFileWriter(Configuration config, WriterFactory writerFactory) {
+        this.writerFactory = writerFactory;
+        List<Configuration> columns = config.getListConfiguration(Key.COLUMN);
+        List<String> partitionColumns = config.getList(Key.PARTITION_COLUMN, String.class);
+
+        this.partitionNames = new String[partitionColumns.size()];
+        this.partitionIndexes = new int[partitionColumns.size()];
+        this.partitionDateFormats = new SimpleDateFormat[partitionColumns.size()];
+        for (int i = 0; i < partitionColumns.size(); i++) {
+            this.partitionNames[i] = partitionColumns.get(i);
+            this.partitionIndexes[i] = indexOfColumn(columns, this.partitionNames[i]);
+            String dateFormat = columns.get(this.partitionIndexes[i]).getString(Key.DATE_FORMAT);
+            if (StringUtils.isNotBlank(dateFormat)) {
+                this.partitionDateFormats[i] = new SimpleDateFormat(dateFormat);
+            }
+        }
+
+        List<Configuration> dataColumns = getDataColumns(config);
+        this.dataIndexes = new int[dataColumns.size()];
+        for (int i = 0; i < dataColumns.size(); i++) {
+            this.dataIndexes[i] = indexOfColumn(columns, dataColumns.get(i).getString(Key.NAME));
+        }
+        this.dataConfig = config.clone();
+        this.dataConfig.set(Key.COLUMN, dataColumns);
+        this.projectedRecord = new ProjectedRecord(this.dataIndexes);
+        this.maxOpenWriters = Math.max(1, config.getInt(Key.MAX_OPEN_PARTITION_WRITERS,
+                DEFAULT_MAX_OPEN_PARTITION_WRITERS));
+    }
+
+    public static boolean isEnabled(Configuration config) {
+        List<String> partitionColumns = config.getList(Key.PARTITION_COLUMN, String.class);
+        return null != partitionColumns && !partitionColumns.isEmpty();
+    }
+
+    /**
+     * @return 去掉分区列后实际写入文件的列，未配置分区时即为全部列
+     */
+    public static List<Configuration> getDataColumns(Configuration config) {
+        List<Configuration> columns = config.getListConfiguration(Key.COLUMN);
+        if (!isEnabled(config)) {
+            return columns;
+        }
+        Set<String> partitionColumns = new HashSet<String>();
+        for (String partitionColumn : config.getList(Key.PARTITION_COLUMN, String.class)) {
+            partitionColumns.add(partitionColumn.toLowerCase());
+        }
+        List<Configuration> dataColumns = new ArrayList<Configuration>();
+        for (Configuration column : columns) {
+            if (!partitionColumns.contains(column.getString(Key.NAME).toLowerCase())) {
+                dataColumns.add(column);
+            }
+        }
+        return dataColumns;
+    }
+
+    private static int indexOfColumn(List<Configuration> columns, String name) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getString(Key.NAME).equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        throw DataXException.asDataXException(HdfsWriterErrorCode.ILLEGAL_VALUE,
+                String.format("您配置的分区列[%s]不在column中.", name));
+    }
+
+    /**
+     * @param fileName 未分区时的文件全路径，分区文件写到其所在目录下的分区子目录中，文件名不变
+     */
+    @Override
+    public void open(String fileName) throws IOException {
+        Path path = new Path(fileName);
+        this.parentPath = path.getParent().toString();
+        this.baseName = path.getName();
+    }
+
+    @Override
+    public long write(Record record, TaskPluginCollector taskPluginCollector) throws IOException {
+        String partition;
+        try {
+            partition = buildPartitionPath(record);
+        } catch (Exception e) {
+            // warn: 分区值转换失败认为脏数据
+            taskPluginCollector.collectDirtyRecord(record, e);
+            return -1;
+        }
+
+        RollingFileWriter writer = this.openWriters.get(partition);
+        if (null == writer) {
+            writer = openPartitionWriter(partition);
+        }
+        this.projectedRecord.setRecord(record);
+        this.sourceRecordCollector.set(taskPluginCollector, record);
+        return writer.write(this.projectedRecord, this.sourceRecordCollector);
+    }
+
+    private String buildPartitionPath(Record record) {
+        this.partitionPath.setLength(0);
+        for (int i = 0; i < this.partitionIndexes.length; i++) {
+            Column column = record.getColumn(this.partitionIndexes[i]);
+            String value;
+            if (null == column.getRawData()) {
+                value = null;
+            } else if (null != this.partitionDateFormats[i] && column instanceof DateColumn) {
+                value = this.partitionDateFormats[i].format(column.asDate());
+            } else {
+                value = column.asString();
+            }
+            if (i > 0) {
+                this.partitionPath.append(Path.SEPARATOR);
+            }
+            this.partitionPath.append(this.partitionNames[i]).append('=')
+                    .append(FileUtils.escapePathName(value, Constant.DEFAULT_PARTITION_NAME));
+        }
+        return this.partitionPath.toString();
+    }
+
+    private RollingFileWriter openPartitionWriter(String partition) throws IOException {
+        if (this.openWriters.size() >= this.maxOpenWriters) {
+            Iterator<Map.Entry<String, RollingFileWriter>> eldest = this.openWriters.entrySet().iterator();
+            Map.Entry<String, RollingFileWriter> entry = eldest.next();
+            LOG.info("close writer of partition [{}], reach maxOpenPartitionWriters [{}].",
+                    entry.getKey(), this.maxOpenWriters);
+            entry.getValue().close();
+            this.nextRollingNumbers.put(entry.getKey(), entry.getValue().getNextRollingNumber());
+            eldest.remove();
+        }
+
+        Integer rollingNumber = this.nextRollingNumbers.get(partition);
+        RollingFileWriter writer = new RollingFileWriter(this.writerFactory.create(this.dataConfig),
+                this.dataConfig, null == rollingNumber ? 0 : rollingNumber);
+        writer.open(String.format("%s%s%s%s%s", this.parentPath, Path.SEPARATOR, partition,
+                Path.SEPARATOR, this.baseName));
+        this.openWriters.put(partition, writer);
+        return writer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException firstException = null;
+        for (RollingFileWriter writer : this.openWriters.values()) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                if (null == firstException) {
+                    firstException = e;
+                }
+            }
+        }
+        this.openWriters.clear();
+        if (null != firstException) {
+            throw firstException;
+        }
+    }
+
+    /**
+     * 脏数据按原始记录（含分区列）收集，而不是复用的ProjectedRecord
+     */
+    private static class SourceRecordCollector extends TaskPluginCollector {
+        private TaskPluginCollector delegate;
+
+        private Record record;
+
+        void set(TaskPluginCollector delegate, Record record) {
+            this.delegate = delegate;
+            this.record = record;
+        }
+
+        @Override
+        public void collectDirtyRecord(Record dirtyRecord, Throwable t, String errorMessage) {
+            this.delegate.collectDirtyRecord(this.record, t, errorMessage);
+        }
+
+        @Override
+        public void collectMessage(String key, String value) {
+            this.delegate.collectMessage(key, value);
+        }
+    }
+
+    /**
+     * 只暴露数据列的Record视图，避免为每条记录复制Column
+     */
+    private static class ProjectedRecord implements Record {
+        private final int[] indexes;
+
+        private Record record;
+
+        ProjectedRecord(int[] indexes) {
+            this.indexes = indexes;
+        }
+
+        void setRecord(Record record) {
+            this.record = record;
+        }
+
+        @Override
+        public void addColumn(Column column) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setColumn(int i, Column column) {
+            this.record.setColumn(this.indexes[i], column);
+        }
+
+        @Override
+        public Column getColumn(int i) {
+            return this.record.getColumn(this.indexes[i]);
+        }
+
+        @Override
+        public int getColumnNumber() {
+            return this.indexes.length;
+        }
+
+        @Override
+        public int getByteSize() {
+            return this.record.getByteSize();
+        }
+
+        @Override
+        public int getMemorySize() {
+            return this.record.getMemorySize();
+        }
+
+        @Override
+        public void setMeta(Map<String, String> meta) {
+            this.record.setMeta(meta);
+        }
+
+        @Override
+        public Map<String, String> getMeta() {
+            return this.record.getMeta();
+        }
+
+        @Override
+        public String toString() {
+            return this.record.toString();
+        }
+    }
+}
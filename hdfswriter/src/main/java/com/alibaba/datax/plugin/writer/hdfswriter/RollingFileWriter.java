@@ -0,0 +1,66 @@
+package com.alibaba.datax.plugin.writer.hdfswriter;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.plugin.TaskPluginCollector;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.plugin.unstructuredstorage.writer.FileRollingPolicy;
+
+import java.io.IOException;
+
+/**
+ * 按 maxFileSize/maxRecordsPerFile 滚动文件：写满后关闭当前文件，依次写 fileName_1, fileName_2 ...
+ * 未开启滚动时等同于直接使用被包装的writer
+ */
+public class RollingFileWriter implements HdfsRecordWriter {
+    private final HdfsRecordWriter writer;
+
+    private final FileRollingPolicy rollingPolicy;
+
+    private String fileName;
+
+    private int rollingNumber;
+
+    /**
+     * @param rollingNumber 第一个文件的滚动序号，0表示直接使用fileName
+     */
+    public RollingFileWriter(HdfsRecordWriter writer, Configuration config, int rollingNumber) {
+        this.writer = writer;
+        this.rollingPolicy = new FileRollingPolicy(config);
+        this.rollingNumber = rollingNumber;
+    }
+
+    @Override
+    public void open(String fileName) throws IOException {
+        this.fileName = fileName;
+        this.writer.open(FileRollingPolicy.rollingFileName(fileName, this.rollingNumber));
+        this.rollingPolicy.reset();
+    }
+
+    @Override
+    public long write(Record record, TaskPluginCollector taskPluginCollector) throws IOException {
+        // 在写下一条记录前才滚动，避免最后留下空文件
+        if (this.rollingPolicy.shouldRoll()) {
+            this.writer.close();
+            this.rollingNumber++;
+            this.writer.open(FileRollingPolicy.rollingFileName(this.fileName, this.rollingNumber));
+            this.rollingPolicy.reset();
+        }
+        long bytes = this.writer.write(record, taskPluginCollector);
+        if (bytes >= 0) {
+            this.rollingPolicy.append(bytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * @return 重新打开同一个文件名时应使用的滚动序号
+     */
+    public int getNextRollingNumber() {
+        return this.rollingNumber + 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+}
@@ -0,0 +1,121 @@
+package com.alibaba.datax.plugin.writer.hdfswriter;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.plugin.TaskPluginCollector;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.plugin.unstructuredstorage.writer.ParallelCompressorOutputStream;
+import org.apache.commons.lang3.tuple.MutablePair;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.mapred.FileOutputFormat;
+import org.apache.hadoop.mapred.JobContext;
+import org.apache.hadoop.mapred.RecordWriter;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.TextOutputFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 写textfile类型文件，压缩文件由TextOutputFormat按codec加上.gz/.bz2后缀
+ */
+public class TextFileWriter implements HdfsRecordWriter {
+    private final HdfsHelper hdfsHelper;
+
+    private final List<Configuration> columns;
+
+    private final char fieldDelimiter;
+
+    private final String compress;
+
+    private final int compressThreadNumber;
+
+    private final FileOutputFormat outFormat = new TextOutputFormat();
+
+    // 写入时即拷贝字节，行缓存和Text可以在记录间复用
+    private final StringBuilder line = new StringBuilder();
+
+    private final Text text = new Text();
+
+    private RecordWriter writer;
+
+    public TextFileWriter(HdfsHelper hdfsHelper, Configuration config) {
+        this.hdfsHelper = hdfsHelper;
+        this.columns = config.getListConfiguration(Key.COLUMN);
+        this.fieldDelimiter = config.getChar(Key.FIELD_DELIMITER);
+        this.compress = config.getString(Key.COMPRESS, null);
+        this.compressThreadNumber = config.getInt(
+                com.alibaba.datax.plugin.unstructuredstorage.writer.Key.COMPRESS_THREAD_NUMBER, 1);
+
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMddHHmm");
+        String attempt = "attempt_"+dateFormat.format(new Date())+"_0001_m_000000_0";
+        //todo 需要进一步确定TASK_ATTEMPT_ID
+        hdfsHelper.conf.set(JobContext.TASK_ATTEMPT_ID, attempt);
+        if(null != this.compress) {
+            Class<? extends CompressionCodec> codecClass = hdfsHelper.getCompressCodec(this.compress);
+            if (null != codecClass) {
+                this.outFormat.setOutputCompressorClass(hdfsHelper.conf, codecClass);
+            }
+        }
+    }
+
+    /**
+     * compressThreadNumber大于1且压缩为gzip/bzip2时，绕过TextOutputFormat直接写分块并行压缩的文件，
+     * 文件名和内容格式（每行以\n结尾）与TextOutputFormat一致
+     */
+    @Override
+    public void open(String fileName) throws IOException {
+        Path outputPath = new Path(fileName);
+        FileOutputFormat.setOutputPath(this.hdfsHelper.conf, outputPath);
+        FileOutputFormat.setWorkOutputPath(this.hdfsHelper.conf, outputPath);
+        if (this.compressThreadNumber <= 1
+                || !("GZIP".equalsIgnoreCase(this.compress) || "BZIP2".equalsIgnoreCase(this.compress))) {
+            this.writer = this.outFormat.getRecordWriter(this.hdfsHelper.fileSystem, this.hdfsHelper.conf,
+                    fileName, Reporter.NULL);
+            return;
+        }
+
+        String extension = "GZIP".equalsIgnoreCase(this.compress) ? ".gz" : ".bz2";
+        final OutputStream out = new ParallelCompressorOutputStream(
+                this.hdfsHelper.fileSystem.create(new Path(fileName + extension), false),
+                this.compress, this.compressThreadNumber);
+        this.writer = new RecordWriter<NullWritable, Text>() {
+            @Override
+            public void write(NullWritable key, Text value) throws IOException {
+                out.write(value.getBytes(), 0, value.getLength());
+                out.write('\n');
+            }
+
+            @Override
+            public void close(Reporter reporter) throws IOException {
+                out.close();
+            }
+        };
+    }
+
+    @Override
+    public long write(Record record, TaskPluginCollector taskPluginCollector) throws IOException {
+        MutablePair<List<Object>, Boolean> transportResult =
+                HdfsHelper.transportOneRecord(record, this.columns, taskPluginCollector);
+        if (transportResult.getRight()) {
+            return -1;
+        }
+        HdfsHelper.joinFields(this.line, transportResult.getLeft(), this.fieldDelimiter);
+        this.text.set(this.line.toString());
+        this.writer.write(NullWritable.get(), this.text);
+        return this.text.getLength() + 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (null != this.writer) {
+            this.writer.close(Reporter.NULL);
+            this.writer = null;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.alibaba.datax.plugin.writer.hdfswriter;
+
+import com.alibaba.datax.common.exception.DataXException;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RawLocalFileSystem;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class HdfsHelperTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File tmpDir;
+
+    private File endDir;
+
+    private FailingFileSystem fileSystem;
+
+    private HdfsHelper hdfsHelper;
+
+    @Before
+    public void setUp() throws IOException {
+        tmpDir = folder.newFolder("tmp");
+        endDir = folder.newFolder("end");
+        fileSystem = new FailingFileSystem();
+        fileSystem.initialize(URI.create("file:///"), new Configuration());
+        hdfsHelper = new HdfsHelper();
+        hdfsHelper.fileSystem = fileSystem;
+
+        write(new File(tmpDir, "dt=1/f__a"), "new-1");
+        write(new File(tmpDir, "dt=2/f__b"), "new-2");
+        write(new File(tmpDir, "dt=3/f__c"), "new-3");
+        write(new File(endDir, "dt=1/f__old"), "old-1");
+        write(new File(endDir, "dt=3/f__old"), "old-3");
+    }
+
+    @Test
+    public void testCommitPartitionsTruncate() throws IOException {
+        hdfsHelper.commitPartitions(tmpDir.getPath(), endDir.getPath(), "f", "truncate");
+
+        Assert.assertEquals("new-1", read(new File(endDir, "dt=1/f__a")));
+        Assert.assertEquals("new-2", read(new File(endDir, "dt=2/f__b")));
+        Assert.assertEquals("new-3", read(new File(endDir, "dt=3/f__c")));
+        Assert.assertFalse(new File(endDir, "dt=1/f__old").exists());
+        Assert.assertFalse(new File(endDir, "dt=3/f__old").exists());
+        Assert.assertFalse(tmpDir.exists());
+    }
+
+    @Test
+    public void testCommitPartitionsRollbackOnRenameFailure() throws IOException {
+        // 最后一个分区的文件移动失败，前面已提交的分区和已备份的旧文件都应恢复
+        fileSystem.failOn = "f__c";
+        try {
+            hdfsHelper.commitPartitions(tmpDir.getPath(), endDir.getPath(), "f", "truncate");
+            Assert.fail("rename failure should abort the commit");
+        } catch (DataXException e) {
+            Assert.assertEquals(HdfsWriterErrorCode.HDFS_RENAME_FILE_ERROR, e.getErrorCode());
+        }
+
+        Assert.assertEquals("old-1", read(new File(endDir, "dt=1/f__old")));
+        Assert.assertEquals("old-3", read(new File(endDir, "dt=3/f__old")));
+        Assert.assertFalse(new File(endDir, "dt=1/f__a").exists());
+        Assert.assertFalse(new File(endDir, "dt=2").exists());
+        Assert.assertFalse(new File(endDir, "dt=3/f__c").exists());
+
+        Assert.assertEquals("new-1", read(new File(tmpDir, "dt=1/f__a")));
+        Assert.assertEquals("new-2", read(new File(tmpDir, "dt=2/f__b")));
+        Assert.assertEquals("new-3", read(new File(tmpDir, "dt=3/f__c")));
+    }
+
+    @Test
+    public void testCommitPartitionsNonConflict() throws IOException {
+        try {
+            hdfsHelper.commitPartitions(tmpDir.getPath(), endDir.getPath(), "f", "nonConflict");
+            Assert.fail("existing files should fail nonConflict mode");
+        } catch (DataXException e) {
+            Assert.assertEquals(HdfsWriterErrorCode.ILLEGAL_VALUE, e.getErrorCode());
+        }
+
+        Assert.assertFalse(new File(endDir, "dt=2").exists());
+        Assert.assertEquals("new-2", read(new File(tmpDir, "dt=2/f__b")));
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Assert.assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 本地文件系统，移动名为 failOn 的文件时返回失败
+     */
+    private static class FailingFileSystem extends RawLocalFileSystem {
+        private String failOn;
+
+        @Override
+        public boolean rename(Path src, Path dst) throws IOException {
+            if (src.getName().equals(failOn)) {
+                return false;
+            }
+            return super.rename(src, dst);
+        }
+    }
+}
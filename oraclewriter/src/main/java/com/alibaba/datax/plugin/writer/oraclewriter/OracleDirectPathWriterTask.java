@@ -0,0 +1,67 @@
+package com.alibaba.datax.plugin.writer.oraclewriter;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.plugin.rdbms.util.DBUtil;
+import com.alibaba.datax.plugin.rdbms.util.DBUtilErrorCode;
+import com.alibaba.datax.plugin.rdbms.util.DataBaseType;
+import com.alibaba.datax.plugin.rdbms.writer.CommonRdbmsWriter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * 批量写入时使用 APPEND_VALUES 提示走直接路径插入（Oracle 11gR2 及以上），绕过 buffer cache 直接写到高水位线之上；
+ * 批次仍以 JDBC batch 的方式绑定为数组一次发送。
+ * <p/>
+ * 批次失败回滚后按原 insert 语句逐条写入，以便定位脏数据：直接路径插入对单行没有收益，且同一事务内不能再读写该表。
+ * 注意直接路径插入期间会锁表，多个 channel 写同一张表时会互相等待对方的批次提交。
+ */
+public class OracleDirectPathWriterTask extends CommonRdbmsWriter.Task {
+	private static final String APPEND_VALUES_HINT = "/*+ APPEND_VALUES */";
+
+	private String directPathSql;
+
+	private String directPathSqlSource;
+
+	public OracleDirectPathWriterTask() {
+		super(DataBaseType.Oracle);
+	}
+
+	private String getDirectPathSql() {
+		if (!this.writeRecordSql.equals(this.directPathSqlSource)) {
+			this.directPathSqlSource = this.writeRecordSql;
+			this.directPathSql = this.writeRecordSql.replaceFirst("(?i)^\\s*INSERT\\s",
+					"INSERT " + APPEND_VALUES_HINT + " ");
+		}
+		return this.directPathSql;
+	}
+
+	@Override
+	protected void doBatchInsert(Connection connection, List<Record> buffer)
+			throws SQLException {
+		PreparedStatement preparedStatement = null;
+		try {
+			connection.setAutoCommit(false);
+			preparedStatement = connection.prepareStatement(getDirectPathSql());
+
+			for (Record record : buffer) {
+				preparedStatement = fillPreparedStatement(preparedStatement, record);
+				preparedStatement.addBatch();
+			}
+			preparedStatement.executeBatch();
+			connection.commit();
+		} catch (SQLException e) {
+			LOG.warn("回滚此次写入, 采用每次写入一行方式提交. 因为:" + e.getMessage());
+			connection.rollback();
+			doOneInsert(connection, buffer);
+		} catch (Exception e) {
+			throw DataXException.asDataXException(
+					DBUtilErrorCode.WRITE_DATA_ERROR, e);
+		} finally {
+			DBUtil.closeDBResources(preparedStatement, null);
+		}
+	}
+}
@@ -75,7 +75,11 @@ public class OracleWriter extends Writer {
 		@Override
 		public void init() {
 			this.writerSliceConfig = super.getPluginJobConf();
-			this.commonRdbmsWriterTask = new CommonRdbmsWriter.Task(DATABASE_TYPE);
+			if (this.writerSliceConfig.getBool(Key.BULK_LOAD, false)) {
+				this.commonRdbmsWriterTask = new OracleDirectPathWriterTask();
+			} else {
+				this.commonRdbmsWriterTask = new CommonRdbmsWriter.Task(DATABASE_TYPE);
+			}
 			this.commonRdbmsWriterTask.init(this.writerSliceConfig);
 		}
 
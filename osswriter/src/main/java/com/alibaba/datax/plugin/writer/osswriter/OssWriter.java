@@ -1,8 +1,6 @@
 package com.alibaba.datax.plugin.writer.osswriter;
 
 import java.io.*;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.Callable;
 
@@ -29,6 +27,7 @@ import com.alibaba.datax.common.util.Configuration;
 import com.alibaba.datax.common.util.RetryUtil;
 import com.alibaba.datax.plugin.unstructuredstorage.writer.TextCsvWriterManager;
 import com.alibaba.datax.plugin.unstructuredstorage.writer.UnstructuredStorageWriterUtil;
+import com.alibaba.datax.plugin.unstructuredstorage.writer.UnstructuredRecordEncoder;
 import com.alibaba.datax.plugin.unstructuredstorage.writer.UnstructuredWriter;
 import com.alibaba.datax.plugin.writer.osswriter.util.OssUtil;
 import com.aliyun.oss.ClientException;
@@ -597,7 +596,6 @@ public class OssWriter extends Writer {
         private String nullFormat;
         private String encoding;
         private String dateFormat;
-        private DateFormat dateParse;
         private String fileFormat;
         private List<String> header;
         private Long maxFileSize;// MB
@@ -647,9 +645,6 @@ public class OssWriter extends Writer {
                     .getString(
                             com.alibaba.datax.plugin.unstructuredstorage.writer.Key.DATE_FORMAT,
                             null);
-            if (StringUtils.isNotBlank(this.dateFormat)) {
-                this.dateParse = new SimpleDateFormat(dateFormat);
-            }
             this.encoding = this.writerSliceConfig
                     .getString(
                             com.alibaba.datax.plugin.unstructuredstorage.writer.Key.ENCODING,
@@ -719,11 +714,8 @@ public class OssWriter extends Writer {
                 String currentObject = this.object;
                 List<PartETag> currentPartETags = new ArrayList<PartETag>();
 
-                //warn: may be StringBuffer->StringBuilder
-                StringWriter sw = new StringWriter();
-                StringBuffer sb = sw.getBuffer();
-                UnstructuredWriter unstructuredWriter = UnstructuredStorageWriterUtil.
-                        produceUnstructuredWriter(this.fileFormat, this.writerSliceConfig, sw);
+                UnstructuredRecordEncoder recordEncoder = UnstructuredStorageWriterUtil.
+                        produceRecordEncoder(this.fileFormat, this.writerSliceConfig);
 
                 while ((record = lineReceiver.getFromReader()) != null) {
                     //单文件同步暂不支持轮转[目前单文件支持同步约最大100GB大小]
@@ -733,27 +725,25 @@ public class OssWriter extends Writer {
                     }
 
                     // write: upload data to current object
-                    UnstructuredStorageWriterUtil.transportOneRecord(record,
-                            this.nullFormat, this.dateParse,
-                            this.getTaskPluginCollector(), unstructuredWriter, this.byteEncoding);
+                    recordEncoder.writeRecord(record, this.getTaskPluginCollector());
 
                     // 达到 this.blockSizeInByte ，上传文件块
-                    if (sb.length() >= this.blockSizeInByte) {
+                    if (recordEncoder.size() >= this.blockSizeInByte) {
                         LOG.info(String
                                 .format("write to bucket: [%s] object: [%s] with oss uploadId: [%s], currentPartNumber: %s",
                                         this.bucket, currentObject,
                                         this.uploadId, OssSingleObject.currentPartNumber.intValue()));
-                        byte[] byteArray = sw.toString().getBytes(this.encoding);
+                        byte[] byteArray = recordEncoder.toByteArray();
                         this.ossWriterProxy.uploadOnePartForSingleObject(byteArray, this.uploadId, currentPartETags, currentObject, this::getHeaderBytes);
-                        sb.setLength(0);
+                        recordEncoder.reset();
                     }
                 }
                 //将本task所有upload的part加入到allPartETags中
                 OssSingleObject.allPartETags.addAll(currentPartETags);
 
                 //将task未写完的最后一个block加入到 OssSingleObject.lastBlockBuffer 中，待job阶段合并上传
-                if (sb.length() > 0) {
-                    byte[] lastBlock = sw.toString().getBytes(this.encoding);
+                if (recordEncoder.size() > 0) {
+                    byte[] lastBlock = recordEncoder.toByteArray();
                     LOG.info("begin add last block to buffer, last block size: {}", lastBlock.length);
                     OssSingleObject.addLastBlockBuffer(lastBlock, this.ossWriterProxy, this.blockSizeInByte, this.object, this::getHeaderBytes);
                 }
@@ -933,11 +923,8 @@ public class OssWriter extends Writer {
             int currentPartNumber = 1;
             Map<String, String> meta;
 
-            //warn: may be StringBuffer->StringBuilder
-            StringWriter sw = new StringWriter();
-            StringBuffer sb = sw.getBuffer();
-            UnstructuredWriter unstructuredWriter = UnstructuredStorageWriterUtil.
-                    produceUnstructuredWriter(this.fileFormat, this.writerSliceConfig, sw);
+            UnstructuredRecordEncoder recordEncoder = UnstructuredStorageWriterUtil.
+                    produceRecordEncoder(this.fileFormat, this.writerSliceConfig);
             LOG.info(String.format(
                     "begin do write, each object maxFileSize: [%s]MB...",
                     maxPartNumber * 10));
@@ -971,11 +958,11 @@ public class OssWriter extends Writer {
                     if (realyNeedInitUploadRequest) {
                         // 先将上一个分块上传的request complete掉
                         if (null != currentInitiateMultipartUploadResult) {
-                            if (sb.length() > 0) {
-                                this.uploadOnePart(sw, currentPartNumber, currentInitiateMultipartUploadResult,
+                            if (recordEncoder.size() > 0) {
+                                this.uploadOnePart(recordEncoder, currentPartNumber, currentInitiateMultipartUploadResult,
                                         currentPartETags, currentObject);
                                 currentPartNumber++;
-                                sb.setLength(0);
+                                recordEncoder.reset();
                             }
                             // TODO 如果当前文件是空文件
                             String commitKey = currentInitiateMultipartUploadResult.getKey();
@@ -1004,7 +991,7 @@ public class OssWriter extends Writer {
 
                         // each object's header
                         if (null != this.header && !this.header.isEmpty()) {
-                            unstructuredWriter.writeOneRecord(this.header);
+                            recordEncoder.writeHeader(this.header);
                         }
                         // warn
                         needInitMultipartTransform = false;
@@ -1012,16 +999,14 @@ public class OssWriter extends Writer {
                     }
 
                     // write: upload data to current object
-                    UnstructuredStorageWriterUtil.transportOneRecord(record,
-                            this.nullFormat, this.dateParse,
-                            this.getTaskPluginCollector(), unstructuredWriter, this.byteEncoding);
+                    recordEncoder.writeRecord(record, this.getTaskPluginCollector());
 
-                    if (sb.length() >= this.blockSizeInByte) {
-                        this.uploadOnePart(sw, currentPartNumber,
+                    if (recordEncoder.size() >= this.blockSizeInByte) {
+                        this.uploadOnePart(recordEncoder, currentPartNumber,
                                 currentInitiateMultipartUploadResult,
                                 currentPartETags, currentObject);
                         currentPartNumber++;
-                        sb.setLength(0);
+                        recordEncoder.reset();
                     }
                 }
 
@@ -1033,12 +1018,12 @@ public class OssWriter extends Writer {
                     currentPartETags = new ArrayList<PartETag>();
                     // each object's header
                     if (null != this.header && !this.header.isEmpty()) {
-                        unstructuredWriter.writeOneRecord(this.header);
+                        recordEncoder.writeHeader(this.header);
                     }
                 }
-                // warn: may be some data stall in sb
-                if (0 < sb.length()) {
-                    this.uploadOnePart(sw, currentPartNumber,
+                // warn: may be some data stall in recordEncoder
+                if (0 < recordEncoder.size()) {
+                    this.uploadOnePart(recordEncoder, currentPartNumber,
                             currentInitiateMultipartUploadResult,
                             currentPartETags, currentObject);
                 }
@@ -1127,13 +1112,12 @@ public class OssWriter extends Writer {
          * @throws Exception
          * */
         private void uploadOnePart(
-                final StringWriter sw,
+                final UnstructuredRecordEncoder recordEncoder,
                 final int partNumber,
                 final InitiateMultipartUploadResult currentInitiateMultipartUploadResult,
                 final List<PartETag> partETags, final String currentObject)
                 throws Exception {
-            final String encoding = this.encoding;
-            final byte[] byteArray = sw.toString().getBytes(encoding);
+            final byte[] byteArray = recordEncoder.toByteArray();
             this.ossWriterProxy.uploadOnePart(byteArray, partNumber, currentInitiateMultipartUploadResult, partETags, currentObject);
         }
 
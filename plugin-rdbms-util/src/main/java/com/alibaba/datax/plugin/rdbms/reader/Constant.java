@@ -27,4 +27,6 @@ public final class Constant {
 
     public static Integer SPLIT_FACTOR = 5;
 
+    public static Integer SPLIT_CONCURRENCY = 1;
+
 }
@@ -48,6 +48,9 @@ public final class Key {
 
     public static String SPLIT_FACTOR = "splitFactor";
 
+    // 每个数据库实例上同时执行切分查询的线程数
+    public final static String SPLIT_CONCURRENCY = "splitConcurrency";
+
     public final static String WEAK_READ = "weakRead";
 
     public final static String SAVE_POINT = "savePoint";
@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public final class ReaderSplitUtil {
@@ -33,7 +34,11 @@ public final class ReaderSplitUtil {
 
         List<Object> conns = originalSliceConfig.getList(Constant.CONN_MARK, Object.class);
 
-        List<Configuration> splittedConfigs = new ArrayList<Configuration>();
+        // 需要查询数据库的切分交给 planner 并发执行，这里按原顺序记录占位，最后再按顺序合并
+        List<List<Configuration>> splittedParts = new ArrayList<List<Configuration>>();
+        List<Integer> plannedIndexes = new ArrayList<Integer>();
+        TableSplitPlanner planner = new TableSplitPlanner(originalSliceConfig.getInt(Key.SPLIT_CONCURRENCY,
+                Constant.SPLIT_CONCURRENCY));
 
         for (int i = 0, len = conns.size(); i < len; i++) {
             Configuration sliceConfig = originalSliceConfig.clone();
@@ -80,10 +85,8 @@ public final class ReaderSplitUtil {
                         tempSlice = sliceConfig.clone();
                         tempSlice.set(Key.TABLE, table);
 
-                        List<Configuration> splittedSlices = SingleTableSplitUtil
-                                .splitSingleTable(tempSlice, eachTableShouldSplittedNumber);
-
-                        splittedConfigs.addAll(splittedSlices);
+                        splittedParts.add(null);
+                        plannedIndexes.add(planner.submit(tempSlice, eachTableShouldSplittedNumber));
                     }
                 } else {
                     for (String table : tables) {
@@ -91,7 +94,8 @@ public final class ReaderSplitUtil {
                         tempSlice.set(Key.TABLE, table);
                         String queryColumn = HintUtil.buildQueryColumn(jdbcUrl, table, column);
                         tempSlice.set(Key.QUERY_SQL, SingleTableSplitUtil.buildQuerySql(queryColumn, table, where));
-                        splittedConfigs.add(tempSlice);
+                        splittedParts.add(Collections.singletonList(tempSlice));
+                        plannedIndexes.add(-1);
                     }
                 }
             } else {
@@ -102,12 +106,20 @@ public final class ReaderSplitUtil {
                 for (String querySql : sqls) {
                     tempSlice = sliceConfig.clone();
                     tempSlice.set(Key.QUERY_SQL, querySql);
-                    splittedConfigs.add(tempSlice);
+                    splittedParts.add(Collections.singletonList(tempSlice));
+                    plannedIndexes.add(-1);
                 }
             }
 
         }
 
+        List<List<Configuration>> plannedParts = planner.plan();
+        List<Configuration> splittedConfigs = new ArrayList<Configuration>();
+        for (int i = 0; i < splittedParts.size(); i++) {
+            int plannedIndex = plannedIndexes.get(i);
+            splittedConfigs.addAll(plannedIndex < 0 ? splittedParts.get(i) : plannedParts.get(plannedIndex));
+        }
+
         return splittedConfigs;
     }
 
@@ -17,6 +17,8 @@ import java.math.BigInteger;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
@@ -32,6 +34,14 @@ public class SingleTableSplitUtil {
 
     public static List<Configuration> splitSingleTable(
             Configuration configuration, int adviceNum) {
+        return splitSingleTable(configuration, adviceNum, null);
+    }
+
+    /**
+     * conn 不为空时复用该连接执行切分查询（调用方负责关闭），为空时自行建立并关闭连接
+     */
+    public static List<Configuration> splitSingleTable(
+            Configuration configuration, int adviceNum, Connection conn) {
         List<Configuration> pluginParams = new ArrayList<Configuration>();
         List<String> rangeList;
         String splitPkName = configuration.getString(Key.SPLIT_PK);
@@ -44,10 +54,10 @@ public class SingleTableSplitUtil {
         //if (Constant.SPLIT_MODE_RANDOMSAMPLE.equals(splitMode) && DATABASE_TYPE == DataBaseType.Oracle) {
         if (DATABASE_TYPE == DataBaseType.Oracle) {
             rangeList = genSplitSqlForOracle(splitPkName, table, where,
-                    configuration, adviceNum);
+                    configuration, adviceNum, conn);
             // warn: mysql etc to be added...
         } else {
-            Pair<Object, Object> minMaxPK = getPkRange(configuration);
+            Pair<Object, Object> minMaxPK = getPkRange(configuration, conn);
             if (null == minMaxPK) {
                 throw DataXException.asDataXException(DBUtilErrorCode.ILLEGAL_SPLIT_PK,
                         "根据切分主键切分表失败. DataX 仅支持切分主键为一个,并且类型为整数或者字符串类型. 请尝试使用其他的切分主键或者联系 DBA 进行处理.");
@@ -142,7 +152,7 @@ public class SingleTableSplitUtil {
     }
 
     @SuppressWarnings("resource")
-    private static Pair<Object, Object> getPkRange(Configuration configuration) {
+    private static Pair<Object, Object> getPkRange(Configuration configuration, Connection reuseConn) {
         String pkRangeSQL = genPKRangeSQL(configuration);
 
         int fetchSize = configuration.getInt(Constant.FETCH_SIZE);
@@ -151,10 +161,15 @@ public class SingleTableSplitUtil {
         String password = configuration.getString(Key.PASSWORD);
         String table = configuration.getString(Key.TABLE);
 
+        if (null != reuseConn) {
+            return checkSplitPk(reuseConn, pkRangeSQL, fetchSize, table, username, configuration);
+        }
         Connection conn = DBUtil.getConnection(DATABASE_TYPE, jdbcURL, username, password);
-        Pair<Object, Object> minMaxPK = checkSplitPk(conn, pkRangeSQL, fetchSize, table, username, configuration);
-        DBUtil.closeDBResources(null, null, conn);
-        return minMaxPK;
+        try {
+            return checkSplitPk(conn, pkRangeSQL, fetchSize, table, username, configuration);
+        } finally {
+            DBUtil.closeDBResources(null, null, conn);
+        }
     }
 
     public static void precheckSplitPk(Connection conn, String pkRangeSQL, int fetchSize,
@@ -222,12 +237,26 @@ public class SingleTableSplitUtil {
         } catch (Exception e) {
             throw DataXException.asDataXException(DBUtilErrorCode.ILLEGAL_SPLIT_PK, "DataX尝试切分表发生错误. 请检查您的配置并作出修改.", e);
         } finally {
-            DBUtil.closeDBResources(rs, null, null);
+            closeResultSet(rs);
         }
 
         return minMaxPK;
     }
 
+    /**
+     * 同时关闭 DBUtil.query 创建的 statement，复用连接切分多张表时避免 statement 堆积
+     */
+    private static void closeResultSet(ResultSet rs) {
+        Statement stmt = null;
+        if (null != rs) {
+            try {
+                stmt = rs.getStatement();
+            } catch (SQLException unused) {
+            }
+        }
+        DBUtil.closeDBResources(rs, stmt, null);
+    }
+
     private static boolean isPKTypeValid(ResultSetMetaData rsMetaData) {
         boolean ret = false;
         try {
@@ -298,6 +327,12 @@ public class SingleTableSplitUtil {
     public static List<String> genSplitSqlForOracle(String splitPK,
             String table, String where, Configuration configuration,
             int adviceNum) {
+        return genSplitSqlForOracle(splitPK, table, where, configuration, adviceNum, null);
+    }
+
+    private static List<String> genSplitSqlForOracle(String splitPK,
+            String table, String where, Configuration configuration,
+            int adviceNum, Connection reuseConn) {
         if (adviceNum < 1) {
             throw new IllegalArgumentException(String.format(
                     "切分份数不能小于1. 此处:adviceNum=[%s].", adviceNum));
@@ -319,7 +354,7 @@ public class SingleTableSplitUtil {
         String jdbcURL = configuration.getString(Key.JDBC_URL);
         String username = configuration.getString(Key.USERNAME);
         String password = configuration.getString(Key.PASSWORD);
-        Connection conn = DBUtil.getConnection(DATABASE_TYPE, jdbcURL,
+        Connection conn = null != reuseConn ? reuseConn : DBUtil.getConnection(DATABASE_TYPE, jdbcURL,
                 username, password);
         LOG.info("split pk [sql={}] is running... ", splitSql);
         ResultSet rs = null;
@@ -348,7 +383,10 @@ public class SingleTableSplitUtil {
                     DBUtilErrorCode.ILLEGAL_SPLIT_PK,
                     "DataX尝试切分表发生错误. 请检查您的配置并作出修改.", e);
         } finally {
-            DBUtil.closeDBResources(rs, null, null);
+            closeResultSet(rs);
+            if (null == reuseConn) {
+                DBUtil.closeDBResources(null, null, conn);
+            }
         }
         LOG.debug(JSON.toJSONString(splitedRange));
         List<String> rangeSql = new ArrayList<String>();
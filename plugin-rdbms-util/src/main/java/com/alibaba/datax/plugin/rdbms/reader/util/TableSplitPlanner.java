@@ -0,0 +1,181 @@
+package com.alibaba.datax.plugin.rdbms.reader.util;
+
+import com.alibaba.datax.common.constant.CommonConstant;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.plugin.rdbms.reader.Key;
+import com.alibaba.datax.plugin.rdbms.util.DBUtil;
+import com.alibaba.datax.plugin.rdbms.util.DBUtilErrorCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 并发执行多张表的切分查询(min/max 或 oracle 采样)。
+ * <p/>
+ * 按 LOAD_BALANCE_RESOURCE_MARK(数据库实例的 ip)分组，每个实例上最多 concurrency 个线程同时切分，
+ * 不同实例之间互不等待；每个线程对同一个 jdbcUrl 的表复用一个连接，而不是每张表新建一次连接。
+ * 切分结果按提交顺序返回，与串行切分的结果一致。
+ */
+final class TableSplitPlanner {
+    private static final Logger LOG = LoggerFactory
+            .getLogger(TableSplitPlanner.class);
+
+    private final int concurrency;
+
+    private final List<SplitJob> jobs = new ArrayList<SplitJob>();
+
+    TableSplitPlanner(int concurrency) {
+        if (concurrency < 1) {
+            throw DataXException.asDataXException(DBUtilErrorCode.ILLEGAL_VALUE,
+                    String.format("您配置的 %s 值有误, 必须大于0. 此处:%s=[%s].", Key.SPLIT_CONCURRENCY,
+                            Key.SPLIT_CONCURRENCY, concurrency));
+        }
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * 提交一张表的切分，返回其在结果中的序号
+     */
+    int submit(Configuration tableSlice, int adviceNum) {
+        this.jobs.add(new SplitJob(this.jobs.size(), tableSlice, adviceNum));
+        return this.jobs.size() - 1;
+    }
+
+    List<List<Configuration>> plan() {
+        List<List<Configuration>> results = new ArrayList<List<Configuration>>(
+                Collections.<List<Configuration>>nCopies(this.jobs.size(), null));
+        if (this.jobs.isEmpty()) {
+            return results;
+        }
+
+        Map<String, Queue<SplitJob>> jobsByResource = new LinkedHashMap<String, Queue<SplitJob>>();
+        for (SplitJob job : this.jobs) {
+            String resource = job.slice.getString(CommonConstant.LOAD_BALANCE_RESOURCE_MARK, job.jdbcUrl);
+            Queue<SplitJob> queue = jobsByResource.get(resource);
+            if (null == queue) {
+                queue = new ConcurrentLinkedQueue<SplitJob>();
+                jobsByResource.put(resource, queue);
+            }
+            queue.add(job);
+        }
+
+        List<Worker> workers = new ArrayList<Worker>();
+        AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        for (Queue<SplitJob> queue : jobsByResource.values()) {
+            for (int i = 0, n = Math.min(this.concurrency, queue.size()); i < n; i++) {
+                workers.add(new Worker(queue, results, error));
+            }
+        }
+
+        LOG.info("begin to split {} tables on {} database instances with {} threads.",
+                this.jobs.size(), jobsByResource.size(), workers.size());
+        if (workers.size() == 1) {
+            workers.get(0).run();
+        } else {
+            CountDownLatch latch = new CountDownLatch(workers.size());
+            for (int i = 0; i < workers.size(); i++) {
+                Thread thread = new Thread(new LatchedWorker(workers.get(i), latch), "split-planner-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error.compareAndSet(null, e);
+            }
+        }
+
+        Throwable e = error.get();
+        if (null != e) {
+            if (e instanceof DataXException) {
+                throw (DataXException) e;
+            }
+            throw DataXException.asDataXException(DBUtilErrorCode.ILLEGAL_SPLIT_PK,
+                    "DataX尝试切分表发生错误. 请检查您的配置并作出修改.", e);
+        }
+        return results;
+    }
+
+    private static class SplitJob {
+        private final int index;
+        private final Configuration slice;
+        private final int adviceNum;
+        private final String jdbcUrl;
+
+        SplitJob(int index, Configuration slice, int adviceNum) {
+            this.index = index;
+            this.slice = slice;
+            this.adviceNum = adviceNum;
+            this.jdbcUrl = slice.getString(Key.JDBC_URL);
+        }
+    }
+
+    private static class Worker implements Runnable {
+        private final Queue<SplitJob> queue;
+        private final List<List<Configuration>> results;
+        private final AtomicReference<Throwable> error;
+
+        Worker(Queue<SplitJob> queue, List<List<Configuration>> results, AtomicReference<Throwable> error) {
+            this.queue = queue;
+            this.results = results;
+            this.error = error;
+        }
+
+        @Override
+        public void run() {
+            Connection conn = null;
+            String connJdbcUrl = null;
+            try {
+                SplitJob job;
+                while (null == this.error.get() && null != (job = this.queue.poll())) {
+                    if (!job.jdbcUrl.equals(connJdbcUrl)) {
+                        DBUtil.closeDBResources(null, null, conn);
+                        conn = null;
+                        conn = DBUtil.getConnection(SingleTableSplitUtil.DATABASE_TYPE, job.jdbcUrl,
+                                job.slice.getString(Key.USERNAME), job.slice.getString(Key.PASSWORD));
+                        connJdbcUrl = job.jdbcUrl;
+                    }
+                    List<Configuration> splitted = SingleTableSplitUtil.splitSingleTable(job.slice, job.adviceNum, conn);
+                    synchronized (this.results) {
+                        this.results.set(job.index, splitted);
+                    }
+                }
+            } catch (Throwable e) {
+                this.error.compareAndSet(null, e);
+            } finally {
+                DBUtil.closeDBResources(null, null, conn);
+            }
+        }
+    }
+
+    private static class LatchedWorker implements Runnable {
+        private final Worker worker;
+        private final CountDownLatch latch;
+
+        LatchedWorker(Worker worker, CountDownLatch latch) {
+            this.worker = worker;
+            this.latch = latch;
+        }
+
+        @Override
+        public void run() {
+            try {
+                this.worker.run();
+            } finally {
+                this.latch.countDown();
+            }
+        }
+    }
+}
@@ -198,6 +198,8 @@ public class CommonRdbmsWriter {
         protected String writeMode;
         protected boolean emptyAsNull;
         protected Triple<List<String>, List<Integer>, List<String>> resultSetMetaData;
+        // 配置了 writerThreadNumber 时按路由列分发给多个写入线程
+        protected PartitionRouteWriter partitionRouteWriter;
 
         public Task(DataBaseType dataBaseType) {
             this.dataBaseType = dataBaseType;
@@ -239,6 +241,10 @@ public class CommonRdbmsWriter {
 
             BASIC_MESSAGE = String.format("jdbcUrl:[%s], table:[%s]",
                     this.jdbcUrl, this.table);
+
+            if (PartitionRouteWriter.isEnabled(writerSliceConfig)) {
+                this.partitionRouteWriter = new PartitionRouteWriter(this, writerSliceConfig);
+            }
         }
 
         public void prepare(Configuration writerSliceConfig) {
@@ -268,6 +274,11 @@ public class CommonRdbmsWriter {
             // 写数据库的SQL语句
             calcWriteRecordSql();
 
+            if (null != this.partitionRouteWriter) {
+                this.partitionRouteWriter.startWrite(recordReceiver, connection);
+                return;
+            }
+
             List<Record> writeBuffer = new ArrayList<Record>(this.batchSize);
             int bufferBytes = 0;
             try {
@@ -37,4 +37,16 @@ public final class Key {
     public final static String TABLE_RULE = "tableRule";
 
     public final static String DRYRUN = "dryRun";
+
+    // 使用数据库原生的批量导入方式写入，sqlserver 为 bulk copy，oracle 为 APPEND_VALUES 直接路径插入
+    public final static String BULK_LOAD = "bulkLoad";
+
+    // 单个channel内的写入线程数，默认1
+    public final static String WRITER_THREAD_NUMBER = "writerThreadNumber";
+
+    // 写入线程的路由列，同一路由值的记录由同一线程写入
+    public final static String ROUTE_COLUMN = "routeColumn";
+
+    // 路由列的分界值，配置后按范围路由，否则按哈希路由
+    public final static String ROUTE_RANGES = "routeRanges";
 }
\ No newline at end of file
@@ -0,0 +1,293 @@
+package com.alibaba.datax.plugin.rdbms.writer;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.plugin.RecordReceiver;
+import com.alibaba.datax.common.plugin.SynchronizedTaskPluginCollector;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.plugin.rdbms.util.DBUtil;
+import com.alibaba.datax.plugin.rdbms.util.DBUtilErrorCode;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 单个channel内按路由键把记录分发给多个子写入线程，每个子线程使用独立的连接和批次，
+ * 适用于分区表/分库分表的目标端：同一分区的记录进入同一个批次，不同分区并行写入。
+ * <p/>
+ * 配置：
+ * 1. writerThreadNumber：子写入线程数，大于1时启用
+ * 2. routeColumn：路由列，须在column中；不配置时按记录轮询分发
+ * 3. routeRanges：可选，路由列的有序分界值，配置后按范围路由（第i个范围写入第 i % writerThreadNumber 个线程），否则按哈希路由
+ * <p/>
+ * 同一路由键的记录由同一线程按读取顺序写入；批次的写入、回滚重试和脏数据收集逻辑复用 CommonRdbmsWriter.Task.doBatchInsert
+ */
+public class PartitionRouteWriter {
+    private static final Logger LOG = LoggerFactory.getLogger(PartitionRouteWriter.class);
+
+    /**
+     * 每个子线程最多积压的批次数，积压满后读取线程阻塞，形成反压
+     */
+    private static final int MAX_PENDING_BATCHES = 2;
+
+    private static final List<Record> END_OF_STREAM = Collections.emptyList();
+
+    private final CommonRdbmsWriter.Task task;
+
+    private final Configuration writerSliceConfig;
+
+    private final int writerThreadNumber;
+
+    private final int routeColumnIndex;
+
+    private final BigDecimal[] numericRanges;
+
+    private final String[] stringRanges;
+
+    private final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+
+    private long roundRobin = 0;
+
+    public PartitionRouteWriter(CommonRdbmsWriter.Task task, Configuration writerSliceConfig) {
+        this.task = task;
+        this.writerSliceConfig = writerSliceConfig;
+        this.writerThreadNumber = writerSliceConfig.getInt(Key.WRITER_THREAD_NUMBER, 1);
+
+        String routeColumn = writerSliceConfig.getString(Key.ROUTE_COLUMN);
+        this.routeColumnIndex = StringUtils.isBlank(routeColumn) ? -1 : indexOfColumn(task.columns, routeColumn);
+
+        List<String> routeRanges = writerSliceConfig.getList(Key.ROUTE_RANGES, String.class);
+        if (null == routeRanges || routeRanges.isEmpty()) {
+            this.numericRanges = null;
+            this.stringRanges = null;
+        } else if (this.routeColumnIndex < 0) {
+            throw DataXException.asDataXException(DBUtilErrorCode.CONF_ERROR,
+                    String.format("配置了%s时必须配置%s.", Key.ROUTE_RANGES, Key.ROUTE_COLUMN));
+        } else {
+            this.stringRanges = routeRanges.toArray(new String[routeRanges.size()]);
+            this.numericRanges = parseNumericRanges(this.stringRanges);
+            if (null == this.numericRanges) {
+                Arrays.sort(this.stringRanges);
+            }
+        }
+    }
+
+    /**
+     * @return 是否配置了多个子写入线程
+     */
+    public static boolean isEnabled(Configuration writerSliceConfig) {
+        return writerSliceConfig.getInt(Key.WRITER_THREAD_NUMBER, 1) > 1;
+    }
+
+    private static int indexOfColumn(List<String> columns, String routeColumn) {
+        String expected = unquote(routeColumn);
+        for (int i = 0; i < columns.size(); i++) {
+            if (unquote(columns.get(i)).equalsIgnoreCase(expected)) {
+                return i;
+            }
+        }
+        throw DataXException.asDataXException(DBUtilErrorCode.CONF_ERROR,
+                String.format("您配置的路由列[%s]不在column%s中.", routeColumn, columns));
+    }
+
+    private static String unquote(String column) {
+        return StringUtils.strip(column.trim(), "`\"[]");
+    }
+
+    /**
+     * @return 分界值全部为数字时按数值排序后的分界值，否则返回null，按字符串比较
+     */
+    private static BigDecimal[] parseNumericRanges(String[] ranges) {
+        BigDecimal[] numericRanges = new BigDecimal[ranges.length];
+        try {
+            for (int i = 0; i < ranges.length; i++) {
+                numericRanges[i] = new BigDecimal(ranges[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        Arrays.sort(numericRanges);
+        return numericRanges;
+    }
+
+    public void startWrite(RecordReceiver recordReceiver, Connection connection) {
+        List<SubWriter> subWriters = new ArrayList<SubWriter>(this.writerThreadNumber);
+        List<List<Record>> buffers = new ArrayList<List<Record>>(this.writerThreadNumber);
+        int[] bufferBytes = new int[this.writerThreadNumber];
+        // 脏数据可能由多个子线程同时收集
+        this.task.taskPluginCollector = new SynchronizedTaskPluginCollector(this.task.taskPluginCollector);
+
+        try {
+            for (int i = 0; i < this.writerThreadNumber; i++) {
+                Connection subConnection = i == 0 ? connection : openConnection();
+                SubWriter subWriter = new SubWriter(i, subConnection);
+                subWriters.add(subWriter);
+                buffers.add(new ArrayList<Record>(this.task.batchSize));
+                subWriter.start();
+            }
+            LOG.info("start {} writer threads, route column index [{}], range route [{}].",
+                    this.writerThreadNumber, this.routeColumnIndex, null != this.stringRanges);
+
+            Record record;
+            while ((record = recordReceiver.getFromReader()) != null) {
+                if (record.getColumnNumber() != this.task.columnNumber) {
+                    // 源头读取字段列数与目的表字段写入列数不相等，直接报错
+                    throw DataXException.asDataXException(DBUtilErrorCode.CONF_ERROR,
+                            String.format(
+                                    "列配置信息有错误. 因为您配置的任务中，源头读取字段数:%s 与 目的表要写入的字段数:%s 不相等. 请检查您的配置并作出修改.",
+                                    record.getColumnNumber(), this.task.columnNumber));
+                }
+                int index = route(record);
+                List<Record> buffer = buffers.get(index);
+                buffer.add(record);
+                bufferBytes[index] += record.getMemorySize();
+                if (buffer.size() >= this.task.batchSize || bufferBytes[index] >= this.task.batchByteSize) {
+                    subWriters.get(index).submit(buffer);
+                    buffers.set(index, new ArrayList<Record>(this.task.batchSize));
+                    bufferBytes[index] = 0;
+                }
+            }
+            for (int i = 0; i < this.writerThreadNumber; i++) {
+                if (!buffers.get(i).isEmpty()) {
+                    subWriters.get(i).submit(buffers.get(i));
+                }
+                subWriters.get(i).submit(END_OF_STREAM);
+            }
+            for (SubWriter subWriter : subWriters) {
+                subWriter.join();
+            }
+            checkError();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw DataXException.asDataXException(DBUtilErrorCode.WRITE_DATA_ERROR, e);
+        } catch (DataXException e) {
+            throw e;
+        } catch (Exception e) {
+            throw DataXException.asDataXException(DBUtilErrorCode.WRITE_DATA_ERROR, e);
+        } finally {
+            for (SubWriter subWriter : subWriters) {
+                subWriter.interrupt();
+            }
+            for (SubWriter subWriter : subWriters) {
+                try {
+                    subWriter.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                DBUtil.closeDBResources(null, null, subWriter.connection);
+            }
+        }
+    }
+
+    protected Connection openConnection() {
+        Connection connection = DBUtil.getConnection(this.task.dataBaseType,
+                this.task.jdbcUrl, this.task.username, this.task.password);
+        DBUtil.dealWithSessionConfig(connection, this.writerSliceConfig,
+                this.task.dataBaseType, CommonRdbmsWriter.Task.BASIC_MESSAGE);
+        return connection;
+    }
+
+    private int route(Record record) {
+        if (this.routeColumnIndex < 0) {
+            return (int) (this.roundRobin++ % this.writerThreadNumber);
+        }
+        Column column = record.getColumn(this.routeColumnIndex);
+        if (null == column.getRawData()) {
+            return 0;
+        }
+        if (null == this.stringRanges) {
+            return floorMod(hash(column), this.writerThreadNumber);
+        }
+        int range;
+        if (null != this.numericRanges) {
+            range = Arrays.binarySearch(this.numericRanges, column.asBigDecimal());
+        } else {
+            range = Arrays.binarySearch(this.stringRanges, column.asString());
+        }
+        // 等于分界值时属于分界值右侧的范围
+        range = range >= 0 ? range + 1 : -range - 1;
+        return range % this.writerThreadNumber;
+    }
+
+    private static int hash(Column column) {
+        switch (column.getType()) {
+            case INT:
+            case LONG:
+                long value = column.asLong();
+                return (int) (value ^ (value >>> 32));
+            default:
+                return column.asString().hashCode();
+        }
+    }
+
+    private static int floorMod(int value, int mod) {
+        int result = value % mod;
+        return result < 0 ? result + mod : result;
+    }
+
+    private void checkError() {
+        Throwable t = this.error.get();
+        if (null != t) {
+            if (t instanceof DataXException) {
+                throw (DataXException) t;
+            }
+            throw DataXException.asDataXException(DBUtilErrorCode.WRITE_DATA_ERROR, t);
+        }
+    }
+
+    private class SubWriter extends Thread {
+        private final Connection connection;
+
+        private final BlockingQueue<List<Record>> queue =
+                new ArrayBlockingQueue<List<Record>>(MAX_PENDING_BATCHES);
+
+        SubWriter(int index, Connection connection) {
+            super(Thread.currentThread().getName() + "-writer-" + index);
+            this.connection = connection;
+            setDaemon(true);
+        }
+
+        /**
+         * 队列满时阻塞；任一子线程失败后不再等待，直接抛出其异常
+         */
+        void submit(List<Record> batch) throws InterruptedException {
+            while (!this.queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                checkError();
+                if (!isAlive()) {
+                    throw DataXException.asDataXException(DBUtilErrorCode.WRITE_DATA_ERROR,
+                            String.format("写入线程[%s]已退出.", getName()));
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<Record> batch;
+                while ((batch = this.queue.take()) != END_OF_STREAM) {
+                    task.doBatchInsert(this.connection, batch);
+                    if (null != error.get()) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                // 读取线程结束或异常时中断，直接退出
+            } catch (Throwable t) {
+                LOG.error(String.format("写入线程[%s]异常退出.", getName()), t);
+                error.compareAndSet(null, t);
+            }
+        }
+    }
+}
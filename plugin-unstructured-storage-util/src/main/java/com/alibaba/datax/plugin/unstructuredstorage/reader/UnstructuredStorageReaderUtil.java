@@ -129,13 +129,14 @@ public class UnstructuredStorageReaderUtil {
 					reader = new BufferedReader(new InputStreamReader(
 							lzopInputStream, encoding));
 				} else if ("gzip".equalsIgnoreCase(compress)) {
+					// 多个gzip member首尾相接的文件（如并行压缩写出的文件）需要全部读取
 					CompressorInputStream compressorInputStream = new GzipCompressorInputStream(
-							inputStream);
+							inputStream, true);
 					reader = new BufferedReader(new InputStreamReader(
 							compressorInputStream, encoding), bufferSize);
 				} else if ("bzip2".equalsIgnoreCase(compress)) {
 					CompressorInputStream compressorInputStream = new BZip2CompressorInputStream(
-							inputStream);
+							inputStream, true);
 					reader = new BufferedReader(new InputStreamReader(
 							compressorInputStream, encoding), bufferSize);
 				} else if ("hadoop-snappy".equalsIgnoreCase(compress)) {
@@ -0,0 +1,62 @@
+package com.alibaba.datax.plugin.unstructuredstorage.writer;
+
+import com.alibaba.datax.common.util.Configuration;
+
+/**
+ * 单个task输出多个文件的轮转策略，按未压缩的数据量(maxFileSize, 单位MB)或记录数(maxRecordsPerFile)轮转，
+ * 两者都未配置时不轮转。
+ * <p/>
+ * 第一个文件沿用task的文件名，之后的文件依次加上 _1, _2 ... 后缀（压缩扩展名仍在最后）
+ */
+public class FileRollingPolicy {
+
+    private final long maxBytes;
+
+    private final long maxRecords;
+
+    private long bytes = 0;
+
+    private long records = 0;
+
+    public FileRollingPolicy(Configuration config) {
+        Long maxFileSizeInMB = config.getLong(Key.MAX_FILE_SIZE);
+        this.maxBytes = null == maxFileSizeInMB ? -1 : maxFileSizeInMB * 1024 * 1024;
+        this.maxRecords = config.getLong(Key.MAX_RECORDS_PER_FILE, -1L);
+    }
+
+    public static boolean isEnabled(Configuration config) {
+        return new FileRollingPolicy(config).isEnabled();
+    }
+
+    public static String rollingFileName(String fileName, int rollingNumber) {
+        if (rollingNumber <= 0) {
+            return fileName;
+        }
+        return String.format("%s_%s", fileName, rollingNumber);
+    }
+
+    public boolean isEnabled() {
+        return this.maxBytes > 0 || this.maxRecords > 0;
+    }
+
+    /**
+     * 记录已写入当前文件的一条记录
+     */
+    public void append(long recordBytes) {
+        this.bytes += recordBytes;
+        this.records++;
+    }
+
+    /**
+     * 在写下一条记录前调用，当前文件已满时返回true
+     */
+    public boolean shouldRoll() {
+        return (this.maxBytes > 0 && this.bytes >= this.maxBytes)
+                || (this.maxRecords > 0 && this.records >= this.maxRecords);
+    }
+
+    public void reset() {
+        this.bytes = 0;
+        this.records = 0;
+    }
+}
@@ -38,6 +38,12 @@ public class Key {
     
     // writer maxFileSize
     public static final String MAX_FILE_SIZE = "maxFileSize";
+
+    // writer max records per file, roll to a new file when reached
+    public static final String MAX_RECORDS_PER_FILE = "maxRecordsPerFile";
+
+    // gzip/bzip2 compress thread number, more than 1 means block-parallel compression
+    public static final String COMPRESS_THREAD_NUMBER = "compressThreadNumber";
     
     // writer file type suffix, like .txt  .csv
     public static final String SUFFIX = "suffix";
@@ -0,0 +1,166 @@
+package com.alibaba.datax.plugin.unstructuredstorage.writer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+
+import com.alibaba.datax.common.exception.DataXException;
+
+/**
+ * 分块并行压缩输出流（类似pigz）：数据按块切分，每块在后台线程中独立压缩为一个完整的gzip/bzip2 stream，
+ * 再按原顺序写入下游。多个gzip member或bzip2 stream首尾相接仍是合法的压缩文件，
+ * gzip/bzip2命令行、hadoop codec以及开启decompressConcatenated的commons-compress均可完整读取。
+ * <p/>
+ * 写入线程只负责切块和按序输出，同时在途的块数有上限，内存占用约为 2 * threadNumber * 块大小
+ */
+public class ParallelCompressorOutputStream extends OutputStream {
+    private static final int BLOCK_SIZE = 1024 * 1024;
+
+    private static final AtomicInteger THREAD_SEQUENCE = new AtomicInteger(0);
+
+    private final OutputStream out;
+
+    private final boolean gzip;
+
+    private final ExecutorService executor;
+
+    private final int maxPendingBlocks;
+
+    private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<Future<byte[]>>();
+
+    private byte[] block = new byte[BLOCK_SIZE];
+
+    private int count = 0;
+
+    private long submittedBlocks = 0;
+
+    private boolean closed = false;
+
+    public ParallelCompressorOutputStream(OutputStream out, String compress, int threadNumber) {
+        if ("gzip".equalsIgnoreCase(compress)) {
+            this.gzip = true;
+        } else if ("bzip2".equalsIgnoreCase(compress)) {
+            this.gzip = false;
+        } else {
+            throw DataXException.asDataXException(
+                    UnstructuredStorageWriterErrorCode.ILLEGAL_VALUE,
+                    String.format("并行压缩仅支持gzip和bzip2, 不支持您配置的 compress : [%s]", compress));
+        }
+        this.out = out;
+        this.maxPendingBlocks = threadNumber * 2;
+        this.executor = Executors.newFixedThreadPool(threadNumber, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "compress-" + THREAD_SEQUENCE.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (this.count == this.block.length) {
+            submitBlock();
+        }
+        this.block[this.count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (this.count == this.block.length) {
+                submitBlock();
+            }
+            int copy = Math.min(length, this.block.length - this.count);
+            System.arraycopy(bytes, offset, this.block, this.count, copy);
+            this.count += copy;
+            offset += copy;
+            length -= copy;
+        }
+    }
+
+    /**
+     * 把已缓存的数据压缩并全部写出，频繁调用会产生很多小块，降低压缩率
+     */
+    @Override
+    public void flush() throws IOException {
+        if (this.count > 0) {
+            submitBlock();
+        }
+        while (!this.pendingBlocks.isEmpty()) {
+            writeFirstPendingBlock();
+        }
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            // 没有任何数据时也输出一个空的压缩stream，与单线程压缩的结果一致
+            if (this.count > 0 || this.submittedBlocks == 0) {
+                submitBlock();
+            }
+            flush();
+        } finally {
+            this.executor.shutdownNow();
+            this.out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        final byte[] data = this.block;
+        final int length = this.count;
+        this.pendingBlocks.addLast(this.executor.submit(new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws Exception {
+                return compress(data, length);
+            }
+        }));
+        this.submittedBlocks++;
+        this.block = new byte[BLOCK_SIZE];
+        this.count = 0;
+
+        while (this.pendingBlocks.size() > this.maxPendingBlocks) {
+            writeFirstPendingBlock();
+        }
+    }
+
+    private void writeFirstPendingBlock() throws IOException {
+        Future<byte[]> future = this.pendingBlocks.pollFirst();
+        try {
+            this.out.write(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private byte[] compress(byte[] data, int length) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 64);
+        OutputStream compressor = this.gzip
+                ? new GzipCompressorOutputStream(compressed)
+                : new BZip2CompressorOutputStream(compressed);
+        compressor.write(data, 0, length);
+        compressor.close();
+        return compressed.toByteArray();
+    }
+}
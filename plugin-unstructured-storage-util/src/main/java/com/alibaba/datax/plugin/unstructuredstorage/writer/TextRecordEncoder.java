@@ -0,0 +1,357 @@
+package com.alibaba.datax.plugin.unstructuredstorage.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.datax.common.element.BytesColumn;
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.DateColumn;
+import com.alibaba.datax.common.element.LongColumn;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.plugin.TaskPluginCollector;
+import com.alibaba.datax.common.util.Configuration;
+
+/**
+ * 直接把Record编码成字节的text/csv编码器，输出与 TextWriterImpl/CsvWriterImpl 保持一致：
+ * 1. 不再为每条记录构造List<String>，也不经过Writer的字符编码链路
+ * 2. ASCII字符直接写入字节缓存，只有含非ASCII字符的字段才调用String.getBytes
+ * 3. 整数列直接输出数字，日期列缓存上一次的格式化结果
+ * 4. csv只在字段需要时才加引号转义，规则同DataXCsvWriter的默认配置
+ * <p/>
+ * 只支持ASCII兼容的编码，csv配置了csvWriterConfig时也不支持，见 isSupported
+ */
+public class TextRecordEncoder implements UnstructuredRecordEncoder {
+    private static final Logger LOG = LoggerFactory.getLogger(TextRecordEncoder.class);
+
+    private static final char CSV_TEXT_QUALIFIER = '"';
+
+    private static final char CSV_COMMENT = '#';
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final boolean csv;
+
+    private final Charset charset;
+
+    private final String nullFormat;
+
+    private final DateFormat dateParse;
+
+    private final boolean base64Bytes;
+
+    private final byte[] fieldDelimiterBytes;
+
+    private final byte[] lineDelimiterBytes;
+
+    private final char csvFieldDelimiter;
+
+    private final char csvRecordDelimiter;
+
+    /**
+     * csv的分隔符本身是数字或负号时，整数也可能需要加引号，此时不走直接输出数字的逻辑
+     */
+    private final boolean writeLongDirectly;
+
+    private final byte[] digits = new byte[20];
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+
+    private int count = 0;
+
+    private boolean firstColumn = true;
+
+    private long lastDateMillis;
+
+    private int lastDateSubType = -1;
+
+    private String lastDateString;
+
+    public TextRecordEncoder(String fileFormat, Configuration config) {
+        this.csv = StringUtils.equalsIgnoreCase(fileFormat, Constant.FILE_FORMAT_CSV);
+        this.charset = Charset.forName(getEncoding(config));
+
+        String nullFormat = config.getString(Key.NULL_FORMAT);
+        // warn: default is null
+        this.nullFormat = null == nullFormat ? "null" : nullFormat;
+
+        String dateFormat = config.getString(Key.DATE_FORMAT);
+        this.dateParse = StringUtils.isNotBlank(dateFormat) ? new SimpleDateFormat(dateFormat) : null;
+        this.base64Bytes = "base64".equalsIgnoreCase(config.getString(Key.BYTE_ENCODING));
+
+        String lineDelimiter = config.getString(Key.LINE_DELIMITER, IOUtils.LINE_SEPARATOR);
+        if (this.csv) {
+            this.csvFieldDelimiter = config.getChar(Key.FIELD_DELIMITER, Constant.DEFAULT_FIELD_DELIMITER);
+            // 同CsvWriterImpl，只取lineDelimiter的第一个字符
+            this.csvRecordDelimiter = lineDelimiter.charAt(0);
+            this.fieldDelimiterBytes = String.valueOf(this.csvFieldDelimiter).getBytes(this.charset);
+            this.lineDelimiterBytes = String.valueOf(this.csvRecordDelimiter).getBytes(this.charset);
+            this.writeLongDirectly = !isDigitOrMinus(this.csvFieldDelimiter)
+                    && !isDigitOrMinus(this.csvRecordDelimiter);
+        } else {
+            this.csvFieldDelimiter = Constant.DEFAULT_FIELD_DELIMITER;
+            this.csvRecordDelimiter = 0;
+            this.fieldDelimiterBytes = config.getString(Key.FIELD_DELIMITER,
+                    String.valueOf(Constant.DEFAULT_FIELD_DELIMITER)).getBytes(this.charset);
+            this.lineDelimiterBytes = lineDelimiter.getBytes(this.charset);
+            this.writeLongDirectly = true;
+        }
+    }
+
+    /**
+     * @return 该配置能否使用字节编码器，不支持时应退回到UnstructuredWriter
+     */
+    public static boolean isSupported(String fileFormat, Configuration config) {
+        if (StringUtils.equalsIgnoreCase(fileFormat, Constant.FILE_FORMAT_CSV)) {
+            if (StringUtils.isNotBlank(config.getString(Key.CSV_WRITER_CONFIG))) {
+                return false;
+            }
+        } else if (!StringUtils.equalsIgnoreCase(fileFormat, Constant.FILE_FORMAT_TEXT)) {
+            return false;
+        }
+        try {
+            return isAsciiCompatible(Charset.forName(getEncoding(config)));
+        } catch (Exception e) {
+            // 非法编码交给原有逻辑报错
+            return false;
+        }
+    }
+
+    private static String getEncoding(Configuration config) {
+        String encoding = config.getString(Key.ENCODING, Constant.DEFAULT_ENCODING);
+        // handle blank encoding
+        return StringUtils.isBlank(encoding) ? Constant.DEFAULT_ENCODING : encoding;
+    }
+
+    /**
+     * ASCII字符按单字节原样编码，且编码无状态（如UTF-16每次getBytes都会带BOM，不满足）
+     */
+    private static boolean isAsciiCompatible(Charset charset) {
+        char[] ascii = new char[128];
+        for (int i = 0; i < ascii.length; i++) {
+            ascii[i] = (char) i;
+        }
+        byte[] encoded = new String(ascii).getBytes(charset);
+        if (encoded.length != ascii.length) {
+            return false;
+        }
+        for (int i = 0; i < encoded.length; i++) {
+            if (encoded[i] != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigitOrMinus(char c) {
+        return c == '-' || (c >= '0' && c <= '9');
+    }
+
+    @Override
+    public void writeHeader(List<String> header) throws IOException {
+        if (header.isEmpty()) {
+            LOG.info("Found one record line which is empty.");
+            if (this.csv) {
+                return;
+            }
+        }
+        for (String field : header) {
+            appendField(field);
+        }
+        endRecord();
+    }
+
+    /**
+     * 异常表示脏数据，规则同 UnstructuredStorageWriterUtil.transportOneRecord
+     */
+    @Override
+    public void writeRecord(Record record, TaskPluginCollector taskPluginCollector) {
+        int mark = this.count;
+        try {
+            int recordLength = record.getColumnNumber();
+            if (0 == recordLength) {
+                LOG.info("Found one record line which is empty.");
+                if (this.csv) {
+                    return;
+                }
+            }
+            for (int i = 0; i < recordLength; i++) {
+                appendColumn(record.getColumn(i));
+            }
+            endRecord();
+        } catch (IllegalArgumentException e) {
+            // warn: dirty data
+            rollback(mark);
+            taskPluginCollector.collectDirtyRecord(record, e);
+        } catch (DataXException e) {
+            // warn: dirty data
+            rollback(mark);
+            taskPluginCollector.collectDirtyRecord(record, e);
+        } catch (Exception e) {
+            rollback(mark);
+            throw DataXException.asDataXException(
+                    UnstructuredStorageWriterErrorCode.Write_ERROR, e.getMessage(), e);
+        }
+    }
+
+    private void appendColumn(Column column) {
+        Object rawData = column.getRawData();
+        if (null == rawData) {
+            // warn: it's all ok if nullFormat is null
+            appendField(this.nullFormat);
+        } else if (column instanceof LongColumn && this.writeLongDirectly
+                && ((BigInteger) rawData).bitLength() < 64) {
+            beginField();
+            appendLong(((BigInteger) rawData).longValue());
+        } else if (column instanceof DateColumn) {
+            appendField(formatDate((DateColumn) column));
+        } else if (column instanceof BytesColumn && this.base64Bytes) {
+            appendField(Base64.encodeBase64String(column.asBytes()));
+        } else {
+            appendField(column.asString());
+        }
+    }
+
+    private String formatDate(DateColumn column) {
+        long millis = column.asLong();
+        int subType = null == this.dateParse ? column.getSubType().ordinal() : 0;
+        if (null != this.lastDateString && millis == this.lastDateMillis && subType == this.lastDateSubType) {
+            return this.lastDateString;
+        }
+        String formatted = null == this.dateParse ? column.asString() : this.dateParse.format(column.asDate());
+        this.lastDateMillis = millis;
+        this.lastDateSubType = subType;
+        this.lastDateString = formatted;
+        return formatted;
+    }
+
+    private void beginField() {
+        if (!this.firstColumn) {
+            appendBytes(this.fieldDelimiterBytes);
+        }
+        this.firstColumn = false;
+    }
+
+    private void appendField(String value) {
+        if (!this.csv) {
+            beginField();
+            // 同StringUtils.join，null输出为空串
+            appendString(null == value ? "" : value);
+            return;
+        }
+
+        // 以下规则同DataXCsvWriter.write(value, false)在CsvWriterImpl默认配置下的行为
+        if (null == value) {
+            value = "";
+        }
+        if (value.length() > 0) {
+            value = value.trim();
+        }
+        boolean needQualifier = value.indexOf(CSV_TEXT_QUALIFIER) > -1
+                || value.indexOf(this.csvFieldDelimiter) > -1
+                || value.indexOf(this.csvRecordDelimiter) > -1
+                || (this.firstColumn && (value.length() == 0 || value.charAt(0) == CSV_COMMENT));
+        beginField();
+        if (!needQualifier) {
+            appendString(value);
+            return;
+        }
+        ensureCapacity(1);
+        this.buffer[this.count++] = (byte) CSV_TEXT_QUALIFIER;
+        appendString(StringUtils.replace(value, "\"", "\"\""));
+        ensureCapacity(1);
+        this.buffer[this.count++] = (byte) CSV_TEXT_QUALIFIER;
+    }
+
+    private void endRecord() {
+        appendBytes(this.lineDelimiterBytes);
+        this.firstColumn = true;
+    }
+
+    private void rollback(int mark) {
+        this.count = mark;
+        this.firstColumn = true;
+    }
+
+    private void appendString(String value) {
+        int length = value.length();
+        ensureCapacity(length);
+        int start = this.count;
+        byte[] buf = this.buffer;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                this.count = start;
+                appendBytes(value.getBytes(this.charset));
+                return;
+            }
+            buf[start + i] = (byte) c;
+        }
+        this.count = start + length;
+    }
+
+    private void appendLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            appendString(Long.toString(value));
+            return;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            this.buffer[this.count++] = '-';
+            value = -value;
+        }
+        int pos = this.digits.length;
+        do {
+            this.digits[--pos] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        int length = this.digits.length - pos;
+        System.arraycopy(this.digits, pos, this.buffer, this.count, length);
+        this.count += length;
+    }
+
+    private void appendBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, this.buffer, this.count, bytes.length);
+        this.count += bytes.length;
+    }
+
+    private void ensureCapacity(int length) {
+        if (this.count + length > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length << 1, this.count + length));
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.count;
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        return Arrays.copyOf(this.buffer, this.count);
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(this.buffer, 0, this.count);
+    }
+
+    @Override
+    public void reset() {
+        this.count = 0;
+        this.firstColumn = true;
+    }
+}
@@ -0,0 +1,37 @@
+package com.alibaba.datax.plugin.unstructuredstorage.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.plugin.TaskPluginCollector;
+
+/**
+ * 将Record编码为text/csv行并缓存在内存中，由调用方决定何时输出（写文件流或上传分块）
+ * <p/>
+ * 通过 UnstructuredStorageWriterUtil.produceRecordEncoder 获取实例，非线程安全
+ */
+public interface UnstructuredRecordEncoder {
+
+    public void writeHeader(List<String> header) throws IOException;
+
+    /**
+     * 转换失败的记录作为脏数据收集，不会残留在缓存中
+     */
+    public void writeRecord(Record record, TaskPluginCollector taskPluginCollector);
+
+    /**
+     * @return 当前缓存的大小，用于判断是否需要输出
+     */
+    public int size();
+
+    public byte[] toByteArray() throws IOException;
+
+    public void writeTo(OutputStream outputStream) throws IOException;
+
+    /**
+     * 清空缓存
+     */
+    public void reset();
+}
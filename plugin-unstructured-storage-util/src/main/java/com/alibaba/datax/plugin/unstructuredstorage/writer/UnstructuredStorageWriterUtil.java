@@ -11,7 +11,6 @@ import java.util.UUID;
 
 import com.alibaba.datax.common.element.BytesColumn;
 import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.compress.compressors.CompressorOutputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
 import org.apache.commons.io.Charsets;
@@ -37,6 +36,11 @@ public class UnstructuredStorageWriterUtil {
     private static final Logger LOG = LoggerFactory
             .getLogger(UnstructuredStorageWriterUtil.class);
 
+    /**
+     * 字节编码器积攒到该大小后写一次输出流
+     */
+    private static final int ENCODER_FLUSH_SIZE = 64 * 1024;
+
     /**
      * check parameter: writeMode, encoding, compress, filedDelimiter
      * */
@@ -175,33 +179,22 @@ public class UnstructuredStorageWriterUtil {
             encoding = Constant.DEFAULT_ENCODING;
         }
         String compress = config.getString(Key.COMPRESS);
+        String fileFormat = config.getString(Key.FILE_FORMAT, Constant.FILE_FORMAT_TEXT);
 
+        OutputStream out = null;
         BufferedWriter writer = null;
         // compress logic
         try {
-            if (null == compress) {
-                writer = new BufferedWriter(new OutputStreamWriter(
-                        outputStream, encoding));
+            out = produceCompressOutputStream(outputStream, compress,
+                    config.getInt(Key.COMPRESS_THREAD_NUMBER, 1));
+            if (TextRecordEncoder.isSupported(fileFormat, config)) {
+                UnstructuredStorageWriterUtil.doEncodeToStream(lineReceiver, out,
+                        fileFormat, config, taskPluginCollector);
             } else {
-                // TODO more compress
-                if ("gzip".equalsIgnoreCase(compress)) {
-                    CompressorOutputStream compressorOutputStream = new GzipCompressorOutputStream(
-                            outputStream);
-                    writer = new BufferedWriter(new OutputStreamWriter(
-                            compressorOutputStream, encoding));
-                } else if ("bzip2".equalsIgnoreCase(compress)) {
-                    CompressorOutputStream compressorOutputStream = new BZip2CompressorOutputStream(
-                            outputStream);
-                    writer = new BufferedWriter(new OutputStreamWriter(
-                            compressorOutputStream, encoding));
-                } else {
-                    throw DataXException
-                            .asDataXException(
-                                    UnstructuredStorageWriterErrorCode.ILLEGAL_VALUE, compress);
-                }
+                writer = new BufferedWriter(new OutputStreamWriter(out, encoding));
+                UnstructuredStorageWriterUtil.doWriteToStream(lineReceiver, writer,
+                        context, config, taskPluginCollector);
             }
-            UnstructuredStorageWriterUtil.doWriteToStream(lineReceiver, writer,
-                    context, config, taskPluginCollector);
         } catch (UnsupportedEncodingException uee) {
             throw DataXException
                     .asDataXException(
@@ -213,10 +206,131 @@ public class UnstructuredStorageWriterUtil {
             throw DataXException.asDataXException(
                     UnstructuredStorageWriterErrorCode.Write_FILE_IO_ERROR, e);
         } finally {
-            IOUtils.closeQuietly(writer);
+            if (null != writer) {
+                IOUtils.closeQuietly(writer);
+            } else {
+                IOUtils.closeQuietly(out);
+            }
+        }
+    }
+
+    /**
+     * 按轮转序号打开输出文件，序号从0开始
+     */
+    public interface RollingOutputStreamProvider {
+        OutputStream open(int rollingNumber) throws IOException;
+    }
+
+    /**
+     * 与writeToStream相同，但按 FileRollingPolicy 在文件写满时关闭当前流并打开下一个，每个文件都会写header
+     */
+    public static void writeToRollingStreams(RecordReceiver lineReceiver,
+                                             RollingOutputStreamProvider streamProvider, Configuration config,
+                                             String context, TaskPluginCollector taskPluginCollector) {
+        String compress = config.getString(Key.COMPRESS);
+        int compressThreadNumber = config.getInt(Key.COMPRESS_THREAD_NUMBER, 1);
+        String fileFormat = config.getString(Key.FILE_FORMAT, Constant.FILE_FORMAT_TEXT);
+        List<String> headers = config.getList(Key.HEADER, String.class);
+        boolean hasHeader = null != headers && !headers.isEmpty();
+
+        FileRollingPolicy rollingPolicy = new FileRollingPolicy(config);
+        UnstructuredRecordEncoder encoder = produceRecordEncoder(fileFormat, config);
+        int rollingNumber = 0;
+        OutputStream out = null;
+        try {
+            out = produceCompressOutputStream(streamProvider.open(rollingNumber), compress, compressThreadNumber);
+            if (hasHeader) {
+                encoder.writeHeader(headers);
+            }
+
+            Record record = null;
+            while ((record = lineReceiver.getFromReader()) != null) {
+                if (rollingPolicy.shouldRoll()) {
+                    encoder.writeTo(out);
+                    encoder.reset();
+                    out.close();
+                    rollingNumber++;
+                    LOG.info(String.format("[%s] roll to file number [%s]", context, rollingNumber));
+                    out = produceCompressOutputStream(streamProvider.open(rollingNumber), compress,
+                            compressThreadNumber);
+                    if (hasHeader) {
+                        encoder.writeHeader(headers);
+                    }
+                    rollingPolicy.reset();
+                }
+
+                int sizeBefore = encoder.size();
+                encoder.writeRecord(record, taskPluginCollector);
+                // 脏数据不计入
+                if (encoder.size() > sizeBefore) {
+                    rollingPolicy.append(encoder.size() - sizeBefore);
+                }
+                if (encoder.size() >= ENCODER_FLUSH_SIZE) {
+                    encoder.writeTo(out);
+                    encoder.reset();
+                }
+            }
+            encoder.writeTo(out);
+            encoder.reset();
+            out.flush();
+        } catch (UnsupportedEncodingException uee) {
+            throw DataXException
+                    .asDataXException(
+                            UnstructuredStorageWriterErrorCode.Write_FILE_WITH_CHARSET_ERROR, uee);
+        } catch (IOException e) {
+            throw DataXException.asDataXException(
+                    UnstructuredStorageWriterErrorCode.Write_FILE_IO_ERROR, e);
+        } finally {
+            IOUtils.closeQuietly(out);
         }
     }
 
+    /**
+     * @param compressThreadNumber 大于1时gzip/bzip2使用分块并行压缩
+     */
+    public static OutputStream produceCompressOutputStream(OutputStream outputStream, String compress,
+                                                           int compressThreadNumber) throws IOException {
+        if (null == compress) {
+            return outputStream;
+        }
+        // TODO more compress
+        if (!"gzip".equalsIgnoreCase(compress) && !"bzip2".equalsIgnoreCase(compress)) {
+            throw DataXException
+                    .asDataXException(
+                            UnstructuredStorageWriterErrorCode.ILLEGAL_VALUE, compress);
+        }
+        if (compressThreadNumber > 1) {
+            return new ParallelCompressorOutputStream(outputStream, compress, compressThreadNumber);
+        }
+        if ("gzip".equalsIgnoreCase(compress)) {
+            return new GzipCompressorOutputStream(outputStream);
+        }
+        return new BZip2CompressorOutputStream(outputStream);
+    }
+
+    private static void doEncodeToStream(RecordReceiver lineReceiver,
+                                         OutputStream out, String fileFormat, Configuration config,
+                                         TaskPluginCollector taskPluginCollector) throws IOException {
+        UnstructuredRecordEncoder encoder = new TextRecordEncoder(fileFormat, config);
+
+        List<String> headers = config.getList(Key.HEADER, String.class);
+        if (null != headers && !headers.isEmpty()) {
+            encoder.writeHeader(headers);
+        }
+
+        Record record = null;
+        while ((record = lineReceiver.getFromReader()) != null) {
+            encoder.writeRecord(record, taskPluginCollector);
+            if (encoder.size() >= ENCODER_FLUSH_SIZE) {
+                encoder.writeTo(out);
+                encoder.reset();
+            }
+        }
+        encoder.writeTo(out);
+        encoder.reset();
+        out.flush();
+    }
+
     private static void doWriteToStream(RecordReceiver lineReceiver,
                                         BufferedWriter writer, String contex, Configuration config,
                                         TaskPluginCollector taskPluginCollector) throws IOException {
@@ -267,6 +381,16 @@ public class UnstructuredStorageWriterUtil {
         return unstructuredWriter;
     }
 
+    /**
+     * 能使用字节编码器时返回 TextRecordEncoder，否则退回到基于 UnstructuredWriter 的实现
+     */
+    public static UnstructuredRecordEncoder produceRecordEncoder(String fileFormat, Configuration config) {
+        if (TextRecordEncoder.isSupported(fileFormat, config)) {
+            return new TextRecordEncoder(fileFormat, config);
+        }
+        return new UnstructuredWriterRecordEncoder(fileFormat, config);
+    }
+
     /**
      * 异常表示脏数据
      * */
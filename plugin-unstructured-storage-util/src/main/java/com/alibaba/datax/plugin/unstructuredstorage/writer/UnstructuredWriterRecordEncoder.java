@@ -0,0 +1,73 @@
+package com.alibaba.datax.plugin.unstructuredstorage.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.plugin.TaskPluginCollector;
+import com.alibaba.datax.common.util.Configuration;
+
+/**
+ * TextRecordEncoder 不支持的配置（如csvWriterConfig、非ASCII兼容编码）沿用
+ * UnstructuredWriter + StringWriter 的实现，size按字符数计算
+ */
+class UnstructuredWriterRecordEncoder implements UnstructuredRecordEncoder {
+    private final StringWriter stringWriter = new StringWriter();
+
+    private final UnstructuredWriter unstructuredWriter;
+
+    private final String encoding;
+
+    private final String nullFormat;
+
+    private final DateFormat dateParse;
+
+    private final String byteEncoding;
+
+    UnstructuredWriterRecordEncoder(String fileFormat, Configuration config) {
+        this.unstructuredWriter = UnstructuredStorageWriterUtil.produceUnstructuredWriter(
+                fileFormat, config, this.stringWriter);
+        this.encoding = config.getString(Key.ENCODING, Constant.DEFAULT_ENCODING);
+        this.nullFormat = config.getString(Key.NULL_FORMAT);
+        String dateFormat = config.getString(Key.DATE_FORMAT);
+        this.dateParse = StringUtils.isNotBlank(dateFormat) ? new SimpleDateFormat(dateFormat) : null;
+        this.byteEncoding = config.getString(Key.BYTE_ENCODING);
+    }
+
+    @Override
+    public void writeHeader(List<String> header) throws IOException {
+        this.unstructuredWriter.writeOneRecord(header);
+    }
+
+    @Override
+    public void writeRecord(Record record, TaskPluginCollector taskPluginCollector) {
+        UnstructuredStorageWriterUtil.transportOneRecord(record, this.nullFormat, this.dateParse,
+                taskPluginCollector, this.unstructuredWriter, this.byteEncoding);
+    }
+
+    @Override
+    public int size() {
+        return this.stringWriter.getBuffer().length();
+    }
+
+    @Override
+    public byte[] toByteArray() throws IOException {
+        return this.stringWriter.toString().getBytes(this.encoding);
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(toByteArray());
+    }
+
+    @Override
+    public void reset() {
+        this.stringWriter.getBuffer().setLength(0);
+    }
+}
@@ -0,0 +1,286 @@
+package com.alibaba.datax.plugin.writer.sqlserverwriter;
+
+import com.alibaba.datax.common.element.Column;
+import com.alibaba.datax.common.element.Record;
+import com.alibaba.datax.common.exception.DataXException;
+import com.alibaba.datax.common.plugin.RecordReceiver;
+import com.alibaba.datax.common.plugin.TaskPluginCollector;
+import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.plugin.rdbms.util.DBUtil;
+import com.alibaba.datax.plugin.rdbms.util.DBUtilErrorCode;
+import com.alibaba.datax.plugin.rdbms.util.DataBaseType;
+import com.alibaba.datax.plugin.rdbms.writer.CommonRdbmsWriter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 使用 SQLServerBulkCopy 批量写入：每个批次作为一次 bulk copy 提交（内部事务，批次内原子），
+ * 批次失败时回退为逐条 insert，由 doOneInsert 收集脏数据。
+ * <p/>
+ * 随插件发布的 sqljdbc4-4.0 不包含 bulk copy API，需要把插件 libs 下的驱动替换为 mssql-jdbc 4.2 及以上版本，
+ * 因此这里通过反射调用，避免编译期依赖特定版本的驱动。
+ */
+public class SqlServerBulkCopyWriterTask extends CommonRdbmsWriter.Task {
+    private static final String BULK_COPY_CLASS = "com.microsoft.sqlserver.jdbc.SQLServerBulkCopy";
+
+    private static final String BULK_COPY_OPTIONS_CLASS = "com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions";
+
+    private Class<?> bulkCopyClass;
+
+    private Class<?> bulkCopyOptionsClass;
+
+    // 新版驱动为 ISQLServerBulkData，旧版为 ISQLServerBulkRecord
+    private Class<?> bulkRecordClass;
+
+    private Method writeToServer;
+
+    private String[] destinationColumns;
+
+    private int[] precisions;
+
+    private int[] scales;
+
+    public SqlServerBulkCopyWriterTask() {
+        super(DataBaseType.SQLServer);
+    }
+
+    @Override
+    public void init(Configuration writerSliceConfig) {
+        super.init(writerSliceConfig);
+        try {
+            this.bulkCopyClass = Class.forName(BULK_COPY_CLASS);
+            this.bulkCopyOptionsClass = Class.forName(BULK_COPY_OPTIONS_CLASS);
+        } catch (ClassNotFoundException e) {
+            throw DataXException.asDataXException(DBUtilErrorCode.CONF_ERROR,
+                    "您配置了 bulkLoad, 但当前的 SQLServer 驱动不支持 bulk copy. 请将插件 libs 下的驱动替换为 mssql-jdbc 4.2 及以上版本.", e);
+        }
+        for (Method method : this.bulkCopyClass.getMethods()) {
+            if ("writeToServer".equals(method.getName()) && method.getParameterTypes().length == 1
+                    && method.getParameterTypes()[0].isInterface()
+                    && method.getParameterTypes()[0].getSimpleName().startsWith("ISQLServerBulk")) {
+                this.writeToServer = method;
+                this.bulkRecordClass = method.getParameterTypes()[0];
+            }
+        }
+        if (null == this.writeToServer) {
+            throw DataXException.asDataXException(DBUtilErrorCode.CONF_ERROR,
+                    "当前的 SQLServer 驱动不支持以 ISQLServerBulkRecord/ISQLServerBulkData 方式 bulk copy. 请升级驱动版本.");
+        }
+    }
+
+    @Override
+    public void startWriteWithConnection(RecordReceiver recordReceiver, TaskPluginCollector taskPluginCollector,
+                                         Connection connection) {
+        try {
+            loadColumnPrecisions(connection);
+        } catch (SQLException e) {
+            DBUtil.closeDBResources(null, null, connection);
+            throw DataXException.asDataXException(DBUtilErrorCode.GET_COLUMN_INFO_FAILED,
+                    String.format("获取表:%s 的字段精度信息时失败. 请联系 DBA 核查该库、表信息.", this.table), e);
+        }
+        super.startWriteWithConnection(recordReceiver, taskPluginCollector, connection);
+    }
+
+    /**
+     * bulk copy 需要源数据的精度信息，这里直接使用目的表字段的精度
+     */
+    private void loadColumnPrecisions(Connection connection) throws SQLException {
+        Statement statement = null;
+        ResultSet rs = null;
+        try {
+            statement = connection.createStatement();
+            rs = statement.executeQuery(String.format("select %s from %s where 1=2",
+                    StringUtils.join(this.columns, ","), this.table));
+            ResultSetMetaData metaData = rs.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            this.destinationColumns = new String[columnCount];
+            this.precisions = new int[columnCount];
+            this.scales = new int[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                this.destinationColumns[i] = metaData.getColumnName(i + 1);
+                this.precisions[i] = metaData.getPrecision(i + 1);
+                this.scales[i] = metaData.getScale(i + 1);
+            }
+        } finally {
+            DBUtil.closeDBResources(rs, statement, null);
+        }
+    }
+
+    @Override
+    protected void doBatchInsert(Connection connection, List<Record> buffer) throws SQLException {
+        Object bulkCopy = null;
+        try {
+            connection.setAutoCommit(true);
+            bulkCopy = this.bulkCopyClass.getConstructor(Connection.class).newInstance(connection);
+            Object options = this.bulkCopyOptionsClass.newInstance();
+            invoke(options, "setUseInternalTransaction", new Class[]{boolean.class}, true);
+            invoke(options, "setBulkCopyTimeout", new Class[]{int.class}, 0);
+            invoke(bulkCopy, "setBulkCopyOptions", new Class[]{this.bulkCopyOptionsClass}, options);
+            invoke(bulkCopy, "setDestinationTableName", new Class[]{String.class}, this.table);
+            for (int i = 0; i < this.destinationColumns.length; i++) {
+                invoke(bulkCopy, "addColumnMapping", new Class[]{int.class, String.class},
+                        i + 1, this.destinationColumns[i]);
+            }
+            this.writeToServer.invoke(bulkCopy, newBulkRecord(buffer));
+        } catch (Exception e) {
+            Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+            LOG.warn("bulk copy 写入失败, 采用每次写入一行方式提交. 因为:" + cause.getMessage());
+            doOneInsert(connection, buffer);
+        } finally {
+            if (null != bulkCopy) {
+                try {
+                    invoke(bulkCopy, "close", new Class[0]);
+                } catch (Exception ignored) {
+                }
+            }
+        }
+    }
+
+    private static Object invoke(Object target, String name, Class<?>[] parameterTypes, Object... args)
+            throws Exception {
+        return target.getClass().getMethod(name, parameterTypes).invoke(target, args);
+    }
+
+    private Object newBulkRecord(List<Record> buffer) {
+        return Proxy.newProxyInstance(this.bulkRecordClass.getClassLoader(),
+                new Class[]{this.bulkRecordClass}, new BulkRecordHandler(buffer.iterator()));
+    }
+
+    /**
+     * 按目的表字段类型把 Column 转换为 bulk copy 需要的 java 对象，转换规则同 fillPreparedStatementColumnType
+     */
+    private Object convert(int columnIndex, Column column) {
+        if (null == column.getRawData()) {
+            return null;
+        }
+        int columnSqlType = this.resultSetMetaData.getMiddle().get(columnIndex);
+        switch (columnSqlType) {
+            case Types.CHAR:
+            case Types.NCHAR:
+            case Types.CLOB:
+            case Types.NCLOB:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return column.asString();
+            case Types.TINYINT:
+            case Types.SMALLINT:
+                return column.asLong().shortValue();
+            case Types.INTEGER:
+                return column.asLong().intValue();
+            case Types.BIGINT:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+            case Types.FLOAT:
+            case Types.REAL:
+            case Types.DOUBLE:
+                if (this.emptyAsNull && "".equals(column.asString())) {
+                    return null;
+                }
+                if (columnSqlType == Types.BIGINT) {
+                    return column.asLong();
+                } else if (columnSqlType == Types.REAL) {
+                    return column.asDouble().floatValue();
+                } else if (columnSqlType == Types.FLOAT || columnSqlType == Types.DOUBLE) {
+                    return column.asDouble();
+                }
+                return column.asBigDecimal();
+            case Types.DATE:
+                return new java.sql.Date(column.asDate().getTime());
+            case Types.TIME:
+                return new java.sql.Time(column.asDate().getTime());
+            case Types.TIMESTAMP:
+                return new java.sql.Timestamp(column.asDate().getTime());
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.BLOB:
+            case Types.LONGVARBINARY:
+                return column.asBytes();
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return column.asBoolean();
+            default:
+                throw DataXException.asDataXException(DBUtilErrorCode.UNSUPPORTED_TYPE,
+                        String.format(
+                                "您的配置文件中的列配置信息有误. 因为DataX 不支持数据库写入这种字段类型. 字段名:[%s], 字段类型:[%d], 字段Java类型:[%s]. 请修改表中该字段的类型或者不同步该字段.",
+                                this.resultSetMetaData.getLeft().get(columnIndex),
+                                this.resultSetMetaData.getMiddle().get(columnIndex),
+                                this.resultSetMetaData.getRight().get(columnIndex)));
+        }
+    }
+
+    /**
+     * ISQLServerBulkRecord/ISQLServerBulkData 的实现：逐条遍历批次中的记录，列序号从1开始
+     */
+    private class BulkRecordHandler implements InvocationHandler {
+        private final Iterator<Record> records;
+
+        private final Set<Integer> columnOrdinals = new LinkedHashSet<Integer>();
+
+        private Record current;
+
+        BulkRecordHandler(Iterator<Record> records) {
+            this.records = records;
+            for (int i = 1; i <= destinationColumns.length; i++) {
+                this.columnOrdinals.add(i);
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if ("next".equals(name)) {
+                if (!this.records.hasNext()) {
+                    return false;
+                }
+                this.current = this.records.next();
+                return true;
+            } else if ("getRowData".equals(name)) {
+                Object[] row = new Object[columnNumber];
+                for (int i = 0; i < columnNumber; i++) {
+                    row[i] = convert(i, this.current.getColumn(i));
+                }
+                return row;
+            } else if ("getColumnOrdinals".equals(name)) {
+                return this.columnOrdinals;
+            } else if ("getColumnName".equals(name)) {
+                return destinationColumns[(Integer) args[0] - 1];
+            } else if ("getColumnType".equals(name)) {
+                return resultSetMetaData.getMiddle().get((Integer) args[0] - 1);
+            } else if ("getPrecision".equals(name)) {
+                return precisions[(Integer) args[0] - 1];
+            } else if ("getScale".equals(name)) {
+                return scales[(Integer) args[0] - 1];
+            } else if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            } else if ("equals".equals(name)) {
+                return proxy == args[0];
+            } else if ("toString".equals(name)) {
+                return BulkRecordHandler.class.getName();
+            }
+            // isAutoIncrement 等其它方法按默认值处理
+            Class<?> returnType = method.getReturnType();
+            if (boolean.class == returnType) {
+                return false;
+            } else if (int.class == returnType) {
+                return 0;
+            }
+            return null;
+        }
+    }
+}
@@ -67,8 +67,12 @@ public class SqlServerWriter extends Writer {
         @Override
         public void init() {
             this.writerSliceConfig = super.getPluginJobConf();
-            this.commonRdbmsWriterTask = new CommonRdbmsWriter.Task(
-                    DATABASE_TYPE);
+            if (this.writerSliceConfig.getBool(Key.BULK_LOAD, false)) {
+                this.commonRdbmsWriterTask = new SqlServerBulkCopyWriterTask();
+            } else {
+                this.commonRdbmsWriterTask = new CommonRdbmsWriter.Task(
+                        DATABASE_TYPE);
+            }
             this.commonRdbmsWriterTask.init(this.writerSliceConfig);
         }
 
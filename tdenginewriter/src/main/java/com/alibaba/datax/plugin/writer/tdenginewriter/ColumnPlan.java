@@ -0,0 +1,80 @@
+package com.alibaba.datax.plugin.writer.tdenginewriter;
+
+import com.alibaba.datax.common.exception.DataXException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一张表在当前 column 配置下的写入计划，每张表只计算一次：
+ * tag 列和普通列（按表结构的顺序，只保留 column 中配置了的列）及其在 record 中的下标，
+ * 以及拼 sql 时使用的插入列清单。
+ */
+public class ColumnPlan {
+    final ColumnMeta[] tags;
+    final int[] tagIndexes;
+    // 非 tag 列，包括时间戳主键
+    final ColumnMeta[] fields;
+    final int[] fieldIndexes;
+    final ColumnMeta ts;
+    final int tsIndex;
+    final int tbnameIndex;
+    // (ts,f1,f2)
+    final String fieldList;
+
+    ColumnPlan(List<ColumnMeta> columnMetas, List<String> columns) {
+        Map<String, Integer> columnIndexes = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            columnIndexes.putIfAbsent(columns.get(i), i);
+        }
+
+        List<ColumnMeta> tagList = new ArrayList<>();
+        List<ColumnMeta> fieldList = new ArrayList<>();
+        ColumnMeta primaryKey = null;
+        for (ColumnMeta colMeta : columnMetas) {
+            if (colMeta.isPrimaryKey && primaryKey == null)
+                primaryKey = colMeta;
+            if (!columnIndexes.containsKey(colMeta.field))
+                continue;
+            if (colMeta.isTag)
+                tagList.add(colMeta);
+            else
+                fieldList.add(colMeta);
+        }
+
+        this.tags = tagList.toArray(new ColumnMeta[0]);
+        this.tagIndexes = new int[tags.length];
+        for (int i = 0; i < tags.length; i++)
+            this.tagIndexes[i] = columnIndexes.get(tags[i].field);
+
+        this.fields = fieldList.toArray(new ColumnMeta[0]);
+        this.fieldIndexes = new int[fields.length];
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < fields.length; i++) {
+            this.fieldIndexes[i] = columnIndexes.get(fields[i].field);
+            if (i > 0)
+                sb.append(",");
+            sb.append(fields[i].field);
+        }
+        this.fieldList = sb.append(")").toString();
+
+        this.ts = primaryKey;
+        Integer index = primaryKey == null ? null : columnIndexes.get(primaryKey.field);
+        this.tsIndex = index == null ? -1 : index;
+        index = columnIndexes.get("tbname");
+        this.tbnameIndex = index == null ? -1 : index;
+    }
+
+    boolean hasTbname() {
+        return tbnameIndex >= 0;
+    }
+
+    int tsIndex() throws DataXException {
+        if (tsIndex < 0)
+            throw DataXException.asDataXException(TDengineWriterErrorCode.RUNTIME_EXCEPTION,
+                    "cannot find timestamp col: " + (ts == null ? null : ts.field) + " in columns");
+        return tsIndex;
+    }
+}
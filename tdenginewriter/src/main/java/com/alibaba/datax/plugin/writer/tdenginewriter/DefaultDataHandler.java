@@ -16,7 +16,6 @@ import org.slf4j.LoggerFactory;
 import java.sql.*;
 import java.util.*;
 import java.util.Date;
-import java.util.stream.Collectors;
 
 public class DefaultDataHandler implements DataHandler {
     private static final Logger LOG = LoggerFactory.getLogger(DefaultDataHandler.class);
@@ -40,13 +39,25 @@ public class DefaultDataHandler implements DataHandler {
 
     public void setColumnMetas(Map<String, List<ColumnMeta>> columnMetas) {
         this.columnMetas = columnMetas;
+        this.columnPlans.clear();
     }
 
     public void setSchemaManager(SchemaManager schemaManager) {
         this.schemaManager = schemaManager;
+        this.timestampPrecision = null;
     }
 
     private Map<String, List<ColumnMeta>> columnMetas;
+    // table_name -> column_plan, 每张表第一次写入时计算
+    private final Map<String, ColumnPlan> columnPlans = new HashMap<>();
+    private TimestampPrecision timestampPrecision;
+
+    // 以下缓冲在批次间复用
+    private final StringBuilder sqlBuilder = new StringBuilder();
+    private final StringBuilder lineBuilder = new StringBuilder();
+    private final List<String> schemalessLines = new ArrayList<>();
+    private SchemalessWriter schemalessWriter;
+    private Connection schemalessConnection;
 
     static {
         try {
@@ -150,90 +161,78 @@ public class DefaultDataHandler implements DataHandler {
         int affectedRows = 0;
         for (String table : tables) {
             TableMeta tableMeta = tableMetas.get(table);
+            ColumnPlan plan = planOf(table);
             switch (tableMeta.tableType) {
                 case SUP_TABLE: {
-                    if (columns.contains("tbname"))
-                        affectedRows += writeBatchToSupTableBySQL(conn, table, recordBatch);
+                    if (plan.hasTbname())
+                        affectedRows += writeBatchToSupTableBySQL(conn, table, plan, recordBatch);
                     else
-                        affectedRows += writeBatchToSupTableBySchemaless(conn, table, recordBatch);
+                        affectedRows += writeBatchToSupTableBySchemaless(conn, table, plan, recordBatch);
                 }
                 break;
                 case SUB_TABLE:
-                    affectedRows += writeBatchToSubTable(conn, table, recordBatch);
+                    affectedRows += writeBatchToSubTable(conn, table, plan, recordBatch);
                     break;
                 case NML_TABLE:
                 default:
-                    affectedRows += writeBatchToNormalTable(conn, table, recordBatch);
+                    affectedRows += writeBatchToNormalTable(conn, table, plan, recordBatch);
             }
         }
         return affectedRows;
     }
 
+    private ColumnPlan planOf(String table) {
+        ColumnPlan plan = columnPlans.get(table);
+        if (plan == null) {
+            plan = new ColumnPlan(this.columnMetas.get(table), columns);
+            columnPlans.put(table, plan);
+        }
+        return plan;
+    }
+
+    private TimestampPrecision timestampPrecision() {
+        if (timestampPrecision == null)
+            timestampPrecision = schemaManager.loadDatabasePrecision();
+        return timestampPrecision;
+    }
+
     /**
-     * insert into record[idx(tbname)] using table tags(record[idx(t1)]) (ts, f1, f2, f3) values(record[idx(ts)], record[idx(f1)], )
-     * record[idx(tbname)] using table tags(record[idx(t1)]) (ts, f1, f2, f3) values(record[idx(ts)], record[idx(f1)], )
-     * record[idx(tbname)] using table tags(record[idx(t1)]) (ts, f1, f2, f3) values(record[idx(ts)], record[idx(f1)], )
+     * 同一子表的记录合并到一个子句中，tags 取该子表第一条记录的值（只在自动建表时生效）:
+     * insert into tb1 using table tags(record[idx(t1)]) (ts, f1, f2, f3) values(record[idx(ts)], record[idx(f1)], )(...)
+     * tb2 using table tags(record[idx(t1)]) (ts, f1, f2, f3) values(record[idx(ts)], record[idx(f1)], )
      */
-    private int writeBatchToSupTableBySQL(Connection conn, String table, List<Record> recordBatch) throws Exception {
-        List<ColumnMeta> columnMetas = this.columnMetas.get(table);
-
-        StringBuilder sb = new StringBuilder("insert into");
+    private int writeBatchToSupTableBySQL(Connection conn, String table, ColumnPlan plan, List<Record> recordBatch) throws Exception {
+        Map<String, List<Record>> subTables = new LinkedHashMap<>();
         for (Record record : recordBatch) {
-            sb.append(" ").append(record.getColumn(indexOf("tbname")).asString())
+            String tbname = record.getColumn(plan.tbnameIndex).asString();
+            List<Record> records = subTables.get(tbname);
+            if (records == null) {
+                records = new ArrayList<>();
+                subTables.put(tbname, records);
+            }
+            records.add(record);
+        }
+
+        StringBuilder sb = resetSqlBuilder();
+        sb.append("insert into");
+        for (Map.Entry<String, List<Record>> entry : subTables.entrySet()) {
+            sb.append(" ").append(entry.getKey())
                     .append(" using ").append(table)
                     .append(" tags");
-//            sb.append(columnMetas.stream().filter(colMeta -> columns.contains(colMeta.field)).filter(colMeta -> {
-//                return colMeta.isTag;
-//            }).map(colMeta -> {
-//                return buildColumnValue(colMeta, record);
-//            }).collect(Collectors.joining(",", "(", ")")));
-            sb.append("(");
-            for (int i = 0; i < columns.size(); i++) {
-                ColumnMeta colMeta = columnMetas.get(i);
-                if (!columns.contains(colMeta.field))
-                    continue;
-                if (!colMeta.isTag)
-                    continue;
-                String tagValue = buildColumnValue(colMeta, record);
-                if (i == 0) {
-                    sb.append(tagValue);
-                } else {
-                    sb.append(",").append(tagValue);
-                }
-            }
-            sb.append(")");
-
-            sb.append(" ").append(columnMetas.stream().filter(colMeta -> columns.contains(colMeta.field)).filter(colMeta -> {
-                        return !colMeta.isTag;
-                    }).map(colMeta -> {
-                        return colMeta.field;
-                    }).collect(Collectors.joining(",", "(", ")")))
-                    .append(" values");
-
-//            sb.append(columnMetas.stream().filter(colMeta -> columns.contains(colMeta.field)).filter(colMeta -> {
-//                return !colMeta.isTag;
-//            }).map(colMeta -> {
-//                return buildColumnValue(colMeta, record);
-//            }).collect(Collectors.joining(",", "(", ")")));
-            sb.append("(");
-            for (int i = 0; i < columnMetas.size(); i++) {
-                ColumnMeta colMeta = columnMetas.get(i);
-                if (!columns.contains(colMeta.field))
-                    continue;
-                if (colMeta.isTag)
-                    continue;
-                String colValue = buildColumnValue(colMeta, record);
-                if (i == 0) {
-                    sb.append(colValue);
-                } else {
-                    sb.append(",").append(colValue);
-                }
+            appendValues(sb, plan.tags, plan.tagIndexes, entry.getValue().get(0));
+            sb.append(" ").append(plan.fieldList).append(" values");
+            for (Record record : entry.getValue()) {
+                appendValues(sb, plan.fields, plan.fieldIndexes, record);
             }
-            sb.append(")");
         }
-        String sql = sb.toString();
 
-        return executeUpdate(conn, sql);
+        return executeUpdate(conn, sb.toString());
+    }
+
+    private StringBuilder resetSqlBuilder() {
+        // 复用同一个 StringBuilder，避免每个批次重新扩容
+        sqlBuilder.setLength(0);
+        return sqlBuilder;
     }
 
     private int executeUpdate(Connection conn, String sql) throws SQLException {
@@ -245,38 +244,61 @@ public class DefaultDataHandler implements DataHandler {
         return count;
     }
 
-    private String buildColumnValue(ColumnMeta colMeta, Record record) throws Exception {
-        Column column = record.getColumn(indexOf(colMeta.field));
-        TimestampPrecision timestampPrecision = schemaManager.loadDatabasePrecision();
+    /**
+     * (v1,v2,v3)
+     */
+    private void appendValues(StringBuilder sb, ColumnMeta[] colMetas, int[] indexes, Record record) throws Exception {
+        sb.append("(");
+        for (int i = 0; i < colMetas.length; i++) {
+            if (i > 0)
+                sb.append(",");
+            appendColumnValue(sb, colMetas[i], record.getColumn(indexes[i]));
+        }
+        sb.append(")");
+    }
+
+    private void appendColumnValue(StringBuilder sb, ColumnMeta colMeta, Column column) throws Exception {
         Column.Type type = column.getType();
+        if (column.getRawData() == null) {
+            sb.append("NULL");
+            return;
+        }
         switch (type) {
             case DATE: {
                 Date value = column.asDate();
-                switch (timestampPrecision) {
+                switch (timestampPrecision()) {
                     case MILLISEC:
-                        return "" + (value.getTime());
+                        sb.append(value.getTime());
+                        return;
                     case MICROSEC:
-                        return "" + (value.getTime() * 1000);
+                        sb.append(value.getTime() * 1000);
+                        return;
                     case NANOSEC:
-                        return "" + (value.getTime() * 1000_000);
+                        sb.append(value.getTime() * 1000_000);
+                        return;
                     default:
-                        return "'" + column.asString() + "'";
+                        sb.append("'").append(column.asString()).append("'");
+                        return;
                 }
             }
             case BYTES:
             case STRING:
-                if (colMeta.type.equals("TIMESTAMP"))
-                    return "\"" + column.asString() + "\"";
-                String value = column.asString();
-                return "\'" + Utils.escapeSingleQuota(value) + "\'";
+                if (colMeta.type.equals("TIMESTAMP")) {
+                    sb.append("\"").append(column.asString()).append("\"");
+                    return;
+                }
+                sb.append("'").append(Utils.escapeSingleQuota(column.asString())).append("'");
+                return;
             case NULL:
             case BAD:
-                return "NULL";
+                sb.append("NULL");
+                return;
             case BOOL:
             case DOUBLE:
             case INT:
             case LONG:
-                column.asString();
+                sb.append(column.asString());
+                return;
             default:
                 throw new Exception("invalid column type: " + type);
         }
@@ -286,35 +308,40 @@ public class DefaultDataHandler implements DataHandler {
      * table: ["stb1"], column: ["ts", "f1", "f2", "t1"]
      * data: [ts, f1, f2, f3, t1, t2] tbColumn: [ts, f1, f2, t1] => schemaless: stb1,t1=t1 f1=f1,f2=f2 ts
      */
-    private int writeBatchToSupTableBySchemaless(Connection conn, String table, List<Record> recordBatch) throws SQLException {
+    private int writeBatchToSupTableBySchemaless(Connection conn, String table, ColumnPlan plan, List<Record> recordBatch) throws SQLException {
         int count = 0;
-        TimestampPrecision timestampPrecision = schemaManager.loadDatabasePrecision();
-
-        List<ColumnMeta> columnMetaList = this.columnMetas.get(table);
-        ColumnMeta ts = columnMetaList.stream().filter(colMeta -> colMeta.isPrimaryKey).findFirst().get();
+        TimestampPrecision timestampPrecision = timestampPrecision();
+        int tsIndex = plan.tsIndex();
 
-        List<String> lines = new ArrayList<>();
+        List<String> lines = this.schemalessLines;
+        lines.clear();
+        StringBuilder sb = this.lineBuilder;
         for (Record record : recordBatch) {
-            StringBuilder sb = new StringBuilder();
-            sb.append(table).append(",")
-                    .append(columnMetaList.stream().filter(colMeta -> columns.contains(colMeta.field)).filter(colMeta -> {
-                        return colMeta.isTag;
-                    }).map(colMeta -> {
-                        String value = record.getColumn(indexOf(colMeta.field)).asString();
-                        if (value.contains(" "))
-                            value = value.replace(" ", "\\ ");
-                        return colMeta.field + "=" + value;
-                    }).collect(Collectors.joining(",")))
-                    .append(" ")
-                    .append(columnMetaList.stream().filter(colMeta -> columns.contains(colMeta.field)).filter(colMeta -> {
-                        return !colMeta.isTag && !colMeta.isPrimaryKey;
-                    }).map(colMeta -> {
-                        return colMeta.field + "=" + buildSchemalessColumnValue(colMeta, record);
-//                        return colMeta.field + "=" + record.getColumn(indexOf(colMeta.field)).asString();
-                    }).collect(Collectors.joining(",")))
-                    .append(" ");
+            sb.setLength(0);
+            sb.append(table).append(",");
+            for (int i = 0; i < plan.tags.length; i++) {
+                if (i > 0)
+                    sb.append(",");
+                String value = record.getColumn(plan.tagIndexes[i]).asString();
+                if (value.contains(" "))
+                    value = value.replace(" ", "\\ ");
+                sb.append(plan.tags[i].field).append("=").append(value);
+            }
+            sb.append(" ");
+            boolean first = true;
+            for (int i = 0; i < plan.fields.length; i++) {
+                ColumnMeta colMeta = plan.fields[i];
+                if (colMeta.isPrimaryKey)
+                    continue;
+                if (!first)
+                    sb.append(",");
+                first = false;
+                sb.append(colMeta.field).append("=");
+                appendSchemalessColumnValue(sb, colMeta, record.getColumn(plan.fieldIndexes[i]));
+            }
+            sb.append(" ");
             // timestamp
-            Column column = record.getColumn(indexOf(ts.field));
+            Column column = record.getColumn(tsIndex);
             Object tsValue = column.getRawData();
             if (column.getType() == Column.Type.DATE && tsValue instanceof Date) {
                 long time = column.asDate().getTime();
@@ -340,7 +367,10 @@ public class DefaultDataHandler implements DataHandler {
             count++;
         }
 
-        SchemalessWriter writer = new SchemalessWriter(conn);
+        if (schemalessWriter == null || schemalessConnection != conn) {
+            schemalessWriter = new SchemalessWriter(conn);
+            schemalessConnection = conn;
+        }
         SchemalessTimestampType timestampType;
         switch (timestampPrecision) {
             case NANOSEC:
@@ -356,16 +386,19 @@ public class DefaultDataHandler implements DataHandler {
                 timestampType = SchemalessTimestampType.NOT_CONFIGURED;
         }
 
-        writer.write(lines, SchemalessProtocolType.LINE, timestampType);
+        try {
+            schemalessWriter.write(lines, SchemalessProtocolType.LINE, timestampType);
+        } finally {
+            lines.clear();
+        }
 
         LOG.warn("schemalessWriter does not return affected rows!");
         return count;
     }
 
     private long dateAsLong(Column column) {
-        TimestampPrecision timestampPrecision = schemaManager.loadDatabasePrecision();
         long time = column.asDate().getTime();
-        switch (timestampPrecision) {
+        switch (timestampPrecision()) {
             case NANOSEC:
                 return time * 1000000;
             case MICROSEC:
@@ -376,46 +409,69 @@ public class DefaultDataHandler implements DataHandler {
         }
     }
 
-    private String buildSchemalessColumnValue(ColumnMeta colMeta, Record record) {
-        Column column = record.getColumn(indexOf(colMeta.field));
+    private void appendSchemalessColumnValue(StringBuilder sb, ColumnMeta colMeta, Column column) {
         switch (column.getType()) {
             case DATE:
-                if (colMeta.type.equals("TIMESTAMP"))
-                    return dateAsLong(column) + "i64";
-                return "L'" + column.asString() + "'";
+                if (colMeta.type.equals("TIMESTAMP")) {
+                    sb.append(dateAsLong(column)).append("i64");
+                    return;
+                }
+                sb.append("L'").append(column.asString()).append("'");
+                return;
             case NULL:
             case BAD:
-                return "NULL";
+                sb.append("NULL");
+                return;
             case DOUBLE: {
-                if (colMeta.type.equals("FLOAT"))
-                    return column.asString() + "f32";
-                if (colMeta.type.equals("DOUBLE"))
-                    return column.asString() + "f64";
+                if (colMeta.type.equals("FLOAT")) {
+                    sb.append(column.asString()).append("f32");
+                    return;
+                }
+                if (colMeta.type.equals("DOUBLE")) {
+                    sb.append(column.asString()).append("f64");
+                    return;
+                }
             }
             case INT:
             case LONG: {
-                if (colMeta.type.equals("TINYINT"))
-                    return column.asString() + "i8";
-                if (colMeta.type.equals("SMALLINT"))
-                    return column.asString() + "i16";
-                if (colMeta.type.equals("INT"))
-                    return column.asString() + "i32";
-                if (colMeta.type.equals("BIGINT"))
-                    return column.asString() + "i64";
+                String suffix = integerSuffix(colMeta.type);
+                if (suffix != null) {
+                    sb.append(column.asString()).append(suffix);
+                    return;
+                }
             }
             case BYTES:
             case STRING:
-                if (colMeta.type.equals("TIMESTAMP"))
-                    return column.asString() + "i64";
-                String value = column.asString();
-                value = value.replace("\"", "\\\"");
-                if (colMeta.type.startsWith("BINARY"))
-                    return "\"" + value + "\"";
-                if (colMeta.type.startsWith("NCHAR"))
-                    return "L\"" + value + "\"";
+                if (colMeta.type.equals("TIMESTAMP")) {
+                    sb.append(column.asString()).append("i64");
+                    return;
+                }
+                if (colMeta.type.startsWith("BINARY")) {
+                    sb.append("\"").append(column.asString().replace("\"", "\\\"")).append("\"");
+                    return;
+                }
+                if (colMeta.type.startsWith("NCHAR")) {
+                    sb.append("L\"").append(column.asString().replace("\"", "\\\"")).append("\"");
+                    return;
+                }
             case BOOL:
             default:
-                return column.asString();
+                sb.append(column.asString());
+        }
+    }
+
+    private static String integerSuffix(String type) {
+        switch (type) {
+            case "TINYINT":
+                return "i8";
+            case "SMALLINT":
+                return "i16";
+            case "INT":
+                return "i32";
+            case "BIGINT":
+                return "i64";
+            default:
+                return null;
         }
     }
 
@@ -426,52 +482,20 @@ public class DefaultDataHandler implements DataHandler {
      * else
      * insert into tb1 (ts, f1, f2) values( record[idx(ts)], record[idx(f1)], record[idx(f2)])
      */
-    private int writeBatchToSubTable(Connection conn, String table, List<Record> recordBatch) throws Exception {
-        List<ColumnMeta> columnMetas = this.columnMetas.get(table);
-
-        StringBuilder sb = new StringBuilder();
+    private int writeBatchToSubTable(Connection conn, String table, ColumnPlan plan, List<Record> recordBatch) throws Exception {
+        StringBuilder sb = resetSqlBuilder();
         sb.append("insert into ").append(table).append(" ")
-                .append(columnMetas.stream().filter(colMeta -> columns.contains(colMeta.field)).filter(colMeta -> {
-                    return !colMeta.isTag;
-                }).map(colMeta -> {
-                    return colMeta.field;
-                }).collect(Collectors.joining(",", "(", ")")))
+                .append(plan.fieldList)
                 .append(" values");
         int validRecords = 0;
         for (Record record : recordBatch) {
-            if (columns.contains("tbname") && !table.equals(record.getColumn(indexOf("tbname")).asString()))
+            if (plan.hasTbname() && !table.equals(record.getColumn(plan.tbnameIndex).asString()))
                 continue;
 
-            boolean tagsAllMatch = columnMetas.stream().filter(colMeta -> columns.contains(colMeta.field)).filter(colMeta -> {
-                return colMeta.isTag;
-            }).allMatch(colMeta -> {
-                Column column = record.getColumn(indexOf(colMeta.field));
-                boolean equals = equals(column, colMeta);
-                return equals;
-            });
-
-            if (ignoreTagsUnmatched && !tagsAllMatch)
+            if (ignoreTagsUnmatched && !tagsAllMatch(plan, record))
                 continue;
 
-//            sb.append(columnMetas.stream().filter(colMeta -> columns.contains(colMeta.field)).filter(colMeta -> {
-//                return !colMeta.isTag;
-//            }).map(colMeta -> {
-//                return buildColumnValue(colMeta, record);
-//            }).collect(Collectors.joining(", ", "(", ") ")));
-            sb.append("(");
-            for (int i = 0; i < columnMetas.size(); i++) {
-                ColumnMeta colMeta = columnMetas.get(i);
-                if (colMeta.isTag)
-                    continue;
-                String colValue = buildColumnValue(colMeta, record);
-                if (i == 0) {
-                    sb.append(colValue);
-                } else {
-                    sb.append(",").append(colValue);
-                }
-            }
-            sb.append(")");
-
+            appendValues(sb, plan.fields, plan.fieldIndexes, record);
             validRecords++;
         }
 
@@ -480,8 +504,15 @@ public class DefaultDataHandler implements DataHandler {
             return 0;
         }
 
-        String sql = sb.toString();
-        return executeUpdate(conn, sql);
+        return executeUpdate(conn, sb.toString());
+    }
+
+    private boolean tagsAllMatch(ColumnPlan plan, Record record) {
+        for (int i = 0; i < plan.tags.length; i++) {
+            if (!equals(record.getColumn(plan.tagIndexes[i]), plan.tags[i]))
+                return false;
+        }
+        return true;
     }
 
     private boolean equals(Column column, ColumnMeta colMeta) {
@@ -510,47 +541,18 @@ public class DefaultDataHandler implements DataHandler {
      * table: ["weather"], column: ["ts, f1, f2, f3, t1, t2"]
      * sql: insert into weather (ts, f1, f2, f3, t1, t2) values( record[idx(ts), record[idx(f1)], ...)
      */
-    private int writeBatchToNormalTable(Connection conn, String table, List<Record> recordBatch) throws Exception {
-        List<ColumnMeta> columnMetas = this.columnMetas.get(table);
-
-        StringBuilder sb = new StringBuilder();
+    private int writeBatchToNormalTable(Connection conn, String table, ColumnPlan plan, List<Record> recordBatch) throws Exception {
+        StringBuilder sb = resetSqlBuilder();
         sb.append("insert into ").append(table)
                 .append(" ")
-                .append(columnMetas.stream().filter(colMeta -> columns.contains(colMeta.field)).map(colMeta -> {
-                    return colMeta.field;
-                }).collect(Collectors.joining(",", "(", ")")))
+                .append(plan.fieldList)
                 .append(" values ");
 
         for (Record record : recordBatch) {
-//            sb.append(columnMetas.stream().filter(colMeta -> columns.contains(colMeta.field)).map(colMeta -> {
-//                return buildColumnValue(colMeta, record);
-//            }).collect(Collectors.joining(",", "(", ")")));
-            sb.append("(");
-            for (int i = 0; i < columnMetas.size(); i++) {
-                ColumnMeta colMeta = columnMetas.get(i);
-                if (!columns.contains(colMeta.field))
-                    continue;
-                String colValue = buildColumnValue(colMeta, record);
-                if (i == 0) {
-                    sb.append(colValue);
-                } else {
-                    sb.append(",").append(colValue);
-                }
-            }
-            sb.append(")");
+            appendValues(sb, plan.fields, plan.fieldIndexes, record);
         }
 
-        String sql = sb.toString();
-        return executeUpdate(conn, sql);
-    }
-
-    private int indexOf(String colName) throws DataXException {
-        for (int i = 0; i < columns.size(); i++) {
-            if (columns.get(i).equals(colName))
-                return i;
-        }
-        throw DataXException.asDataXException(TDengineWriterErrorCode.RUNTIME_EXCEPTION,
-                "cannot find col: " + colName + " in columns: " + columns);
+        return executeUpdate(conn, sb.toString());
     }
 
-}
\ No newline at end of file
+}
@@ -4,6 +4,7 @@ import com.alibaba.datax.common.exception.DataXException;
 import com.alibaba.datax.common.plugin.RecordReceiver;
 import com.alibaba.datax.common.spi.Writer;
 import com.alibaba.datax.common.util.Configuration;
+import com.alibaba.datax.plugin.unstructuredstorage.writer.FileRollingPolicy;
 import com.alibaba.datax.plugin.unstructuredstorage.writer.UnstructuredStorageWriterUtil;
 
 import org.apache.commons.io.FileUtils;
@@ -287,6 +288,12 @@ public class TxtFileWriter extends Writer {
             String fileFullPath = this.buildFilePath();
             LOG.info(String.format("write to file : [%s]", fileFullPath));
 
+            if (FileRollingPolicy.isEnabled(this.writerSliceConfig)) {
+                this.startRollingWrite(lineReceiver, fileFullPath);
+                LOG.info("end do write");
+                return;
+            }
+
             OutputStream outputStream = null;
             try {
                 File newFile = new File(fileFullPath);
@@ -309,6 +316,29 @@ public class TxtFileWriter extends Writer {
             LOG.info("end do write");
         }
 
+        /**
+         * 配置了maxFileSize/maxRecordsPerFile时，写满一个文件后依次写 fileName_1, fileName_2 ...
+         */
+        private void startRollingWrite(RecordReceiver lineReceiver, final String fileFullPath) {
+            try {
+                UnstructuredStorageWriterUtil.writeToRollingStreams(lineReceiver,
+                        new UnstructuredStorageWriterUtil.RollingOutputStreamProvider() {
+                            @Override
+                            public OutputStream open(int rollingNumber) throws IOException {
+                                String rollingFilePath = FileRollingPolicy.rollingFileName(fileFullPath, rollingNumber);
+                                LOG.info(String.format("write to file : [%s]", rollingFilePath));
+                                File newFile = new File(rollingFilePath);
+                                newFile.createNewFile();
+                                return new FileOutputStream(newFile);
+                            }
+                        }, this.writerSliceConfig, this.fileName, this.getTaskPluginCollector());
+            } catch (SecurityException se) {
+                throw DataXException.asDataXException(
+                        TxtFileWriterErrorCode.SECURITY_NOT_ENOUGH,
+                        String.format("您没有权限创建文件  : [%s]", this.fileName));
+            }
+        }
+
         private String buildFilePath() {
             boolean isEndWithSeparator = false;
             switch (IOUtils.DIR_SEPARATOR) {